@@ -1,6 +1,7 @@
 package edu.jhuapl.sbmt.dem;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.common.collect.ImmutableList;
@@ -21,14 +22,26 @@ public class DemCatalog
 	// Attributes
 	private final Source source;
 
-	private final ImmutableList<DemStruct> structL;
+	private final List<DemStruct> structL;
 	private final String displayName;
 	private final boolean isEditable;
 
 	private final File cacheDir;
 
-	/** Standard Constructor */
-	public DemCatalog(Source aSource, List<DemStruct> aStructL, String aDisplayName, boolean aIsEditable, File aCacheDir)
+	private final DemSpatialIndex<DemStruct> spatialIndex;
+
+	/**
+	 * Standard Constructor
+	 * <p>
+	 * A {@link DemSpatialIndex} over the footprints of the {@link Dem}s is
+	 * built.
+	 *
+	 * @param aBodyRadius The (approximate) radius of the body (km). This is used
+	 * to determine the angular size of the footprints. If not valid then the
+	 * footprints are treated as points.
+	 */
+	public DemCatalog(Source aSource, List<DemStruct> aStructL, String aDisplayName, boolean aIsEditable, File aCacheDir,
+			double aBodyRadius)
 	{
 		source = aSource;
 
@@ -37,6 +50,35 @@ public class DemCatalog
 		isEditable = aIsEditable;
 
 		cacheDir = aCacheDir;
+
+		spatialIndex = new DemSpatialIndex<>(structL, aItem -> aItem.dem, aBodyRadius);
+	}
+
+	/**
+	 * Standard Constructor
+	 * <p>
+	 * The provided list and {@link DemSpatialIndex} are used as is - thus the
+	 * list is not copied and the index is not rebuilt. The list should not
+	 * change and the index should be over the list.
+	 */
+	public DemCatalog(Source aSource, List<DemStruct> aStructL, DemSpatialIndex<DemStruct> aSpatialIndex,
+			String aDisplayName, boolean aIsEditable, File aCacheDir)
+	{
+		source = aSource;
+
+		structL = Collections.unmodifiableList(aStructL);
+		displayName = aDisplayName;
+		isEditable = aIsEditable;
+
+		cacheDir = aCacheDir;
+
+		spatialIndex = aSpatialIndex;
+	}
+
+	/** Simplified Constructor: Footprints are treated as points. */
+	public DemCatalog(Source aSource, List<DemStruct> aStructL, String aDisplayName, boolean aIsEditable, File aCacheDir)
+	{
+		this(aSource, aStructL, aDisplayName, aIsEditable, aCacheDir, Double.NaN);
 	}
 
 	/**
@@ -85,9 +127,42 @@ public class DemCatalog
 	 * Returns the list of {@link DemStruct}s associated with this
 	 * {@link DemCatalog}.
 	 */
-	public ImmutableList<DemStruct> getStructs()
+	public List<DemStruct> getStructs()
 	{
 		return structL;
 	}
 
+	/**
+	 * Returns the list of {@link DemStruct}s whose footprint contains the
+	 * specified point.
+	 * <p>
+	 * See {@link DemSpatialIndex#getItemsAt(double, double)}.
+	 */
+	public List<DemStruct> getStructsAt(double aLat, double aLon)
+	{
+		return spatialIndex.getItemsAt(aLat, aLon);
+	}
+
+	/**
+	 * Returns the list of {@link DemStruct}s whose footprint overlaps the
+	 * specified lat/lon box.
+	 * <p>
+	 * See {@link DemSpatialIndex#getItemsIn(double, double, double, double)}.
+	 */
+	public List<DemStruct> getStructsIn(double aMinLat, double aMaxLat, double aMinLon, double aMaxLon)
+	{
+		return spatialIndex.getItemsIn(aMinLat, aMaxLat, aMinLon, aMaxLon);
+	}
+
+	/**
+	 * Returns the list of {@link DemStruct}s whose footprint is within the
+	 * specified distance (km) of the specified point.
+	 * <p>
+	 * See {@link DemSpatialIndex#getItemsNear(double, double, double)}.
+	 */
+	public List<DemStruct> getStructsNear(double aLat, double aLon, double aRadius)
+	{
+		return spatialIndex.getItemsNear(aLat, aLon, aRadius);
+	}
+
 }
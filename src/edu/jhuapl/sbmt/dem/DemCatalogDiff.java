@@ -0,0 +1,125 @@
+package edu.jhuapl.sbmt.dem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable object that defines the difference between 2 versions of a
+ * catalog of {@link DemStruct}s.
+ * <p>
+ * An item is considered unchanged if an item with the same (source) path and
+ * catalog geometry is present in both versions. The instance from the old
+ * version is retained for unchanged items - thus installing the merged list
+ * via {@link DemManager#setAllStructs(Collection)} keeps the painters, loaded
+ * surfaces and configurations of the unchanged items.
+ *
+ * @author lopeznr1
+ */
+public class DemCatalogDiff
+{
+	// Attributes
+	private final ImmutableList<DemStruct> addL;
+	private final ImmutableList<DemStruct> delL;
+	private final ImmutableList<DemStruct> mergeL;
+
+	/** Standard Constructor */
+	private DemCatalogDiff(List<DemStruct> aAddL, List<DemStruct> aDelL, List<DemStruct> aMergeL)
+	{
+		addL = ImmutableList.copyOf(aAddL);
+		delL = ImmutableList.copyOf(aDelL);
+		mergeL = ImmutableList.copyOf(aMergeL);
+	}
+
+	/**
+	 * Utility method that returns the difference between the specified old and
+	 * new versions of a catalog.
+	 */
+	public static DemCatalogDiff of(Collection<DemStruct> aOldC, Collection<DemStruct> aNewC)
+	{
+		// Index the old version by path
+		Map<String, DemStruct> oldM = new HashMap<>();
+		for (DemStruct aItem : aOldC)
+			oldM.put(aItem.dem.getSource().getPath(), aItem);
+
+		List<DemStruct> addL = new ArrayList<>();
+		List<DemStruct> mergeL = new ArrayList<>();
+		for (DemStruct aItem : aNewC)
+		{
+			// Keep the old instance if unchanged
+			DemStruct oldItem = oldM.get(aItem.dem.getSource().getPath());
+			if (oldItem != null && isSameGeometry(oldItem.dem, aItem.dem) == true)
+			{
+				oldM.remove(aItem.dem.getSource().getPath());
+				mergeL.add(oldItem);
+				continue;
+			}
+
+			addL.add(aItem);
+			mergeL.add(aItem);
+		}
+
+		// Items of the old version that were not retained have been removed
+		List<DemStruct> delL = new ArrayList<>();
+		for (DemStruct aItem : aOldC)
+		{
+			if (oldM.get(aItem.dem.getSource().getPath()) == aItem)
+				delL.add(aItem);
+		}
+
+		return new DemCatalogDiff(addL, delL, mergeL);
+	}
+
+	/**
+	 * Returns the items that were added (or changed) in the new version.
+	 */
+	public ImmutableList<DemStruct> getAddedItems()
+	{
+		return addL;
+	}
+
+	/**
+	 * Returns the items of the old version that were removed (or changed).
+	 */
+	public ImmutableList<DemStruct> getRemovedItems()
+	{
+		return delL;
+	}
+
+	/**
+	 * Returns the items of the new version (in order). Unchanged items are the
+	 * instances from the old version.
+	 */
+	public ImmutableList<DemStruct> getMergedItems()
+	{
+		return mergeL;
+	}
+
+	/**
+	 * Returns true if there are no differences between the 2 versions.
+	 */
+	public boolean isEmpty()
+	{
+		return addL.isEmpty() == true && delL.isEmpty() == true;
+	}
+
+	/**
+	 * Utility helper method that returns true if the catalog geometry of the
+	 * specified {@link Dem}s is the same.
+	 * <p>
+	 * Note (undefined) NaN values are considered equal.
+	 */
+	private static boolean isSameGeometry(Dem aItem1, Dem aItem2)
+	{
+		return Objects.equals(aItem1.getLat(), aItem2.getLat()) == true
+				&& Objects.equals(aItem1.getLon(), aItem2.getLon()) == true
+				&& Objects.equals(aItem1.getGsd(), aItem2.getGsd()) == true
+				&& Objects.equals(aItem1.getNumPixels(), aItem2.getNumPixels()) == true;
+	}
+
+}
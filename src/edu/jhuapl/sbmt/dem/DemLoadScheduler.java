@@ -0,0 +1,340 @@
+package edu.jhuapl.sbmt.dem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class that schedules the (asynchronous) loads of items by explicit
+ * {@link Priority}.
+ * <p>
+ * A load is composed of work submitted to one of two {@link Slot}s: network
+ * bound (download) work and CPU bound (parse) work. Each slot is served by a
+ * dedicated pool of threads and has a separate (configurable) limit on the
+ * number of concurrently running jobs. Thus many downloads may be in flight
+ * while the parses keep the processors busy - a slow download never occupies
+ * a parse slot. Queued jobs are dispatched in priority order and, within a
+ * priority, in submission order.
+ * <p>
+ * The priority of an item may be changed at any time (via
+ * {@link #setPriority(Object, Priority)}). Jobs that are already queued are
+ * reordered immediately - jobs that are running are not affected.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author lopeznr1
+ */
+public class DemLoadScheduler<G>
+{
+	// Attributes
+	private final Map<Slot, ExecutorService> executorM;
+
+	// State vars
+	private final Map<Slot, PriorityQueue<Job>> queueM;
+	private final Map<Slot, Integer> limitM;
+	private final Map<Slot, Integer> activeM;
+	private final Map<G, Priority> priorityM;
+	private long nextSeq;
+	private boolean isShutdown;
+
+	/**
+	 * Standard Constructor
+	 *
+	 * @param aNumDownloadSlots The max number of concurrent download jobs.
+	 * @param aNumParseSlots The max number of concurrent parse jobs.
+	 */
+	public DemLoadScheduler(int aNumDownloadSlots, int aNumParseSlots)
+	{
+		executorM = new EnumMap<>(Slot.class);
+		for (Slot aSlot : Slot.values())
+		{
+			AtomicInteger threadCnt = new AtomicInteger();
+			executorM.put(aSlot, Executors.newCachedThreadPool(aRunnable -> {
+				String tmpName = "DemLoadScheduler-" + aSlot + ": " + threadCnt.incrementAndGet();
+				Thread retThread = new Thread(aRunnable, tmpName);
+				retThread.setDaemon(true);
+				return retThread;
+			}));
+		}
+
+		Comparator<Job> tmpComparator = Comparator.comparing((Job aJob) -> aJob.priority)
+				.thenComparingLong(aJob -> aJob.seq);
+		queueM = new EnumMap<>(Slot.class);
+		limitM = new EnumMap<>(Slot.class);
+		activeM = new EnumMap<>(Slot.class);
+		for (Slot aSlot : Slot.values())
+		{
+			queueM.put(aSlot, new PriorityQueue<>(tmpComparator));
+			activeM.put(aSlot, 0);
+		}
+		limitM.put(Slot.Download, checkLimit(aNumDownloadSlots));
+		limitM.put(Slot.Parse, checkLimit(aNumParseSlots));
+
+		priorityM = new HashMap<>();
+		nextSeq = 0L;
+		isShutdown = false;
+	}
+
+	/**
+	 * Returns the max number of concurrent jobs for the specified {@link Slot}.
+	 */
+	public synchronized int getLimit(Slot aSlot)
+	{
+		return limitM.get(aSlot);
+	}
+
+	/**
+	 * Returns the number of jobs currently running in the specified
+	 * {@link Slot}.
+	 */
+	public synchronized int getNumActive(Slot aSlot)
+	{
+		return activeM.get(aSlot);
+	}
+
+	/**
+	 * Returns the {@link Priority} associated with the specified item.
+	 * <p>
+	 * Items with no explicit priority default to {@link Priority#Prefetch}.
+	 */
+	public synchronized Priority getPriority(G aItem)
+	{
+		return priorityM.getOrDefault(aItem, Priority.Prefetch);
+	}
+
+	/**
+	 * Returns the number of jobs (across all {@link Slot}s) waiting to run.
+	 */
+	public synchronized int getQueueDepth()
+	{
+		int retCnt = 0;
+		for (PriorityQueue<Job> aQueue : queueM.values())
+			retCnt += aQueue.size();
+
+		return retCnt;
+	}
+
+	/**
+	 * Returns the number of jobs waiting to run in the specified {@link Slot}.
+	 */
+	public synchronized int getQueueDepth(Slot aSlot)
+	{
+		return queueM.get(aSlot).size();
+	}
+
+	/**
+	 * Returns the list of items that have jobs waiting to run.
+	 */
+	public synchronized List<G> getQueuedItems()
+	{
+		List<G> retItemL = new ArrayList<>();
+		for (PriorityQueue<Job> aQueue : queueM.values())
+		{
+			for (Job aJob : aQueue)
+			{
+				if (retItemL.contains(aJob.item) == false)
+					retItemL.add(aJob.item);
+			}
+		}
+
+		return retItemL;
+	}
+
+	/**
+	 * Removes all of the (queued) jobs associated with the specified item.
+	 * Jobs that are running are not affected.
+	 */
+	public synchronized void remove(G aItem)
+	{
+		for (PriorityQueue<Job> aQueue : queueM.values())
+			aQueue.removeIf(aJob -> aJob.item.equals(aItem) == true);
+		priorityM.remove(aItem);
+	}
+
+	/**
+	 * Sets the max number of concurrent jobs for the specified {@link Slot}.
+	 * <p>
+	 * Lowering the limit does not interrupt running jobs - it just delays the
+	 * dispatch of queued jobs.
+	 */
+	public synchronized void setLimit(Slot aSlot, int aLimit)
+	{
+		limitM.put(aSlot, checkLimit(aLimit));
+		dispatch();
+	}
+
+	/**
+	 * Sets the {@link Priority} of the specified item. Any queued jobs of the
+	 * item are reordered.
+	 */
+	public synchronized void setPriority(G aItem, Priority aPriority)
+	{
+		// Bail if nothing has changed
+		Priority oldPriority = priorityM.put(aItem, aPriority);
+		if (oldPriority == aPriority)
+			return;
+
+		// Reorder the (queued) jobs of the item
+		for (PriorityQueue<Job> aQueue : queueM.values())
+		{
+			List<Job> tmpJobL = new ArrayList<>();
+			for (Job aJob : aQueue)
+			{
+				if (aJob.item.equals(aItem) == true)
+					tmpJobL.add(aJob);
+			}
+
+			for (Job aJob : tmpJobL)
+			{
+				aQueue.remove(aJob);
+				aJob.priority = aPriority;
+				aQueue.add(aJob);
+			}
+		}
+	}
+
+	/**
+	 * Stops this scheduler. Queued jobs are discarded and no further jobs will
+	 * be accepted. Running jobs are allowed to complete.
+	 */
+	public synchronized void shutdown()
+	{
+		isShutdown = true;
+		for (PriorityQueue<Job> aQueue : queueM.values())
+			aQueue.clear();
+		for (ExecutorService aExecutor : executorM.values())
+			aExecutor.shutdown();
+	}
+
+	/**
+	 * Submits the specified work (associated with the item) to be run in the
+	 * specified {@link Slot}.
+	 * <p>
+	 * The work will be run once a slot is available and there is no queued work
+	 * of a higher priority.
+	 */
+	public synchronized void submit(G aItem, Slot aSlot, Runnable aRunnable)
+	{
+		// Bail if we have been shutdown
+		if (isShutdown == true)
+			return;
+
+		queueM.get(aSlot).add(new Job(aItem, aSlot, aRunnable, getPriority(aItem), nextSeq));
+		nextSeq++;
+		dispatch();
+	}
+
+	/**
+	 * Helper method that dispatches queued jobs while there are available
+	 * slots.
+	 * <p>
+	 * Must be called while holding this object's lock.
+	 */
+	private void dispatch()
+	{
+		for (Slot aSlot : Slot.values())
+		{
+			PriorityQueue<Job> tmpQueue = queueM.get(aSlot);
+			while (tmpQueue.isEmpty() == false && activeM.get(aSlot) < limitM.get(aSlot))
+			{
+				Job tmpJob = tmpQueue.poll();
+				activeM.put(aSlot, activeM.get(aSlot) + 1);
+				executorM.get(aSlot).execute(() -> runJob(tmpJob));
+			}
+		}
+	}
+
+	/**
+	 * Helper method that runs the specified job and then releases the
+	 * associated slot.
+	 */
+	private void runJob(Job aJob)
+	{
+		try
+		{
+			aJob.runnable.run();
+		}
+		finally
+		{
+			synchronized (this)
+			{
+				activeM.put(aJob.slot, activeM.get(aJob.slot) - 1);
+				if (isShutdown == false)
+					dispatch();
+			}
+		}
+	}
+
+	/**
+	 * Utility helper method that ensures the (slot) limit is valid.
+	 */
+	private static int checkLimit(int aLimit)
+	{
+		if (aLimit < 1)
+			throw new IllegalArgumentException("The number of slots must be positive: " + aLimit);
+
+		return aLimit;
+	}
+
+	/**
+	 * Enum that defines the priority of a load. Loads are dispatched in the
+	 * order of declaration.
+	 */
+	public enum Priority
+	{
+		/** The item is being analyzed (the Analyze window is open). */
+		Analyze,
+
+		/** The item is selected. */
+		Selected,
+
+		/** The item is visible. */
+		Visible,
+
+		/** The item is loaded in anticipation of use. */
+		Prefetch,
+	}
+
+	/**
+	 * Enum that defines the types of work that have separate concurrency
+	 * limits.
+	 */
+	public enum Slot
+	{
+		/** Network bound work: retrieval of remote files. */
+		Download,
+
+		/** CPU (and local disk) bound work: parse of files and formation of VTK state. */
+		Parse,
+	}
+
+	/**
+	 * Class that holds a single unit of queued work.
+	 */
+	private class Job
+	{
+		private final G item;
+		private final Slot slot;
+		private final Runnable runnable;
+		private final long seq;
+		private Priority priority;
+
+		/** Standard Constructor */
+		Job(G aItem, Slot aSlot, Runnable aRunnable, Priority aPriority, long aSeq)
+		{
+			item = aItem;
+			slot = aSlot;
+			runnable = aRunnable;
+			priority = aPriority;
+			seq = aSeq;
+		}
+	}
+
+}
@@ -2,6 +2,7 @@ package edu.jhuapl.sbmt.dem;
 
 import java.awt.Component;
 import java.awt.event.InputEvent;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -10,11 +11,12 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 
@@ -44,19 +46,22 @@ import edu.jhuapl.saavtk.view.light.LightCfg;
 import edu.jhuapl.saavtk.vtk.VtkUtil;
 import edu.jhuapl.sbmt.core.listeners.LoadListener;
 import edu.jhuapl.sbmt.core.util.KeyValueNode;
+import edu.jhuapl.sbmt.dem.DemLoadScheduler.Priority;
 import edu.jhuapl.sbmt.dem.gui.analyze.AnalyzePanel;
 import edu.jhuapl.sbmt.dem.gui.analyze.AnalyzeWindowListener;
 import edu.jhuapl.sbmt.dem.gui.popup.ActionUtil;
 import edu.jhuapl.sbmt.dem.gui.popup.DemGuiUtil;
+import edu.jhuapl.sbmt.dem.io.DemDiskCache;
 import edu.jhuapl.sbmt.dem.vtk.DataMode;
 import edu.jhuapl.sbmt.dem.vtk.ItemDrawAttr;
 import edu.jhuapl.sbmt.dem.vtk.VtkDemPainter;
 import edu.jhuapl.sbmt.dem.vtk.VtkDemSurface;
 
-import glum.gui.GuiUtil;
 import glum.gui.info.WindowCfg;
 import glum.item.BaseItemManager;
 import glum.item.ItemEventType;
+import glum.source.Source;
+import glum.source.SourceUtil;
 
 /**
  * Class that provides management logic for a collection of DEM objects.
@@ -86,7 +91,11 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 {
 	// Constants
 	// Minimum Time between which a refresh update (for progress notification)
+	// is sent out. Updates of all items are batched within this period.
 	private static final long REFRESH_FREQ_MS = 47;
+	// Max number of simultaneous downloads (I/O bound - independent of the
+	// number of processors)
+	private static final int NUM_DOWNLOAD_SLOTS = 8;
 
 	// Reference vars
 	private final SceneChangeNotifier refSceneChangeNotifier;
@@ -101,12 +110,17 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 	private Map<Dem, AnalyzePanel> analyzeM;
 	private GroupColorProvider exteriorGCP;
 	private LightCfg systemLightCfg;
+	private DemMemoryBudget<Dem> memoryBudget;
+	private DemDiskCache diskCache;
+	private Set<Dem> pinnedS;
+	private Set<Dem> loadedS;
 	private int globIdx;
 	private boolean isInitDone;
 
 	// Work vars
-	private final Executor workExecutor;
-	private long workLastUpdateTime;
+	private final DemLoadScheduler<Dem> loadScheduler;
+	private final LoadUpdateAggregator<Dem> loadUpdateAggregator;
+	private final ExecutorService diskES;
 
 	// VTK vars
 	private Map<Dem, VtkDemPainter> vPainterM;
@@ -126,15 +140,23 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 		analyzeM = new HashMap<>();
 		exteriorGCP = new RandomizeGroupColorProvider(0);
 		systemLightCfg = LightCfg.Invalid;
+		memoryBudget = new DemMemoryBudget<>(DemMemoryBudget.DEFAULT_BUDGET);
+		diskCache = null;
+		pinnedS = new HashSet<>();
+		loadedS = new HashSet<>();
 		globIdx = 0;
 		isInitDone = false;
 
-		// Limit max simultaneous downloads to 4
+		// Downloads are limited separately from the (CPU bound) parses. The
+		// parses may utilize all of the processors.
 		int numProcs = Runtime.getRuntime().availableProcessors();
-		if (numProcs > 4)
-			numProcs = 4;
-		workExecutor = Executors.newWorkStealingPool(numProcs);
-		workLastUpdateTime = 0L;
+		loadScheduler = new DemLoadScheduler<>(NUM_DOWNLOAD_SLOTS, numProcs);
+		loadUpdateAggregator = new LoadUpdateAggregator<>(REFRESH_FREQ_MS, this::flushLoadUpdates);
+		diskES = Executors.newSingleThreadExecutor(aRunnable -> {
+			Thread retThread = new Thread(aRunnable, "DemManager: Disk Cache");
+			retThread.setDaemon(true);
+			return retThread;
+		});
 
 		vPainterM = new HashMap<>();
 	}
@@ -241,6 +263,49 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 		return tmpStruct.coordinateSystem;
 	}
 
+	/**
+	 * Returns the {@link DemDiskCache} that manages the downloaded files.
+	 * <p>
+	 * Returns null if the downloaded files are not managed.
+	 */
+	public DemDiskCache getDiskCache()
+	{
+		return diskCache;
+	}
+
+	/**
+	 * Returns the {@link DemLoadScheduler} used to run the (asynchronous) loads.
+	 * <p>
+	 * The concurrency limits and queue depth are available via the scheduler.
+	 */
+	public DemLoadScheduler<Dem> getLoadScheduler()
+	{
+		return loadScheduler;
+	}
+
+	/**
+	 * Returns the memory budget (in bytes) for the loaded state of all items.
+	 * <p>
+	 * See {@link #setMemoryBudget(long)}.
+	 */
+	public long getMemoryBudget()
+	{
+		return memoryBudget.getBudget();
+	}
+
+	/**
+	 * Returns the (approximate) amount of memory (in bytes) utilized by the
+	 * loaded state of all items.
+	 */
+	public long getMemoryUsage()
+	{
+		long retSize = 0L;
+		for (Dem aItem : loadedS)
+			retSize += vPainterM.get(aItem).getMemorySize();
+
+		return retSize;
+	}
+
 	/**
 	 * Returns the description associated with the item.
 	 */
@@ -289,6 +354,15 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 		return false;
 	}
 
+	/**
+	 * Returns whether the specified item is pinned. The loaded state of a
+	 * pinned item is never evicted to satisfy the memory budget.
+	 */
+	public boolean getIsPinned(Dem aItem)
+	{
+		return pinnedS.contains(aItem);
+	}
+
 	/**
 	 * Returns whether the specified item's exterior is rendered.
 	 */
@@ -472,40 +546,63 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 		isInitDone = true;
 	}
 
+	/**
+	 * Notification method that the (remote) source of an item has been
+	 * downloaded.
+	 * <p>
+	 * The disk quota of the {@link DemDiskCache} is enforced on a worker thread
+	 * (the in use files are gathered on the AWT). This method may be called from
+	 * any thread.
+	 */
+	public void notifyDownloadDone()
+	{
+		SwingUtilities.invokeLater(this::enforceDiskQuota);
+	}
+
 	/**
 	 * Notification method that the (corresponding VtkDemPainter's) load state
 	 * has changed.
+	 * <p>
+	 * This method may be called from any thread. Updates (of all items) are
+	 * batched and delivered on the AWT at most once every
+	 * {@value #REFRESH_FREQ_MS} ms - unless aForceUpdate is true.
 	 */
 	public void notifyLoadUpdate(Dem aItem, boolean aForceUpdate)
 	{
-		// Bail if enough time has not passed yet
-		long currTime = System.currentTimeMillis();
-		long diffTime = currTime - workLastUpdateTime;
-		if (aForceUpdate == false && diffTime < REFRESH_FREQ_MS)
-			return;
-
-		// Ensure we are on the AWT
-		if (GuiUtil.redispatchOnAwtIfNeeded(() -> notifyLoadUpdate(aItem, aForceUpdate)) == true)
-			return;
-
-		// Update our last refresh time
-		workLastUpdateTime = currTime;
+		loadUpdateAggregator.mark(aItem, aForceUpdate);
+	}
 
-		// Send out the appropriate notifications
-		if (getPainterFor(aItem).isReady() == true)
+	/**
+	 * Prefetches the specified list of items in the background.
+	 * <p>
+	 * The (remote) source of each item is downloaded. If parse is requested then
+	 * the item is also loaded into memory - such items are subject to the memory
+	 * budget. Items that are loaded (or being loaded) are skipped. The work is
+	 * scheduled at {@link Priority#Prefetch} unless the item warrants a higher
+	 * priority.
+	 */
+	public void prefetchItems(Collection<Dem> aItemC, boolean aIsParse)
+	{
+		for (Dem aItem : aItemC)
 		{
-			// Update the vtk state before showing the analyze window
-			updateVtkVars(ImmutableList.of(aItem));
+			// Skip over items that have been removed
+			VtkDemPainter tmpPainter = vPainterM.get(aItem);
+			if (tmpPainter == null || configM.containsKey(aItem) == false)
+				continue;
 
-			// Show the Analyze window if appropriate
-			WindowCfg tmpWC = getConfigAttr(aItem).getWindowCfg();
-			if (tmpWC != null && tmpWC.isShown() == true)
-				showAnalyzePanel(aItem, true);
-		}
+			// Skip over items that are loaded (or being loaded)
+			if (tmpPainter.isReady() == true || tmpPainter.isLoadActive() == true)
+				continue;
 
-		// Send out the appropriate notifications
-		notifyListeners(this, ItemEventType.ItemsMutated);
-		notifyLoadListeners(ImmutableList.of(aItem));
+			loadScheduler.setPriority(aItem, getLoadPriority(aItem));
+			if (aIsParse == true)
+			{
+				tmpPainter.vtkStateInit(loadScheduler);
+				loadedS.add(aItem);
+			}
+			else
+				tmpPainter.vtkStatePrefetch(loadScheduler);
+		}
 	}
 
 	/**
@@ -611,6 +708,63 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 		notifyListeners(this, ItemEventType.ItemsMutated);
 	}
 
+	/**
+	 * Sets whether the specified list of items are pinned.
+	 * <p>
+	 * The loaded state of a pinned item is never evicted to satisfy the memory
+	 * budget.
+	 */
+	public void setIsPinned(Collection<Dem> aItemC, boolean aBool)
+	{
+		if (aBool == true)
+			pinnedS.addAll(aItemC);
+		else
+			pinnedS.removeAll(aItemC);
+
+		// Send out the appropriate notifications
+		updateVtkVars(aItemC);
+		notifyListeners(this, ItemEventType.ItemsMutated);
+	}
+
+	/**
+	 * Sets the memory budget (in bytes) for the loaded state of all items.
+	 * <p>
+	 * When the budget is exceeded, the loaded state of items that are hidden,
+	 * not being analyzed and not pinned is evicted (least recently used first).
+	 * Evicted items are transparently reloaded when shown again.
+	 * <p>
+	 * The budget covers both the VTK (native) state and the (Java side) grids so
+	 * it is not tied to the max JVM heap size. The default budget is a fixed
+	 * 2 GiB ({@link DemMemoryBudget#DEFAULT_BUDGET}).
+	 */
+	public void setMemoryBudget(long aBudget)
+	{
+		memoryBudget.setBudget(aBudget);
+
+		// Send out the appropriate notifications
+		updateVtkVars(ImmutableList.of());
+		notifyListeners(this, ItemEventType.ItemsMutated);
+	}
+
+	/**
+	 * Sets the {@link DemDiskCache} that manages the downloaded files.
+	 * <p>
+	 * Downloaded files are evicted (least recently used first) when the disk
+	 * quota is exceeded. The files of items that are in use, pinned, loaded or
+	 * being loaded are never evicted. Files of local (custom) items are not
+	 * managed.
+	 * <p>
+	 * The quota is enforced (on a worker thread) when the cache is installed and
+	 * whenever a download completes.
+	 */
+	public void setDiskCache(DemDiskCache aDiskCache)
+	{
+		diskCache = aDiskCache;
+
+		cleanDiskCache();
+		enforceDiskQuota();
+	}
+
 	/**
 	 * Sets whether the specified list of items should be analyzed.
 	 */
@@ -812,7 +966,8 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 	 */
 	public void shutdown()
 	{
-		; // Nothing to do
+		if (diskCache != null)
+			diskCache.saveIndex();
 	}
 
 	/**
@@ -915,6 +1070,10 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 		{
 			configM.remove(aItem);
 			structM.remove(aItem);
+			loadScheduler.remove(aItem);
+			memoryBudget.remove(aItem);
+			pinnedS.remove(aItem);
+			loadedS.remove(aItem);
 
 			AnalyzePanel tmpPanel = analyzeM.remove(aItem);
 			if (tmpPanel != null)
@@ -964,6 +1123,7 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 		// Delegate
 		super.setAllItems(fullDemL);
 
+		cleanDiskCache();
 		updateVtkVars(fullDemL);
 	}
 
@@ -992,6 +1152,7 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 		super.setSelectedItems(aItemC);
 
 		updateStatus(aItemC);
+		updateLoadPriorities();
 	}
 
 	/**
@@ -1028,6 +1189,56 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 			aListener.handleLoadEvent(this, aItemC);
 	}
 
+	/**
+	 * Helper method that sends out the notifications for a batch of items whose
+	 * load state has changed.
+	 * <p>
+	 * A single refresh (scene change, item mutation and load notification) is
+	 * sent out for the entire batch. Called on the AWT.
+	 */
+	private void flushLoadUpdates(Set<Dem> aItemS)
+	{
+		// Skip over items that have since been removed
+		List<Dem> tmpItemL = new ArrayList<>();
+		List<Dem> readyL = new ArrayList<>();
+		for (Dem aItem : aItemS)
+		{
+			VtkDemPainter tmpPainter = vPainterM.get(aItem);
+			if (tmpPainter == null || configM.containsKey(aItem) == false)
+				continue;
+
+			tmpItemL.add(aItem);
+			if (tmpPainter.isReady() == true)
+				readyL.add(aItem);
+
+			// Keep track of the items that are loaded (or being loaded)
+			if (tmpPainter.isLoadActive() == true || tmpPainter.getMemorySize() > 0)
+				loadedS.add(aItem);
+			else
+				loadedS.remove(aItem);
+		}
+
+		// Bail if there is nothing to update
+		if (tmpItemL.isEmpty() == true)
+			return;
+
+		// Update the vtk state before showing the analyze windows
+		if (readyL.isEmpty() == false)
+			updateVtkVars(readyL);
+
+		// Show the Analyze windows if appropriate
+		for (Dem aItem : readyL)
+		{
+			WindowCfg tmpWC = getConfigAttr(aItem).getWindowCfg();
+			if (tmpWC != null && tmpWC.isShown() == true)
+				showAnalyzePanel(aItem, true);
+		}
+
+		// Send out the appropriate notifications
+		notifyListeners(this, ItemEventType.ItemsMutated);
+		notifyLoadListeners(tmpItemL);
+	}
+
 	/**
 	 * Helper method that will show (or hide) the {@link AnalyzePanel}
 	 * corresponding to the specified item.
@@ -1105,6 +1316,162 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 		tmpAnalyzePanel.setLightCfg(tmpLightCfg);
 	}
 
+	/**
+	 * Helper method that removes the stale partial downloads from the
+	 * {@link DemDiskCache}.
+	 * <p>
+	 * The candidates are gathered on the AWT but the (disk) work is done on a
+	 * worker thread.
+	 */
+	private void cleanDiskCache()
+	{
+		// Bail if the downloaded files are not managed
+		if (diskCache == null)
+			return;
+
+		List<File> partialL = new ArrayList<>();
+		for (Dem aItem : getAllItems())
+		{
+			Source tmpSource = aItem.getSource();
+			if (tmpSource.getRemoteUrl() != null)
+				partialL.add(SourceUtil.getTempFile(tmpSource));
+		}
+
+		DemDiskCache tmpDiskCache = diskCache;
+		Set<File> inUseS = getDiskFilesInUse();
+		diskES.execute(() -> tmpDiskCache.cleanStalePartials(partialL, aFile -> inUseS.contains(aFile) == true));
+	}
+
+	/**
+	 * Helper method that evicts the downloaded files of items until the disk
+	 * quota of the {@link DemDiskCache} is satisfied.
+	 * <p>
+	 * The in use files are gathered on the AWT but the (disk) work is done on a
+	 * worker thread.
+	 */
+	private void enforceDiskQuota()
+	{
+		// Bail if the downloaded files are not managed
+		if (diskCache == null)
+			return;
+
+		DemDiskCache tmpDiskCache = diskCache;
+		Set<File> inUseS = getDiskFilesInUse();
+		diskES.execute(() -> {
+			for (File aFile : inUseS)
+				tmpDiskCache.markAccess(aFile);
+
+			tmpDiskCache.enforceQuota(aFile -> inUseS.contains(aFile) == true);
+		});
+	}
+
+	/**
+	 * Helper method that returns the set of (absolute) files that must not be
+	 * removed from the {@link DemDiskCache}.
+	 * <p>
+	 * This is the backing (and partial) files of all items that are pinned,
+	 * analyzed, loaded or being loaded. Note shown items are always loaded (or
+	 * being loaded). Only these (small) sets are visited - not the full catalog.
+	 * Local (custom) items are skipped since their files are not managed.
+	 */
+	private Set<File> getDiskFilesInUse()
+	{
+		Set<Dem> tmpItemS = new HashSet<>(loadedS);
+		tmpItemS.addAll(pinnedS);
+		tmpItemS.addAll(analyzeM.keySet());
+
+		Set<File> retS = new HashSet<>();
+		for (Dem aItem : tmpItemS)
+		{
+			// Skip to next if a local (custom) item
+			Source tmpSource = aItem.getSource();
+			if (tmpSource.getRemoteUrl() == null)
+				continue;
+
+			File tmpFile = tmpSource.getLocalFile();
+			if (tmpFile != null)
+				retS.add(tmpFile.getAbsoluteFile());
+			retS.add(SourceUtil.getTempFile(tmpSource).getAbsoluteFile());
+		}
+
+		return retS;
+	}
+
+	/**
+	 * Helper method that evicts the loaded state of items until the memory
+	 * budget is satisfied.
+	 * <p>
+	 * Only items that are not in use (not shown and no "Analyze" window), not
+	 * pinned and not being loaded are evicted.
+	 * <p>
+	 * Only the items that are loaded (or being loaded) are visited - not the
+	 * full catalog.
+	 */
+	private void enforceMemoryBudget()
+	{
+		// Gather the sizes and record the items that are in use
+		Map<Dem, Long> sizeM = new HashMap<>();
+		for (Dem aItem : loadedS)
+		{
+			VtkDemPainter tmpPainter = vPainterM.get(aItem);
+			sizeM.put(aItem, tmpPainter.getMemorySize());
+			if (isInUse(aItem) == true)
+				memoryBudget.markUsed(aItem);
+		}
+
+		List<Dem> evictL = memoryBudget.selectEvictions(sizeM, aItem -> isInUse(aItem) == false
+				&& pinnedS.contains(aItem) == false && vPainterM.get(aItem).isLoadActive() == false);
+		for (Dem aItem : evictL)
+		{
+			vPainterM.get(aItem).vtkDispose();
+			loadedS.remove(aItem);
+		}
+	}
+
+	/**
+	 * Helper method that returns true if the specified item's loaded state is
+	 * in use: the item is shown or has an "Analyze" window.
+	 */
+	private boolean isInUse(Dem aItem)
+	{
+		if (analyzeM.containsKey(aItem) == true)
+			return true;
+
+		return getIsVisibleExterior(aItem) == true || getIsVisibleInterior(aItem) == true;
+	}
+
+	/**
+	 * Helper method that returns the {@link Priority} with which the specified
+	 * item should be loaded.
+	 */
+	private Priority getLoadPriority(Dem aItem)
+	{
+		if (getIsDemAnalyzed(aItem) == true)
+			return Priority.Analyze;
+		if (getSelectedItems().contains(aItem) == true)
+			return Priority.Selected;
+		if (getIsVisibleExterior(aItem) == true || getIsVisibleInterior(aItem) == true)
+			return Priority.Visible;
+
+		return Priority.Prefetch;
+	}
+
+	/**
+	 * Helper method that updates the {@link Priority} of all items with queued
+	 * loads.
+	 */
+	private void updateLoadPriorities()
+	{
+		for (Dem aItem : loadScheduler.getQueuedItems())
+		{
+			// Skip over items that have been removed
+			if (configM.containsKey(aItem) == false)
+				continue;
+
+			loadScheduler.setPriority(aItem, getLoadPriority(aItem));
+		}
+	}
+
 	/**
 	 * Helper method that updates the {@link StatusNotifier} with the selected
 	 * items.
@@ -1164,12 +1531,22 @@ public class DemManager extends BaseItemManager<Dem> implements PickListener, Vt
 			boolean tmpBool = tmpPainter.isLoadNeeded() == true;
 			tmpBool |= tmpDCA.getWindowCfg() != null && tmpDCA.getWindowCfg().isShown() == true;
 			if (tmpBool == true)
-				tmpPainter.vtkStateInit(workExecutor);
+			{
+				loadScheduler.setPriority(aItem, getLoadPriority(aItem));
+				tmpPainter.vtkStateInit(loadScheduler);
+				loadedS.add(aItem);
+			}
 
 			// Update the LightCfg for the corresponding AnalyzePanel
 			updateLightCfg(aItem, tmpDCA);
 		}
 
+		// Reprioritize the pending loads (selection or visibility may have changed)
+		updateLoadPriorities();
+
+		// Evict the loaded state of unused items if over budget
+		enforceMemoryBudget();
+
 		refSceneChangeNotifier.notifySceneChange();
 	}
 
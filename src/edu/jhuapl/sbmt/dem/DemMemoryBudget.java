@@ -0,0 +1,127 @@
+package edu.jhuapl.sbmt.dem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Class that tracks the usage of loaded items and selects the items that
+ * should be evicted in order to remain within a memory budget.
+ * <p>
+ * Items are evicted least recently used first. Only items that are evictable
+ * (as defined by the caller) are considered.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author lopeznr1
+ */
+public class DemMemoryBudget<G>
+{
+	// Constants
+	/**
+	 * Default budget: 2 GiB
+	 * <p>
+	 * The budget covers the loaded state of the items which is mostly VTK
+	 * (native) memory - thus it is a fixed amount rather than being derived from
+	 * the max JVM heap size.
+	 */
+	public static final long DEFAULT_BUDGET = 2L * 1024 * 1024 * 1024;
+
+	// State vars
+	private final Map<G, Long> lastUseM;
+	private long budget;
+	private long useCnt;
+
+	/**
+	 * Standard Constructor
+	 *
+	 * @param aBudget The memory budget (in bytes).
+	 */
+	public DemMemoryBudget(long aBudget)
+	{
+		lastUseM = new HashMap<>();
+		budget = aBudget;
+		useCnt = 0L;
+	}
+
+	/**
+	 * Returns the memory budget (in bytes).
+	 */
+	public long getBudget()
+	{
+		return budget;
+	}
+
+	/**
+	 * Marks the specified item as (most recently) used.
+	 */
+	public void markUsed(G aItem)
+	{
+		useCnt++;
+		lastUseM.put(aItem, useCnt);
+	}
+
+	/**
+	 * Removes all usage associated with the specified item.
+	 */
+	public void remove(G aItem)
+	{
+		lastUseM.remove(aItem);
+	}
+
+	/**
+	 * Returns the list of items that should be evicted so that the total memory
+	 * usage does not exceed the budget.
+	 * <p>
+	 * Items are selected least recently used first. An empty list will be
+	 * returned if the budget is not exceeded. Note the budget may still be
+	 * exceeded if there are not enough evictable items.
+	 *
+	 * @param aSizeM The memory size (in bytes) of each (loaded) item.
+	 * @param aIsEvictable Predicate that defines whether an item may be evicted.
+	 */
+	public List<G> selectEvictions(Map<G, Long> aSizeM, Predicate<G> aIsEvictable)
+	{
+		long totSize = 0L;
+		for (long aSize : aSizeM.values())
+			totSize += aSize;
+
+		// Bail if the budget has not been exceeded
+		List<G> retItemL = new ArrayList<>();
+		if (totSize <= budget)
+			return retItemL;
+
+		// Gather the candidates (least recently used first)
+		List<G> candL = new ArrayList<>();
+		for (G aItem : aSizeM.keySet())
+		{
+			if (aSizeM.get(aItem) > 0 && aIsEvictable.test(aItem) == true)
+				candL.add(aItem);
+		}
+		candL.sort(Comparator.comparingLong(aItem -> lastUseM.getOrDefault(aItem, 0L)));
+
+		for (G aItem : candL)
+		{
+			// Bail once we are within the budget
+			if (totSize <= budget)
+				break;
+
+			retItemL.add(aItem);
+			totSize -= aSizeM.get(aItem);
+		}
+
+		return retItemL;
+	}
+
+	/**
+	 * Sets the memory budget (in bytes).
+	 */
+	public void setBudget(long aBudget)
+	{
+		budget = aBudget;
+	}
+
+}
@@ -0,0 +1,159 @@
+package edu.jhuapl.sbmt.dem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+/**
+ * Collection of utility methods used to determine which {@link Dem}s are
+ * likely to come into view.
+ * <p>
+ * Only the catalog geometry (center lat/lon, ground sample distance and pixel
+ * dimension) of a {@link Dem} is utilized - no file access is performed. The
+ * body is approximated by a sphere and the view frustum by a cone.
+ * <p>
+ * The candidates may be retrieved via a {@link DemSpatialIndex} so that only
+ * the {@link Dem}s on the visible side of the body are examined.
+ *
+ * @author lopeznr1
+ */
+public class DemPrefetchUtil
+{
+	// Constants
+	// Extra angular margin (as a fraction of the view angle) around the view
+	// cone. Dems in this margin are near the view and likely to come into view.
+	// Note the view angle is the vertical angle - the margin also covers the
+	// (wider) horizontal extent of the view.
+	private static final double VIEW_MARGIN = 1.0;
+	// Min (apparent) size of a dem relative to the view angle. Dems smaller
+	// than this are not resolvable at the current zoom level.
+	private static final double MIN_VIEW_FRACTION = 0.02;
+
+	/**
+	 * Utility method that returns the list of {@link Dem}s (of the specified
+	 * {@link DemSpatialIndex}) that are inside or near the view frustum of the
+	 * specified camera.
+	 * <p>
+	 * The candidates are retrieved via
+	 * {@link DemSpatialIndex#getItemsNear(double, double, double)}: only the
+	 * {@link Dem}s within the horizon cap of the camera are examined. The result
+	 * is identical to {@link #selectItems(Collection, Vector3D, Vector3D, double,
+	 * double, int)} applied to all of the items of the index.
+	 *
+	 * @param aIndex The {@link DemSpatialIndex} of the candidate {@link Dem}s.
+	 * @param aPosition The camera position (body-fixed, km).
+	 * @param aFocalPoint The camera focal point (body-fixed, km).
+	 * @param aViewAngle The (vertical) view angle of the camera (degrees).
+	 * @param aBodyRadius The (approximate) radius of the body (km).
+	 * @param aMaxItems The max number of {@link Dem}s to return.
+	 */
+	public static List<Dem> selectItems(DemSpatialIndex<Dem> aIndex, Vector3D aPosition, Vector3D aFocalPoint,
+			double aViewAngle, double aBodyRadius, int aMaxItems)
+	{
+		// Bail if the camera is at the center of the body or the body is not valid
+		double dist = aPosition.getNorm();
+		if (dist == 0 || (aBodyRadius > 0) == false)
+			return new ArrayList<>();
+
+		// Angle (from the sub camera point) of the horizon cap. A dem faces the
+		// camera only if its center is within acos((R - radius) / dist) where
+		// radius is the footprint radius. The distance is clamped (to at least
+		// R * sqrt(2)) so that the cap plus the angular footprint radius utilized
+		// by the index (radius / R) bounds that angle for any radius.
+		double capDist = Math.max(dist, aBodyRadius * Math.sqrt(2.0));
+		double capAngle = Math.acos(aBodyRadius / capDist);
+
+		double lat = Math.toDegrees(Math.asin(aPosition.getZ() / dist));
+		double lon = Math.toDegrees(Math.atan2(aPosition.getY(), aPosition.getX()));
+		List<Dem> candL = aIndex.getItemsNear(lat, lon, aBodyRadius * capAngle);
+		return selectItems(candL, aPosition, aFocalPoint, aViewAngle, aBodyRadius, aMaxItems);
+	}
+
+	/**
+	 * Utility method that returns the list of {@link Dem}s that are inside or
+	 * near the view frustum of the specified camera.
+	 * <p>
+	 * Dems that are on the far side of the body, or that are too small to be
+	 * resolved, are excluded. The returned list is ordered by the angular
+	 * distance from the center of the view (closest first).
+	 *
+	 * @param aItemC The candidate {@link Dem}s.
+	 * @param aPosition The camera position (body-fixed, km).
+	 * @param aFocalPoint The camera focal point (body-fixed, km).
+	 * @param aViewAngle The (vertical) view angle of the camera (degrees).
+	 * @param aBodyRadius The (approximate) radius of the body (km).
+	 * @param aMaxItems The max number of {@link Dem}s to return.
+	 */
+	public static List<Dem> selectItems(Collection<Dem> aItemC, Vector3D aPosition, Vector3D aFocalPoint,
+			double aViewAngle, double aBodyRadius, int aMaxItems)
+	{
+		List<Dem> retItemL = new ArrayList<>();
+
+		// Bail if the view direction is not defined
+		Vector3D viewVect = aFocalPoint.subtract(aPosition);
+		if (viewVect.getNorm() == 0)
+			return retItemL;
+
+		double halfViewAngle = Math.toRadians(aViewAngle) / 2.0;
+		double maxOffAngle = halfViewAngle * (1.0 + VIEW_MARGIN);
+
+		Map<Dem, Double> offAngleM = new HashMap<>();
+		for (Dem aItem : aItemC)
+		{
+			// Skip to next if no geometry
+			double lat = Math.toRadians(aItem.getLat());
+			double lon = Math.toRadians(aItem.getLon());
+			if (Double.isNaN(lat) == true || Double.isNaN(lon) == true)
+				continue;
+
+			// Center (and outward normal) of the dem on the (spherical) body
+			Vector3D normVect = new Vector3D(lon, lat);
+			Vector3D centerVect = normVect.scalarMultiply(aBodyRadius);
+
+			// Footprint radius of the dem (km). The GSD is in meters per pixel and
+			// the footprint is a square with a side of (pixel dimension * GSD). The
+			// radius is that of the circle through its corners (as utilized by
+			// DemSpatialIndex).
+			double extent = aItem.getGsd() * aItem.getNumPixels() / 1000.0;
+			double radius = extent / 2.0 * Math.sqrt(2.0);
+			if (Double.isNaN(radius) == true || radius < 0)
+				radius = 0.0;
+
+			// Skip to next if the dem faces away from the camera (beyond the horizon)
+			Vector3D toCamVect = aPosition.subtract(centerVect);
+			if (normVect.dotProduct(toCamVect) < -radius)
+				continue;
+
+			// Skip to next if the camera is at the dem
+			double dist = toCamVect.getNorm();
+			if (dist == 0)
+				continue;
+
+			// Skip to next if the dem is not resolvable
+			double radiusAngle = Math.atan(radius / dist);
+			if (2.0 * radiusAngle < MIN_VIEW_FRACTION * 2.0 * halfViewAngle)
+				continue;
+
+			// Skip to next if the dem is not inside (or near) the view
+			double offAngle = Vector3D.angle(viewVect, toCamVect.negate()) - radiusAngle;
+			if (offAngle > maxOffAngle)
+				continue;
+
+			retItemL.add(aItem);
+			offAngleM.put(aItem, offAngle);
+		}
+
+		// Order by the distance from the center of the view
+		retItemL.sort(Comparator.comparingDouble(offAngleM::get));
+		if (retItemL.size() > aMaxItems)
+			retItemL = new ArrayList<>(retItemL.subList(0, aMaxItems));
+
+		return retItemL;
+	}
+
+}
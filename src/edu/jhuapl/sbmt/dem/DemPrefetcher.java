@@ -0,0 +1,228 @@
+package edu.jhuapl.sbmt.dem;
+
+import java.awt.EventQueue;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import javax.swing.Timer;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Class that prefetches the {@link Dem}s that are likely to come into view as
+ * the camera changes.
+ * <p>
+ * The selection of the {@link Dem}s (which are inside or near the view
+ * frustum) is made via {@link DemPrefetchUtil}. The selected {@link Dem}s are
+ * downloaded (and optionally parsed) in the background at
+ * {@link DemLoadScheduler.Priority#Prefetch} priority - thus loads of items
+ * the user has requested are never delayed.
+ * <p>
+ * Camera changes are coalesced: a prefetch is performed only once the camera
+ * has settled.
+ * <p>
+ * The selection is performed on a (background) worker thread via a
+ * {@link DemSpatialIndex} of the {@link Dem}s. The index is rebuilt (on the
+ * worker) only when the {@link Dem}s of the {@link DemManager} change. A
+ * selection that has been superseded by a later camera change is discarded.
+ * <p>
+ * This class should only be utilized on the AWT event dispatch thread.
+ *
+ * @author lopeznr1
+ */
+public class DemPrefetcher
+{
+	// Constants
+	// Time the camera must be settled before a prefetch is performed
+	private static final int SETTLE_TIME_MS = 250;
+
+	// Reference vars
+	private final DemManager refManager;
+
+	// Attributes
+	private final double bodyRadius;
+
+	// State vars
+	private boolean isEnabled;
+	private boolean isParseEnabled;
+	private int maxItems;
+	private Vector3D workPosition;
+	private Vector3D workFocalPoint;
+	private double workViewAngle;
+
+	// Work vars
+	private final Timer workTimer;
+	private final ExecutorService workES;
+	private int workSeq;
+
+	// Cache vars: only accessed on the worker thread
+	private List<Dem> cItemL;
+	private DemSpatialIndex<Dem> cSpatialIndex;
+
+	/**
+	 * Standard Constructor
+	 *
+	 * @param aManager The {@link DemManager} of the {@link Dem}s to prefetch.
+	 * @param aBodyRadius The (approximate) radius of the body (km).
+	 */
+	public DemPrefetcher(DemManager aManager, double aBodyRadius)
+	{
+		refManager = aManager;
+		bodyRadius = aBodyRadius;
+
+		isEnabled = true;
+		isParseEnabled = false;
+		maxItems = 16;
+		workPosition = null;
+		workFocalPoint = null;
+		workViewAngle = Double.NaN;
+
+		workTimer = new Timer(SETTLE_TIME_MS, aEvent -> prefetch());
+		workTimer.setRepeats(false);
+		workES = Executors.newSingleThreadExecutor(aRunnable -> {
+			Thread retThread = new Thread(aRunnable, "DemPrefetcher");
+			retThread.setDaemon(true);
+			return retThread;
+		});
+		workSeq = 0;
+
+		cItemL = null;
+		cSpatialIndex = null;
+	}
+
+	/**
+	 * Returns true if prefetching is enabled.
+	 */
+	public boolean getIsEnabled()
+	{
+		return isEnabled;
+	}
+
+	/**
+	 * Returns true if the prefetched {@link Dem}s are parsed (loaded into
+	 * memory) rather than just downloaded.
+	 */
+	public boolean getIsParseEnabled()
+	{
+		return isParseEnabled;
+	}
+
+	/**
+	 * Returns the max number of {@link Dem}s that are prefetched per camera
+	 * change.
+	 */
+	public int getMaxItems()
+	{
+		return maxItems;
+	}
+
+	/**
+	 * Notification that the camera has changed.
+	 * <p>
+	 * The prefetch is deferred until the camera has settled.
+	 *
+	 * @param aPosition The camera position (body-fixed, km).
+	 * @param aFocalPoint The camera focal point (body-fixed, km).
+	 * @param aViewAngle The (vertical) view angle of the camera (degrees).
+	 */
+	public void handleViewChange(Vector3D aPosition, Vector3D aFocalPoint, double aViewAngle)
+	{
+		// Bail if prefetching is not enabled
+		if (isEnabled == false)
+			return;
+
+		workPosition = aPosition;
+		workFocalPoint = aFocalPoint;
+		workViewAngle = aViewAngle;
+		workTimer.restart();
+	}
+
+	/**
+	 * Sets whether prefetching is enabled.
+	 */
+	public void setIsEnabled(boolean aBool)
+	{
+		isEnabled = aBool;
+		if (isEnabled == false)
+			workTimer.stop();
+	}
+
+	/**
+	 * Sets whether the prefetched {@link Dem}s are parsed (loaded into memory)
+	 * rather than just downloaded.
+	 * <p>
+	 * Parsed items are subject to the memory budget of the {@link DemManager}.
+	 */
+	public void setIsParseEnabled(boolean aBool)
+	{
+		isParseEnabled = aBool;
+	}
+
+	/**
+	 * Sets the max number of {@link Dem}s that are prefetched per camera change.
+	 */
+	public void setMaxItems(int aMaxItems)
+	{
+		maxItems = aMaxItems;
+	}
+
+	/**
+	 * Helper method that prefetches the {@link Dem}s that are inside or near the
+	 * (settled) view.
+	 * <p>
+	 * The selection is made on the worker thread. The prefetch is then
+	 * performed on the AWT event dispatch thread - unless the selection has been
+	 * superseded.
+	 */
+	private void prefetch()
+	{
+		// Bail if prefetching is not enabled or there is no view
+		if (isEnabled == false || workPosition == null)
+			return;
+
+		// Capture the state needed by the worker
+		List<Dem> fullItemL = ImmutableList.copyOf(refManager.getAllItems());
+		Vector3D tmpPosition = workPosition;
+		Vector3D tmpFocalPoint = workFocalPoint;
+		double tmpViewAngle = workViewAngle;
+		int tmpMaxItems = maxItems;
+		workSeq++;
+		int tmpSeq = workSeq;
+
+		workES.execute(() -> {
+			List<Dem> tmpItemL = selectItems(fullItemL, tmpPosition, tmpFocalPoint, tmpViewAngle, tmpMaxItems);
+			EventQueue.invokeLater(() -> {
+				// Bail if prefetching is not enabled or the selection is stale
+				if (isEnabled == false || tmpSeq != workSeq)
+					return;
+
+				refManager.prefetchItems(tmpItemL, isParseEnabled);
+			});
+		});
+	}
+
+	/**
+	 * Helper method that returns the {@link Dem}s that are inside or near the
+	 * specified view. The {@link DemSpatialIndex} is rebuilt if the provided
+	 * items differ from those that were last indexed.
+	 * <p>
+	 * This method is only called on the worker thread.
+	 */
+	private List<Dem> selectItems(List<Dem> aItemL, Vector3D aPosition, Vector3D aFocalPoint, double aViewAngle,
+			int aMaxItems)
+	{
+		if (cSpatialIndex == null || aItemL.equals(cItemL) == false)
+		{
+			cItemL = aItemL;
+			cSpatialIndex = new DemSpatialIndex<>(aItemL, Function.identity(), bodyRadius);
+		}
+
+		return DemPrefetchUtil.selectItems(cSpatialIndex, aPosition, aFocalPoint, aViewAngle, bodyRadius,
+				aMaxItems);
+	}
+
+}
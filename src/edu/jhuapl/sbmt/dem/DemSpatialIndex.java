@@ -0,0 +1,434 @@
+package edu.jhuapl.sbmt.dem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable spatial index over the footprints of a collection of {@link Dem}s.
+ * <p>
+ * The index is an R-tree (bulk loaded via the Sort-Tile-Recursive algorithm)
+ * over the lat/lon bounding box of each footprint. Point, box and radius
+ * queries are answered in logarithmic time (with respect to the number of
+ * items).
+ * <p>
+ * The footprint of a {@link Dem} is derived from the catalog geometry: a
+ * square centered at the lat/lon with a side of (pixel dimension * GSD). The
+ * GSD is in meters per pixel. The orientation of the square is not known so
+ * the footprint is bounded by the circle through its corners - a radius of
+ * (side / 2 * sqrt(2)). The following are handled:
+ * <ul>
+ * <li>Longitude wrap: footprints (and query boxes) that cross the 360/0
+ * meridian are split into 2 boxes.
+ * <li>Poles: footprints (and query regions) that reach a pole cover all
+ * longitudes.
+ * </ul>
+ * Items with no (valid) geometry are never returned by a query.
+ *
+ * @author lopeznr1
+ */
+public class DemSpatialIndex<G>
+{
+	// Constants
+	// Max number of entries (or children) per node
+	private static final int NODE_CAPACITY = 16;
+
+	// Attributes
+	private final List<G> itemL;
+	private final double bodyRadius;
+	private final Node rootNode;
+
+	// Footprint vars: lat / lon (radians) and angular radius (radians)
+	private final double[] latArr;
+	private final double[] lonArr;
+	private final double[] radArr;
+
+	/**
+	 * Standard Constructor
+	 *
+	 * @param aItemL The items to index. Query results are returned in the order
+	 * of this list.
+	 * @param aDemFunc Function that returns the {@link Dem} of an item.
+	 * @param aBodyRadius The (approximate) radius of the body (km). If not valid
+	 * then each footprint is treated as a point.
+	 */
+	public DemSpatialIndex(List<G> aItemL, Function<G, Dem> aDemFunc, double aBodyRadius)
+	{
+		this(ImmutableList.copyOf(aItemL), formGeometry(aItemL, aDemFunc), aBodyRadius);
+	}
+
+	/**
+	 * Standard Constructor
+	 * <p>
+	 * The geometry of the items is provided as arrays (indexed as the list of
+	 * items) - thus the items are not accessed while the index is built. This
+	 * allows the index to be built directly from primitive geometry (such as
+	 * that of a binary catalog).
+	 *
+	 * @param aItemL The items to index. The list should not change. Query
+	 * results are returned in the order of this list.
+	 * @param aLatArr The center latitude (degrees) of each item.
+	 * @param aLonArr The center longitude (degrees) of each item.
+	 * @param aExtentArr The extent (km) of each item: the side of the (square)
+	 * footprint - pixel dimension * GSD.
+	 * @param aBodyRadius The (approximate) radius of the body (km). If not valid
+	 * then each footprint is treated as a point.
+	 */
+	public DemSpatialIndex(List<G> aItemL, double[] aLatArr, double[] aLonArr, double[] aExtentArr,
+			double aBodyRadius)
+	{
+		this(aItemL, new double[][] { aLatArr, aLonArr, aExtentArr }, aBodyRadius);
+	}
+
+	/**
+	 * Private Constructor
+	 *
+	 * @param aGeomArr The geometry arrays: latitude (degrees), longitude
+	 * (degrees) and extent (km).
+	 */
+	private DemSpatialIndex(List<G> aItemL, double[][] aGeomArr, double aBodyRadius)
+	{
+		itemL = aItemL;
+		bodyRadius = aBodyRadius;
+
+		// Form the footprint boxes. Note a footprint may result in 0 (no geometry)
+		// or 2 (longitude wrap) boxes.
+		int numItems = itemL.size();
+		latArr = new double[numItems];
+		lonArr = new double[numItems];
+		radArr = new double[numItems];
+		List<Node> leafL = new ArrayList<>();
+		for (int aIdx = 0; aIdx < numItems; aIdx++)
+		{
+			double tmpLat = aGeomArr[0][aIdx];
+			double tmpLon = aGeomArr[1][aIdx];
+			latArr[aIdx] = Math.toRadians(tmpLat);
+			lonArr[aIdx] = Math.toRadians(tmpLon);
+			radArr[aIdx] = toAngle(aGeomArr[2][aIdx] / 2.0 * Math.sqrt(2.0));
+
+			// Skip to next if no geometry
+			if (Double.isNaN(latArr[aIdx]) == true || Double.isNaN(lonArr[aIdx]) == true)
+				continue;
+
+			for (double[] aBox : formBoxes(tmpLat, tmpLon, Math.toDegrees(radArr[aIdx])))
+				leafL.add(new Node(aBox, aIdx));
+		}
+
+		rootNode = buildTree(leafL);
+	}
+
+	/**
+	 * Returns the items whose footprint (bounding box) contains the specified
+	 * point.
+	 *
+	 * @param aLat The latitude (degrees).
+	 * @param aLon The longitude (degrees).
+	 */
+	public List<G> getItemsAt(double aLat, double aLon)
+	{
+		return getItemsIn(aLat, aLat, aLon, aLon);
+	}
+
+	/**
+	 * Returns the items whose footprint (bounding box) overlaps the specified
+	 * lat/lon box.
+	 * <p>
+	 * The box may cross the 360/0 meridian: if aMinLon is greater than aMaxLon
+	 * then the box wraps around.
+	 *
+	 * @param aMinLat The min latitude (degrees).
+	 * @param aMaxLat The max latitude (degrees).
+	 * @param aMinLon The min longitude (degrees).
+	 * @param aMaxLon The max longitude (degrees).
+	 */
+	public List<G> getItemsIn(double aMinLat, double aMaxLat, double aMinLon, double aMaxLon)
+	{
+		BitSet hitBS = new BitSet(itemL.size());
+
+		// Full longitude range
+		if (aMaxLon - aMinLon >= 360.0)
+		{
+			search(new double[] { aMinLat, aMaxLat, 0.0, 360.0 }, hitBS);
+			return toItems(hitBS);
+		}
+
+		double minLon = normalizeLon(aMinLon);
+		double maxLon = normalizeLon(aMaxLon);
+		if (minLon <= maxLon)
+			search(new double[] { aMinLat, aMaxLat, minLon, maxLon }, hitBS);
+		else
+		{
+			search(new double[] { aMinLat, aMaxLat, minLon, 360.0 }, hitBS);
+			search(new double[] { aMinLat, aMaxLat, 0.0, maxLon }, hitBS);
+		}
+
+		return toItems(hitBS);
+	}
+
+	/**
+	 * Returns the items whose footprint is within the specified distance of the
+	 * specified point.
+	 * <p>
+	 * The distance is measured along the surface of the (spherical) body from
+	 * the point to the (bounding circle of the) footprint.
+	 *
+	 * @param aLat The latitude (degrees).
+	 * @param aLon The longitude (degrees).
+	 * @param aRadius The distance (km).
+	 */
+	public List<G> getItemsNear(double aLat, double aLon, double aRadius)
+	{
+		double queryAngle = toAngle(aRadius);
+
+		// Gather the candidates via the bounding boxes of the query region
+		BitSet hitBS = new BitSet(itemL.size());
+		for (double[] aBox : formBoxes(aLat, aLon, Math.toDegrees(queryAngle)))
+			search(aBox, hitBS);
+
+		// Refine via the (great circle) distance to each candidate
+		double lat = Math.toRadians(aLat);
+		double lon = Math.toRadians(aLon);
+		for (int aIdx = hitBS.nextSetBit(0); aIdx >= 0; aIdx = hitBS.nextSetBit(aIdx + 1))
+		{
+			double tmpAngle = calcAngle(lat, lon, latArr[aIdx], lonArr[aIdx]);
+			if (tmpAngle > queryAngle + radArr[aIdx])
+				hitBS.clear(aIdx);
+		}
+
+		return toItems(hitBS);
+	}
+
+	/**
+	 * Returns the number of items in this index.
+	 */
+	public int size()
+	{
+		return itemL.size();
+	}
+
+	/**
+	 * Helper method that converts a surface distance (km) to an angle (radians).
+	 * <p>
+	 * Returns 0 if the distance or body radius is not valid.
+	 */
+	private double toAngle(double aDist)
+	{
+		double retAngle = aDist / bodyRadius;
+		if (Double.isNaN(retAngle) == true || Double.isInfinite(retAngle) == true || retAngle < 0)
+			return 0.0;
+
+		return retAngle;
+	}
+
+	/**
+	 * Helper method that records the (index of) items that overlap the
+	 * specified box.
+	 */
+	private void search(double[] aBox, BitSet aHitBS)
+	{
+		// Bail if the index is empty
+		if (rootNode == null)
+			return;
+
+		List<Node> workL = new ArrayList<>();
+		workL.add(rootNode);
+		while (workL.isEmpty() == false)
+		{
+			Node tmpNode = workL.remove(workL.size() - 1);
+			if (isOverlap(tmpNode.box, aBox) == false)
+				continue;
+
+			if (tmpNode.childArr == null)
+				aHitBS.set(tmpNode.itemIdx);
+			else
+				workL.addAll(Arrays.asList(tmpNode.childArr));
+		}
+	}
+
+	/**
+	 * Helper method that returns the items corresponding to the set bits.
+	 */
+	private List<G> toItems(BitSet aHitBS)
+	{
+		List<G> retItemL = new ArrayList<>(aHitBS.cardinality());
+		for (int aIdx = aHitBS.nextSetBit(0); aIdx >= 0; aIdx = aHitBS.nextSetBit(aIdx + 1))
+			retItemL.add(itemL.get(aIdx));
+
+		return retItemL;
+	}
+
+	/**
+	 * Utility helper method that bulk loads an R-tree from the specified nodes
+	 * via the Sort-Tile-Recursive algorithm.
+	 * <p>
+	 * Returns the root node or null if there are no nodes.
+	 */
+	private static Node buildTree(List<Node> aNodeL)
+	{
+		// Bail if there is nothing to index
+		if (aNodeL.isEmpty() == true)
+			return null;
+
+		List<Node> levelL = aNodeL;
+		while (levelL.size() > 1)
+		{
+			// Sort by longitude and cut into vertical slices. Each slice is then
+			// sorted by latitude and packed into nodes.
+			int numNodes = (levelL.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			int numSlices = (int) Math.ceil(Math.sqrt(numNodes));
+			int sliceSize = numSlices * NODE_CAPACITY;
+
+			List<Node> sortL = new ArrayList<>(levelL);
+			sortL.sort(Comparator.comparingDouble(aNode -> aNode.box[2] + aNode.box[3]));
+
+			List<Node> nextL = new ArrayList<>();
+			for (int sIdx = 0; sIdx < sortL.size(); sIdx += sliceSize)
+			{
+				List<Node> sliceL = new ArrayList<>(sortL.subList(sIdx, Math.min(sIdx + sliceSize, sortL.size())));
+				sliceL.sort(Comparator.comparingDouble(aNode -> aNode.box[0] + aNode.box[1]));
+
+				for (int nIdx = 0; nIdx < sliceL.size(); nIdx += NODE_CAPACITY)
+				{
+					List<Node> childL = sliceL.subList(nIdx, Math.min(nIdx + NODE_CAPACITY, sliceL.size()));
+					nextL.add(new Node(childL.toArray(new Node[0])));
+				}
+			}
+
+			levelL = nextL;
+		}
+
+		return levelL.get(0);
+	}
+
+	/**
+	 * Utility helper method that returns the great circle angle (radians)
+	 * between 2 points (radians).
+	 */
+	private static double calcAngle(double aLat1, double aLon1, double aLat2, double aLon2)
+	{
+		// Haversine formula
+		double sinDLat = Math.sin((aLat2 - aLat1) / 2.0);
+		double sinDLon = Math.sin((aLon2 - aLon1) / 2.0);
+		double tmpVal = sinDLat * sinDLat + Math.cos(aLat1) * Math.cos(aLat2) * sinDLon * sinDLon;
+		return 2.0 * Math.asin(Math.min(1.0, Math.sqrt(tmpVal)));
+	}
+
+	/**
+	 * Utility helper method that returns the geometry arrays (latitude, longitude
+	 * and extent) of the specified items.
+	 */
+	private static <G> double[][] formGeometry(List<G> aItemL, Function<G, Dem> aDemFunc)
+	{
+		int numItems = aItemL.size();
+		double[][] retGeomArr = new double[3][numItems];
+		for (int aIdx = 0; aIdx < numItems; aIdx++)
+		{
+			Dem tmpDem = aDemFunc.apply(aItemL.get(aIdx));
+			retGeomArr[0][aIdx] = tmpDem.getLat();
+			retGeomArr[1][aIdx] = tmpDem.getLon();
+			retGeomArr[2][aIdx] = tmpDem.getGsd() * tmpDem.getNumPixels() / 1000.0;
+		}
+
+		return retGeomArr;
+	}
+
+	/**
+	 * Utility helper method that returns the lat/lon bounding boxes (degrees) of
+	 * the circle (with the specified angular radius) centered at the specified
+	 * point.
+	 * <p>
+	 * Each box is defined as: minLat, maxLat, minLon, maxLon where the
+	 * longitudes are in the range [0, 360]. Two boxes are returned if the
+	 * circle crosses the 360/0 meridian.
+	 */
+	private static List<double[]> formBoxes(double aLat, double aLon, double aRadius)
+	{
+		double minLat = Math.max(aLat - aRadius, -90.0);
+		double maxLat = Math.min(aLat + aRadius, 90.0);
+
+		// Circles that reach a pole cover all longitudes
+		if (aLat - aRadius <= -90.0 || aLat + aRadius >= 90.0)
+			return ImmutableList.of(new double[] { minLat, maxLat, 0.0, 360.0 });
+
+		// Longitude extent of the circle (tangent meridians)
+		double sinRatio = Math.sin(Math.toRadians(aRadius)) / Math.cos(Math.toRadians(aLat));
+		double dLon = Math.toDegrees(Math.asin(Math.min(1.0, sinRatio)));
+		if (Double.isNaN(dLon) == true || dLon >= 180.0)
+			return ImmutableList.of(new double[] { minLat, maxLat, 0.0, 360.0 });
+
+		double lon = normalizeLon(aLon);
+		double minLon = lon - dLon;
+		double maxLon = lon + dLon;
+		if (minLon < 0.0)
+			return ImmutableList.of(new double[] { minLat, maxLat, 0.0, maxLon },
+					new double[] { minLat, maxLat, minLon + 360.0, 360.0 });
+		if (maxLon > 360.0)
+			return ImmutableList.of(new double[] { minLat, maxLat, minLon, 360.0 },
+					new double[] { minLat, maxLat, 0.0, maxLon - 360.0 });
+
+		return ImmutableList.of(new double[] { minLat, maxLat, minLon, maxLon });
+	}
+
+	/**
+	 * Utility helper method that returns true if the 2 boxes overlap.
+	 */
+	private static boolean isOverlap(double[] aBox1, double[] aBox2)
+	{
+		return aBox1[0] <= aBox2[1] && aBox2[0] <= aBox1[1] && aBox1[2] <= aBox2[3] && aBox2[2] <= aBox1[3];
+	}
+
+	/**
+	 * Utility helper method that normalizes a longitude (degrees) to the range
+	 * [0, 360).
+	 */
+	private static double normalizeLon(double aLon)
+	{
+		double retLon = aLon % 360.0;
+		if (retLon < 0.0)
+			retLon += 360.0;
+
+		return retLon;
+	}
+
+	/**
+	 * Class that defines a node of the R-tree. A leaf node references a single
+	 * item.
+	 */
+	private static class Node
+	{
+		private final double[] box;
+		private final Node[] childArr;
+		private final int itemIdx;
+
+		/** Leaf Constructor */
+		Node(double[] aBox, int aItemIdx)
+		{
+			box = aBox;
+			childArr = null;
+			itemIdx = aItemIdx;
+		}
+
+		/** Interior Constructor */
+		Node(Node[] aChildArr)
+		{
+			childArr = aChildArr;
+			itemIdx = -1;
+
+			box = new double[] { Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+					Double.NEGATIVE_INFINITY };
+			for (Node aChild : aChildArr)
+			{
+				box[0] = Math.min(box[0], aChild.box[0]);
+				box[1] = Math.max(box[1], aChild.box[1]);
+				box[2] = Math.min(box[2], aChild.box[2]);
+				box[3] = Math.max(box[3], aChild.box[3]);
+			}
+		}
+	}
+
+}
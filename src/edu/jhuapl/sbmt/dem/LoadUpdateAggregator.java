@@ -0,0 +1,116 @@
+package edu.jhuapl.sbmt.dem;
+
+import java.awt.EventQueue;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.swing.Timer;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Class that aggregates (load) update notifications of items and delivers them,
+ * in batches, on the AWT event dispatch thread.
+ * <p>
+ * Items may be marked as updated from any thread. All items marked within a
+ * (frame) period are delivered together via a single invocation of the flush
+ * callback. The final update of an item is never lost: an item marked after a
+ * batch has been taken is delivered in the next batch.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author lopeznr1
+ */
+public class LoadUpdateAggregator<G>
+{
+	// Attributes
+	private final long periodMS;
+	private final Consumer<Set<G>> flushCB;
+
+	// State vars
+	private Set<G> dirtyS;
+	private boolean isPending;
+	private long lastFlushTime;
+
+	/**
+	 * Standard Constructor
+	 *
+	 * @param aPeriodMS The minimum time (in milliseconds) between batches.
+	 * @param aFlushCB The callback that receives each batch. The callback is
+	 * always invoked on the AWT event dispatch thread.
+	 */
+	public LoadUpdateAggregator(long aPeriodMS, Consumer<Set<G>> aFlushCB)
+	{
+		periodMS = aPeriodMS;
+		flushCB = aFlushCB;
+
+		dirtyS = new LinkedHashSet<>();
+		isPending = false;
+		lastFlushTime = 0L;
+	}
+
+	/**
+	 * Marks the specified item as updated.
+	 * <p>
+	 * The item will be delivered with the next batch. If no batch is pending
+	 * then one is scheduled: immediately if urgent or if the period has lapsed
+	 * since the last batch, otherwise once the period lapses.
+	 *
+	 * @param aItem The updated item.
+	 * @param aIsUrgent Flag that defines whether the batch should be delivered
+	 * without regard to the period.
+	 */
+	public void mark(G aItem, boolean aIsUrgent)
+	{
+		long delayMS;
+		synchronized (this)
+		{
+			dirtyS.add(aItem);
+
+			// Bail if a batch is already pending - it will include the item
+			if (isPending == true)
+				return;
+			isPending = true;
+
+			delayMS = periodMS - (System.currentTimeMillis() - lastFlushTime);
+			if (aIsUrgent == true)
+				delayMS = 0L;
+		}
+
+		// Schedule the batch
+		if (delayMS <= 0L)
+		{
+			EventQueue.invokeLater(this::flush);
+			return;
+		}
+
+		Timer tmpTimer = new Timer((int) delayMS, aEvent -> flush());
+		tmpTimer.setRepeats(false);
+		tmpTimer.start();
+	}
+
+	/**
+	 * Helper method that delivers the (pending) batch of updated items.
+	 * <p>
+	 * Called on the AWT event dispatch thread.
+	 */
+	private void flush()
+	{
+		Set<G> tmpItemS;
+		synchronized (this)
+		{
+			tmpItemS = dirtyS;
+			dirtyS = new LinkedHashSet<>();
+			isPending = false;
+			lastFlushTime = System.currentTimeMillis();
+		}
+
+		// Bail if there is nothing to deliver
+		if (tmpItemS.isEmpty() == true)
+			return;
+
+		flushCB.accept(ImmutableSet.copyOf(tmpItemS));
+	}
+
+}
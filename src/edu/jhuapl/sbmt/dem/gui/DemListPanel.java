@@ -50,6 +50,7 @@ import edu.jhuapl.saavtk.pick.PickUtil;
 import edu.jhuapl.sbmt.core.util.KeyValueNode;
 import edu.jhuapl.sbmt.dem.Dem;
 import edu.jhuapl.sbmt.dem.DemCatalog;
+import edu.jhuapl.sbmt.dem.DemCatalogDiff;
 import edu.jhuapl.sbmt.dem.DemConfigAttr;
 import edu.jhuapl.sbmt.dem.DemManager;
 import edu.jhuapl.sbmt.dem.DemStruct;
@@ -107,6 +108,7 @@ public class DemListPanel extends JPanel implements ActionListener, ItemEventLis
 	private final ImmutableList<DemCatalog> refCatalogL;
 
 	// State vars
+	private final Map<DemCatalog, DemCatalog> refreshM;
 	private DemCatalog workCatalog;
 	private double radialOffsetScale;
 
@@ -137,6 +139,7 @@ public class DemListPanel extends JPanel implements ActionListener, ItemEventLis
 		refRenderer = aRenderer;
 		refCatalogL = ImmutableList.copyOf(aCatalogL);
 
+		refreshM = new HashMap<>();
 		workCatalog = DemCatalog.Invalid;
 		radialOffsetScale = DemGuiUtil.getNominalRadialOffsetScale(aSmallBody);
 
@@ -309,6 +312,31 @@ public class DemListPanel extends JPanel implements ActionListener, ItemEventLis
 		updateGui();
 	}
 
+	/**
+	 * Installs the newer (refreshed) version of the specified catalog.
+	 * <p>
+	 * If the old version is the installed catalog then only the differences
+	 * between the versions are applied: the painters, loaded surfaces and
+	 * configurations of the unchanged {@link Dem}s are kept.
+	 */
+	public void refreshCatalog(DemCatalog aOldCatalog, DemCatalog aNewCatalog)
+	{
+		refreshM.put(aOldCatalog, aNewCatalog);
+
+		// Bail if the old version is not installed
+		if (workCatalog != aOldCatalog)
+			return;
+		workCatalog = aNewCatalog;
+
+		// Bail if nothing has changed
+		DemCatalogDiff tmpDiff = DemCatalogDiff.of(refItemManager.getAllStructs(), aNewCatalog.getStructs());
+		if (tmpDiff.isEmpty() == true)
+			return;
+
+		refItemManager.setAllStructs(tmpDiff.getMergedItems());
+		updateGui();
+	}
+
 	@Override
 	public void handleItemEvent(Object aSource, ItemEventType aEventType)
 	{
@@ -542,6 +570,10 @@ public class DemListPanel extends JPanel implements ActionListener, ItemEventLis
 	 */
 	private void doActionSwitchToCatalog(DemCatalog aCatalog)
 	{
+		// Utilize the most recent version of the catalog
+		while (refreshM.containsKey(aCatalog) == true)
+			aCatalog = refreshM.get(aCatalog);
+
 		// Bail if nothing has changed
 		if (workCatalog == aCatalog)
 			return;
@@ -1,6 +1,7 @@
 package edu.jhuapl.sbmt.dem.gui;
 
 import java.awt.Component;
+import java.awt.EventQueue;
 import java.io.File;
 import java.net.URL;
 import java.nio.file.Paths;
@@ -12,6 +13,7 @@ import javax.swing.JTabbedPane;
 
 import com.google.common.collect.ImmutableList;
 
+import edu.jhuapl.saavtk.camera.Camera;
 import edu.jhuapl.saavtk.gui.render.Renderer;
 import edu.jhuapl.saavtk.gui.render.VtkPropProvider;
 import edu.jhuapl.saavtk.model.PolyhedralModel;
@@ -24,7 +26,9 @@ import edu.jhuapl.sbmt.config.SmallBodyViewConfig;
 import edu.jhuapl.sbmt.dem.Dem;
 import edu.jhuapl.sbmt.dem.DemCatalog;
 import edu.jhuapl.sbmt.dem.DemManager;
+import edu.jhuapl.sbmt.dem.DemPrefetcher;
 import edu.jhuapl.sbmt.dem.io.DemCatalogUtil;
+import edu.jhuapl.sbmt.dem.io.DemDiskCache;
 import edu.jhuapl.sbmt.dem.io.legacy.LegacyUtil;
 import edu.jhuapl.sbmt.dem.vtk.VtkDemPainter;
 
@@ -102,7 +106,8 @@ public class DemMainPanel extends JTabbedPane
 		// Load the default catalog file
 		Task tmpTask = new ConsoleTask();
 		tmpTask.setTabSize(3);
-		DemCatalog defCatalog = DemCatalogUtil.loadDefaultCatalog(tmpTask, aTocSource);
+		double bodyRadius = getBodyRadius(aSmallBody);
+		DemCatalog defCatalog = DemCatalogUtil.loadDefaultCatalog(tmpTask, aTocSource, bodyRadius);
 		if (defCatalog == null)
 			return null;
 		List<DemCatalog> catalogL = ImmutableList.of(defCatalog);
@@ -111,8 +116,15 @@ public class DemMainPanel extends JTabbedPane
 		DemManager tmpDemManager = new DemManager(aRenderer, aStatusNotifier, aSmallBody, aParent);
 		aRenderer.addVtkPropProvider(tmpDemManager);
 
+		// Keep the (downloaded) browse cache within the disk quota
+		tmpDemManager.setDiskCache(new DemDiskCache(defCatalog.getCacheDir(), DemDiskCache.DEFAULT_QUOTA));
+
+		// Prefetch the dems that are likely to come into view
+		DemPrefetcher tmpPrefetcher = new DemPrefetcher(tmpDemManager, bodyRadius);
+
 		// Manually register for events of interest
 		aRenderer.addViewChangeListener((aSource, aReason) -> handleViewAction(tmpDemManager, aRenderer, aReason));
+		aRenderer.addViewChangeListener((aSource, aReason) -> handlePrefetchAction(tmpPrefetcher, aRenderer, aReason));
 		aPickManager.getDefaultPicker().addListener(tmpDemManager);
 		aPickManager.getDefaultPicker().addPropProvider(tmpDemManager);
 		tmpDemManager.addLoadListener((aSource, aItemC) -> handleLoadChange(tmpDemManager, aItemC, aPickManager));
@@ -122,6 +134,17 @@ public class DemMainPanel extends JTabbedPane
 
 		// Form the 'list' panel
 		DemListPanel retPanel = new DemListPanel(tmpDemManager, aRenderer, aPickManager, aSmallBody, catalogL);
+
+		// Refresh the default catalog (in the background). Only the changes are
+		// applied to the list panel.
+		Thread refreshThread = new Thread(() -> {
+			DemCatalog newCatalog = DemCatalogUtil.refreshDefaultCatalog(new ConsoleTask(), aTocSource, bodyRadius);
+			if (newCatalog != null)
+				EventQueue.invokeLater(() -> retPanel.refreshCatalog(defCatalog, newCatalog));
+		}, "DemCatalogRefresh");
+		refreshThread.setDaemon(true);
+		refreshThread.start();
+
 		return retPanel;
 	}
 
@@ -140,7 +163,9 @@ public class DemMainPanel extends JTabbedPane
 		// Load the catalog (for custom dems)
 		File localFile = DemCatalogUtil.getConfigFileCatalog(aTocDir, CustomTagName);
 		Source tmpSource = new PlainSource(localFile, null);
-		DemCatalog tmpCatalog = DemCatalogUtil.loadCatalog(new SilentTask(), tmpSource, true, customCacheDir);
+		double bodyRadius = getBodyRadius(aSmallBody);
+		DemCatalog tmpCatalog = DemCatalogUtil.loadCatalog(new SilentTask(), tmpSource, true, customCacheDir,
+				bodyRadius);
 
 		// Form the DemManager
 		DemManager tmpDemManager = new DemManager(aRenderer, aStatusNotifier, aSmallBody, aParent);
@@ -160,6 +185,16 @@ public class DemMainPanel extends JTabbedPane
 		return retPanel;
 	}
 
+	/**
+	 * Utility helper method that returns the (approximate) radius of the body.
+	 * <p>
+	 * The body is approximated by the sphere inscribed in its bounding box.
+	 */
+	private static double getBodyRadius(PolyhedralModel aSmallBody)
+	{
+		return aSmallBody.getBoundingBoxDiagonalLength() / (2.0 * Math.sqrt(3.0));
+	}
+
 	/**
 	 * Utility helper method that notifies the {@link PickManager}'s default
 	 * picker that a {@link VtkPropProvider}'s state has changed.
@@ -179,6 +214,20 @@ public class DemMainPanel extends JTabbedPane
 		aPickManager.getDefaultPicker().notifyPropProviderChanged();
 	}
 
+	/**
+	 * Utility helper method that notifies the {@link DemPrefetcher} of changes
+	 * to the camera.
+	 */
+	private static void handlePrefetchAction(DemPrefetcher aPrefetcher, Renderer aRenderer, ViewChangeReason aReason)
+	{
+		// Bail if the event is associated with a change in lighting
+		if (aReason == ViewChangeReason.Light)
+			return;
+
+		Camera tmpCamera = aRenderer.getCamera();
+		aPrefetcher.handleViewChange(tmpCamera.getPosition(), tmpCamera.getFocalPoint(), tmpCamera.getViewAngle());
+	}
+
 	/**
 	 * Utility helper method that notifies the {@link DemManager} of the system
 	 * {@link LightCfg}.
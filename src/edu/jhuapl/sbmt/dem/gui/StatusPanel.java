@@ -6,6 +6,7 @@ import java.util.Collection;
 import java.util.List;
 
 import javax.swing.JButton;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
@@ -15,6 +16,7 @@ import com.google.common.collect.ImmutableList;
 import edu.jhuapl.saavtk.gui.util.ToolTipUtil;
 import edu.jhuapl.sbmt.dem.Dem;
 import edu.jhuapl.sbmt.dem.DemManager;
+import edu.jhuapl.sbmt.dem.io.DemDiskCache;
 import edu.jhuapl.sbmt.dem.vtk.VtkDemPainter;
 
 import glum.gui.GuiUtil;
@@ -32,12 +34,15 @@ import net.miginfocom.swing.MigLayout;
  */
 public class StatusPanel extends JPanel implements ActionListener
 {
+	// Constants
+	private static final long BYTES_PER_GIB = 1024L * 1024 * 1024;
+
 	// Ref vars
 	private final DemManager refManager;
 
 	// Gui vars
 	private JTextArea infoTA;
-	private JButton abortB, clearB;
+	private JButton abortB, budgetB, clearB;
 
 	// State vars
 	private List<Dem> workL;
@@ -58,10 +63,12 @@ public class StatusPanel extends JPanel implements ActionListener
 		add(tmpScrollPane, "growx,growy,pushx,pushy,wrap");
 
 		abortB = GuiUtil.createJButton("Abort", this);
+		budgetB = GuiUtil.createJButton("Memory Budget...", this);
 		clearB = GuiUtil.createJButton("Clear", this);
 //		add(clearB, "ax right,span,split");
 //		add(abortB);
-		add(abortB, "ax right,span,split");
+		add(budgetB, "span,split");
+		add(abortB, "ax right");
 	}
 
 	/**
@@ -80,6 +87,8 @@ public class StatusPanel extends JPanel implements ActionListener
 		Object source = aEvent.getSource();
 		if (source == abortB)
 			doActionAbort();
+		else if (source == budgetB)
+			doActionBudget();
 		else if (source == clearB)
 			doActionClear();
 
@@ -95,6 +104,40 @@ public class StatusPanel extends JPanel implements ActionListener
 			refManager.getPainterFor(aItem).vtkStateHalt();
 	}
 
+	/**
+	 * Helper method that handles the (memory) budget action
+	 */
+	private void doActionBudget()
+	{
+		// Prompt for the budget (in GiB)
+		double oldBudget = refManager.getMemoryBudget() / (double) BYTES_PER_GIB;
+		String inputStr = JOptionPane.showInputDialog(this, "Memory budget for loaded DTMs (GiB):",
+				String.format("%.2f", oldBudget));
+
+		// Bail if the user canceled
+		if (inputStr == null)
+			return;
+
+		// Bail if the budget is not valid
+		double newBudget = Double.NaN;
+		try
+		{
+			newBudget = Double.parseDouble(inputStr.trim());
+		}
+		catch (NumberFormatException aExp)
+		{
+			; // Nothing to do
+		}
+		if (Double.isFinite(newBudget) == false || newBudget <= 0)
+		{
+			JOptionPane.showMessageDialog(this, "Invalid memory budget: " + inputStr, "Memory Budget",
+					JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+
+		refManager.setMemoryBudget((long) (newBudget * BYTES_PER_GIB));
+	}
+
 	/**
 	 * Helper method that handles the clear action
 	 */
@@ -122,6 +165,7 @@ public class StatusPanel extends JPanel implements ActionListener
 		long diskFetched = 0L, diskLocal = 0L;
 		int cntFetched = 0, cntLocal = 0;
 		int cntAbortable = 0, cntInMemory = 0;
+		long memInMemory = 0L;
 		for (Dem aItem : workL)
 		{
 			Source tmpSouce = aItem.getSource();
@@ -153,6 +197,7 @@ public class StatusPanel extends JPanel implements ActionListener
 			// Determine the number of items that are loaded into memory
 			if (tmpPainter.getVtkDemSurface() != null)
 				cntInMemory++;
+			memInMemory += tmpPainter.getMemorySize();
 		}
 
 		// Abort button
@@ -164,6 +209,7 @@ public class StatusPanel extends JPanel implements ActionListener
 		clearB.setEnabled(isEnabled);
 
 		// Info area
+		ByteUnit tmpBU = new ByteUnit(2);
 		String infoMsg = null;
 		if (workL.size() == 1)
 		{
@@ -176,7 +222,6 @@ public class StatusPanel extends JPanel implements ActionListener
 		{
 			infoMsg = "Multiple items are selected.\n\n";
 
-			ByteUnit tmpBU = new ByteUnit(2);
 			if (cntLocal > 0)
 			{
 				infoMsg += "Items stored on local disk:\n";
@@ -190,8 +235,29 @@ public class StatusPanel extends JPanel implements ActionListener
 			}
 
 			infoMsg += "Items cached in system memory (ram):\n";
-			infoMsg += "\tDTMs: " + cntInMemory;
-			// + " Disk space: " + tmpBU.getString(totDiskSize) + "\n";
+			infoMsg += "\tDTMs: " + cntInMemory + "  Memory: " + tmpBU.getString(memInMemory);
+		}
+
+		// Memory budget (across all items)
+		long memUsage = refManager.getMemoryUsage();
+		long memBudget = refManager.getMemoryBudget();
+		infoMsg += "\n\nSystem memory budget:\n";
+		infoMsg += "\tUsed: " + tmpBU.getString(memUsage) + " of " + tmpBU.getString(memBudget);
+		if (memBudget > 0)
+			infoMsg += String.format(" (%.1f%%)", 100.0 * memUsage / memBudget);
+
+		// Disk quota (of the downloaded files)
+		DemDiskCache tmpDiskCache = refManager.getDiskCache();
+		if (tmpDiskCache != null)
+		{
+			long diskUsage = tmpDiskCache.getUsage();
+			long diskQuota = tmpDiskCache.getQuota();
+			infoMsg += "\n\nDisk cache quota:\n";
+			infoMsg += "\tUsed: " + tmpBU.getString(diskUsage) + " of " + tmpBU.getString(diskQuota);
+			if (diskQuota > 0)
+				infoMsg += String.format(" (%.1f%%)", 100.0 * diskUsage / diskQuota);
+			infoMsg += "\n\tHits: " + tmpDiskCache.getNumHits() + "  Misses: " + tmpDiskCache.getNumMisses();
+			infoMsg += "  Evictions: " + tmpDiskCache.getNumEvictions();
 		}
 
 		infoTA.setText(infoMsg);
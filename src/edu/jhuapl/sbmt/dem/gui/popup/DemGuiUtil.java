@@ -93,6 +93,7 @@ public class DemGuiUtil
 		retPM.installPopAction(new AnalyzeAction(aManager), "Analyze");
 		retPM.installPopAction(new CenterAction(aManager, aRenderer), "Center DTM in Window");
 		retPM.installPopAction(new EditAction(aManager, aParent), "Edit DTM");
+		retPM.installPopAction(new PinAction(aManager), "Pin DTM");
 
 		JMenu colorMenu = new JMenu("Boundary Color");
 		retPM.installPopAction(new DemExteriorColorAction(aManager, aParent, colorMenu), colorMenu);
@@ -0,0 +1,66 @@
+package edu.jhuapl.sbmt.dem.gui.popup;
+
+import java.util.Collection;
+import java.util.List;
+
+import javax.swing.JMenuItem;
+
+import edu.jhuapl.saavtk.gui.util.MessageUtil;
+import edu.jhuapl.sbmt.dem.Dem;
+import edu.jhuapl.sbmt.dem.DemManager;
+
+import glum.gui.action.PopAction;
+
+/**
+ * Object that defines the action: "Pin/Unpin DTM".
+ * <p>
+ * The loaded state of a pinned item is never evicted to satisfy the memory
+ * budget.
+ *
+ * @author lopeznr1
+ */
+class PinAction extends PopAction<Dem>
+{
+	// Ref vars
+	private final DemManager refManager;
+
+	/** Standard Constructor */
+	public PinAction(DemManager aManager)
+	{
+		refManager = aManager;
+	}
+
+	@Override
+	public void executeAction(List<Dem> aItemL)
+	{
+		// Determine if all items are pinned
+		boolean isAllPinned = true;
+		for (Dem aItem : aItemL)
+			isAllPinned &= refManager.getIsPinned(aItem) == true;
+
+		// Update the pinned state based on whether they are all pinned
+		boolean tmpBool = isAllPinned == false;
+		refManager.setIsPinned(aItemL, tmpBool);
+	}
+
+	@Override
+	public void setChosenItems(Collection<Dem> aItemC, JMenuItem aAssocMI)
+	{
+		super.setChosenItems(aItemC, aAssocMI);
+
+		// Determine if all items are pinned
+		boolean isAllPinned = true;
+		for (Dem aItem : aItemC)
+			isAllPinned &= refManager.getIsPinned(aItem) == true;
+
+		// Determine the display string
+		String displayStr = "Unpin DTM";
+		if (isAllPinned == false)
+			displayStr = "Pin DTM";
+		displayStr = MessageUtil.toPluralForm(displayStr, aItemC);
+
+		// Update the text of the associated MenuItem
+		aAssocMI.setText(displayStr);
+	}
+
+}
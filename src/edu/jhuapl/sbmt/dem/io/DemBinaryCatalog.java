@@ -0,0 +1,465 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.jhuapl.sbmt.dem.Dem;
+import edu.jhuapl.sbmt.dem.DemException;
+import edu.jhuapl.sbmt.dem.DemStruct;
+
+import glum.source.Source;
+import glum.source.SourceUtil;
+
+/**
+ * Class that provides access to a compact binary representation of a catalog
+ * of {@link Dem}s.
+ * <p>
+ * The binary catalog is generated from a (text) catalog file and cached next
+ * to it. The cached file is memory mapped and each entry is a fixed size
+ * record - thus any entry is accessible in O(1) time without parsing the
+ * catalog.
+ * <p>
+ * Note the {@link DemStruct}s (and associated {@link Source}s) are formed up
+ * front via {@link #formStructList(File)}. They are not formed lazily since
+ * installing a catalog (DemManager.setAllStructs) accesses every entry.
+ * <p>
+ * The binary catalog records the size and modification time of the text
+ * catalog (and the default base path) it was generated from. A binary catalog
+ * that does not match is stale and will not be opened.
+ * <p>
+ * The (big-endian) layout of the binary catalog is:
+ * <ul>
+ * <li>Header: magic, version, source size, source time, number of entries,
+ * number of base paths, position of the records
+ * <li>Strings: default base path, display name, base paths
+ * <li>Records: lat, lon, half size, scale, disk size, base path index, target
+ * path position
+ * <li>Strings: target paths
+ * </ul>
+ * A string is stored as its (UTF-8) length followed by its bytes. A length of
+ * -1 denotes null.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author lopeznr1
+ */
+public class DemBinaryCatalog
+{
+	// Constants
+	/** File extension (appended to the text catalog file) of binary catalogs. */
+	public static final String FILE_EXT = ".bin";
+	private static final int MAGIC = 0x44434154; // "DCAT"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4;
+	private static final int RECORD_SIZE = 4 * 8 + 8 + 4 + 4;
+
+	// Attributes
+	private final ByteBuffer dataBB;
+	private final String defaultBasePath;
+	private final String displayName;
+	private final String[] basePathArr;
+	private final int numItems;
+	private final int recordPos;
+
+	/**
+	 * Standard Constructor
+	 *
+	 * @param aDataBB The buffer that holds the binary catalog.
+	 * @throws IOException If the buffer does not hold a valid binary catalog.
+	 */
+	private DemBinaryCatalog(ByteBuffer aDataBB) throws IOException
+	{
+		dataBB = aDataBB;
+
+		if (dataBB.limit() < HEADER_SIZE || dataBB.getInt(0) != MAGIC || dataBB.getInt(4) != VERSION)
+			throw new IOException("Not a (supported) binary catalog.");
+
+		numItems = dataBB.getInt(24);
+		int numBasePaths = dataBB.getInt(28);
+		recordPos = dataBB.getInt(32);
+		if (numItems < 0 || numBasePaths < 0 || recordPos < HEADER_SIZE
+				|| recordPos + (long) numItems * RECORD_SIZE > dataBB.limit())
+			throw new IOException("Corrupt binary catalog.");
+
+		int currPos = HEADER_SIZE;
+		defaultBasePath = readString(currPos);
+		currPos += getStringSize(defaultBasePath);
+		displayName = readString(currPos);
+		currPos += getStringSize(displayName);
+
+		basePathArr = new String[numBasePaths];
+		for (int aIdx = 0; aIdx < numBasePaths; aIdx++)
+		{
+			basePathArr[aIdx] = readString(currPos);
+			currPos += getStringSize(basePathArr[aIdx]);
+		}
+	}
+
+	/**
+	 * Returns the file where the binary catalog corresponding to the specified
+	 * (text) catalog file is cached.
+	 */
+	public static File getBinaryFile(File aSrcFile)
+	{
+		return new File(aSrcFile.getPath() + FILE_EXT);
+	}
+
+	/**
+	 * Utility method that opens (memory maps) the cached binary catalog
+	 * corresponding to the specified (text) catalog file.
+	 * <p>
+	 * Returns null if there is no cached binary catalog or if it is stale.
+	 *
+	 * @param aSrcFile The (text) catalog file.
+	 * @param aDefaultBasePath The base path in effect at the start of the
+	 * catalog.
+	 */
+	public static DemBinaryCatalog open(File aSrcFile, String aDefaultBasePath)
+	{
+		// Bail if there is no cached binary catalog
+		File binFile = getBinaryFile(aSrcFile);
+		if (binFile.isFile() == false || aSrcFile.isFile() == false)
+			return null;
+
+		try (RandomAccessFile tmpRAF = new RandomAccessFile(binFile, "r"))
+		{
+			FileChannel tmpFC = tmpRAF.getChannel();
+			ByteBuffer tmpBB = tmpFC.map(FileChannel.MapMode.READ_ONLY, 0, tmpFC.size());
+			DemBinaryCatalog retCatalog = new DemBinaryCatalog(tmpBB);
+
+			// Bail if the binary catalog is stale
+			if (tmpBB.getLong(8) != aSrcFile.length() || tmpBB.getLong(16) != aSrcFile.lastModified())
+				return null;
+			if (Objects.equals(retCatalog.defaultBasePath, aDefaultBasePath) == false)
+				return null;
+
+			return retCatalog;
+		}
+		catch (IOException aExp)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the display name of the catalog. Returns null if not specified.
+	 */
+	public String getDisplayName()
+	{
+		return displayName;
+	}
+
+	/**
+	 * Returns the base path of the specified entry.
+	 */
+	public String getBasePath(int aIdx)
+	{
+		int tmpIdx = dataBB.getInt(getRecordPos(aIdx) + 40);
+		if (tmpIdx < 0)
+			return null;
+
+		return basePathArr[tmpIdx];
+	}
+
+	/**
+	 * Returns the disk size (in bytes) of the specified entry. Returns -1 if not
+	 * specified.
+	 */
+	public long getDiskSize(int aIdx)
+	{
+		return dataBB.getLong(getRecordPos(aIdx) + 32);
+	}
+
+	/**
+	 * Returns the ground sample distance (scale) of the specified entry.
+	 */
+	public double getGsd(int aIdx)
+	{
+		return dataBB.getDouble(getRecordPos(aIdx) + 24);
+	}
+
+	/**
+	 * Returns the center latitude of the specified entry.
+	 */
+	public double getLat(int aIdx)
+	{
+		return dataBB.getDouble(getRecordPos(aIdx) + 0);
+	}
+
+	/**
+	 * Returns the center longitude of the specified entry.
+	 */
+	public double getLon(int aIdx)
+	{
+		return dataBB.getDouble(getRecordPos(aIdx) + 8);
+	}
+
+	/**
+	 * Returns the dimension (in pixels) of the specified entry.
+	 */
+	public double getNumPixels(int aIdx)
+	{
+		return dataBB.getDouble(getRecordPos(aIdx) + 16);
+	}
+
+	/**
+	 * Returns the target path (relative to the base path) of the specified
+	 * entry.
+	 */
+	public String getTargPath(int aIdx)
+	{
+		return readString(dataBB.getInt(getRecordPos(aIdx) + 44));
+	}
+
+	/**
+	 * Returns the number of entries in the catalog.
+	 */
+	public int size()
+	{
+		return numItems;
+	}
+
+	/**
+	 * Returns an (immutable) list of the {@link DemStruct}s of this catalog.
+	 * <p>
+	 * The {@link DemStruct} of every entry is formed by this call.
+	 *
+	 * @param aCacheDir The folder where the {@link Source}s are cached.
+	 */
+	public List<DemStruct> formStructList(File aCacheDir)
+	{
+		ImmutableList.Builder<DemStruct> tmpBuilder = ImmutableList.builderWithExpectedSize(numItems);
+		for (int aIdx = 0; aIdx < numItems; aIdx++)
+		{
+			try
+			{
+				Source tmpSource = SourceUtil.formSource(aCacheDir, getBasePath(aIdx), getTargPath(aIdx),
+						getDiskSize(aIdx));
+				Dem tmpDem = new Dem(tmpSource, getLat(aIdx), getLon(aIdx), getGsd(aIdx), getNumPixels(aIdx));
+				tmpBuilder.add(new DemStruct(tmpDem));
+			}
+			catch (IOException aExp)
+			{
+				throw new DemException("Failed to form the source of entry: " + aIdx, aExp);
+			}
+		}
+
+		return tmpBuilder.build();
+	}
+
+	/**
+	 * Helper method that returns the position of the specified record.
+	 */
+	private int getRecordPos(int aIdx)
+	{
+		Objects.checkIndex(aIdx, numItems);
+		return recordPos + aIdx * RECORD_SIZE;
+	}
+
+	/**
+	 * Helper method that reads the string at the specified position.
+	 */
+	private String readString(int aPos)
+	{
+		int numBytes = dataBB.getInt(aPos);
+		if (numBytes < 0)
+			return null;
+
+		byte[] byteArr = new byte[numBytes];
+		dataBB.get(aPos + 4, byteArr);
+		return new String(byteArr, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Utility helper method that returns the number of bytes used to store the
+	 * specified string.
+	 */
+	private static int getStringSize(String aStr)
+	{
+		if (aStr == null)
+			return 4;
+
+		return 4 + aStr.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	/**
+	 * Class used to form a binary catalog from the entries of a (text) catalog.
+	 * <p>
+	 * This class is not thread safe.
+	 */
+	public static class Builder
+	{
+		// Attributes
+		private final String defaultBasePath;
+
+		// State vars
+		private final Map<String, Integer> basePathM;
+		private final List<String> basePathL;
+		private final List<Object[]> entryL;
+		private String displayName;
+
+		/**
+		 * Standard Constructor
+		 *
+		 * @param aDefaultBasePath The base path in effect at the start of the
+		 * catalog.
+		 */
+		public Builder(String aDefaultBasePath)
+		{
+			defaultBasePath = aDefaultBasePath;
+
+			basePathM = new HashMap<>();
+			basePathL = new ArrayList<>();
+			entryL = new ArrayList<>();
+			displayName = null;
+		}
+
+		/**
+		 * Adds an entry to the catalog.
+		 */
+		public void addItem(String aBasePath, String aTargPath, long aDiskSize, double aLat, double aLon,
+				double aNumPixels, double aGsd)
+		{
+			int basePathIdx = -1;
+			if (aBasePath != null)
+			{
+				basePathIdx = basePathM.computeIfAbsent(aBasePath, aKey -> basePathL.size());
+				if (basePathIdx == basePathL.size())
+					basePathL.add(aBasePath);
+			}
+
+			entryL.add(new Object[] { aLat, aLon, aNumPixels, aGsd, aDiskSize, basePathIdx, aTargPath });
+		}
+
+		/**
+		 * Sets the display name of the catalog.
+		 */
+		public void setDisplayName(String aDisplayName)
+		{
+			displayName = aDisplayName;
+		}
+
+		/**
+		 * Forms the binary catalog corresponding to the specified (text) catalog
+		 * file.
+		 * <p>
+		 * The binary catalog is saved (next to the text catalog) so that
+		 * subsequent loads may utilize it. A failure to save is not fatal - the
+		 * returned (in memory) catalog is still valid.
+		 *
+		 * @param aSrcFile The (text) catalog file. If null then the binary catalog
+		 * will not be saved.
+		 */
+		public DemBinaryCatalog build(File aSrcFile)
+		{
+			// Determine the size of the (leading) strings
+			int stringSize = getStringSize(defaultBasePath) + getStringSize(displayName);
+			for (String aStr : basePathL)
+				stringSize += getStringSize(aStr);
+
+			int tmpRecordPos = HEADER_SIZE + stringSize;
+			long totSize = tmpRecordPos + (long) entryL.size() * RECORD_SIZE;
+			List<byte[]> targByteL = new ArrayList<>(entryL.size());
+			for (Object[] aEntryArr : entryL)
+			{
+				byte[] tmpByteArr = ((String) aEntryArr[6]).getBytes(StandardCharsets.UTF_8);
+				targByteL.add(tmpByteArr);
+				totSize += 4 + tmpByteArr.length;
+			}
+			if (totSize > Integer.MAX_VALUE)
+				throw new DemException("Catalog is too large: " + totSize + " bytes");
+
+			// Header
+			ByteBuffer tmpBB = ByteBuffer.allocate((int) totSize);
+			tmpBB.putInt(MAGIC);
+			tmpBB.putInt(VERSION);
+			tmpBB.putLong(aSrcFile != null ? aSrcFile.length() : -1L);
+			tmpBB.putLong(aSrcFile != null ? aSrcFile.lastModified() : -1L);
+			tmpBB.putInt(entryL.size());
+			tmpBB.putInt(basePathL.size());
+			tmpBB.putInt(tmpRecordPos);
+
+			// Strings
+			putString(tmpBB, defaultBasePath);
+			putString(tmpBB, displayName);
+			for (String aStr : basePathL)
+				putString(tmpBB, aStr);
+
+			// Records (and the target paths)
+			int targPos = tmpRecordPos + entryL.size() * RECORD_SIZE;
+			for (int aIdx = 0; aIdx < entryL.size(); aIdx++)
+			{
+				Object[] tmpEntryArr = entryL.get(aIdx);
+				tmpBB.putDouble((double) tmpEntryArr[0]);
+				tmpBB.putDouble((double) tmpEntryArr[1]);
+				tmpBB.putDouble((double) tmpEntryArr[2]);
+				tmpBB.putDouble((double) tmpEntryArr[3]);
+				tmpBB.putLong((long) tmpEntryArr[4]);
+				tmpBB.putInt((int) tmpEntryArr[5]);
+				tmpBB.putInt(targPos);
+
+				byte[] tmpByteArr = targByteL.get(aIdx);
+				tmpBB.putInt(targPos, tmpByteArr.length);
+				tmpBB.put(targPos + 4, tmpByteArr);
+				targPos += 4 + tmpByteArr.length;
+			}
+
+			// Save the binary catalog (via a temporary file so that a partial
+			// catalog is never observed)
+			if (aSrcFile != null)
+			{
+				File binFile = getBinaryFile(aSrcFile);
+				File tmpFile = new File(binFile.getPath() + ".tmp");
+				try
+				{
+					Files.write(tmpFile.toPath(), tmpBB.array());
+					Files.move(tmpFile.toPath(), binFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+				catch (IOException aExp)
+				{
+					tmpFile.delete();
+				}
+			}
+
+			tmpBB.clear();
+			try
+			{
+				return new DemBinaryCatalog(tmpBB);
+			}
+			catch (IOException aExp)
+			{
+				throw new DemException("Failed to form the binary catalog.", aExp);
+			}
+		}
+
+		/**
+		 * Utility helper method that writes the specified string.
+		 */
+		private static void putString(ByteBuffer aBB, String aStr)
+		{
+			if (aStr == null)
+			{
+				aBB.putInt(-1);
+				return;
+			}
+
+			byte[] tmpByteArr = aStr.getBytes(StandardCharsets.UTF_8);
+			aBB.putInt(tmpByteArr.length);
+			aBB.put(tmpByteArr);
+		}
+	}
+
+}
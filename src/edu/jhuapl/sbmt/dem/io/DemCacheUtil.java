@@ -7,6 +7,7 @@ import com.google.common.io.Files;
 
 import edu.jhuapl.sbmt.dem.Dem;
 import edu.jhuapl.sbmt.dem.DemStruct;
+import edu.jhuapl.sbmt.dem.vtk.DemGridCacheUtil;
 
 import glum.io.IoUtil;
 import glum.source.LocalSource;
@@ -59,13 +60,13 @@ public class DemCacheUtil
 			tmpDem = new Dem(tmpSource, tmpDem.getLat(), tmpDem.getLon(), tmpDem.getGsd(), tmpDem.getNumPixels());
 
 			// Determine if this is a educated get rather than a validated dem
-			// file. Currently parsing of obj files is simple due to the lack of a
-			// proper parse logic but rather utilization of VTK's obj parse logic.
+			// file. Obj files are recognized by probing only the leading bytes of
+			// the file - the file is not parsed.
 			boolean isLoadGuess = Double.isNaN(tmpDem.getLat()) == true;
 
 			aTask.logRegln("[Pass] Added file: " + aSrcFile + "   (" + timeU.getString(tmpWT) + ")");
 			if (isLoadGuess == true)
-				aTask.logRegln("\tNote that the file content has not been validated. Assuming obj file.");
+				aTask.logRegln("\tNote that the file content has not been fully validated. Assuming obj file.");
 			retStruct = new DemStruct(tmpDem, retStruct.keyValueM, retStruct.coordinateSystem);
 			return retStruct;
 		}
@@ -94,6 +95,11 @@ public class DemCacheUtil
 		// Remove the file
 		aTask.logRegln("Removing cache file: " + tmpFile);
 		tmpFile.delete();
+
+		// Remove the (binary) grid cache file
+		File gridCacheFile = DemGridCacheUtil.getCacheFile(tmpFile);
+		if (gridCacheFile.exists() == true)
+			gridCacheFile.delete();
 	}
 
 }
@@ -0,0 +1,221 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Collection of utility methods used to (conditionally) fetch a catalog file.
+ * <p>
+ * A fetch is a conditional HTTP request: the validators (ETag and
+ * Last-Modified) of the previously fetched version are sent (If-None-Match and
+ * If-Modified-Since) so that the catalog is only transferred if it has changed.
+ * A response of 304 (Not Modified) transfers no body.
+ * <p>
+ * The validators are stored in a file next to the catalog file. The time of
+ * the last check is recorded (as the modification time) in a separate check
+ * file.
+ *
+ * @author lopeznr1
+ */
+public class DemCatalogFetchUtil
+{
+	// Constants
+	/** File extension (appended to the catalog file) of the check file. */
+	public static final String CHECK_EXT = ".lastcheck";
+	/** File extension (appended to the catalog file) of the validator file. */
+	public static final String VALIDATOR_EXT = ".validators";
+	// Connection and read timeout
+	private static final int TIMEOUT_MS = 30 * 1000;
+
+	/**
+	 * Enum that defines the result of a fetch.
+	 */
+	public enum FetchResult
+	{
+		/** The catalog has changed and the new version was fetched. */
+		Modified,
+
+		/** The catalog has not changed. */
+		NotModified,
+	}
+
+	/**
+	 * Utility method that fetches the specified catalog file if it has changed
+	 * (on the server).
+	 * <p>
+	 * The catalog is transferred into a uniquely named temporary file (next to
+	 * the catalog file) and the local catalog file is then replaced atomically -
+	 * it is never left partially written.
+	 *
+	 * @param aFile The (local) catalog file.
+	 * @param aUrl The (remote) URL of the catalog.
+	 * @param aUsername The user name used for (basic) authentication. May be
+	 * null.
+	 * @param aPassword The password used for (basic) authentication. May be
+	 * null.
+	 * @throws IOException If the catalog could not be fetched.
+	 */
+	public static FetchResult fetch(File aFile, URL aUrl, String aUsername, char[] aPassword) throws IOException
+	{
+		File catFile = aFile.getAbsoluteFile();
+		File validatorFile = getValidatorFile(catFile);
+		boolean isLocal = catFile.isFile() == true && catFile.length() > 0;
+
+		URLConnection tmpConn = aUrl.openConnection();
+		tmpConn.setConnectTimeout(TIMEOUT_MS);
+		tmpConn.setReadTimeout(TIMEOUT_MS);
+		tmpConn.setUseCaches(false);
+		if (aUsername != null && aPassword != null)
+		{
+			String userPass = aUsername + ":" + new String(aPassword);
+			String authStr = Base64.getEncoder().encodeToString(userPass.getBytes(StandardCharsets.UTF_8));
+			tmpConn.setRequestProperty("Authorization", "Basic " + authStr);
+		}
+
+		// Send the validators of the local version
+		String[] validatorArr = { null, null };
+		if (isLocal == true)
+		{
+			validatorArr = readValidators(validatorFile);
+			if (validatorArr[0] != null)
+				tmpConn.setRequestProperty("If-None-Match", validatorArr[0]);
+			if (validatorArr[1] != null)
+				tmpConn.setRequestProperty("If-Modified-Since", validatorArr[1]);
+		}
+
+		try
+		{
+			// Bail if the catalog has not changed
+			int respCode = HttpURLConnection.HTTP_OK;
+			if (tmpConn instanceof HttpURLConnection)
+				respCode = ((HttpURLConnection) tmpConn).getResponseCode();
+			if (respCode == HttpURLConnection.HTTP_NOT_MODIFIED && isLocal == true)
+			{
+				markCheck(catFile);
+				return FetchResult.NotModified;
+			}
+
+			if (respCode != HttpURLConnection.HTTP_OK)
+				throw new IOException("Failed to fetch catalog. Response: " + respCode + " URL: " + aUrl);
+
+			// Transfer the catalog (via a uniquely named temporary file)
+			File catDir = catFile.getParentFile();
+			catDir.mkdirs();
+			Path tmpPath = Files.createTempFile(catDir.toPath(), catFile.getName(), ".tmp");
+			try (InputStream tmpIS = tmpConn.getInputStream())
+			{
+				Files.copy(tmpIS, tmpPath, StandardCopyOption.REPLACE_EXISTING);
+				Files.move(tmpPath, catFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			finally
+			{
+				Files.deleteIfExists(tmpPath);
+			}
+
+			writeValidators(validatorFile, tmpConn.getHeaderField("ETag"), tmpConn.getHeaderField("Last-Modified"));
+			markCheck(catFile);
+			return FetchResult.Modified;
+		}
+		finally
+		{
+			if (tmpConn instanceof HttpURLConnection)
+				((HttpURLConnection) tmpConn).disconnect();
+		}
+	}
+
+	/**
+	 * Returns the file where the time of the last check of the specified catalog
+	 * file is recorded.
+	 */
+	public static File getCheckFile(File aFile)
+	{
+		return new File(aFile.getPath() + CHECK_EXT);
+	}
+
+	/**
+	 * Returns the time (ms since epoch) when the specified catalog file was last
+	 * checked against the server. Returns 0 if never checked.
+	 */
+	public static long getLastCheckTime(File aFile)
+	{
+		return getCheckFile(aFile).lastModified();
+	}
+
+	/**
+	 * Returns the file where the validators (ETag and Last-Modified) of the
+	 * specified catalog file are stored.
+	 */
+	public static File getValidatorFile(File aFile)
+	{
+		return new File(aFile.getPath() + VALIDATOR_EXT);
+	}
+
+	/**
+	 * Utility helper method that records the current time as the time of the
+	 * last check of the specified catalog file.
+	 */
+	private static void markCheck(File aFile) throws IOException
+	{
+		File checkFile = getCheckFile(aFile);
+		if (checkFile.createNewFile() == false)
+			checkFile.setLastModified(System.currentTimeMillis());
+	}
+
+	/**
+	 * Utility helper method that returns the validators stored in the specified
+	 * validator file: [ETag, Last-Modified]. A validator that is not available
+	 * will be null.
+	 */
+	private static String[] readValidators(File aValidatorFile)
+	{
+		String[] retArr = { null, null };
+
+		// Bail if there is no validator file
+		if (aValidatorFile.isFile() == false)
+			return retArr;
+
+		try
+		{
+			for (String aLine : Files.readAllLines(aValidatorFile.toPath(), StandardCharsets.UTF_8))
+			{
+				if (aLine.startsWith("ETag:") == true)
+					retArr[0] = aLine.substring(5).trim();
+				else if (aLine.startsWith("Last-Modified:") == true)
+					retArr[1] = aLine.substring(14).trim();
+			}
+		}
+		catch (IOException aExp)
+		{
+			; // Nothing to do
+		}
+
+		return retArr;
+	}
+
+	/**
+	 * Utility helper method that stores the specified validators to the
+	 * validator file. Validators that are null are not stored.
+	 */
+	private static void writeValidators(File aValidatorFile, String aETag, String aLastModified) throws IOException
+	{
+		List<String> tmpL = new ArrayList<>();
+		if (aETag != null)
+			tmpL.add("ETag: " + aETag);
+		if (aLastModified != null)
+			tmpL.add("Last-Modified: " + aLastModified);
+
+		Files.write(aValidatorFile.toPath(), tmpL, StandardCharsets.UTF_8);
+	}
+
+}
@@ -8,7 +8,6 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -26,7 +25,9 @@ import edu.jhuapl.saavtk.view.light.LightCfg;
 import edu.jhuapl.sbmt.dem.Dem;
 import edu.jhuapl.sbmt.dem.DemCatalog;
 import edu.jhuapl.sbmt.dem.DemConfigAttr;
+import edu.jhuapl.sbmt.dem.DemSpatialIndex;
 import edu.jhuapl.sbmt.dem.DemStruct;
+import edu.jhuapl.sbmt.dem.io.DemCatalogFetchUtil.FetchResult;
 import edu.jhuapl.sbmt.dem.vtk.DataMode;
 import edu.jhuapl.sbmt.dem.vtk.ItemDrawAttr;
 
@@ -38,7 +39,6 @@ import glum.source.PlainSource;
 import glum.source.Source;
 import glum.source.SourceState;
 import glum.source.SourceUtil;
-import glum.task.SilentTask;
 import glum.task.Task;
 import glum.util.ThreadUtil;
 import glum.util.TimeConst;
@@ -55,6 +55,8 @@ public class DemCatalogUtil
 {
 	// Constants
 	private static final Version RefVersion = new PlainVersion(2020, 11, 0);
+	// Interval at which the default catalog is checked for changes
+	private static final long REFRESH_AGE_MS = TimeConst.MS_IN_DAY * 3;
 
 	/**
 	 * Returns the file that should be used as the catalog configuration file.
@@ -117,9 +119,12 @@ public class DemCatalogUtil
 	 * If the {@link Source} is not local and can not be downloaded then an empty
 	 * catalog will be returned.
 	 * <p>
+	 * The body radius (km) is used to build the spatial index of the catalog.
+	 * <p>
 	 * Returns the {@link DemCatalog} that was loaded.
 	 */
-	public static DemCatalog loadCatalog(Task aTask, Source aSource, boolean aIsEditable, File aCacheDir)
+	public static DemCatalog loadCatalog(Task aTask, Source aSource, boolean aIsEditable, File aCacheDir,
+			double aBodyRadius)
 	{
 		// Ensure the catalog is local (and up to date)
 		SourceState tmpSS = SourceUtil.getState(aSource);
@@ -127,7 +132,7 @@ public class DemCatalogUtil
 		{
 			// If no remote source - just return an empty catalog
 			if (aSource.getRemoteUrl() == null)
-				return new DemCatalog(aSource, ImmutableList.of(), null, aIsEditable, aCacheDir);
+				return new DemCatalog(aSource, ImmutableList.of(), null, aIsEditable, aCacheDir, aBodyRadius);
 
 			// Retrieve the catalog
 			try
@@ -148,70 +153,99 @@ public class DemCatalogUtil
 			return null;
 
 		// Delegate
-		DemCatalog retCatalog = loadCatalogFromSource(aTask, aSource, aIsEditable, aCacheDir, null);
+		DemCatalog retCatalog = loadCatalogFromSource(aTask, aSource, aIsEditable, aCacheDir, null, aBodyRadius);
 		return retCatalog;
 	}
 
 	/**
 	 * Utility method to load the default catalog.
+	 * <p>
+	 * The catalog is only fetched if there is no local version. Use
+	 * {@link #refreshDefaultCatalog(Task, Source, double)} to fetch a
+	 * newer version.
+	 * <p>
+	 * The body radius (km) is used to build the spatial index of the catalog.
 	 */
-	public static DemCatalog loadDefaultCatalog(Task aTask, Source aTocSource)
+	public static DemCatalog loadDefaultCatalog(Task aTask, Source aTocSource, double aBodyRadius)
 	{
-		File tocDir = aTocSource.getLocalFile();
-		File browseCacheDir = new File(tocDir, "browse");
-
-		// Define the location to the catalog
-		URL defCatUrl = UrlUtil.resolve(aTocSource.getRemoteUrl().toString(), "browse.cat.csv");
-		File defCatFile = new File(tocDir, "browse.cat.csv");
-		Source tmpSource = new PlainSource(defCatFile, defCatUrl);
-
 		// Retrieve the file if necessary
-		Credential tmpCredential = null;
-		try
+		Source tmpSource = getDefaultCatalogSource(aTocSource);
+		File defCatFile = tmpSource.getLocalFile();
+		if (defCatFile.exists() == false || defCatFile.length() == 0)
 		{
-			// Determine if a refresh is needed
-			long fileAge = System.currentTimeMillis() - defCatFile.lastModified();
-			boolean isRefreshNeeded = false;
-			isRefreshNeeded |= defCatFile.exists() == false;
-			isRefreshNeeded |= defCatFile.length() == 0;
-			isRefreshNeeded |= fileAge > TimeConst.MS_IN_DAY * 3;
-			if (isRefreshNeeded == true)
+			aTask.logRegln("Fetching catalog: " + tmpSource.getRemoteUrl());
+			if (fetchCatalog(tmpSource) == null)
 			{
-				aTask.logRegln("Fetching catalog: " + defCatUrl);
-				tmpCredential = DemCatalogUtil.getCredential();
-				Task tmpTask = new SilentTask();
-				SourceUtil.download(tmpTask, tmpSource, tmpCredential);
+				// Create an empty file
+				try
+				{
+					defCatFile.createNewFile();
+				}
+				catch (IOException aExp)
+				{
+					aExp.printStackTrace();
+				}
+
+				aTask.logRegln("Failed to download catalog. URL: " + tmpSource.getRemoteUrl());
 			}
 		}
-		catch (Exception aExp)
-		{
-			// Create an empty file
-			try
-			{
-				defCatFile.createNewFile();
-			}
-			catch (IOException aExp2)
-			{
-				aExp2.printStackTrace();
-			}
 
-			aTask.logRegln("Failed to download catalog. URL: " + defCatUrl);
-		}
-		finally
+		// Bail if the file is empty
+		if (defCatFile.length() == 0)
+			return null;
+
+		// Load the catalogs
+		String defaultBasePath = getDefaultBasePath(aTocSource);
+		boolean isEditable = false;
+
+		File browseCacheDir = getDefaultCacheDir(aTocSource);
+		DemCatalog retCatalog = loadCatalogFromSource(aTask, tmpSource, isEditable, browseCacheDir, defaultBasePath,
+				aBodyRadius);
+		return retCatalog;
+	}
+
+	/**
+	 * Utility method to refresh the default catalog.
+	 * <p>
+	 * The refresh is only performed if the catalog has not been checked within
+	 * the refresh interval. The refresh is a conditional request: the catalog is
+	 * only transferred if it has changed on the server.
+	 * <p>
+	 * Returns the (newly loaded) default catalog if it has changed. Otherwise
+	 * null is returned.
+	 * <p>
+	 * This method performs network access and should not be called on the AWT
+	 * event dispatch thread.
+	 */
+	public static DemCatalog refreshDefaultCatalog(Task aTask, Source aTocSource, double aBodyRadius)
+	{
+		// Bail if the catalog was checked recently
+		Source tmpSource = getDefaultCatalogSource(aTocSource);
+		File defCatFile = tmpSource.getLocalFile();
+		long checkAge = System.currentTimeMillis() - DemCatalogFetchUtil.getLastCheckTime(defCatFile);
+		if (checkAge < REFRESH_AGE_MS)
+			return null;
+
+		// Bail if the catalog has not changed
+		aTask.logRegln("Refreshing catalog: " + tmpSource.getRemoteUrl());
+		FetchResult tmpResult = fetchCatalog(tmpSource);
+		if (tmpResult != FetchResult.Modified)
 		{
-			if (tmpCredential != null)
-				tmpCredential.dispose();
+			if (tmpResult == null)
+				aTask.logRegln("Failed to refresh catalog. URL: " + tmpSource.getRemoteUrl());
+			return null;
 		}
 
 		// Bail if the file is empty
 		if (defCatFile.length() == 0)
 			return null;
 
-		// Load the catalogs
-		String defaultBasePath = UrlUtil.resolve(aTocSource.getRemoteUrl().toString(), "browse/").toString();
+		String defaultBasePath = getDefaultBasePath(aTocSource);
 		boolean isEditable = false;
 
-		DemCatalog retCatalog = loadCatalogFromSource(aTask, tmpSource, isEditable, browseCacheDir, defaultBasePath);
+		File browseCacheDir = getDefaultCacheDir(aTocSource);
+		DemCatalog retCatalog = loadCatalogFromSource(aTask, tmpSource, isEditable, browseCacheDir, defaultBasePath,
+				aBodyRadius);
 		return retCatalog;
 	}
 
@@ -340,22 +374,118 @@ public class DemCatalogUtil
 		aTask.logRegln("\tItems: " + aConfigM.size() + "\n");
 	}
 
+	/**
+	 * Utility helper method that (conditionally) fetches the catalog associated
+	 * with the specified {@link Source}.
+	 * <p>
+	 * Returns null on failure.
+	 */
+	private static FetchResult fetchCatalog(Source aSource)
+	{
+		Authorizor tmpAuthorizor = Configuration.getAuthorizor();
+		String username = tmpAuthorizor.getUserName();
+		char[] password = tmpAuthorizor.getPassword();
+
+		try
+		{
+			return DemCatalogFetchUtil.fetch(aSource.getLocalFile(), aSource.getRemoteUrl(), username, password);
+		}
+		catch (IOException aExp)
+		{
+			aExp.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Utility helper method that returns the (browse) cache folder of the default
+	 * catalog.
+	 */
+	private static File getDefaultCacheDir(Source aTocSource)
+	{
+		return new File(aTocSource.getLocalFile(), "browse");
+	}
+
+	/**
+	 * Utility helper method that returns the base path of the default catalog.
+	 */
+	private static String getDefaultBasePath(Source aTocSource)
+	{
+		return UrlUtil.resolve(aTocSource.getRemoteUrl().toString(), "browse/").toString();
+	}
+
+	/**
+	 * Utility helper method that returns the {@link Source} of the default
+	 * catalog.
+	 */
+	private static Source getDefaultCatalogSource(Source aTocSource)
+	{
+		File tocDir = aTocSource.getLocalFile();
+
+		URL defCatUrl = UrlUtil.resolve(aTocSource.getRemoteUrl().toString(), "browse.cat.csv");
+		File defCatFile = new File(tocDir, "browse.cat.csv");
+		return new PlainSource(defCatFile, defCatUrl);
+	}
+
 	/**
 	 * Utility helper method to load the {@link DemCatalog} from the specified
 	 * {@link Source}.
+	 * <p>
+	 * The catalog is loaded from the (cached) {@link DemBinaryCatalog}. If there
+	 * is no (up to date) binary catalog then the catalog file is parsed and the
+	 * binary catalog is generated.
+	 * <p>
+	 * The {@link DemStruct}s of the returned catalog and a spatial index over
+	 * the footprints of the {@link Dem}s are formed from the binary catalog.
 	 */
 	private static DemCatalog loadCatalogFromSource(Task aTask, Source aSource, boolean aIsEditable, File aCacheDir,
-			String aDefaultBasePath)
+			String aDefaultBasePath, double aBodyRadius)
+	{
+		File tmpFile = aSource.getLocalFile();
+		aTask.logRegln("Loading catalog: " + aSource.getPath());
+
+		DemBinaryCatalog tmpCatalog = DemBinaryCatalog.open(tmpFile, aDefaultBasePath);
+		if (tmpCatalog == null)
+			tmpCatalog = parseCatalogFile(aTask, tmpFile, aCacheDir, aDefaultBasePath);
+
+		// Form the spatial index from the (binary) geometry
+		int numItems = tmpCatalog.size();
+		double[] latArr = new double[numItems];
+		double[] lonArr = new double[numItems];
+		double[] extentArr = new double[numItems];
+		for (int aIdx = 0; aIdx < numItems; aIdx++)
+		{
+			latArr[aIdx] = tmpCatalog.getLat(aIdx);
+			lonArr[aIdx] = tmpCatalog.getLon(aIdx);
+			extentArr[aIdx] = tmpCatalog.getGsd(aIdx) * tmpCatalog.getNumPixels(aIdx) / 1000.0;
+		}
+
+		List<DemStruct> structL = tmpCatalog.formStructList(aCacheDir);
+		DemSpatialIndex<DemStruct> tmpSpatialIndex = new DemSpatialIndex<>(structL, latArr, lonArr, extentArr,
+				aBodyRadius);
+
+		String dispName = tmpCatalog.getDisplayName();
+		DemCatalog retCatalog = new DemCatalog(aSource, structL, tmpSpatialIndex, dispName, aIsEditable, aCacheDir);
+		return retCatalog;
+	}
+
+	/**
+	 * Utility helper method that parses the specified catalog file into a
+	 * {@link DemBinaryCatalog}.
+	 * <p>
+	 * The binary catalog is saved next to the catalog file unless the catalog
+	 * file could not be (fully) read.
+	 */
+	private static DemBinaryCatalog parseCatalogFile(Task aTask, File aFile, File aCacheDir, String aDefaultBasePath)
 	{
 		String basePath = aDefaultBasePath;
-		String dispName = null;
 
 		// Valid instructions to ignore
 		ImmutableSet<String> skipInstrS = ImmutableSet.of("descr", "offs", "rndr");
 
 		// Vars for created dem
 		Set<String> pathS = new HashSet<>();
-		List<DemStruct> structL = new ArrayList<>();
+		DemBinaryCatalog.Builder tmpBuilder = new DemBinaryCatalog.Builder(aDefaultBasePath);
 
 		// Vars for current dem being constructed
 		String targPath = null;
@@ -368,9 +498,8 @@ public class DemCatalogUtil
 		double scale = Double.NaN;
 
 		// Process the file
-		File tmpFile = aSource.getLocalFile();
-		aTask.logRegln("Loading catalog: " + aSource.getPath());
-		try (BufferedReader tmpBR = new BufferedReader(new FileReader(tmpFile)))
+		boolean isComplete = false;
+		try (BufferedReader tmpBR = new BufferedReader(new FileReader(aFile)))
 		{
 			int lineCnt = 0;
 			while (true)
@@ -416,7 +545,7 @@ public class DemCatalogUtil
 				// Read the dispName
 				if (tagStr.equals("name") == true && strArr.length >= 2)
 				{
-					dispName = strArr[1];
+					tmpBuilder.setDisplayName(strArr[1]);
 					continue;
 				}
 
@@ -425,21 +554,8 @@ public class DemCatalogUtil
 				{
 					// Save off the prior dem
 					if (targPath != null)
-					{
-						Source tmpSource = SourceUtil.formSource(aCacheDir, basePath, targPath, diskSize);
-						if (pathS.contains(tmpSource.getPath()) == true)
-						{
-							aTask.logRegln(
-									"\t[L:" + lineCnt + "] Skipping previous dem since path has already been specified. Path: "
-											+ tmpSource.getPath());
-							aTask.logRegln("");
-						}
-						else
-						{
-							Dem tmpDem = new Dem(tmpSource, lat, lon, scale, halfSize);
-							structL.add(new DemStruct(tmpDem));
-						}
-					}
+						storeItem(aTask, lineCnt, aCacheDir, pathS, tmpBuilder, basePath, targPath, diskSize, lat, lon,
+								halfSize, scale);
 
 					// Start the new dem
 					targPath = strArr[1];
@@ -482,29 +598,46 @@ public class DemCatalogUtil
 
 			// Add the last read dem
 			if (targPath != null)
-			{
-				// Save off the prior dem
-				Source tmpSource = SourceUtil.formSource(aCacheDir, basePath, targPath, diskSize);
-				if (pathS.contains(tmpSource.getPath()) == true)
-				{
-					aTask.logRegln("\t[L:" + lineCnt
-							+ "] Skipping previous dem since path has already been specified. Path: " + tmpSource.getPath());
-					aTask.logRegln("");
-				}
-				else
-				{
-					Dem tmpDem = new Dem(tmpSource, lat, lon, scale, halfSize);
-					structL.add(new DemStruct(tmpDem));
-				}
-			}
+				storeItem(aTask, lineCnt, aCacheDir, pathS, tmpBuilder, basePath, targPath, diskSize, lat, lon, halfSize,
+						scale);
+
+			isComplete = true;
 		}
 		catch (IOException aExp)
 		{
 			aExp.printStackTrace();
 		}
 
-		DemCatalog retCatalog = new DemCatalog(aSource, structL, dispName, aIsEditable, aCacheDir);
-		return retCatalog;
+		// Form the binary catalog. Note it is only saved if the catalog file was
+		// fully read.
+		File saveFile = null;
+		if (isComplete == true)
+			saveFile = aFile;
+		return tmpBuilder.build(saveFile);
+	}
+
+	/**
+	 * Utility helper method to store the specified dem (entry) into the
+	 * {@link DemBinaryCatalog.Builder}.
+	 * <p>
+	 * The dem will not be stored if its path has already been stored. On
+	 * failure a message will be logged to the provided {@link Task}.
+	 */
+	private static void storeItem(Task aTask, int aLineCnt, File aCacheDir, Set<String> aPathS,
+			DemBinaryCatalog.Builder aBuilder, String aBasePath, String aTargPath, long aDiskSize, double aLat,
+			double aLon, double aHalfSize, double aScale) throws MalformedURLException
+	{
+		// Bail if the path has already been specified
+		String tmpPath = SourceUtil.formSource(aCacheDir, aBasePath, aTargPath, aDiskSize).getPath();
+		if (aPathS.add(tmpPath) == false)
+		{
+			aTask.logRegln(
+					"\t[L:" + aLineCnt + "] Skipping previous dem since path has already been specified. Path: " + tmpPath);
+			aTask.logRegln("");
+			return;
+		}
+
+		aBuilder.addItem(aBasePath, aTargPath, aDiskSize, aLat, aLon, aHalfSize, aScale);
 	}
 
 	/**
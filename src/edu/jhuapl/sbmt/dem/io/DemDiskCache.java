@@ -0,0 +1,440 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import edu.jhuapl.sbmt.dem.vtk.DemGridCacheUtil;
+
+/**
+ * Class that manages the (downloaded) files in a disk cache folder so that the
+ * folder remains within a configurable quota.
+ * <p>
+ * The access of each file is tracked. When the quota is exceeded, files are
+ * evicted least recently used first. Files that are in use (as defined by the
+ * caller) are never evicted. The (binary) grid cache file associated with a
+ * file is accounted for (and evicted) along with the file.
+ * <p>
+ * The disk usage is tracked incrementally: a file is sized when it is first
+ * recorded (and re-sized when accessed) rather than on every query. Thus
+ * {@link #getUsage()} is cheap and {@link #enforceQuota} only touches the
+ * files that are evicted. Files that are removed externally are accounted for
+ * when they are next evicted.
+ * <p>
+ * Only the files within the cache folder are managed - custom imported files
+ * (which reside in a separate folder) are never touched. Access times are
+ * persisted across sessions via an index file in the cache folder.
+ * <p>
+ * Statistics on the number of cache hits, misses and evictions are maintained.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author lopeznr1
+ */
+public class DemDiskCache
+{
+	// Constants
+	/** Name of the file (in the cache folder) which stores the access times. */
+	public static final String INDEX_FILE_NAME = ".access.idx";
+	/** Default quota: 4 GiB */
+	public static final long DEFAULT_QUOTA = 4L * 1024 * 1024 * 1024;
+	/** Age at which a partial (temporary) file is considered stale: 1 day */
+	public static final long STALE_AGE_MS = 24L * 60 * 60 * 1000;
+	// File extension of temporary files that are written by this package
+	private static final String TEMP_EXT = ".tmp";
+
+	// Attributes
+	private final File cacheDir;
+
+	// State vars
+	private final Map<File, Long> accessM;
+	private final Map<File, Long> sizeM;
+	private final List<File> tempFileL;
+	private long quota;
+	private long usage;
+	private long numHits;
+	private long numMisses;
+	private long numEvictions;
+	private long numEvictBytes;
+
+	/**
+	 * Standard Constructor
+	 * <p>
+	 * The cache folder is scanned for the files that are already present.
+	 *
+	 * @param aCacheDir The folder where the downloaded files are stored.
+	 * @param aQuota The disk quota (in bytes).
+	 */
+	public DemDiskCache(File aCacheDir, long aQuota)
+	{
+		cacheDir = aCacheDir;
+
+		// Access ordered: iteration is least recently used first
+		accessM = new LinkedHashMap<>(16, 0.75f, true);
+		sizeM = new HashMap<>();
+		tempFileL = new ArrayList<>();
+		quota = aQuota;
+		usage = 0L;
+		numHits = 0L;
+		numMisses = 0L;
+		numEvictions = 0L;
+		numEvictBytes = 0L;
+
+		scan();
+	}
+
+	/**
+	 * Returns the folder managed by this cache.
+	 */
+	public File getCacheDir()
+	{
+		return cacheDir;
+	}
+
+	/**
+	 * Returns the number of cache hits: loads where the file was already local.
+	 */
+	public synchronized long getNumHits()
+	{
+		return numHits;
+	}
+
+	/**
+	 * Returns the number of cache misses: loads that required a download.
+	 */
+	public synchronized long getNumMisses()
+	{
+		return numMisses;
+	}
+
+	/**
+	 * Returns the number of files that have been evicted.
+	 */
+	public synchronized long getNumEvictions()
+	{
+		return numEvictions;
+	}
+
+	/**
+	 * Returns the number of bytes that have been released via evictions.
+	 */
+	public synchronized long getNumEvictBytes()
+	{
+		return numEvictBytes;
+	}
+
+	/**
+	 * Returns the disk quota (in bytes).
+	 */
+	public synchronized long getQuota()
+	{
+		return quota;
+	}
+
+	/**
+	 * Returns the amount of disk space (in bytes) utilized by the managed files.
+	 */
+	public synchronized long getUsage()
+	{
+		return usage;
+	}
+
+	/**
+	 * Returns true if the specified file resides in the cache folder.
+	 */
+	public boolean isManaged(File aFile)
+	{
+		if (aFile == null)
+			return false;
+
+		Path cachePath = cacheDir.getAbsoluteFile().toPath().normalize();
+		Path filePath = aFile.getAbsoluteFile().toPath().normalize();
+		return filePath.startsWith(cachePath) == true && filePath.equals(cachePath) == false;
+	}
+
+	/**
+	 * Marks the specified file as (most recently) accessed.
+	 * <p>
+	 * The (disk) size of the file is refreshed since the file (or its grid cache
+	 * file) may have been written since it was last recorded. Files outside of
+	 * the cache folder are ignored.
+	 */
+	public synchronized void markAccess(File aFile)
+	{
+		// Bail if the file is not managed
+		if (isManaged(aFile) == false)
+			return;
+
+		File tmpFile = aFile.getAbsoluteFile();
+		accessM.put(tmpFile, System.currentTimeMillis());
+		updateSize(tmpFile, getDiskSize(tmpFile));
+	}
+
+	/**
+	 * Records a cache hit (the file was already local) and marks the file as
+	 * accessed.
+	 * <p>
+	 * Files outside of the cache folder are ignored.
+	 */
+	public synchronized void recordHit(File aFile)
+	{
+		// Bail if the file is not managed
+		if (isManaged(aFile) == false)
+			return;
+
+		numHits++;
+		markAccess(aFile);
+	}
+
+	/**
+	 * Records a cache miss (the file had to be downloaded) and marks the file as
+	 * accessed.
+	 * <p>
+	 * Files outside of the cache folder are ignored.
+	 */
+	public synchronized void recordMiss(File aFile)
+	{
+		// Bail if the file is not managed
+		if (isManaged(aFile) == false)
+			return;
+
+		numMisses++;
+		markAccess(aFile);
+	}
+
+	/**
+	 * Removes the stale partial (temporary) files.
+	 * <p>
+	 * A partial file is stale if it has not been modified for at least
+	 * {@link #STALE_AGE_MS}. The partial files left behind by an interrupted
+	 * write of this package are located automatically - others (such as
+	 * interrupted downloads) must be provided.
+	 * <p>
+	 * Returns the number of files that were removed.
+	 *
+	 * @param aPartialC The (candidate) partial files.
+	 * @param aIsInUse Predicate that defines whether a file is in use.
+	 */
+	public synchronized int cleanStalePartials(Collection<File> aPartialC, Predicate<File> aIsInUse)
+	{
+		List<File> candL = new ArrayList<>(tempFileL);
+		candL.addAll(aPartialC);
+
+		int retCnt = 0;
+		long currTime = System.currentTimeMillis();
+		for (File aFile : candL)
+		{
+			// Skip to next if not a (managed) stale partial file
+			if (isManaged(aFile) == false || aFile.isFile() == false)
+				continue;
+			File tmpFile = aFile.getAbsoluteFile();
+			if (currTime - tmpFile.lastModified() < STALE_AGE_MS || aIsInUse.test(tmpFile) == true)
+				continue;
+
+			accessM.remove(tmpFile);
+			updateSize(tmpFile, 0L);
+			if (tmpFile.delete() == true)
+				retCnt++;
+		}
+
+		tempFileL.removeIf(aFile -> aFile.exists() == false);
+		return retCnt;
+	}
+
+	/**
+	 * Evicts (deletes) files until the disk usage is within the quota.
+	 * <p>
+	 * Files are evicted least recently used first. Files that are in use are
+	 * never evicted. Note the quota may still be exceeded if there are not
+	 * enough evictable files.
+	 * <p>
+	 * Only the (tracked) sizes are consulted - the in use predicate is evaluated
+	 * only for eviction candidates.
+	 * <p>
+	 * Returns the list of files that were evicted.
+	 *
+	 * @param aIsInUse Predicate that defines whether a file is in use.
+	 */
+	public synchronized List<File> enforceQuota(Predicate<File> aIsInUse)
+	{
+		// Bail if the quota has not been exceeded
+		List<File> retFileL = new ArrayList<>();
+		if (usage <= quota)
+			return retFileL;
+
+		for (File aFile : new ArrayList<>(accessM.keySet()))
+		{
+			// Bail once we are within the quota
+			if (usage <= quota)
+				break;
+
+			// Skip to next if the file is in use
+			if (aIsInUse.test(aFile) == true)
+				continue;
+
+			// Note a file that was removed (externally) is just dropped
+			long tmpSize = sizeM.getOrDefault(aFile, 0L);
+			boolean isEvicted = aFile.delete() == true;
+			DemGridCacheUtil.getCacheFile(aFile).delete();
+			accessM.remove(aFile);
+			updateSize(aFile, 0L);
+			if (isEvicted == false)
+				continue;
+
+			numEvictions++;
+			numEvictBytes += tmpSize;
+			retFileL.add(aFile);
+		}
+
+		saveIndex();
+		return retFileL;
+	}
+
+	/**
+	 * Saves the access times to the index file in the cache folder.
+	 */
+	public synchronized void saveIndex()
+	{
+		// Bail if the cache folder does not exist
+		if (cacheDir.isDirectory() == false)
+			return;
+
+		Path cachePath = cacheDir.getAbsoluteFile().toPath();
+		File indexFile = new File(cacheDir, INDEX_FILE_NAME);
+		try (BufferedWriter tmpBW = new BufferedWriter(new FileWriter(indexFile)))
+		{
+			// Note the entries are iterated (rather than looked up) since a look up
+			// alters the access order
+			for (Map.Entry<File, Long> aEntry : accessM.entrySet())
+			{
+				String relPath = cachePath.relativize(aEntry.getKey().toPath()).toString();
+				tmpBW.write(aEntry.getValue() + "," + relPath + "\n");
+			}
+		}
+		catch (IOException aExp)
+		{
+			aExp.printStackTrace();
+		}
+	}
+
+	/**
+	 * Sets the disk quota (in bytes).
+	 * <p>
+	 * The quota is enforced on the next call to {@link #enforceQuota}.
+	 */
+	public synchronized void setQuota(long aQuota)
+	{
+		quota = aQuota;
+	}
+
+	/**
+	 * Helper method that scans the cache folder for the managed files.
+	 * <p>
+	 * The access times are restored from the index file. Files not in the index
+	 * are assumed to have been last accessed when last modified.
+	 */
+	private void scan()
+	{
+		// Bail if the cache folder does not exist
+		if (cacheDir.isDirectory() == false)
+			return;
+
+		// Gather the (managed) files
+		Map<File, Long> timeM = new LinkedHashMap<>();
+		try (Stream<Path> tmpStream = Files.walk(cacheDir.getAbsoluteFile().toPath()))
+		{
+			tmpStream.filter(Files::isRegularFile).forEach(aPath -> {
+				File tmpFile = aPath.toFile();
+				String tmpName = tmpFile.getName();
+				if (tmpName.endsWith(TEMP_EXT) == true)
+					tempFileL.add(tmpFile);
+				else if (tmpName.equals(INDEX_FILE_NAME) == false
+						&& tmpName.endsWith(DemGridCacheUtil.CACHE_EXT) == false)
+					timeM.put(tmpFile, tmpFile.lastModified());
+			});
+		}
+		catch (IOException aExp)
+		{
+			aExp.printStackTrace();
+			return;
+		}
+
+		// Restore the access times from the index. The index is ordered least
+		// recently used first.
+		List<File> indexFileL = new ArrayList<>();
+		File indexFile = new File(cacheDir, INDEX_FILE_NAME);
+		if (indexFile.isFile() == true)
+		{
+			try (BufferedReader tmpBR = new BufferedReader(new FileReader(indexFile)))
+			{
+				String tmpLine;
+				while ((tmpLine = tmpBR.readLine()) != null)
+				{
+					// Skip to next if malformed
+					String[] tokens = tmpLine.split(",", 2);
+					if (tokens.length != 2)
+						continue;
+
+					// Skip to next if the file no longer exists
+					File tmpFile = new File(cacheDir.getAbsoluteFile(), tokens[1]);
+					if (timeM.containsKey(tmpFile) == false || indexFileL.contains(tmpFile) == true)
+						continue;
+
+					timeM.put(tmpFile, Long.parseLong(tokens[0]));
+					indexFileL.add(tmpFile);
+				}
+			}
+			catch (IOException | NumberFormatException aExp)
+			{
+				aExp.printStackTrace();
+			}
+		}
+
+		// Record the files: least recently used first. Note the (stable) sort
+		// retains the index order of files accessed at the same time.
+		List<File> tmpFileL = new ArrayList<>(timeM.keySet());
+		tmpFileL.removeAll(indexFileL);
+		tmpFileL.addAll(indexFileL);
+		tmpFileL.sort((aFile1, aFile2) -> Long.compare(timeM.get(aFile1), timeM.get(aFile2)));
+		for (File aFile : tmpFileL)
+		{
+			accessM.put(aFile, timeM.get(aFile));
+			updateSize(aFile, getDiskSize(aFile));
+		}
+	}
+
+	/**
+	 * Helper method that updates the (tracked) disk size of the specified file.
+	 * A size of 0 drops the file from the tracked usage.
+	 */
+	private void updateSize(File aFile, long aSize)
+	{
+		Long oldSize = aSize > 0 ? sizeM.put(aFile, aSize) : sizeM.remove(aFile);
+		if (oldSize != null)
+			usage -= oldSize;
+		usage += aSize;
+	}
+
+	/**
+	 * Utility helper method that returns the disk size of the specified file
+	 * along with its (binary) grid cache file.
+	 */
+	private static long getDiskSize(File aFile)
+	{
+		return aFile.length() + DemGridCacheUtil.getCacheFile(aFile).length();
+	}
+
+}
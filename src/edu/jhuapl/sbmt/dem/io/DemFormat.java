@@ -0,0 +1,203 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Class that describes a DEM file format.
+ * <p>
+ * A format is recognized by a (cheap) probe of the first bytes of a file - no
+ * trial parse of the file is performed. The following formats are built in:
+ * <ul>
+ * <li>{@link #Fits}: The file starts with the (primary header) SIMPLE card.
+ * <li>{@link #FitsGzip}: The file is gzip compressed and the decompressed
+ * content starts with the SIMPLE card.
+ * <li>{@link #Obj}: The file is text and the first record (that is not a
+ * comment) is a Wavefront OBJ record (v, vn, f, g, etc). If the probed bytes
+ * hold only comments then the file name must end with .obj.
+ * </ul>
+ * Additional formats may be defined via {@link #DemFormat(String, Probe)} and
+ * registered with a {@link DemReaderRegistry}.
+ *
+ * @author lopeznr1
+ */
+public class DemFormat
+{
+	// Constants
+	/** Number of (leading) bytes of a file provided to a {@link Probe}. */
+	public static final int PROBE_SIZE = 4096;
+
+	/** The format of (primary HDU) FITS files. */
+	public static final DemFormat Fits = new DemFormat("FITS", DemFormat::isFits);
+
+	/** The format of gzip compressed FITS files. */
+	public static final DemFormat FitsGzip = new DemFormat("FITS (gzip)", DemFormat::isFitsGzip);
+
+	/** The format of Wavefront OBJ files. */
+	public static final DemFormat Obj = new DemFormat("OBJ", DemFormat::isObj);
+
+	private static final byte[] FitsMagicArr = "SIMPLE  =".getBytes(StandardCharsets.US_ASCII);
+	private static final Set<String> ObjKeywordS = ImmutableSet.of("v", "vn", "vt", "vp", "f", "l", "p", "o", "g",
+			"s", "mg", "mtllib", "usemtl");
+
+	// Attributes
+	private final String name;
+	private final Probe probe;
+
+	/** Standard Constructor */
+	public DemFormat(String aName, Probe aProbe)
+	{
+		name = aName;
+		probe = aProbe;
+	}
+
+	/**
+	 * Returns the name of this format.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Returns true if the provided (leading) bytes of a file are of this
+	 * format.
+	 *
+	 * @param aHeadArr The leading bytes of the file.
+	 * @param aHeadLen The number of valid bytes in aHeadArr. This will be less
+	 * than {@link #PROBE_SIZE} only if the file is smaller.
+	 * @param aFileName The name of the file.
+	 */
+	public boolean isMatch(byte[] aHeadArr, int aHeadLen, String aFileName)
+	{
+		return probe.isMatch(aHeadArr, aHeadLen, aFileName);
+	}
+
+	@Override
+	public String toString()
+	{
+		return name;
+	}
+
+	/**
+	 * Utility helper method that returns true if the provided bytes are the
+	 * start of a (primary HDU) FITS file.
+	 */
+	private static boolean isFits(byte[] aHeadArr, int aHeadLen, String aFileName)
+	{
+		if (aHeadLen < FitsMagicArr.length)
+			return false;
+
+		for (int c1 = 0; c1 < FitsMagicArr.length; c1++)
+		{
+			if (aHeadArr[c1] != FitsMagicArr[c1])
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Utility helper method that returns true if the provided bytes are the
+	 * start of a gzip compressed FITS file. Only the leading bytes are inflated.
+	 */
+	private static boolean isFitsGzip(byte[] aHeadArr, int aHeadLen, String aFileName)
+	{
+		// Bail if not a gzip stream
+		if (FitsGzipReader.isGzip(aHeadArr, aHeadLen) == false)
+			return false;
+
+		byte[] tmpArr = new byte[FitsMagicArr.length];
+		int tmpLen;
+		try (InputStream tmpIS = new GZIPInputStream(new ByteArrayInputStream(aHeadArr, 0, aHeadLen)))
+		{
+			tmpLen = tmpIS.readNBytes(tmpArr, 0, tmpArr.length);
+		}
+		catch (IOException aExp)
+		{
+			return false;
+		}
+
+		return isFits(tmpArr, tmpLen, aFileName);
+	}
+
+	/**
+	 * Utility helper method that returns true if the provided bytes are the
+	 * start of a Wavefront OBJ file.
+	 */
+	private static boolean isObj(byte[] aHeadArr, int aHeadLen, String aFileName)
+	{
+		// Bail if binary content is encountered
+		for (int c1 = 0; c1 < aHeadLen; c1++)
+		{
+			byte tmpByte = aHeadArr[c1];
+			if (tmpByte >= 0 && tmpByte < ' ' && tmpByte != '\t' && tmpByte != '\n' && tmpByte != '\r'
+					&& tmpByte != '\f')
+				return false;
+		}
+
+		// Locate the first record that is not blank or a comment
+		int tmpPos = 0;
+		while (tmpPos < aHeadLen)
+		{
+			int begPos = tmpPos;
+			while (begPos < aHeadLen && (aHeadArr[begPos] == ' ' || aHeadArr[begPos] == '\t'))
+				begPos++;
+
+			int endPos = begPos;
+			while (endPos < aHeadLen && isKeywordEnd(aHeadArr[endPos]) == false)
+				endPos++;
+
+			// Skip over blank lines and comments
+			boolean isBlank = begPos == endPos;
+			boolean isComment = begPos < aHeadLen && aHeadArr[begPos] == '#';
+			if (isBlank == false && isComment == false)
+			{
+				// The keyword must be terminated within the probed bytes
+				if (endPos == aHeadLen)
+					return false;
+
+				String keyword = new String(aHeadArr, begPos, endPos - begPos, StandardCharsets.US_ASCII);
+				return ObjKeywordS.contains(keyword);
+			}
+
+			// Advance to the next line
+			while (tmpPos < aHeadLen && aHeadArr[tmpPos] != '\n')
+				tmpPos++;
+			tmpPos++;
+		}
+
+		// No records were probed: rely on the file extension
+		return aFileName.toLowerCase().endsWith(".obj");
+	}
+
+	/**
+	 * Utility helper method that returns true if the byte terminates an OBJ
+	 * keyword.
+	 */
+	private static boolean isKeywordEnd(byte aByte)
+	{
+		return aByte == ' ' || aByte == '\t' || aByte == '\n' || aByte == '\r';
+	}
+
+	/**
+	 * Interface that defines the probe used to recognize a {@link DemFormat}.
+	 */
+	public interface Probe
+	{
+		/**
+		 * Returns true if the provided (leading) bytes of a file are of the
+		 * associated format.
+		 * <p>
+		 * See {@link DemFormat#isMatch(byte[], int, String)}.
+		 */
+		boolean isMatch(byte[] aHeadArr, int aHeadLen, String aFileName);
+	}
+
+}
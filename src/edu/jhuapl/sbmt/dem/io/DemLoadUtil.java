@@ -2,7 +2,9 @@ package edu.jhuapl.sbmt.dem.io;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.ImmutableMap;
@@ -13,8 +15,6 @@ import edu.jhuapl.sbmt.dem.DemStruct;
 
 import glum.source.LocalSource;
 import glum.source.Source;
-import nom.tam.fits.Fits;
-import nom.tam.fits.FitsException;
 import nom.tam.fits.Header;
 import nom.tam.fits.HeaderCard;
 import nom.tam.util.Cursor;
@@ -24,119 +24,159 @@ import nom.tam.util.Cursor;
  * <p>
  * The following dem formats are supported with the following features:
  * <ul>
- * <li>FITS: Loads and checks for valid headers
- * <li>OBJ: File is not loaded and assumed to be an obj if ends with a valid
- * file extension (.obj).
+ * <li>FITS: Loads (only) and checks for valid headers. Gzip and tile
+ * compressed files are supported.
+ * <li>OBJ: File is not loaded. Only the leading bytes are probed for OBJ
+ * records.
  * </ul>
+ * The format of a file is determined via the {@link DemReaderRegistry} (see
+ * {@link #getRegistry()}). Additional formats may be registered.
  *
  * @author lopeznr1
  */
 public class DemLoadUtil
 {
+	// Constants
+	private static final DemReaderRegistry<DemReader> Registry = new DemReaderRegistry<>();
+	static
+	{
+		Registry.register(DemFormat.Fits, DemLoadUtil::formDemFromFitsFile);
+		Registry.register(DemFormat.FitsGzip, DemLoadUtil::formDemFromFitsFile);
+		Registry.register(DemFormat.Obj, DemLoadUtil::formDemFromObjFile);
+	}
+
+	/**
+	 * Returns the {@link DemReaderRegistry} used to select the {@link DemReader}
+	 * for a file.
+	 */
+	public static DemReaderRegistry<DemReader> getRegistry()
+	{
+		return Registry;
+	}
+
 	/**
 	 * Utility method that will form a {@link Dem} from the contents of the
 	 * specified file.
 	 * <p>
-	 * An attempt will be made to load the file as a fits file, if that fails
-	 * then the file will be assumed to be obj file - if the file name has an
-	 * .obj file extension.
+	 * The format of the file is determined by probing the leading bytes of the
+	 * file (see {@link DemFormat}) and the file is then read via the
+	 * corresponding {@link DemReader}.
 	 * <p>
-	 * On failure an {@link IOException} or {@link FitsException} will be thrown.
+	 * On failure an {@link IOException} will be thrown.
 	 */
-	public static DemStruct formDemFromFile(File aFile) throws Exception
+	public static DemStruct formDemFromFile(File aFile) throws IOException
 	{
-		Exception failExp;
-
-		// Attempt load as fits file
-		try
-		{
-			return formDemFromFitsFile(aFile);
-		}
-		catch (Exception aExp)
-		{
-			failExp = aExp;
-		}
-
-		// If the file has an .obj extension then assume the file is an obj file
-		String fileName = aFile.getName();
-		if (fileName.toLowerCase().endsWith(".obj") == true)
-		{
-			Source tmpSource = new LocalSource(aFile);
-			Dem tmpDem = new Dem(tmpSource, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
-			return new DemStruct(tmpDem, ImmutableMap.of(), null);
-		}
+		DemFormat tmpFormat = Registry.probe(aFile);
+		if (tmpFormat == null)
+			throw new IOException("File is not of a supported format: " + Registry.getFormatsDescr());
 
-		// Throw the original exception
-		throw failExp;
+		return Registry.getReader(tmpFormat).read(aFile);
 	}
 
 	/**
 	 * Utility helper method that will form a {@link Dem} from the contents of
 	 * the specified file. The file is assumed to be a FITS file.
 	 * <p>
-	 * On failure an {@link IOException} or {@link FitsException} will be thrown.
+	 * Only the header (of the image) is read via
+	 * {@link FitsCube#readHeader(File)} - the data unit is never accessed.
+	 * Compressed files are supported.
+	 * <p>
+	 * On failure an {@link IOException} will be thrown.
 	 */
-	private static DemStruct formDemFromFitsFile(File aFile) throws IOException, FitsException
+	private static DemStruct formDemFromFitsFile(File aFile) throws IOException
 	{
-		double lat = Double.NaN;
-		double lon = Double.NaN;
-		double gsd = Double.NaN;
-		double numPix = Double.NaN;
-
-		Map<String, KeyValueNode> tmpKeyValueM = new LinkedHashMap<>();
-
 		// Retrieve the missing header stuff
-		try (Fits tmpFits = new Fits(aFile))
-		{
-			tmpFits.readHDU();
-
-			Header tmpHeader = tmpFits.getHDU(0).getHeader();
-			tmpKeyValueM = loadKeyValueMap(tmpHeader);
+		FitsHeader tmpHeader = FitsCube.readHeader(aFile);
+		Map<String, KeyValueNode> tmpKeyValueM = loadKeyValueMap(tmpHeader);
 
-			lat = tmpHeader.getDoubleValue("CLAT", Double.NaN);
-			if (Double.isNaN(lat) == true)
-				lat = tmpHeader.getDoubleValue("LATITUDE", Double.NaN);
+		double lat = tmpHeader.getDoubleValue("CLAT", Double.NaN);
+		if (Double.isNaN(lat) == true)
+			lat = tmpHeader.getDoubleValue("LATITUDE", Double.NaN);
 
-			lon = tmpHeader.getDoubleValue("CLON", Double.NaN);
-			if (Double.isNaN(lon) == true)
-				lon = 360.0 - tmpHeader.getDoubleValue("LONGTUDE", Double.NaN);
+		double lon = tmpHeader.getDoubleValue("CLON", Double.NaN);
+		if (Double.isNaN(lon) == true)
+			lon = 360.0 - tmpHeader.getDoubleValue("LONGTUDE", Double.NaN);
 
-			gsd = tmpHeader.getDoubleValue("GSD", Double.NaN);
-			if (Double.isNaN(gsd) == true)
-				gsd = tmpHeader.getDoubleValue("SCALE", Double.NaN);
+		double gsd = tmpHeader.getDoubleValue("GSD", Double.NaN);
+		if (Double.isNaN(gsd) == true)
+			gsd = tmpHeader.getDoubleValue("SCALE", Double.NaN);
 
-			numPix = tmpHeader.getDoubleValue("NAXIS1", Double.NaN);
-//			if (Double.isNaN(numPix) == true)
-//				numPix = (tmpHeader.getDoubleValue("HALFSIZE", Double.NaN) * 2) + 1;
-		}
+		double numPix = tmpHeader.getDoubleValue("NAXIS1", Double.NaN);
+//		if (Double.isNaN(numPix) == true)
+//			numPix = (tmpHeader.getDoubleValue("HALFSIZE", Double.NaN) * 2) + 1;
 
 		Source tmpSource = new LocalSource(aFile);
 		Dem tmpDem = new Dem(tmpSource, lat, lon, gsd, numPix);
 		return new DemStruct(tmpDem, tmpKeyValueM, null);
 	}
 
+	/**
+	 * Utility helper method that will form a {@link Dem} from the specified OBJ
+	 * file. The file is not loaded.
+	 */
+	private static DemStruct formDemFromObjFile(File aFile)
+	{
+		Source tmpSource = new LocalSource(aFile);
+		Dem tmpDem = new Dem(tmpSource, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+		return new DemStruct(tmpDem, ImmutableMap.of(), null);
+	}
+
 	/**
 	 * Utility method to extract the key-value pairings out of all
 	 * {@link HeaderCard}s found in the {@link Header}.
 	 * <p>
 	 * This method is specific to fits files.
+	 * <p>
+	 * The {@link Header} is converted and the extraction is delegated to
+	 * {@link #loadKeyValueMap(FitsHeader)}.
 	 */
 	public static Map<String, KeyValueNode> loadKeyValueMap(Header aHeader)
 	{
-		Map<String, KeyValueNode> retKeyValueM = new LinkedHashMap<>();
+		List<FitsHeader.Card> tmpCardL = new ArrayList<>();
 
 		Cursor<String, HeaderCard> cursor = aHeader.iterator();
 		while (cursor.hasNext())
 		{
 			HeaderCard tmpHC = cursor.next();
-			if (tmpHC.getValue() == null)
+			tmpCardL.add(new FitsHeader.Card(tmpHC.getKey(), tmpHC.getValue(), tmpHC.getComment()));
+		}
+
+		// Delegate
+		return loadKeyValueMap(new FitsHeader(tmpCardL, aHeader.getSize()));
+	}
+
+	/**
+	 * Utility method to extract the key-value pairings out of all
+	 * {@link FitsHeader.Card}s found in the {@link FitsHeader}.
+	 * <p>
+	 * This method is specific to fits files.
+	 */
+	public static Map<String, KeyValueNode> loadKeyValueMap(FitsHeader aHeader)
+	{
+		Map<String, KeyValueNode> retKeyValueM = new LinkedHashMap<>();
+
+		for (FitsHeader.Card aCard : aHeader.getCardList())
+		{
+			if (aCard.value == null)
 				continue;
 
-			KeyValueNode tmpNode = new KeyValueNode(tmpHC.getKey(), tmpHC.getValue(), tmpHC.getComment());
-			retKeyValueM.putIfAbsent(tmpHC.getKey(), tmpNode);
+			KeyValueNode tmpNode = new KeyValueNode(aCard.key, aCard.value, aCard.comment);
+			retKeyValueM.putIfAbsent(aCard.key, tmpNode);
 		}
 
 		return retKeyValueM;
 	}
 
+	/**
+	 * Interface that defines a reader that forms a {@link DemStruct} from a
+	 * file.
+	 */
+	public interface DemReader
+	{
+		/**
+		 * Returns the {@link DemStruct} formed from the specified file.
+		 */
+		DemStruct read(File aFile) throws IOException;
+	}
+
 }
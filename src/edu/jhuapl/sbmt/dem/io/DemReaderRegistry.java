@@ -0,0 +1,113 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Class that maps {@link DemFormat}s to the readers that load files of the
+ * corresponding format.
+ * <p>
+ * The reader for a file is selected by probing the leading bytes of the file
+ * (see {@link DemFormat#PROBE_SIZE}) against each registered format - in order
+ * of registration. The file is read only once (for the probe) and no trial
+ * parse is ever attempted.
+ * <p>
+ * This class is thread safe.
+ *
+ * @param <G> The type of reader.
+ *
+ * @author lopeznr1
+ */
+public class DemReaderRegistry<G>
+{
+	// State vars
+	private final Map<DemFormat, G> readerM;
+
+	/** Standard Constructor */
+	public DemReaderRegistry()
+	{
+		readerM = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Returns the list of registered {@link DemFormat}s (in probe order).
+	 */
+	public synchronized ImmutableList<DemFormat> getFormats()
+	{
+		return ImmutableList.copyOf(readerM.keySet());
+	}
+
+	/**
+	 * Returns the reader associated with the specified {@link DemFormat}.
+	 * <p>
+	 * Returns null if the format has not been registered.
+	 */
+	public synchronized G getReader(DemFormat aFormat)
+	{
+		return readerM.get(aFormat);
+	}
+
+	/**
+	 * Returns the {@link DemFormat} of the specified file.
+	 * <p>
+	 * Returns null if the file does not match any registered format.
+	 */
+	public DemFormat probe(File aFile) throws IOException
+	{
+		byte[] headArr = new byte[DemFormat.PROBE_SIZE];
+		int headLen = 0;
+		try (InputStream tmpIS = new FileInputStream(aFile))
+		{
+			while (headLen < headArr.length)
+			{
+				int numBytes = tmpIS.read(headArr, headLen, headArr.length - headLen);
+				if (numBytes < 0)
+					break;
+				headLen += numBytes;
+			}
+		}
+
+		for (DemFormat aFormat : getFormats())
+		{
+			if (aFormat.isMatch(headArr, headLen, aFile.getName()) == true)
+				return aFormat;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Registers the reader for the specified {@link DemFormat}.
+	 * <p>
+	 * If the format was previously registered then the reader is replaced (and
+	 * the probe order is retained).
+	 */
+	public synchronized void register(DemFormat aFormat, G aReader)
+	{
+		readerM.put(aFormat, aReader);
+	}
+
+	/**
+	 * Returns a description of the registered {@link DemFormat}s. Intended for
+	 * error messages.
+	 */
+	public String getFormatsDescr()
+	{
+		StringBuilder tmpSB = new StringBuilder();
+		for (DemFormat aFormat : getFormats())
+		{
+			if (tmpSB.length() > 0)
+				tmpSB.append(", ");
+			tmpSB.append(aFormat.getName());
+		}
+
+		return tmpSB.toString();
+	}
+
+}
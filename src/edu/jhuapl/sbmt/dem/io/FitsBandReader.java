@@ -0,0 +1,355 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Class that provides sequential access to a {@link FitsCube} in bands of rows.
+ * <p>
+ * Only the planes of interest are read. While the caller processes the current
+ * band the next band is read (asynchronously) into a second buffer. This allows
+ * disk access (page faults against the mapped cube) and decoding to overlap
+ * with the caller's processing.
+ * <p>
+ * At most two bands are held in memory at any time. A band returned via
+ * {@link #next()} is valid only until the following call to {@link #next()}.
+ * <p>
+ * A cube that does not support random access (gzip compressed) is also read
+ * in bands. The planes of each band are read in descending file order - thus
+ * each (distinct) plane is served by its own forward only cursor of the
+ * {@link FitsGzipReader} and no cursor is ever moved backwards. Each cursor
+ * decompresses the file up to the end of its plane, so the content is
+ * decompressed more than once, but the peak memory is bounded by the band
+ * size. If there are more (distinct) planes than pooled cursors then the cube
+ * is read as a single band in ascending file order (one forward pass).
+ * <p>
+ * The {@link FitsCube} must not be closed before this reader: {@link #close()}
+ * waits for any pending (asynchronous) read to finish so that the cube can be
+ * closed safely afterwards.
+ *
+ * @author lopeznr1
+ */
+public class FitsBandReader implements Closeable
+{
+	// Constants
+	/** Target size (in bytes) of a single band across all planes. */
+	private static final long TARGET_BAND_SIZE = 4L * 1024 * 1024;
+
+	// Ref vars
+	private final FitsCube refCube;
+
+	// Attributes
+	private final int[] planeArr;
+	private final int[] slotOrderArr;
+	private final int bandSize;
+
+	// State vars
+	private final ExecutorService workES;
+	private FitsBand[] bufferArr;
+	private Future<FitsBand> nextFuture;
+	private int nextBegRow;
+	private int bufferIdx;
+	private volatile boolean isClosed;
+
+	/**
+	 * Standard Constructor
+	 *
+	 * @param aCube The {@link FitsCube} to read from.
+	 * @param aPlaneArr The (indexes of the) planes of interest. The values of
+	 * each band will be stored in this order.
+	 */
+	public FitsBandReader(FitsCube aCube, int[] aPlaneArr)
+	{
+		refCube = aCube;
+
+		planeArr = aPlaneArr.clone();
+		int[] tmpSlotOrderArr = formSlotOrder(planeArr);
+
+		long rowSize = 4L * aCube.getNumCols() * Math.max(1, planeArr.length);
+		int tmpBandSize = (int) Math.max(1L, Math.min(aCube.getNumRows(), TARGET_BAND_SIZE / rowSize));
+		if (aCube.isRandomAccess() == false)
+		{
+			// Read in descending file order: one (forward only) cursor per plane
+			if (countDistinct(planeArr, tmpSlotOrderArr) <= FitsGzipReader.MAX_CURSORS)
+				reverse(tmpSlotOrderArr);
+			else
+				tmpBandSize = Math.max(1, aCube.getNumRows());
+		}
+		slotOrderArr = tmpSlotOrderArr;
+		bandSize = tmpBandSize;
+
+		workES = Executors.newSingleThreadExecutor(aRunnable -> {
+			Thread retThread = new Thread(aRunnable, "FitsBandReader: " + aCube.getFile().getName());
+			retThread.setDaemon(true);
+			return retThread;
+		});
+		bufferArr = new FitsBand[2];
+		nextFuture = null;
+		nextBegRow = 0;
+		bufferIdx = 0;
+		isClosed = false;
+
+		// Start reading the first band
+		scheduleNext();
+	}
+
+	/**
+	 * Returns the number of rows in a (full) band.
+	 */
+	public int getBandSize()
+	{
+		return bandSize;
+	}
+
+	/**
+	 * Returns the next band or null if all rows have been read.
+	 * <p>
+	 * The returned band is valid until the next call to this method.
+	 */
+	public FitsBand next() throws IOException
+	{
+		// Bail if there are no more bands
+		if (nextFuture == null)
+			return null;
+
+		FitsBand retBand;
+		try
+		{
+			retBand = nextFuture.get();
+		}
+		catch (InterruptedException aExp)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading: " + refCube.getFile(), aExp);
+		}
+		catch (ExecutionException aExp)
+		{
+			Throwable tmpCause = aExp.getCause();
+			if (tmpCause instanceof IOException)
+				throw (IOException) tmpCause;
+			throw new IOException("Failed to read: " + refCube.getFile(), tmpCause);
+		}
+
+		// Start reading the following band into the other buffer
+		scheduleNext();
+
+		return retBand;
+	}
+
+	/**
+	 * Closes this reader.
+	 * <p>
+	 * A pending read is aborted (at the next row) and this method blocks until
+	 * the worker thread has terminated. Note the worker is never interrupted
+	 * since an interrupt during a channel read would close the channel of the
+	 * {@link FitsCube}.
+	 */
+	@Override
+	public void close()
+	{
+		isClosed = true;
+		if (nextFuture != null)
+			nextFuture.cancel(false);
+		nextFuture = null;
+
+		workES.shutdown();
+
+		// Wait for the pending read to finish
+		boolean isInterrupted = false;
+		while (workES.isTerminated() == false)
+		{
+			try
+			{
+				workES.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}
+			catch (InterruptedException aExp)
+			{
+				isInterrupted = true;
+			}
+		}
+
+		if (isInterrupted == true)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Helper method that schedules the (asynchronous) read of the next band.
+	 */
+	private void scheduleNext()
+	{
+		int numRows = refCube.getNumRows();
+		if (nextBegRow >= numRows)
+		{
+			nextFuture = null;
+			return;
+		}
+
+		int begRow = nextBegRow;
+		int endRow = Math.min(begRow + bandSize, numRows);
+		nextBegRow = endRow;
+
+		// Lazy init the buffer
+		FitsBand tmpBand = bufferArr[bufferIdx];
+		if (tmpBand == null)
+		{
+			tmpBand = new FitsBand(planeArr.length, bandSize, refCube.getNumCols());
+			bufferArr[bufferIdx] = tmpBand;
+		}
+		bufferIdx = (bufferIdx + 1) % bufferArr.length;
+
+		FitsBand fillBand = tmpBand;
+		nextFuture = workES.submit(() -> {
+			fillBand.fill(refCube, planeArr, slotOrderArr, begRow, endRow, () -> isClosed);
+			return fillBand;
+		});
+	}
+
+	/**
+	 * Utility helper method that returns the number of distinct planes. The
+	 * slots must be ordered by plane index.
+	 */
+	private static int countDistinct(int[] aPlaneArr, int[] aSlotOrderArr)
+	{
+		int retCnt = 0;
+		for (int c1 = 0; c1 < aSlotOrderArr.length; c1++)
+		{
+			if (c1 == 0 || aPlaneArr[aSlotOrderArr[c1]] != aPlaneArr[aSlotOrderArr[c1 - 1]])
+				retCnt++;
+		}
+
+		return retCnt;
+	}
+
+	/**
+	 * Utility helper method that reverses the specified array (in place).
+	 */
+	private static void reverse(int[] aArr)
+	{
+		for (int c1 = 0, c2 = aArr.length - 1; c1 < c2; c1++, c2--)
+		{
+			int tmpVal = aArr[c1];
+			aArr[c1] = aArr[c2];
+			aArr[c2] = tmpVal;
+		}
+	}
+
+	/**
+	 * Utility helper method that returns the slots of the specified planes
+	 * ordered by (ascending) plane index - which is the order of the planes in
+	 * the file.
+	 */
+	private static int[] formSlotOrder(int[] aPlaneArr)
+	{
+		int[] retArr = new int[aPlaneArr.length];
+		for (int c1 = 0; c1 < retArr.length; c1++)
+		{
+			// Insertion sort (by plane index)
+			int c2 = c1;
+			while (c2 > 0 && aPlaneArr[retArr[c2 - 1]] > aPlaneArr[c1])
+			{
+				retArr[c2] = retArr[c2 - 1];
+				c2--;
+			}
+			retArr[c2] = c1;
+		}
+
+		return retArr;
+	}
+
+	/**
+	 * Class that holds the values of a band of rows for a set of planes.
+	 */
+	public static class FitsBand
+	{
+		// Attributes
+		private final int numCols;
+		private final float[][] valueArr;
+
+		// State vars
+		private int begRow;
+		private int numRows;
+
+		/** Standard Constructor */
+		FitsBand(int aNumPlanes, int aBandSize, int aNumCols)
+		{
+			numCols = aNumCols;
+			valueArr = new float[aNumPlanes][aBandSize * aNumCols];
+
+			begRow = 0;
+			numRows = 0;
+		}
+
+		/**
+		 * Returns the (cube) index of the first row in this band.
+		 */
+		public int getBegRow()
+		{
+			return begRow;
+		}
+
+		/**
+		 * Returns the number of rows in this band.
+		 */
+		public int getNumRows()
+		{
+			return numRows;
+		}
+
+		/**
+		 * Returns the array of values for the specified plane slot. The values
+		 * are stored in row major order: value(r, n) = arr[r * numCols + n] where
+		 * r is relative to {@link #getBegRow()}.
+		 *
+		 * @param aSlot The index into the plane array used to construct the
+		 * {@link FitsBandReader}.
+		 */
+		public float[] getValues(int aSlot)
+		{
+			return valueArr[aSlot];
+		}
+
+		/**
+		 * Helper method that reads the specified rows from the cube. The slots are
+		 * filled in the order specified by aSlotOrderArr (where slots of the same
+		 * plane are consecutive).
+		 * <p>
+		 * The read is abandoned (leaving the band partially filled) as soon as
+		 * aIsAbortedBS returns true.
+		 */
+		void fill(FitsCube aCube, int[] aPlaneArr, int[] aSlotOrderArr, int aBegRow, int aEndRow,
+				BooleanSupplier aIsAbortedBS) throws IOException
+		{
+			begRow = aBegRow;
+			numRows = aEndRow - aBegRow;
+
+			int prevSlot = -1;
+			for (int aSlot : aSlotOrderArr)
+			{
+				// A plane that is repeated (in consecutive slots) is read only once
+				float[] tmpArr = valueArr[aSlot];
+				if (prevSlot != -1 && aPlaneArr[prevSlot] == aPlaneArr[aSlot])
+				{
+					System.arraycopy(valueArr[prevSlot], 0, tmpArr, 0, numRows * numCols);
+					continue;
+				}
+				prevSlot = aSlot;
+
+				for (int aRow = aBegRow; aRow < aEndRow; aRow++)
+				{
+					// Bail if aborted
+					if (aIsAbortedBS.getAsBoolean() == true)
+						return;
+
+					aCube.readRow(aPlaneArr[aSlot], aRow, tmpArr, (aRow - aBegRow) * numCols);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,561 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class that provides read only access to the data unit of the primary HDU of
+ * a FITS image cube.
+ * <p>
+ * The data unit is memory-mapped (via NIO) and values are decoded directly
+ * from the mapped buffers as rows are requested. No portion of the cube is
+ * copied onto the Java heap (other than the caller provided row buffers) so
+ * heap usage is independent of the size of the cube.
+ * <p>
+ * Compressed cubes are supported and are decompressed (as rows are requested)
+ * without ever inflating the cube as a whole:
+ * <ul>
+ * <li>Gzip compressed files (.fits.gz): The decompressed content is streamed
+ * via {@link FitsGzipReader}. Rows are best read in file order - see
+ * {@link #isRandomAccess()}.
+ * <li>Tile compressed images (fpack): The image is stored in the first
+ * extension (ZIMAGE = T) and is decoded (one tile at a time) via
+ * {@link FitsTileReader}. The header of such a cube is that of the
+ * (decompressed) image.
+ * </ul>
+ * <p>
+ * The following is supported:
+ * <ul>
+ * <li>BITPIX: 8, 16, 32, 64, -32, -64 (big-endian as mandated by FITS)
+ * <li>Scaling via the keywords BSCALE and BZERO
+ * <li>Up to 3 axes: NAXIS1 (columns), NAXIS2 (rows), NAXIS3 (planes)
+ * </ul>
+ * Reading of rows is thread safe. The mapped segments are lazily created on
+ * first access.
+ *
+ * @author lopeznr1
+ */
+public class FitsCube implements Closeable
+{
+	// Constants
+	/** Size of a FITS (header or data) block. */
+	public static final int BLOCK_SIZE = 2880;
+	/** Size of a single FITS header card. */
+	public static final int CARD_SIZE = 80;
+
+	/** Maximum size of a single mapped segment. */
+	private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+	// Attributes
+	private final File file;
+	private final FitsHeader header;
+	private final int bitPix;
+	private final int bytesPerPix;
+	private final int numCols;
+	private final int numRows;
+	private final int numPlanes;
+	private final double bScale;
+	private final double bZero;
+	private final boolean isScaled;
+	private final long dataOffset;
+	private final int rowsPerSegment;
+
+	// State vars
+	private final FileChannel workFC;
+	private final FitsGzipReader gzipReader;
+	private final FitsTileReader tileReader;
+	private final ByteBuffer[] segmentArr;
+
+	/**
+	 * Standard Constructor
+	 * <p>
+	 * Opens the specified file and parses the primary header. The data unit is
+	 * not accessed until a row (or value) is requested.
+	 * <p>
+	 * Throws an {@link IOException} if the file does not contain a supported
+	 * FITS image.
+	 */
+	public FitsCube(File aFile) throws IOException
+	{
+		file = aFile;
+
+		workFC = FileChannel.open(aFile.toPath(), StandardOpenOption.READ);
+		FitsGzipReader tmpGzipReader = null;
+		try
+		{
+			// Read the header of the image (only the header blocks are scanned)
+			FitsTileReader tmpTileReader = null;
+			if (isGzip(workFC) == true)
+			{
+				tmpGzipReader = new FitsGzipReader(aFile);
+				header = tmpGzipReader.readHeader();
+			}
+			else
+			{
+				FitsHeader tmpHeader = FitsHeader.read(workFC, 0L, aFile);
+				FitsHeader tableHeader = readTableHeader(workFC, tmpHeader, aFile);
+				if (tableHeader != null)
+				{
+					tmpTileReader = new FitsTileReader(workFC, tableHeader, aFile);
+					tmpHeader = tmpTileReader.getImageHeader();
+				}
+				header = tmpHeader;
+			}
+			gzipReader = tmpGzipReader;
+			tileReader = tmpTileReader;
+
+			// Validate the header
+			if (header.isPrimary() == false)
+				throw new IOException("File is not a FITS file: " + aFile);
+			int tmpNumAxis = header.getIntValue("NAXIS", -1);
+			if (tmpNumAxis < 1 || tmpNumAxis > 3)
+				throw new IOException("Unsupported number of FITS axes: " + tmpNumAxis);
+
+			int tmpBitPix = header.getIntValue("BITPIX", 0);
+			double tmpBScale = header.getDoubleValue("BSCALE", 1.0);
+			double tmpBZero = header.getDoubleValue("BZERO", 0.0);
+			int[] tmpAxisArr = { 1, 1, 1 };
+			for (int c1 = 0; c1 < tmpNumAxis; c1++)
+				tmpAxisArr[c1] = header.getIntValue("NAXIS" + (c1 + 1), 1);
+
+			bitPix = tmpBitPix;
+			bytesPerPix = getBytesPerPixel(tmpBitPix);
+			numCols = tmpAxisArr[0];
+			numRows = tmpAxisArr[1];
+			numPlanes = tmpAxisArr[2];
+			bScale = tmpBScale;
+			bZero = tmpBZero;
+			isScaled = bScale != 1.0 || bZero != 0.0;
+			dataOffset = header.getDataOffset();
+
+			// Ensure the data unit is fully present. The size of a compressed data
+			// unit is validated as it is decompressed.
+			long rowSize = (long) numCols * bytesPerPix;
+			long dataSize = rowSize * numRows * numPlanes;
+			if (gzipReader == null && tileReader == null && dataOffset + dataSize > workFC.size())
+				throw new IOException("FITS data unit is truncated. File: " + aFile);
+
+			// Segments are aligned to row boundaries
+			rowsPerSegment = (int) Math.max(1L, Math.min(Integer.MAX_VALUE, MAX_SEGMENT_SIZE / Math.max(1L, rowSize)));
+			long numSegments = ((long) numRows * numPlanes + rowsPerSegment - 1) / rowsPerSegment;
+			segmentArr = new ByteBuffer[(int) numSegments];
+		}
+		catch (IOException | RuntimeException aExp)
+		{
+			if (tmpGzipReader != null)
+				tmpGzipReader.close();
+			workFC.close();
+			throw aExp;
+		}
+	}
+
+	/**
+	 * Returns the value of the BITPIX keyword.
+	 */
+	public int getBitPix()
+	{
+		return bitPix;
+	}
+
+	/**
+	 * Returns the offset (in bytes) of the data unit. This is also the size of
+	 * the primary header.
+	 * <p>
+	 * For gzip compressed files the offset is relative to the decompressed
+	 * content. For tile compressed images this is the offset of the (compressed
+	 * image) table.
+	 */
+	public long getDataOffset()
+	{
+		return dataOffset;
+	}
+
+	/**
+	 * Returns the size (in bytes) of the data unit.
+	 */
+	public long getDataSize()
+	{
+		return (long) numCols * numRows * numPlanes * bytesPerPix;
+	}
+
+	/**
+	 * Returns the file backing this cube.
+	 */
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * Returns the (primary) {@link FitsHeader}.
+	 */
+	public FitsHeader getHeader()
+	{
+		return header;
+	}
+
+	/**
+	 * Returns the number of decompression streams that have been started. Each
+	 * stream decompresses from the start of the file. Returns 0 if the cube is
+	 * not gzip compressed.
+	 */
+	int getNumGzipStreams()
+	{
+		if (gzipReader == null)
+			return 0;
+
+		return gzipReader.getNumStreams();
+	}
+
+	/**
+	 * Returns the number of tiles that have been decoded. Returns 0 if the cube
+	 * is not tile compressed.
+	 */
+	int getNumTilesDecoded()
+	{
+		if (tileReader == null)
+			return 0;
+
+		return tileReader.getNumTilesDecoded();
+	}
+
+	/**
+	 * Returns the number of columns (NAXIS1).
+	 */
+	public int getNumCols()
+	{
+		return numCols;
+	}
+
+	/**
+	 * Returns the number of rows (NAXIS2).
+	 */
+	public int getNumRows()
+	{
+		return numRows;
+	}
+
+	/**
+	 * Returns the number of planes (NAXIS3).
+	 */
+	public int getNumPlanes()
+	{
+		return numPlanes;
+	}
+
+	/**
+	 * Returns true if rows may be efficiently read in any order (and by
+	 * multiple threads). Returns false for gzip compressed files: rows should be
+	 * read in file order (plane by plane) since a read that precedes the prior
+	 * reads requires decompression from the start of the file.
+	 */
+	public boolean isRandomAccess()
+	{
+		return gzipReader == null;
+	}
+
+	/**
+	 * Reads the specified row of the specified plane into the provided array.
+	 * <p>
+	 * The values will be scaled via BSCALE / BZERO (if specified).
+	 *
+	 * @param aPlane The (zero-based) index of the plane.
+	 * @param aRow The (zero-based) index of the row.
+	 * @param aDestArr The array to store the values. Must be of at least length
+	 * {@link #getNumCols()}.
+	 */
+	public void readRow(int aPlane, int aRow, float[] aDestArr) throws IOException
+	{
+		readRow(aPlane, aRow, aDestArr, 0);
+	}
+
+	/**
+	 * Reads the specified row of the specified plane into the provided array
+	 * starting at the specified offset.
+	 * <p>
+	 * The values will be scaled via BSCALE / BZERO (if specified).
+	 */
+	public void readRow(int aPlane, int aRow, float[] aDestArr, int aDestOff) throws IOException
+	{
+		// Tile compressed images are decoded (and scaled) by the tile reader
+		if (tileReader != null)
+		{
+			checkBounds(aPlane, aRow);
+			tileReader.readRow(aPlane, aRow, aDestArr, aDestOff);
+			return;
+		}
+
+		ByteBuffer tmpBB = getRowBuffer(aPlane, aRow);
+
+		int o = aDestOff;
+		switch (bitPix)
+		{
+			case -32:
+				tmpBB.asFloatBuffer().get(aDestArr, o, numCols);
+				if (isScaled == true)
+					for (int c1 = 0; c1 < numCols; c1++)
+						aDestArr[o + c1] = (float) (bZero + bScale * aDestArr[o + c1]);
+				break;
+			case -64:
+				for (int c1 = 0; c1 < numCols; c1++)
+					aDestArr[o + c1] = (float) (bZero + bScale * tmpBB.getDouble(c1 * 8));
+				break;
+			case 8:
+				for (int c1 = 0; c1 < numCols; c1++)
+					aDestArr[o + c1] = (float) (bZero + bScale * (tmpBB.get(c1) & 0xFF));
+				break;
+			case 16:
+				for (int c1 = 0; c1 < numCols; c1++)
+					aDestArr[o + c1] = (float) (bZero + bScale * tmpBB.getShort(c1 * 2));
+				break;
+			case 32:
+				for (int c1 = 0; c1 < numCols; c1++)
+					aDestArr[o + c1] = (float) (bZero + bScale * tmpBB.getInt(c1 * 4));
+				break;
+			case 64:
+				for (int c1 = 0; c1 < numCols; c1++)
+					aDestArr[o + c1] = (float) (bZero + bScale * tmpBB.getLong(c1 * 8));
+				break;
+			default:
+				throw new IOException("Unsupported BITPIX: " + bitPix);
+		}
+	}
+
+	/**
+	 * Returns the (scaled) value at the specified location.
+	 */
+	public float readValue(int aPlane, int aRow, int aCol) throws IOException
+	{
+		if (aCol < 0 || aCol >= numCols)
+			throw new IndexOutOfBoundsException("Column: " + aCol + " Range: [0, " + numCols + ")");
+
+		// Tile compressed images are decoded a row at a time
+		if (tileReader != null)
+		{
+			float[] rowArr = new float[numCols];
+			readRow(aPlane, aRow, rowArr, 0);
+			return rowArr[aCol];
+		}
+
+		ByteBuffer tmpBB = getRowBuffer(aPlane, aRow);
+		int tmpOff = aCol * bytesPerPix;
+
+		double rawVal;
+		switch (bitPix)
+		{
+			case -32:
+				float tmpVal = tmpBB.getFloat(tmpOff);
+				if (isScaled == false)
+					return tmpVal;
+				rawVal = tmpVal;
+				break;
+			case -64:
+				rawVal = tmpBB.getDouble(tmpOff);
+				break;
+			case 8:
+				rawVal = tmpBB.get(tmpOff) & 0xFF;
+				break;
+			case 16:
+				rawVal = tmpBB.getShort(tmpOff);
+				break;
+			case 32:
+				rawVal = tmpBB.getInt(tmpOff);
+				break;
+			case 64:
+				rawVal = tmpBB.getLong(tmpOff);
+				break;
+			default:
+				throw new IOException("Unsupported BITPIX: " + bitPix);
+		}
+
+		return (float) (bZero + bScale * rawVal);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		// Note the mapped segments are released when they are garbage collected
+		if (gzipReader != null)
+			gzipReader.close();
+		workFC.close();
+	}
+
+	/**
+	 * Helper method that returns a (big-endian) {@link ByteBuffer} that spans
+	 * exactly the specified row.
+	 * <p>
+	 * The returned buffer is independent of any other returned buffer and thus
+	 * may be used without synchronization.
+	 */
+	private ByteBuffer getRowBuffer(int aPlane, int aRow) throws IOException
+	{
+		checkBounds(aPlane, aRow);
+
+		long globRow = (long) aPlane * numRows + aRow;
+		int rowSize = numCols * bytesPerPix;
+
+		// Gzip compressed: the row is decompressed onto the heap
+		if (gzipReader != null)
+		{
+			byte[] tmpArr = new byte[rowSize];
+			gzipReader.read(dataOffset + globRow * rowSize, tmpArr, 0, rowSize);
+			return ByteBuffer.wrap(tmpArr);
+		}
+
+		int segIdx = (int) (globRow / rowsPerSegment);
+		int segOff = (int) (globRow % rowsPerSegment) * rowSize;
+
+		ByteBuffer retBB = getSegment(segIdx).slice(segOff, rowSize);
+		retBB.order(ByteOrder.BIG_ENDIAN);
+		return retBB;
+	}
+
+	/**
+	 * Helper method that throws an {@link IndexOutOfBoundsException} if the
+	 * specified plane or row is out of range.
+	 */
+	private void checkBounds(int aPlane, int aRow)
+	{
+		if (aPlane < 0 || aPlane >= numPlanes)
+			throw new IndexOutOfBoundsException("Plane: " + aPlane + " Range: [0, " + numPlanes + ")");
+		if (aRow < 0 || aRow >= numRows)
+			throw new IndexOutOfBoundsException("Row: " + aRow + " Range: [0, " + numRows + ")");
+	}
+
+	/**
+	 * Helper method that returns the mapped segment at the specified index.
+	 * <p>
+	 * The segment will be mapped on the first request.
+	 */
+	private ByteBuffer getSegment(int aSegIdx) throws IOException
+	{
+		synchronized (segmentArr)
+		{
+			ByteBuffer retBB = segmentArr[aSegIdx];
+			if (retBB != null)
+				return retBB;
+
+			long rowSize = (long) numCols * bytesPerPix;
+			long totRows = (long) numRows * numPlanes;
+			long begRow = (long) aSegIdx * rowsPerSegment;
+			long endRow = Math.min(begRow + rowsPerSegment, totRows);
+
+			long begPos = dataOffset + begRow * rowSize;
+			long tmpSize = (endRow - begRow) * rowSize;
+			retBB = workFC.map(MapMode.READ_ONLY, begPos, tmpSize);
+			segmentArr[aSegIdx] = retBB;
+			return retBB;
+		}
+	}
+
+	/**
+	 * Utility method that returns the header of the image of the specified
+	 * FITS file. Only the header blocks are read.
+	 * <p>
+	 * Gzip compressed files and tile compressed images are supported. For the
+	 * latter the header of the (decompressed) image is returned.
+	 * <p>
+	 * Throws an {@link IOException} if the file is not a FITS file.
+	 */
+	public static FitsHeader readHeader(File aFile) throws IOException
+	{
+		FitsHeader retHeader;
+		try (FileChannel tmpFC = FileChannel.open(aFile.toPath(), StandardOpenOption.READ))
+		{
+			if (isGzip(tmpFC) == true)
+			{
+				try (InputStream tmpIS = new GZIPInputStream(Channels.newInputStream(tmpFC)))
+				{
+					retHeader = FitsHeader.read(tmpIS, 0L, aFile);
+				}
+			}
+			else
+			{
+				retHeader = FitsHeader.read(tmpFC, 0L, aFile);
+				FitsHeader tableHeader = readTableHeader(tmpFC, retHeader, aFile);
+				if (tableHeader != null)
+					retHeader = FitsTileReader.formImageHeader(tableHeader);
+			}
+		}
+
+		if (retHeader.isPrimary() == false)
+			throw new IOException("File is not a FITS file: " + aFile);
+
+		return retHeader;
+	}
+
+	/**
+	 * Utility helper method that returns true if the file (of the specified
+	 * channel) is gzip compressed.
+	 */
+	private static boolean isGzip(FileChannel aFC) throws IOException
+	{
+		ByteBuffer tmpBB = ByteBuffer.allocate(2);
+		while (tmpBB.hasRemaining() == true)
+		{
+			if (aFC.read(tmpBB, tmpBB.position()) < 0)
+				return false;
+		}
+
+		return FitsGzipReader.isGzip(tmpBB.array(), 2);
+	}
+
+	/**
+	 * Utility helper method that returns the header of the (tile) compressed
+	 * image that follows an empty primary HDU.
+	 * <p>
+	 * Returns null if the primary HDU holds data or is not followed by a
+	 * compressed image.
+	 */
+	private static FitsHeader readTableHeader(FileChannel aFC, FitsHeader aPrimaryHeader, File aFile)
+			throws IOException
+	{
+		// Bail if the primary HDU is not empty
+		if (aPrimaryHeader.isPrimary() == false || aPrimaryHeader.getIntValue("NAXIS", -1) != 0)
+			return null;
+
+		// Bail if there is no extension
+		long tmpPos = aPrimaryHeader.getDataOffset();
+		if (tmpPos + BLOCK_SIZE > aFC.size())
+			return null;
+
+		FitsHeader retHeader = FitsHeader.read(aFC, tmpPos, aFile);
+		if (FitsTileReader.isCompressedImage(retHeader) == false)
+			return null;
+
+		return retHeader;
+	}
+
+	/**
+	 * Utility helper method that returns the number of bytes per pixel for the
+	 * specified BITPIX.
+	 */
+	private static int getBytesPerPixel(int aBitPix) throws IOException
+	{
+		switch (aBitPix)
+		{
+			case 8:
+				return 1;
+			case 16:
+				return 2;
+			case 32:
+			case -32:
+				return 4;
+			case 64:
+			case -64:
+				return 8;
+			default:
+				throw new IOException("Unsupported BITPIX: " + aBitPix);
+		}
+	}
+
+}
@@ -0,0 +1,260 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class that provides (streaming) read access to the decompressed content of a
+ * gzip compressed FITS file.
+ * <p>
+ * The content is never inflated as a whole (neither onto disk nor onto the
+ * heap). Rather reads are served by a small pool of cursors where each cursor
+ * is an independent decompression stream that only moves forward. A read is
+ * served by the cursor that is closest to (but not past) the requested
+ * position. Thus reads in (ascending) file order are served by a single cursor
+ * and the content is decompressed exactly once. Banded reads (as done by
+ * {@link FitsBandReader}) visit the planes in descending file order so that
+ * each plane retains its own cursor across bands.
+ * <p>
+ * Random access is supported but is expensive: a read that precedes all of the
+ * cursors requires decompression from the start of the file. Note that
+ * interleaved reads of several planes (row by row) are such reads: the cursor
+ * that served a plane is advanced (past the plane) to serve the next plane.
+ * <p>
+ * This class is thread safe. A cursor is utilized by only one thread at a time.
+ *
+ * @author lopeznr1
+ */
+class FitsGzipReader implements Closeable
+{
+	// Constants
+	/** Size of the buffer of (compressed) input. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** Maximum number of idle cursors that are retained. */
+	static final int MAX_CURSORS = 16;
+
+	// Attributes
+	private final File file;
+
+	// State vars
+	private final Deque<Cursor> idleQ;
+	private boolean isClosed;
+	private int numStreams;
+
+	/** Standard Constructor */
+	FitsGzipReader(File aFile)
+	{
+		file = aFile;
+
+		idleQ = new ArrayDeque<>();
+		isClosed = false;
+		numStreams = 0;
+	}
+
+	/**
+	 * Returns the number of decompression streams that have been started. Each
+	 * stream decompresses from the start of the file.
+	 */
+	int getNumStreams()
+	{
+		synchronized (idleQ)
+		{
+			return numStreams;
+		}
+	}
+
+	/**
+	 * Reads the (primary) header. The cursor utilized for the read is retained
+	 * and will be positioned at the start of the data unit.
+	 */
+	FitsHeader readHeader() throws IOException
+	{
+		Cursor tmpCursor = new Cursor();
+		try
+		{
+			FitsHeader retHeader = FitsHeader.read(tmpCursor.inputStream, 0L, file);
+			tmpCursor.position = retHeader.getDataOffset();
+			release(tmpCursor);
+			return retHeader;
+		}
+		catch (IOException aExp)
+		{
+			tmpCursor.close();
+			throw aExp;
+		}
+	}
+
+	/**
+	 * Reads the specified number of (decompressed) bytes starting at the
+	 * specified position.
+	 *
+	 * @param aPos The position (in the decompressed content) to read from.
+	 * @param aDestArr The array to store the bytes.
+	 * @param aDestOff The offset into aDestArr.
+	 * @param aLen The number of bytes to read.
+	 */
+	void read(long aPos, byte[] aDestArr, int aDestOff, int aLen) throws IOException
+	{
+		Cursor tmpCursor = acquire(aPos);
+		try
+		{
+			tmpCursor.skipTo(aPos);
+			if (tmpCursor.inputStream.readNBytes(aDestArr, aDestOff, aLen) != aLen)
+				throw new EOFException("Premature end of (gzip) FITS file: " + file);
+			tmpCursor.position += aLen;
+		}
+		catch (IOException aExp)
+		{
+			tmpCursor.close();
+			throw aExp;
+		}
+
+		release(tmpCursor);
+	}
+
+	@Override
+	public void close()
+	{
+		synchronized (idleQ)
+		{
+			isClosed = true;
+			for (Cursor aCursor : idleQ)
+				aCursor.close();
+			idleQ.clear();
+		}
+	}
+
+	/**
+	 * Helper method that returns the (idle) cursor that is closest to, but not
+	 * past, the specified position. A new cursor is returned if there is no
+	 * such cursor.
+	 */
+	private Cursor acquire(long aPos) throws IOException
+	{
+		synchronized (idleQ)
+		{
+			if (isClosed == true)
+				throw new IOException("Reader has been closed: " + file);
+
+			Cursor retCursor = null;
+			for (Cursor aCursor : idleQ)
+			{
+				if (aCursor.position > aPos)
+					continue;
+				if (retCursor == null || aCursor.position > retCursor.position)
+					retCursor = aCursor;
+			}
+
+			if (retCursor != null)
+			{
+				idleQ.remove(retCursor);
+				return retCursor;
+			}
+		}
+
+		return new Cursor();
+	}
+
+	/**
+	 * Helper method that returns the cursor to the idle pool. The least recently
+	 * used cursor is discarded if the pool is full.
+	 */
+	private void release(Cursor aCursor)
+	{
+		synchronized (idleQ)
+		{
+			if (isClosed == true)
+			{
+				aCursor.close();
+				return;
+			}
+
+			idleQ.addLast(aCursor);
+			if (idleQ.size() > MAX_CURSORS)
+				idleQ.removeFirst().close();
+		}
+	}
+
+	/**
+	 * Utility method that returns true if the provided (leading) bytes are the
+	 * start of a gzip stream.
+	 */
+	static boolean isGzip(byte[] aHeadArr, int aHeadLen)
+	{
+		return aHeadLen >= 2 && aHeadArr[0] == (byte) 0x1f && aHeadArr[1] == (byte) 0x8b;
+	}
+
+	/**
+	 * Class that holds a single (forward only) decompression stream.
+	 */
+	private class Cursor
+	{
+		// State vars
+		private final InputStream inputStream;
+		private long position;
+
+		/** Standard Constructor */
+		Cursor() throws IOException
+		{
+			InputStream tmpIS = new FileInputStream(file);
+			try
+			{
+				inputStream = new GZIPInputStream(tmpIS, BUFFER_SIZE);
+			}
+			catch (IOException aExp)
+			{
+				tmpIS.close();
+				throw aExp;
+			}
+			position = 0L;
+
+			synchronized (idleQ)
+			{
+				numStreams++;
+			}
+		}
+
+		/**
+		 * Advances (by decompressing and discarding) to the specified position.
+		 */
+		void skipTo(long aPos) throws IOException
+		{
+			byte[] skipArr = null;
+			while (position < aPos)
+			{
+				if (skipArr == null)
+					skipArr = new byte[(int) Math.min(BUFFER_SIZE, aPos - position)];
+
+				int tmpLen = (int) Math.min(skipArr.length, aPos - position);
+				int numBytes = inputStream.read(skipArr, 0, tmpLen);
+				if (numBytes < 0)
+					throw new EOFException("Premature end of (gzip) FITS file: " + file);
+				position += numBytes;
+			}
+		}
+
+		/**
+		 * Releases the resources associated with this cursor.
+		 */
+		void close()
+		{
+			try
+			{
+				inputStream.close();
+			}
+			catch (IOException aExp)
+			{
+				; // Nothing to do
+			}
+		}
+	}
+
+}
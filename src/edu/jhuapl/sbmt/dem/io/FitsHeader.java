@@ -0,0 +1,329 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Class that provides read only access to the (header) cards of a FITS
+ * header.
+ * <p>
+ * Only the header is read: the header blocks ({@link FitsCube#BLOCK_SIZE}
+ * bytes each) are read until the END card is encountered. The data unit is
+ * never accessed - thus the cost of parsing is independent of the size of the
+ * data unit.
+ * <p>
+ * The cards are parsed according to the fixed format of the FITS standard:
+ * <ul>
+ * <li>Columns 1-8: The keyword.
+ * <li>Columns 9-10: The value indicator ("= ").
+ * <li>Columns 11-80: The value and an optional comment (introduced by '/').
+ * </ul>
+ * String values are unquoted (and embedded quotes are unescaped). Cards without
+ * a value indicator (COMMENT, HISTORY, etc) have a null value.
+ *
+ * @author lopeznr1
+ */
+public class FitsHeader
+{
+	// Attributes
+	private final ImmutableList<Card> cardL;
+	private final Map<String, Card> cardM;
+	private final long dataOffset;
+
+	/** Standard Constructor */
+	FitsHeader(List<Card> aCardL, long aDataOffset)
+	{
+		cardL = ImmutableList.copyOf(aCardL);
+		dataOffset = aDataOffset;
+
+		// The first occurrence of a keyword takes precedence
+		cardM = new HashMap<>();
+		for (Card aCard : cardL)
+			cardM.putIfAbsent(aCard.key, aCard);
+	}
+
+	/**
+	 * Returns the list of (all) {@link Card}s in order of appearance.
+	 */
+	public ImmutableList<Card> getCardList()
+	{
+		return cardL;
+	}
+
+	/**
+	 * Returns the offset (in bytes) of the data unit that follows this header.
+	 */
+	public long getDataOffset()
+	{
+		return dataOffset;
+	}
+
+	/**
+	 * Returns the (floating point) value of the specified keyword.
+	 * <p>
+	 * Returns aDefault if the keyword is not present or the value is not
+	 * numeric.
+	 */
+	public double getDoubleValue(String aKey, double aDefault)
+	{
+		String valStr = getStringValue(aKey);
+		if (valStr == null)
+			return aDefault;
+
+		try
+		{
+			return Double.parseDouble(valStr.replace('D', 'E').replace('d', 'e'));
+		}
+		catch (NumberFormatException aExp)
+		{
+			return aDefault;
+		}
+	}
+
+	/**
+	 * Returns the (integer) value of the specified keyword.
+	 * <p>
+	 * Returns aDefault if the keyword is not present or the value is not an
+	 * integer.
+	 */
+	public int getIntValue(String aKey, int aDefault)
+	{
+		String valStr = getStringValue(aKey);
+		if (valStr == null)
+			return aDefault;
+
+		try
+		{
+			return Integer.parseInt(valStr);
+		}
+		catch (NumberFormatException aExp)
+		{
+			return aDefault;
+		}
+	}
+
+	/**
+	 * Returns the value of the specified keyword.
+	 * <p>
+	 * Returns null if the keyword is not present or has no value.
+	 */
+	public String getStringValue(String aKey)
+	{
+		Card tmpCard = cardM.get(aKey);
+		if (tmpCard == null)
+			return null;
+
+		return tmpCard.value;
+	}
+
+	/**
+	 * Returns true if the specified keyword is present.
+	 */
+	public boolean hasKey(String aKey)
+	{
+		return cardM.containsKey(aKey);
+	}
+
+	/**
+	 * Returns true if this is the header of a primary HDU. The first card must
+	 * be SIMPLE.
+	 */
+	public boolean isPrimary()
+	{
+		return cardL.size() > 0 && cardL.get(0).key.equals("SIMPLE") == true;
+	}
+
+	/**
+	 * Utility method that reads the primary header of the specified file.
+	 * <p>
+	 * Throws an {@link IOException} if the file is not a FITS file.
+	 */
+	public static FitsHeader read(File aFile) throws IOException
+	{
+		try (FileChannel tmpFC = FileChannel.open(aFile.toPath(), StandardOpenOption.READ))
+		{
+			FitsHeader retHeader = read(tmpFC, 0L, aFile);
+			if (retHeader.isPrimary() == false)
+				throw new IOException("File is not a FITS file: " + aFile);
+
+			return retHeader;
+		}
+	}
+
+	/**
+	 * Utility method that reads the header that starts at the specified position
+	 * of the provided {@link FileChannel}.
+	 *
+	 * @param aFC The {@link FileChannel} to read from.
+	 * @param aPos The position (in bytes) of the first header block.
+	 * @param aFile The file associated with the channel. Used for error
+	 * reporting.
+	 */
+	static FitsHeader read(FileChannel aFC, long aPos, File aFile) throws IOException
+	{
+		List<Card> tmpCardL = new ArrayList<>();
+
+		ByteBuffer tmpBB = ByteBuffer.allocate(FitsCube.BLOCK_SIZE);
+		long tmpPos = aPos;
+		while (true)
+		{
+			tmpBB.clear();
+			while (tmpBB.hasRemaining() == true)
+			{
+				if (aFC.read(tmpBB, tmpPos + tmpBB.position()) < 0)
+					throw new IOException("Premature end of FITS header: " + aFile);
+			}
+			tmpPos += FitsCube.BLOCK_SIZE;
+
+			if (parseBlock(tmpBB.array(), tmpCardL) == true)
+				return new FitsHeader(tmpCardL, tmpPos);
+		}
+	}
+
+	/**
+	 * Utility method that reads the header that starts at the current position
+	 * of the provided {@link InputStream}. On return the stream will be
+	 * positioned at the start of the data unit.
+	 *
+	 * @param aIS The {@link InputStream} to read from.
+	 * @param aPos The position (in bytes) of the first header block. Used to
+	 * compute the data offset.
+	 * @param aFile The file associated with the stream. Used for error
+	 * reporting.
+	 */
+	static FitsHeader read(InputStream aIS, long aPos, File aFile) throws IOException
+	{
+		List<Card> tmpCardL = new ArrayList<>();
+
+		byte[] blockArr = new byte[FitsCube.BLOCK_SIZE];
+		long tmpPos = aPos;
+		while (true)
+		{
+			if (aIS.readNBytes(blockArr, 0, blockArr.length) != blockArr.length)
+				throw new IOException("Premature end of FITS header: " + aFile);
+			tmpPos += FitsCube.BLOCK_SIZE;
+
+			if (parseBlock(blockArr, tmpCardL) == true)
+				return new FitsHeader(tmpCardL, tmpPos);
+		}
+	}
+
+	/**
+	 * Utility helper method that parses the cards of a single header block into
+	 * the provided list. Returns true if the END card was encountered.
+	 */
+	private static boolean parseBlock(byte[] aBlockArr, List<Card> aCardL)
+	{
+		for (int aOff = 0; aOff < FitsCube.BLOCK_SIZE; aOff += FitsCube.CARD_SIZE)
+		{
+			String tmpStr = new String(aBlockArr, aOff, FitsCube.CARD_SIZE, StandardCharsets.US_ASCII);
+			Card tmpCard = parseCard(tmpStr);
+			if (tmpCard.key.equals("END") == true)
+				return true;
+
+			aCardL.add(tmpCard);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Utility helper method that parses a single (fixed format) card.
+	 */
+	private static Card parseCard(String aCardStr)
+	{
+		String tmpKey = aCardStr.substring(0, 8).trim();
+
+		// Cards without a value indicator hold only commentary
+		if (aCardStr.startsWith("= ", 8) == false)
+			return new Card(tmpKey, null, aCardStr.substring(8).trim());
+
+		String fieldStr = aCardStr.substring(10);
+		int begIdx = 0;
+		while (begIdx < fieldStr.length() && fieldStr.charAt(begIdx) == ' ')
+			begIdx++;
+
+		// String value: delimited by single quotes (a quote is escaped as '')
+		if (begIdx < fieldStr.length() && fieldStr.charAt(begIdx) == '\'')
+		{
+			StringBuilder tmpSB = new StringBuilder();
+			int tmpIdx = begIdx + 1;
+			while (tmpIdx < fieldStr.length())
+			{
+				char tmpChar = fieldStr.charAt(tmpIdx);
+				tmpIdx++;
+				if (tmpChar != '\'')
+				{
+					tmpSB.append(tmpChar);
+					continue;
+				}
+
+				if (tmpIdx < fieldStr.length() && fieldStr.charAt(tmpIdx) == '\'')
+				{
+					tmpSB.append('\'');
+					tmpIdx++;
+					continue;
+				}
+
+				break;
+			}
+
+			// Trailing spaces are not significant
+			String valStr = tmpSB.toString().stripTrailing();
+			return new Card(tmpKey, valStr, parseComment(fieldStr, tmpIdx));
+		}
+
+		// All other values: terminated by the comment
+		int commentIdx = fieldStr.indexOf('/');
+		if (commentIdx == -1)
+			commentIdx = fieldStr.length();
+
+		String valStr = fieldStr.substring(0, commentIdx).trim();
+		if (valStr.isEmpty() == true)
+			valStr = null;
+		return new Card(tmpKey, valStr, parseComment(fieldStr, commentIdx));
+	}
+
+	/**
+	 * Utility helper method that returns the comment that follows the specified
+	 * index. Returns null if there is no comment.
+	 */
+	private static String parseComment(String aFieldStr, int aIdx)
+	{
+		int tmpIdx = aFieldStr.indexOf('/', aIdx);
+		if (tmpIdx == -1)
+			return null;
+
+		return aFieldStr.substring(tmpIdx + 1).trim();
+	}
+
+	/**
+	 * Class that holds a single header card.
+	 */
+	public static class Card
+	{
+		public final String key;
+		public final String value;
+		public final String comment;
+
+		/** Standard Constructor */
+		public Card(String aKey, String aValue, String aComment)
+		{
+			key = aKey;
+			value = aValue;
+			comment = aComment;
+		}
+	}
+
+}
@@ -0,0 +1,837 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class that decodes the image of a tile compressed FITS file.
+ * <p>
+ * Tile compression (as produced by fpack / CFITSIO) stores the image in a
+ * binary table extension (ZIMAGE = T) where each table row holds one
+ * (independently) compressed tile. Since each tile is decoded on its own, rows
+ * are decoded on demand (and may be decoded concurrently) - the image is never
+ * decompressed as a whole.
+ * <p>
+ * The following is supported:
+ * <ul>
+ * <li>ZCMPTYPE: RICE_1, GZIP_1, GZIP_2, NOCOMPRESS
+ * <li>ZBITPIX: 8, 16, 32, -32, -64
+ * <li>Tiles that span entire rows: ZTILE1 = ZNAXIS1 and ZTILE3 = 1. Any
+ * number of rows (ZTILE2) is supported.
+ * <li>Quantized floating point images: ZQUANTIZ of NO_DITHER,
+ * SUBTRACTIVE_DITHER_1, SUBTRACTIVE_DITHER_2 or NONE (lossless). Quantized null
+ * pixels (ZBLANK) are decoded as NaN.
+ * <li>Tiles stored (as a fallback) in the GZIP_COMPRESSED_DATA or
+ * UNCOMPRESSED_DATA columns.
+ * </ul>
+ * This class is thread safe. The file is accessed via positional reads.
+ *
+ * @author lopeznr1
+ */
+class FitsTileReader
+{
+	// Constants
+	/** Length of the (standard) sequence of dither random values. */
+	private static final int NUM_RANDOM = 10000;
+	/** Quantized value that encodes an exact zero (SUBTRACTIVE_DITHER_2). */
+	private static final int ZERO_VALUE = -2147483646;
+
+	private static final float[] RandomArr = formRandomArr();
+
+	private static final Pattern TFormPattern = Pattern.compile("\\s*(\\d*)([A-Z])(?:([A-Z])(?:\\(\\d*\\))?)?\\s*");
+	private static final Pattern StructKeyPattern = Pattern.compile("XTENSION|BITPIX|NAXIS\\d*|PCOUNT|GCOUNT|TFIELDS"
+			+ "|THEAP|T(TYPE|FORM|UNIT|DIM|SCAL|ZERO|NULL|DISP)\\d+|ZIMAGE|ZCMPTYPE|ZQUANTIZ|ZDITHER0|ZSIMPLE|ZEXTEND"
+			+ "|ZBLOCKED|ZTENSION|ZPCOUNT|ZGCOUNT|ZHECKSUM|ZDATASUM|ZBLANK|ZSCALE|ZZERO|CHECKSUM|DATASUM"
+			+ "|Z(TILE|NAME|VAL)\\d+");
+
+	// Ref vars
+	private final FileChannel refFC;
+
+	// Attributes
+	private final File file;
+	private final FitsHeader imageHeader;
+	private final String compressType;
+	private final int bitPix;
+	private final int numCols;
+	private final int numRows;
+	private final int numPlanes;
+	private final int tileRows;
+	private final int tilesPerPlane;
+	private final int blockSize;
+	private final int bytePix;
+	private final boolean isQuantized;
+	private final String quantizeMethod;
+	private final int ditherSeed;
+	private final double bScale;
+	private final double bZero;
+	private final double keyZScale;
+	private final double keyZZero;
+	private final Long keyZBlank;
+	private final long tableOffset;
+	private final long heapOffset;
+	private final int rowWidth;
+	private final Column dataCol;
+	private final Column gzipDataCol;
+	private final Column rawDataCol;
+	private final Column scaleCol;
+	private final Column zeroCol;
+	private final Column blankCol;
+
+	// State vars
+	private final ThreadLocal<Tile[]> cacheTL;
+	private final AtomicInteger numTilesDecoded;
+
+	/**
+	 * Standard Constructor
+	 *
+	 * @param aFC The {@link FileChannel} of the file. It is not closed by this
+	 * reader.
+	 * @param aTableHeader The {@link FitsHeader} of the (compressed image)
+	 * binary table.
+	 * @param aFile The file associated with the channel.
+	 */
+	FitsTileReader(FileChannel aFC, FitsHeader aTableHeader, File aFile) throws IOException
+	{
+		refFC = aFC;
+		file = aFile;
+		imageHeader = formImageHeader(aTableHeader);
+
+		compressType = aTableHeader.getStringValue("ZCMPTYPE");
+		bitPix = aTableHeader.getIntValue("ZBITPIX", 0);
+		int numAxis = aTableHeader.getIntValue("ZNAXIS", -1);
+		if (numAxis < 1 || numAxis > 3)
+			throw new IOException("Unsupported number of FITS axes: " + numAxis);
+		numCols = aTableHeader.getIntValue("ZNAXIS1", 1);
+		numRows = numAxis >= 2 ? aTableHeader.getIntValue("ZNAXIS2", 1) : 1;
+		numPlanes = numAxis >= 3 ? aTableHeader.getIntValue("ZNAXIS3", 1) : 1;
+
+		// Only tiles that span entire rows (of a single plane) are supported
+		int tileCols = aTableHeader.getIntValue("ZTILE1", numCols);
+		tileRows = Math.max(1, aTableHeader.getIntValue("ZTILE2", 1));
+		int tilePlanes = aTableHeader.getIntValue("ZTILE3", 1);
+		if (tileCols != numCols || tilePlanes != 1)
+			throw new IOException("Unsupported FITS tiling: " + tileCols + " x " + tileRows + " x " + tilePlanes);
+		tilesPerPlane = (numRows + tileRows - 1) / tileRows;
+
+		// Compression parameters
+		Map<String, String> paramM = new HashMap<>();
+		for (int c1 = 1; aTableHeader.hasKey("ZNAME" + c1) == true; c1++)
+			paramM.put(aTableHeader.getStringValue("ZNAME" + c1), aTableHeader.getStringValue("ZVAL" + c1));
+		blockSize = parseInt(paramM.get("BLOCKSIZE"), 32);
+		if (compressType == null)
+			throw new IOException("FITS tile compression type (ZCMPTYPE) is not defined.");
+		switch (compressType)
+		{
+			case "RICE_1":
+			case "GZIP_1":
+			case "GZIP_2":
+			case "NOCOMPRESS":
+				break;
+			default:
+				throw new IOException("Unsupported FITS tile compression: " + compressType);
+		}
+
+		// Table layout
+		Map<String, Column> colM = new HashMap<>();
+		int numFields = aTableHeader.getIntValue("TFIELDS", 0);
+		int tmpOff = 0;
+		for (int c1 = 1; c1 <= numFields; c1++)
+		{
+			Column tmpCol = new Column(aTableHeader.getStringValue("TFORM" + c1), tmpOff);
+			String tmpName = aTableHeader.getStringValue("TTYPE" + c1);
+			if (tmpName != null)
+				colM.put(tmpName.toUpperCase(), tmpCol);
+			tmpOff += tmpCol.size;
+		}
+		dataCol = colM.get("COMPRESSED_DATA");
+		gzipDataCol = colM.get("GZIP_COMPRESSED_DATA");
+		rawDataCol = colM.get("UNCOMPRESSED_DATA");
+		scaleCol = colM.get("ZSCALE");
+		zeroCol = colM.get("ZZERO");
+		blankCol = colM.get("ZBLANK");
+		if (dataCol == null || dataCol.isDescriptor == false)
+			throw new IOException("FITS compressed image does not define the COMPRESSED_DATA column.");
+
+		rowWidth = aTableHeader.getIntValue("NAXIS1", 0);
+		int numTiles = aTableHeader.getIntValue("NAXIS2", 0);
+		if (rowWidth < tmpOff || numTiles != tilesPerPlane * numPlanes)
+			throw new IOException("FITS compressed image table is malformed: " + aFile);
+		tableOffset = aTableHeader.getDataOffset();
+		heapOffset = (long) aTableHeader.getDoubleValue("THEAP", (double) rowWidth * numTiles);
+		long heapSize = (long) aTableHeader.getDoubleValue("PCOUNT", 0);
+		if (tableOffset + heapOffset + heapSize > aFC.size())
+			throw new IOException("FITS data unit is truncated. File: " + aFile);
+
+		// Quantization (floating point images only)
+		keyZScale = aTableHeader.getDoubleValue("ZSCALE", Double.NaN);
+		keyZZero = aTableHeader.getDoubleValue("ZZERO", 0.0);
+		double tmpZBlank = aTableHeader.getDoubleValue("ZBLANK", Double.NaN);
+		keyZBlank = Double.isNaN(tmpZBlank) == false ? Long.valueOf((long) tmpZBlank) : null;
+		isQuantized = bitPix < 0 && (scaleCol != null || Double.isNaN(keyZScale) == false);
+		String tmpMethod = aTableHeader.getStringValue("ZQUANTIZ");
+		quantizeMethod = tmpMethod != null ? tmpMethod : "NO_DITHER";
+		ditherSeed = aTableHeader.getIntValue("ZDITHER0", 1);
+		if (isQuantized == true)
+		{
+			switch (quantizeMethod)
+			{
+				case "NO_DITHER":
+				case "SUBTRACTIVE_DITHER_1":
+				case "SUBTRACTIVE_DITHER_2":
+					break;
+				default:
+					throw new IOException("Unsupported FITS quantization: " + quantizeMethod);
+			}
+		}
+
+		// Quantized values and integer images are stored in the native width
+		int defBytePix = isQuantized == true ? 4 : Math.abs(bitPix) / 8;
+		bytePix = parseInt(paramM.get("BYTEPIX"), defBytePix);
+		switch (bitPix)
+		{
+			case 8:
+			case 16:
+			case 32:
+			case -32:
+			case -64:
+				break;
+			default:
+				throw new IOException("Unsupported ZBITPIX: " + bitPix);
+		}
+
+		bScale = imageHeader.getDoubleValue("BSCALE", 1.0);
+		bZero = imageHeader.getDoubleValue("BZERO", 0.0);
+
+		cacheTL = ThreadLocal.withInitial(() -> new Tile[numPlanes]);
+		numTilesDecoded = new AtomicInteger(0);
+	}
+
+	/**
+	 * Returns the header of the (decompressed) image.
+	 * <p>
+	 * See {@link #formImageHeader(FitsHeader)}.
+	 */
+	FitsHeader getImageHeader()
+	{
+		return imageHeader;
+	}
+
+	/**
+	 * Returns the number of tiles that have been decoded.
+	 */
+	int getNumTilesDecoded()
+	{
+		return numTilesDecoded.get();
+	}
+
+	/**
+	 * Reads the specified row of the specified plane into the provided array
+	 * starting at the specified offset.
+	 * <p>
+	 * The values will be scaled via BSCALE / BZERO (if specified).
+	 */
+	void readRow(int aPlane, int aRow, float[] aDestArr, int aDestOff) throws IOException
+	{
+		int tileIdx = aPlane * tilesPerPlane + aRow / tileRows;
+
+		// Decode the tile (unless it was the last tile of the plane decoded by
+		// this thread). A tile is cached per plane so that rows that are read
+		// across planes (row by row) decode each tile only once.
+		Tile[] cacheArr = cacheTL.get();
+		Tile tmpTile = cacheArr[aPlane];
+		if (tmpTile == null || tmpTile.index != tileIdx)
+		{
+			tmpTile = decodeTile(tileIdx);
+			cacheArr[aPlane] = tmpTile;
+			numTilesDecoded.incrementAndGet();
+		}
+
+		int srcOff = (aRow % tileRows) * numCols;
+		System.arraycopy(tmpTile.valueArr, srcOff, aDestArr, aDestOff, numCols);
+	}
+
+	/**
+	 * Helper method that decodes the specified tile.
+	 */
+	private Tile decodeTile(int aTileIdx) throws IOException
+	{
+		int begRow = (aTileIdx % tilesPerPlane) * tileRows;
+		int numVals = Math.min(tileRows, numRows - begRow) * numCols;
+		ByteBuffer rowBB = readBytes(tableOffset + (long) aTileIdx * rowWidth, rowWidth);
+
+		// Locate the (non empty) column that holds the tile
+		double[] rawArr;
+		boolean isQuantizedTile = false;
+		long[] descArr = dataCol.getDescriptor(rowBB);
+		if (descArr[0] > 0)
+		{
+			byte[] tmpArr = readHeap(descArr, dataCol.elemSize);
+			rawArr = decodeData(tmpArr, numVals, isQuantized == true ? 32 : bitPix);
+			isQuantizedTile = isQuantized;
+		}
+		else if (gzipDataCol != null && (descArr = gzipDataCol.getDescriptor(rowBB))[0] > 0)
+		{
+			byte[] tmpArr = inflate(readHeap(descArr, gzipDataCol.elemSize));
+			rawArr = decodeRaw(ByteBuffer.wrap(tmpArr), numVals, bitPix);
+		}
+		else if (rawDataCol != null && (descArr = rawDataCol.getDescriptor(rowBB))[0] > 0)
+		{
+			byte[] tmpArr = readHeap(descArr, rawDataCol.elemSize);
+			rawArr = decodeRaw(ByteBuffer.wrap(tmpArr), numVals, rawDataCol.getBitPix());
+		}
+		else
+		{
+			throw new IOException("FITS compressed tile is empty. Tile: " + aTileIdx);
+		}
+
+		// Unquantize (and apply BSCALE / BZERO)
+		float[] valueArr = new float[numVals];
+		if (isQuantizedTile == true)
+		{
+			double zScale = scaleCol != null ? scaleCol.getNumber(rowBB) : keyZScale;
+			double zZero = zeroCol != null ? zeroCol.getNumber(rowBB) : keyZZero;
+			Long zBlank = blankCol != null ? Long.valueOf((long) blankCol.getNumber(rowBB)) : keyZBlank;
+			unquantize(rawArr, aTileIdx, zScale, zZero, zBlank, valueArr);
+		}
+		else
+		{
+			for (int c1 = 0; c1 < numVals; c1++)
+				valueArr[c1] = (float) (bZero + bScale * rawArr[c1]);
+		}
+
+		return new Tile(aTileIdx, valueArr);
+	}
+
+	/**
+	 * Helper method that decodes the (compressed) data of a tile into raw
+	 * values.
+	 *
+	 * @param aSrcArr The compressed bytes.
+	 * @param aNumVals The number of values in the tile.
+	 * @param aBitPix The type of the (uncompressed) values.
+	 */
+	private double[] decodeData(byte[] aSrcArr, int aNumVals, int aBitPix) throws IOException
+	{
+		switch (compressType)
+		{
+			case "RICE_1":
+				int[] tmpArr = decodeRice(aSrcArr, aNumVals, blockSize, bytePix);
+				double[] retArr = new double[aNumVals];
+				for (int c1 = 0; c1 < aNumVals; c1++)
+					retArr[c1] = tmpArr[c1];
+				return retArr;
+			case "GZIP_1":
+				return decodeRaw(ByteBuffer.wrap(inflate(aSrcArr)), aNumVals, aBitPix);
+			case "GZIP_2":
+				byte[] shuffleArr = inflate(aSrcArr);
+				return decodeRaw(ByteBuffer.wrap(unshuffle(shuffleArr, Math.abs(aBitPix) / 8)), aNumVals, aBitPix);
+			default:
+				return decodeRaw(ByteBuffer.wrap(aSrcArr), aNumVals, aBitPix);
+		}
+	}
+
+	/**
+	 * Helper method that converts quantized values to floating point values.
+	 */
+	private void unquantize(double[] aRawArr, int aTileIdx, double aZScale, double aZZero, Long aZBlank,
+			float[] aDestArr)
+	{
+		boolean isDither = quantizeMethod.startsWith("SUBTRACTIVE_DITHER") == true;
+		boolean isZeroCoded = quantizeMethod.equals("SUBTRACTIVE_DITHER_2") == true;
+
+		// The dither sequence is seeded by the (1-based) tile number
+		int seedIdx = (int) (((long) aTileIdx + ditherSeed - 1) % NUM_RANDOM);
+		int nextIdx = (int) (RandomArr[seedIdx] * 500);
+		for (int c1 = 0; c1 < aRawArr.length; c1++)
+		{
+			long tmpVal = (long) aRawArr[c1];
+			double tmpFloat;
+			if (aZBlank != null && tmpVal == aZBlank)
+				tmpFloat = Double.NaN;
+			else if (isZeroCoded == true && tmpVal == ZERO_VALUE)
+				tmpFloat = 0.0;
+			else if (isDither == true)
+				tmpFloat = (tmpVal - RandomArr[nextIdx] + 0.5) * aZScale + aZZero;
+			else
+				tmpFloat = tmpVal * aZScale + aZZero;
+			aDestArr[c1] = (float) (bZero + bScale * tmpFloat);
+
+			if (isDither == false)
+				continue;
+
+			nextIdx++;
+			if (nextIdx == NUM_RANDOM)
+			{
+				seedIdx = (seedIdx + 1) % NUM_RANDOM;
+				nextIdx = (int) (RandomArr[seedIdx] * 500);
+			}
+		}
+	}
+
+	/**
+	 * Helper method that reads the heap bytes referenced by the specified
+	 * (count, offset) descriptor.
+	 */
+	private byte[] readHeap(long[] aDescArr, int aElemSize) throws IOException
+	{
+		long tmpSize = aDescArr[0] * aElemSize;
+		if (tmpSize > Integer.MAX_VALUE)
+			throw new IOException("FITS compressed tile is too large: " + tmpSize);
+
+		return readBytes(tableOffset + heapOffset + aDescArr[1], (int) tmpSize).array();
+	}
+
+	/**
+	 * Helper method that reads the specified region of the file.
+	 */
+	private ByteBuffer readBytes(long aPos, int aSize) throws IOException
+	{
+		ByteBuffer retBB = ByteBuffer.allocate(aSize);
+		while (retBB.hasRemaining() == true)
+		{
+			if (refFC.read(retBB, aPos + retBB.position()) < 0)
+				throw new IOException("Premature end of FITS file: " + file);
+		}
+		retBB.flip();
+		return retBB;
+	}
+
+	/**
+	 * Utility method that returns the header of the image described by the
+	 * specified (compressed image) table header.
+	 * <p>
+	 * The structural keywords of the table are dropped and the keywords that
+	 * describe the image (ZBITPIX, ZNAXIS, ZNAXISn) are renamed to their
+	 * original (uncompressed) names. All other keywords are retained in order.
+	 */
+	static FitsHeader formImageHeader(FitsHeader aTableHeader)
+	{
+		List<FitsHeader.Card> structL = new ArrayList<>();
+		List<FitsHeader.Card> otherL = new ArrayList<>();
+		structL.add(new FitsHeader.Card("SIMPLE", "T", null));
+		for (FitsHeader.Card aCard : aTableHeader.getCardList())
+		{
+			String tmpKey = aCard.key;
+			if (tmpKey.equals("ZBITPIX") == true || tmpKey.matches("ZNAXIS\\d*") == true)
+				structL.add(new FitsHeader.Card(tmpKey.substring(1), aCard.value, aCard.comment));
+			else if (StructKeyPattern.matcher(tmpKey).matches() == false)
+				otherL.add(aCard);
+		}
+
+		structL.addAll(otherL);
+		return new FitsHeader(structL, aTableHeader.getDataOffset());
+	}
+
+	/**
+	 * Utility method that returns true if the specified header is that of a
+	 * (tile) compressed image.
+	 */
+	static boolean isCompressedImage(FitsHeader aHeader)
+	{
+		return "BINTABLE".equals(aHeader.getStringValue("XTENSION")) == true
+				&& "T".equals(aHeader.getStringValue("ZIMAGE")) == true;
+	}
+
+	/**
+	 * Utility method that decodes Rice (RICE_1) compressed data.
+	 * <p>
+	 * This is a port of the (CFITSIO) fits_rdecomp family of routines.
+	 *
+	 * @param aSrcArr The compressed bytes.
+	 * @param aNumVals The number of values to decode.
+	 * @param aBlockSize The number of values per coding block.
+	 * @param aBytePix The width of each value: 1, 2, or 4 bytes.
+	 */
+	static int[] decodeRice(byte[] aSrcArr, int aNumVals, int aBlockSize, int aBytePix) throws IOException
+	{
+		int fsBits, fsMax;
+		switch (aBytePix)
+		{
+			case 1:
+				fsBits = 3;
+				fsMax = 6;
+				break;
+			case 2:
+				fsBits = 4;
+				fsMax = 14;
+				break;
+			case 4:
+				fsBits = 5;
+				fsMax = 25;
+				break;
+			default:
+				throw new IOException("Unsupported Rice BYTEPIX: " + aBytePix);
+		}
+		int bBits = aBytePix * 8;
+		long valMask = (1L << bBits) - 1;
+
+		int[] retArr = new int[aNumVals];
+		try
+		{
+			// The first value is stored uncompressed
+			int pos = 0;
+			long lastPix = 0;
+			for (int c1 = 0; c1 < aBytePix; c1++)
+				lastPix = (lastPix << 8) | (aSrcArr[pos++] & 0xFF);
+
+			long b = aSrcArr[pos++] & 0xFF;
+			int nBits = 8;
+			for (int i = 0; i < aNumVals;)
+			{
+				// Retrieve the coding option (fs) of the block
+				nBits -= fsBits;
+				while (nBits < 0)
+				{
+					b = (b << 8) | (aSrcArr[pos++] & 0xFF);
+					nBits += 8;
+				}
+				int fs = (int) (b >>> nBits) - 1;
+				b &= (1L << nBits) - 1;
+
+				int iMax = Math.min(i + aBlockSize, aNumVals);
+				if (fs < 0)
+				{
+					// Low entropy: all differences are zero
+					for (; i < iMax; i++)
+						retArr[i] = toValue(lastPix, aBytePix);
+				}
+				else if (fs == fsMax)
+				{
+					// High entropy: the differences are stored uncoded
+					for (; i < iMax; i++)
+					{
+						int k = bBits - nBits;
+						long diff = b << k;
+						for (k -= 8; k >= 0; k -= 8)
+						{
+							b = aSrcArr[pos++] & 0xFF;
+							diff |= b << k;
+						}
+						if (nBits > 0)
+						{
+							b = aSrcArr[pos++] & 0xFF;
+							diff |= b >>> (-k);
+							b &= (1L << nBits) - 1;
+						}
+						else
+						{
+							b = 0;
+						}
+
+						lastPix = (lastPix + unmapDiff(diff & valMask, valMask)) & valMask;
+						retArr[i] = toValue(lastPix, aBytePix);
+					}
+				}
+				else
+				{
+					// Rice coded: the count of leading zeros followed by fs bits
+					for (; i < iMax; i++)
+					{
+						while (b == 0)
+						{
+							nBits += 8;
+							b = aSrcArr[pos++] & 0xFF;
+						}
+						int nZero = nBits - (64 - Long.numberOfLeadingZeros(b));
+						nBits -= nZero + 1;
+						b ^= 1L << nBits;
+						nBits -= fs;
+						while (nBits < 0)
+						{
+							b = (b << 8) | (aSrcArr[pos++] & 0xFF);
+							nBits += 8;
+						}
+						long diff = ((long) nZero << fs) | (b >>> nBits);
+						b &= (1L << nBits) - 1;
+
+						lastPix = (lastPix + unmapDiff(diff & valMask, valMask)) & valMask;
+						retArr[i] = toValue(lastPix, aBytePix);
+					}
+				}
+			}
+		}
+		catch (ArrayIndexOutOfBoundsException aExp)
+		{
+			throw new IOException("Rice compressed data is truncated.", aExp);
+		}
+
+		return retArr;
+	}
+
+	/**
+	 * Utility helper method that returns the (sign extended) value of the
+	 * specified (unsigned) pixel. Byte values are unsigned.
+	 */
+	private static int toValue(long aPix, int aBytePix)
+	{
+		if (aBytePix == 2)
+			return (short) aPix;
+		return (int) aPix;
+	}
+
+	/**
+	 * Utility helper method that undoes the (zig-zag) mapping of a difference to
+	 * a non-negative value.
+	 */
+	private static long unmapDiff(long aDiff, long aValMask)
+	{
+		if ((aDiff & 1) == 0)
+			return aDiff >>> 1;
+		return ~(aDiff >>> 1) & aValMask;
+	}
+
+	/**
+	 * Utility helper method that decodes raw (big-endian) values.
+	 */
+	private static double[] decodeRaw(ByteBuffer aSrcBB, int aNumVals, int aBitPix) throws IOException
+	{
+		int tmpSize = Math.abs(aBitPix) / 8;
+		if (aSrcBB.remaining() < (long) aNumVals * tmpSize)
+			throw new IOException("FITS compressed tile is truncated.");
+
+		double[] retArr = new double[aNumVals];
+		for (int c1 = 0; c1 < aNumVals; c1++)
+		{
+			switch (aBitPix)
+			{
+				case 8:
+					retArr[c1] = aSrcBB.get(c1) & 0xFF;
+					break;
+				case 16:
+					retArr[c1] = aSrcBB.getShort(c1 * 2);
+					break;
+				case 32:
+					retArr[c1] = aSrcBB.getInt(c1 * 4);
+					break;
+				case -32:
+					retArr[c1] = aSrcBB.getFloat(c1 * 4);
+					break;
+				case -64:
+					retArr[c1] = aSrcBB.getDouble(c1 * 8);
+					break;
+				default:
+					throw new IOException("Unsupported BITPIX: " + aBitPix);
+			}
+		}
+
+		return retArr;
+	}
+
+	/**
+	 * Utility helper method that inflates gzip compressed bytes.
+	 */
+	private static byte[] inflate(byte[] aSrcArr) throws IOException
+	{
+		try (InputStream tmpIS = new GZIPInputStream(new ByteArrayInputStream(aSrcArr)))
+		{
+			return tmpIS.readAllBytes();
+		}
+	}
+
+	/**
+	 * Utility helper method that undoes the byte shuffle of GZIP_2. The shuffled
+	 * bytes hold the most significant byte of every value, followed by the next
+	 * byte of every value, and so forth.
+	 */
+	private static byte[] unshuffle(byte[] aSrcArr, int aWidth)
+	{
+		int numVals = aSrcArr.length / aWidth;
+		byte[] retArr = new byte[aSrcArr.length];
+		for (int c1 = 0; c1 < aWidth; c1++)
+		{
+			int srcOff = c1 * numVals;
+			for (int c2 = 0; c2 < numVals; c2++)
+				retArr[c2 * aWidth + c1] = aSrcArr[srcOff + c2];
+		}
+
+		return retArr;
+	}
+
+	/**
+	 * Utility helper method that parses an integer. Returns aDefault if the
+	 * string is null or not an integer.
+	 */
+	private static int parseInt(String aStr, int aDefault)
+	{
+		if (aStr == null)
+			return aDefault;
+
+		try
+		{
+			return Integer.parseInt(aStr.trim());
+		}
+		catch (NumberFormatException aExp)
+		{
+			return aDefault;
+		}
+	}
+
+	/**
+	 * Utility method that returns the (standard) sequence of random values used
+	 * to dither quantized values. The sequence is that of the FITS tiled image
+	 * compression convention (a Park-Miller generator with a seed of 1).
+	 */
+	static float[] formRandomArr()
+	{
+		double a = 16807.0;
+		double m = 2147483647.0;
+		double seed = 1;
+
+		float[] retArr = new float[NUM_RANDOM];
+		for (int c1 = 0; c1 < NUM_RANDOM; c1++)
+		{
+			double tmpVal = a * seed;
+			seed = tmpVal - m * ((int) (tmpVal / m));
+			retArr[c1] = (float) (seed / m);
+		}
+
+		return retArr;
+	}
+
+	/**
+	 * Class that describes a single column of the (compressed image) table.
+	 */
+	private static class Column
+	{
+		// Attributes
+		final int offset;
+		final int size;
+		final char type;
+		final boolean isDescriptor;
+		final char elemType;
+		final int elemSize;
+
+		/** Standard Constructor */
+		Column(String aTForm, int aOffset) throws IOException
+		{
+			Matcher tmpMatcher = TFormPattern.matcher(aTForm != null ? aTForm : "");
+			if (tmpMatcher.matches() == false)
+				throw new IOException("Unsupported FITS column format: " + aTForm);
+
+			int repeat = tmpMatcher.group(1).isEmpty() == true ? 1 : Integer.parseInt(tmpMatcher.group(1));
+			offset = aOffset;
+			type = tmpMatcher.group(2).charAt(0);
+			isDescriptor = type == 'P' || type == 'Q';
+			elemType = isDescriptor == true && tmpMatcher.group(3) != null ? tmpMatcher.group(3).charAt(0) : type;
+			elemSize = isDescriptor == true ? getTypeSize(elemType) : 0;
+			size = type == 'X' ? (repeat + 7) / 8 : getTypeSize(type) * repeat;
+		}
+
+		/**
+		 * Returns the BITPIX that corresponds to the type of the (descriptor)
+		 * elements.
+		 */
+		int getBitPix() throws IOException
+		{
+			switch (elemType)
+			{
+				case 'B':
+					return 8;
+				case 'I':
+					return 16;
+				case 'J':
+					return 32;
+				case 'E':
+					return -32;
+				case 'D':
+					return -64;
+				default:
+					throw new IOException("Unsupported FITS column type: " + elemType);
+			}
+		}
+
+		/**
+		 * Returns the (count, offset) descriptor of this column.
+		 */
+		long[] getDescriptor(ByteBuffer aRowBB)
+		{
+			if (type == 'Q')
+				return new long[] { aRowBB.getLong(offset), aRowBB.getLong(offset + 8) };
+			return new long[] { aRowBB.getInt(offset) & 0xFFFFFFFFL, aRowBB.getInt(offset + 4) & 0xFFFFFFFFL };
+		}
+
+		/**
+		 * Returns the (scalar) numeric value of this column.
+		 */
+		double getNumber(ByteBuffer aRowBB) throws IOException
+		{
+			switch (type)
+			{
+				case 'B':
+					return aRowBB.get(offset) & 0xFF;
+				case 'I':
+					return aRowBB.getShort(offset);
+				case 'J':
+					return aRowBB.getInt(offset);
+				case 'K':
+					return aRowBB.getLong(offset);
+				case 'E':
+					return aRowBB.getFloat(offset);
+				case 'D':
+					return aRowBB.getDouble(offset);
+				default:
+					throw new IOException("Unsupported FITS column type: " + type);
+			}
+		}
+
+		/**
+		 * Utility helper method that returns the size (in bytes) of a single
+		 * element of the specified type.
+		 */
+		private static int getTypeSize(char aType) throws IOException
+		{
+			switch (aType)
+			{
+				case 'L':
+				case 'B':
+				case 'A':
+					return 1;
+				case 'I':
+					return 2;
+				case 'J':
+				case 'E':
+					return 4;
+				case 'K':
+				case 'D':
+				case 'C':
+				case 'P':
+					return 8;
+				case 'M':
+				case 'Q':
+					return 16;
+				default:
+					throw new IOException("Unsupported FITS column type: " + aType);
+			}
+		}
+	}
+
+	/**
+	 * Class that holds the (decoded) values of a single tile.
+	 */
+	private static class Tile
+	{
+		// Attributes
+		final int index;
+		final float[] valueArr;
+
+		/** Standard Constructor */
+		Tile(int aIndex, float[] aValueArr)
+		{
+			index = aIndex;
+			valueArr = aValueArr;
+		}
+	}
+
+}
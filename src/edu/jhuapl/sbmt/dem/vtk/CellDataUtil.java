@@ -0,0 +1,112 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import java.util.stream.IntStream;
+
+/**
+ * Collection of utility methods for converting per point values to per cell
+ * values.
+ * <p>
+ * The value of a cell is the mean of the values of the cell's points. This is
+ * equivalent to vtkPointDataToCellData but all sets of values (backplanes) are
+ * computed in a single (parallel) pass over the connectivity rather than via a
+ * filter pass (and deep copy) per set of values.
+ *
+ * @author lopeznr1
+ */
+public class CellDataUtil
+{
+	/** Number of cells processed per unit of (parallel) work. */
+	private static final int CELLS_PER_BLOCK = 65536;
+
+	/**
+	 * Utility method that returns the per cell values of a triangle mesh.
+	 *
+	 * @param aConnArr The triangle connectivity: 3 point ids per cell.
+	 * @param aPointValueArr The per point values: aPointValueArr[slot][pointId]
+	 * A slot may be null in which case the corresponding cell slot will be null.
+	 * @return The per cell values: retArr[slot][cellId]
+	 */
+	public static float[][] formTriangleCellValues(long[] aConnArr, float[][] aPointValueArr)
+	{
+		int numCells = aConnArr.length / 3;
+		int numSlots = aPointValueArr.length;
+
+		float[][] retValueArr = new float[numSlots][];
+		for (int aSlot = 0; aSlot < numSlots; aSlot++)
+		{
+			if (aPointValueArr[aSlot] != null)
+				retValueArr[aSlot] = new float[numCells];
+		}
+		int numBlocks = (numCells + CELLS_PER_BLOCK - 1) / CELLS_PER_BLOCK;
+		IntStream.range(0, numBlocks).parallel().forEach(aBlock -> {
+			int begCell = aBlock * CELLS_PER_BLOCK;
+			int endCell = Math.min(begCell + CELLS_PER_BLOCK, numCells);
+			for (int aSlot = 0; aSlot < numSlots; aSlot++)
+			{
+				float[] pointArr = aPointValueArr[aSlot];
+				float[] cellArr = retValueArr[aSlot];
+				if (pointArr == null)
+					continue;
+
+				for (int c = begCell; c < endCell; c++)
+				{
+					int off = c * 3;
+					double sum = pointArr[(int) aConnArr[off + 0]];
+					sum += pointArr[(int) aConnArr[off + 1]];
+					sum += pointArr[(int) aConnArr[off + 2]];
+					cellArr[c] = (float) (sum / 3);
+				}
+			}
+		});
+
+		return retValueArr;
+	}
+
+	/**
+	 * Utility method that returns the per cell values of a polygonal mesh
+	 * defined via the (VTK) legacy cell format: n, id_0, ..., id_n-1, n, ...
+	 *
+	 * @param aLegacyArr The connectivity in the legacy cell format.
+	 * @param aPointValueArr The per point values: aPointValueArr[slot][pointId]
+	 * @return The per cell values: retArr[slot][cellId]
+	 */
+	public static float[][] formLegacyCellValues(long[] aLegacyArr, float[][] aPointValueArr)
+	{
+		// Determine the offset of each cell
+		int tmpCnt = 0;
+		for (int off = 0; off < aLegacyArr.length; off += (int) aLegacyArr[off] + 1)
+			tmpCnt++;
+		int numCells = tmpCnt;
+
+		int[] offsetArr = new int[numCells];
+		int c = 0;
+		for (int off = 0; off < aLegacyArr.length; off += (int) aLegacyArr[off] + 1)
+			offsetArr[c++] = off;
+
+		int numSlots = aPointValueArr.length;
+		float[][] retValueArr = new float[numSlots][numCells];
+		int numBlocks = (numCells + CELLS_PER_BLOCK - 1) / CELLS_PER_BLOCK;
+		IntStream.range(0, numBlocks).parallel().forEach(aBlock -> {
+			int begCell = aBlock * CELLS_PER_BLOCK;
+			int endCell = Math.min(begCell + CELLS_PER_BLOCK, numCells);
+			for (int aSlot = 0; aSlot < numSlots; aSlot++)
+			{
+				float[] pointArr = aPointValueArr[aSlot];
+				float[] cellArr = retValueArr[aSlot];
+				for (int aCell = begCell; aCell < endCell; aCell++)
+				{
+					int off = offsetArr[aCell];
+					int numIds = (int) aLegacyArr[off];
+
+					double sum = 0.0;
+					for (int i = 1; i <= numIds; i++)
+						sum += pointArr[(int) aLegacyArr[off + i]];
+					cellArr[aCell] = numIds > 0 ? (float) (sum / numIds) : 0.0f;
+				}
+			}
+		});
+
+		return retValueArr;
+	}
+
+}
@@ -0,0 +1,278 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import java.io.IOException;
+
+/**
+ * Class that holds the full resolution grid of a DEM in primitive arrays.
+ * <p>
+ * The grid consists of:
+ * <ul>
+ * <li>A per pixel validity bitmask for {@link DataMode#Regular} and for
+ * {@link DataMode#Valid} (which also applies to {@link DataMode#Plain}). Each
+ * row of a bitmask starts on a word boundary.
+ * <li>The points and backplane values associated with {@link DataMode#Regular}.
+ * These points are a superset of the points of every other {@link DataMode}.
+ * </ul>
+ * No triangles are retained. The mesh (points, backplane values, triangles) for
+ * any {@link DataMode} is derived (in memory) from the validity bitmask via
+ * {@link GridMeshUtil#formMesh(DemGrid, DataMode)}.
+ * <p>
+ * The backplane values may be loaded lazily. In that case only the points are
+ * resident up front and the values of a backplane are loaded (via the
+ * {@link BackPlaneLoader}) the first time they are requested through
+ * {@link #getRegularValues(int)}. The slot of a backplane that has not been
+ * loaded is null.
+ * <p>
+ * While this class is immutable - the arrays are not! The arrays should be
+ * handled in a read only manner.
+ *
+ * @author lopeznr1
+ */
+public class DemGrid
+{
+	// Attributes
+	private final int numRows;
+	private final int numCols;
+	private final long[] regularMaskArr;
+	private final long[] validMaskArr;
+	private final int[] rowStartArr;
+	private final float[] xyzArr;
+	private final float[][] valueArr;
+	private final BackPlaneLoader refLoader;
+
+	/**
+	 * Standard Constructor
+	 *
+	 * @param aNumRows The number of rows in the grid.
+	 * @param aNumCols The number of columns in the grid.
+	 * @param aRegularMaskArr The bitmask of pixels valid under
+	 * {@link DataMode#Regular}.
+	 * @param aValidMaskArr The bitmask of pixels valid under
+	 * {@link DataMode#Valid}.
+	 * @param aRowStartArr The index of the first (regular) point of each row.
+	 * Length: aNumRows + 1
+	 * @param aXyzArr The (x,y,z) coordinates of the points associated with
+	 * {@link DataMode#Regular}.
+	 * @param aValueArr The (per slot) values of the backplanes for the points. The
+	 * slot of a backplane that is not resident should be null.
+	 * @param aLoader The {@link BackPlaneLoader} used to load the values of
+	 * backplanes that are not resident. May be null if all values are resident.
+	 */
+	public DemGrid(int aNumRows, int aNumCols, long[] aRegularMaskArr, long[] aValidMaskArr, int[] aRowStartArr,
+			float[] aXyzArr, float[][] aValueArr, BackPlaneLoader aLoader)
+	{
+		numRows = aNumRows;
+		numCols = aNumCols;
+		regularMaskArr = aRegularMaskArr;
+		validMaskArr = aValidMaskArr;
+		rowStartArr = aRowStartArr;
+		xyzArr = aXyzArr;
+		valueArr = aValueArr;
+		refLoader = aLoader;
+	}
+
+	/**
+	 * Simplified Constructor
+	 * <p>
+	 * All backplane values must be resident.
+	 */
+	public DemGrid(int aNumRows, int aNumCols, long[] aRegularMaskArr, long[] aValidMaskArr, int[] aRowStartArr,
+			float[] aXyzArr, float[][] aValueArr)
+	{
+		this(aNumRows, aNumCols, aRegularMaskArr, aValidMaskArr, aRowStartArr, aXyzArr, aValueArr, null);
+	}
+
+	/**
+	 * Returns a {@link DemGrid} that shares the geometry (masks, points) of this
+	 * grid but where no backplane values are resident. The
+	 * values will be loaded (on demand) via the specified
+	 * {@link BackPlaneLoader}.
+	 */
+	public DemGrid cloneWithLoader(BackPlaneLoader aLoader)
+	{
+		float[][] tmpValueArr = new float[valueArr.length][];
+		return new DemGrid(numRows, numCols, regularMaskArr, validMaskArr, rowStartArr, xyzArr, tmpValueArr, aLoader);
+	}
+
+	/**
+	 * Returns the number of columns.
+	 */
+	public int getNumCols()
+	{
+		return numCols;
+	}
+
+	/**
+	 * Returns the number of backplanes.
+	 */
+	public int getNumBackPlanes()
+	{
+		return valueArr.length;
+	}
+
+	/**
+	 * Returns the number of rows.
+	 */
+	public int getNumRows()
+	{
+		return numRows;
+	}
+
+	/**
+	 * Returns the number of (64 bit) words associated with each row of a
+	 * bitmask.
+	 */
+	public int getWordsPerRow()
+	{
+		return getWordsPerRow(numCols);
+	}
+
+	/**
+	 * Returns the validity bitmask associated with the specified
+	 * {@link DataMode}.
+	 */
+	public long[] getMask(DataMode aDataMode)
+	{
+		if (aDataMode == DataMode.Regular)
+			return regularMaskArr;
+
+		return validMaskArr;
+	}
+
+	/**
+	 * Returns the number of points associated with {@link DataMode#Regular}.
+	 */
+	public int getNumPoints()
+	{
+		return rowStartArr[numRows];
+	}
+
+	/**
+	 * Returns the (x,y,z) coordinates of the points associated with
+	 * {@link DataMode#Regular}.
+	 */
+	public float[] getXyzArr()
+	{
+		return xyzArr;
+	}
+
+	/**
+	 * Returns the values of the specified backplane for the points associated
+	 * with {@link DataMode#Regular}.
+	 * <p>
+	 * If the values are not resident then they will be loaded (and retained).
+	 * This may be a lengthy operation.
+	 */
+	public synchronized float[] getRegularValues(int aSlot) throws IOException
+	{
+		float[] retValueArr = readRegularValues(aSlot);
+		valueArr[aSlot] = retValueArr;
+		return retValueArr;
+	}
+
+	/**
+	 * Returns the values of the specified backplane for the points associated
+	 * with {@link DataMode#Regular}.
+	 * <p>
+	 * Unlike {@link #getRegularValues(int)} the values will not be retained if
+	 * they are not already resident.
+	 */
+	public float[] readRegularValues(int aSlot) throws IOException
+	{
+		synchronized (this)
+		{
+			float[] retValueArr = valueArr[aSlot];
+			if (retValueArr != null)
+				return retValueArr;
+		}
+
+		// Bail if there is no mechanism to load the values
+		if (refLoader == null)
+			throw new IOException("Backplane is not available. Slot: " + aSlot);
+
+		float[] retValueArr = refLoader.load(this, aSlot);
+		if (retValueArr.length != getNumPoints())
+			throw new IOException("Backplane size mismatch. Expected: " + getNumPoints() + " Found: "
+					+ retValueArr.length);
+
+		return retValueArr;
+	}
+
+	/**
+	 * Returns the (per slot) values of the backplanes that are resident. The
+	 * slot of a backplane that is not resident will be null.
+	 */
+	public synchronized float[][] getResidentValues()
+	{
+		return valueArr.clone();
+	}
+
+	/**
+	 * Returns true if the values of the specified backplane are resident.
+	 */
+	public synchronized boolean isResident(int aSlot)
+	{
+		return valueArr[aSlot] != null;
+	}
+
+	/**
+	 * Returns the array that holds the index (into the regular points) of the
+	 * first point of each row. The array has a length of {@link #getNumRows()} + 1.
+	 */
+	public int[] getRowStartArr()
+	{
+		return rowStartArr;
+	}
+
+	/**
+	 * Returns the (approximate) amount of heap memory (in bytes) utilized by
+	 * this grid.
+	 */
+	public synchronized long getMemorySize()
+	{
+		long retSize = 0L;
+		retSize += 8L * regularMaskArr.length;
+		if (validMaskArr != regularMaskArr)
+			retSize += 8L * validMaskArr.length;
+		retSize += 4L * rowStartArr.length;
+		retSize += 4L * xyzArr.length;
+		for (float[] aValueArr : valueArr)
+		{
+			if (aValueArr != null)
+				retSize += 4L * aValueArr.length;
+		}
+
+		return retSize;
+	}
+
+	/**
+	 * Returns true if the specified pixel is set in the provided bitmask.
+	 */
+	public boolean isSet(long[] aMaskArr, int aRow, int aCol)
+	{
+		int tmpIdx = aRow * getWordsPerRow() + (aCol >>> 6);
+		return (aMaskArr[tmpIdx] & (1L << aCol)) != 0;
+	}
+
+	/**
+	 * Utility method that returns the number of (64 bit) words needed for a
+	 * bitmask row of the specified number of columns.
+	 */
+	public static int getWordsPerRow(int aNumCols)
+	{
+		return (aNumCols + 63) >>> 6;
+	}
+
+	/**
+	 * Interface that provides the mechanism to load the values of a backplane.
+	 */
+	public interface BackPlaneLoader
+	{
+		/**
+		 * Returns the (scaled) values of the specified backplane for the regular
+		 * points of the provided {@link DemGrid}.
+		 */
+		float[] load(DemGrid aGrid, int aSlot) throws IOException;
+	}
+
+}
@@ -0,0 +1,624 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import edu.jhuapl.sbmt.dem.io.FitsCube;
+import edu.jhuapl.sbmt.dem.vtk.DemGrid.BackPlaneLoader;
+
+/**
+ * Collection of utility methods for persisting a {@link DemGrid} to a binary
+ * (sidecar) cache file that resides next to the source FITS file.
+ * <p>
+ * The {@link DemGrid} is the expensive part of loading a DEM - everything else
+ * (the mesh - including the triangles - of each {@link DataMode}, normals,
+ * boundary, and per cell values)
+ * is derived from it in memory. On later loads the cache file is memory-mapped
+ * and the arrays are transferred in bulk.
+ * <p>
+ * The cache file is only utilized if all of the following match:
+ * <ul>
+ * <li>The version of the cache format.
+ * <li>The size and last modified time of the source file.
+ * <li>The checksum (CRC32C) of the FITS header of the source file.
+ * <li>The backplane scale factors.
+ * <li>The checksum (CRC32C) of the cache payload.
+ * </ul>
+ * The cache file is laid out as a fixed header followed by the payload:
+ * regular mask, valid mask (if distinct), row starts, points, and backplane
+ * values. The triangles are not stored since they are derived from the regular
+ * mask. All values are stored in little endian order.
+ * <p>
+ * Each backplane has its own checksum so that the values of a backplane can be
+ * loaded lazily (on demand) - without reading the values of any other
+ * backplane.
+ *
+ * @author lopeznr1
+ */
+public class DemGridCacheUtil
+{
+	// Constants
+	/** Extension appended to the source file to form the cache file. */
+	public static final String CACHE_EXT = ".demcache";
+
+	private static final byte[] MAGIC_ARR = "SBMTDEMC".getBytes(StandardCharsets.US_ASCII);
+	private static final int VERSION = 3;
+
+	/** Size of the chunks used to transfer the payload. */
+	private static final int CHUNK_SIZE = 1 << 24;
+
+	/**
+	 * Utility method that returns the cache file associated with the specified
+	 * source file.
+	 */
+	public static File getCacheFile(File aSrcFile)
+	{
+		return new File(aSrcFile.getPath() + CACHE_EXT);
+	}
+
+	/**
+	 * Utility method that returns the {@link DemGrid} stored in the cache file
+	 * associated with the specified {@link FitsCube}.
+	 * <p>
+	 * If a fallback {@link BackPlaneLoader} is specified then the backplane
+	 * values are loaded lazily (from the cache file) and the fallback is utilized
+	 * should the values of a backplane (later) be found to be corrupt. Otherwise
+	 * all backplane values are loaded up front.
+	 * <p>
+	 * Returns null if there is no cache file or if the cache file is not valid.
+	 *
+	 * @param aCube The {@link FitsCube} that the grid was formed from.
+	 * @param aScaleArr The scale factor applied to each backplane.
+	 * @param aFallbackLoader The {@link BackPlaneLoader} used when the cached
+	 * values of a backplane are not valid. May be null.
+	 */
+	public static DemGrid loadGrid(FitsCube aCube, float[] aScaleArr, BackPlaneLoader aFallbackLoader)
+			throws IOException
+	{
+		// Bail if there is no cache file
+		File cacheFile = getCacheFile(aCube.getFile());
+		if (cacheFile.isFile() == false)
+			return null;
+
+		try (FileChannel tmpFC = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ))
+		{
+			// Bail if the header does not match
+			CacheHead tmpHead = readHead(tmpFC, aCube, aScaleArr);
+			if (tmpHead == null)
+				return null;
+
+			boolean isValidShared = tmpHead.isValidShared;
+			int numPoints = tmpHead.numPoints;
+			int[] valueCrcArr = tmpHead.valueCrcArr;
+			int headSize = getHeadSize(aScaleArr.length);
+
+			int numRows = aCube.getNumRows();
+			int numCols = aCube.getNumCols();
+			int numMaskWords = numRows * DemGrid.getWordsPerRow(numCols);
+
+			// Transfer the payload
+			PayloadReader tmpReader = new PayloadReader(tmpFC, headSize);
+			long[] regularMaskArr = tmpReader.readLongs(numMaskWords);
+			long[] validMaskArr = regularMaskArr;
+			if (isValidShared == false)
+				validMaskArr = tmpReader.readLongs(numMaskWords);
+			int[] rowStartArr = tmpReader.readInts(numRows + 1);
+			float[] xyzArr = tmpReader.readFloats(numPoints * 3);
+
+			// Bail if the payload is corrupt
+			if (tmpReader.getChecksum() != tmpHead.payloadCrc)
+				return null;
+
+			// Load the backplane values up front (when there is no fallback)
+			long valueOff = tmpHead.valueOff;
+			float[][] valueArr = new float[aScaleArr.length][];
+			for (int i = 0; i < aScaleArr.length && aFallbackLoader == null; i++)
+			{
+				valueArr[i] = readValues(tmpFC, valueOff + 4L * numPoints * i, numPoints, valueCrcArr[i]);
+
+				// Bail if the values are corrupt
+				if (valueArr[i] == null)
+					return null;
+			}
+
+			BackPlaneLoader tmpLoader = null;
+			if (aFallbackLoader != null)
+				tmpLoader = new CacheLoader(cacheFile, valueOff, valueCrcArr, aFallbackLoader);
+
+			return new DemGrid(numRows, numCols, regularMaskArr, validMaskArr, rowStartArr, xyzArr, valueArr, tmpLoader);
+		}
+	}
+
+	/**
+	 * Utility method that returns a {@link BackPlaneLoader} that lazily loads the
+	 * backplane values from the cache file associated with the specified
+	 * {@link FitsCube}.
+	 * <p>
+	 * Only the (fixed) header of the cache file is read. This allows a
+	 * {@link DemGrid} that was just saved to release its backplane values
+	 * without reading the rest of the cache file back in.
+	 * <p>
+	 * Returns null if there is no cache file or if the header of the cache file
+	 * is not valid.
+	 *
+	 * @param aCube The {@link FitsCube} that the grid was formed from.
+	 * @param aScaleArr The scale factor applied to each backplane.
+	 * @param aFallbackLoader The {@link BackPlaneLoader} used when the cached
+	 * values of a backplane are not valid.
+	 */
+	public static BackPlaneLoader formCacheLoader(FitsCube aCube, float[] aScaleArr,
+			BackPlaneLoader aFallbackLoader) throws IOException
+	{
+		// Bail if there is no cache file
+		File cacheFile = getCacheFile(aCube.getFile());
+		if (cacheFile.isFile() == false)
+			return null;
+
+		try (FileChannel tmpFC = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ))
+		{
+			// Bail if the header does not match
+			CacheHead tmpHead = readHead(tmpFC, aCube, aScaleArr);
+			if (tmpHead == null)
+				return null;
+
+			return new CacheLoader(cacheFile, tmpHead.valueOff, tmpHead.valueCrcArr, aFallbackLoader);
+		}
+	}
+
+	/**
+	 * Utility method that saves the {@link DemGrid} to the cache file associated
+	 * with the specified {@link FitsCube}.
+	 * <p>
+	 * The cache file is first written to a (uniquely named) temporary file which
+	 * is then moved into place. Thus a partially written cache file will never
+	 * be utilized and concurrent saves of the same grid will not clobber each
+	 * other.
+	 * <p>
+	 * The values of every backplane are saved. The values of backplanes that are
+	 * not resident are loaded (but not retained) via
+	 * {@link DemGrid#readRegularValues(int)} - thus the grid should be saved
+	 * while its values are still resident to avoid reading the source again.
+	 *
+	 * @param aCube The {@link FitsCube} that the grid was formed from.
+	 * @param aScaleArr The scale factor applied to each backplane.
+	 * @param aGrid The {@link DemGrid} to be saved.
+	 */
+	public static void saveGrid(FitsCube aCube, float[] aScaleArr, DemGrid aGrid) throws IOException
+	{
+		File cacheFile = getCacheFile(aCube.getFile());
+		Path cacheDir = cacheFile.getAbsoluteFile().getParentFile().toPath();
+		Path tmpPath = Files.createTempFile(cacheDir, cacheFile.getName(), ".tmp");
+
+		long[] regularMaskArr = aGrid.getMask(DataMode.Regular);
+		long[] validMaskArr = aGrid.getMask(DataMode.Valid);
+		boolean isValidShared = validMaskArr == regularMaskArr;
+		int headSize = getHeadSize(aScaleArr.length);
+
+		try (FileChannel tmpFC = FileChannel.open(tmpPath, StandardOpenOption.WRITE))
+		{
+			// Write the payload (after the header)
+			PayloadWriter tmpWriter = new PayloadWriter(tmpFC, headSize);
+			tmpWriter.writeLongs(regularMaskArr);
+			if (isValidShared == false)
+				tmpWriter.writeLongs(validMaskArr);
+			tmpWriter.writeInts(aGrid.getRowStartArr());
+			tmpWriter.writeFloats(aGrid.getXyzArr());
+			tmpWriter.flush();
+			int payloadCrc = tmpWriter.getChecksum();
+
+			int[] valueCrcArr = new int[aScaleArr.length];
+			for (int i = 0; i < aScaleArr.length; i++)
+			{
+				tmpWriter.resetChecksum();
+				tmpWriter.writeFloats(aGrid.readRegularValues(i));
+				tmpWriter.flush();
+				valueCrcArr[i] = tmpWriter.getChecksum();
+			}
+
+			// Write the header
+			ByteBuffer headBB = ByteBuffer.allocate(headSize);
+			headBB.order(ByteOrder.LITTLE_ENDIAN);
+			headBB.put(MAGIC_ARR);
+			headBB.putInt(VERSION);
+			headBB.putLong(aCube.getFile().length());
+			headBB.putLong(aCube.getFile().lastModified());
+			headBB.putInt(computeHeaderChecksum(aCube));
+			headBB.putInt(aGrid.getNumRows());
+			headBB.putInt(aGrid.getNumCols());
+			headBB.putInt(aScaleArr.length);
+			for (float aScale : aScaleArr)
+				headBB.putFloat(aScale);
+			headBB.putInt(isValidShared == true ? 1 : 0);
+			headBB.putInt(aGrid.getNumPoints());
+			headBB.putInt(payloadCrc);
+			for (int aValueCrc : valueCrcArr)
+				headBB.putInt(aValueCrc);
+			headBB.flip();
+			while (headBB.hasRemaining() == true)
+				tmpFC.write(headBB, headBB.position());
+			tmpFC.close();
+
+			Files.move(tmpPath, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally
+		{
+			// Remove the temporary file (if it was not moved into place)
+			Files.deleteIfExists(tmpPath);
+		}
+	}
+
+	/**
+	 * Utility helper method that returns the checksum of the (primary) header of
+	 * the specified {@link FitsCube}.
+	 * <p>
+	 * For compressed files the checksum is of the leading (compressed) bytes of
+	 * the file.
+	 */
+	private static int computeHeaderChecksum(FitsCube aCube) throws IOException
+	{
+		try (FileChannel tmpFC = FileChannel.open(aCube.getFile().toPath(), StandardOpenOption.READ))
+		{
+			long tmpSize = Math.min(aCube.getDataOffset(), tmpFC.size());
+			MappedByteBuffer tmpBB = tmpFC.map(FileChannel.MapMode.READ_ONLY, 0, tmpSize);
+
+			CRC32C tmpCRC = new CRC32C();
+			tmpCRC.update(tmpBB);
+			return (int) tmpCRC.getValue();
+		}
+	}
+
+	/**
+	 * Utility helper method that returns the size of the (fixed) header.
+	 */
+	private static int getHeadSize(int aNumBackPlanes)
+	{
+		return MAGIC_ARR.length + 4 + 8 + 8 + 4 + 4 + 4 + 4 + 4 * aNumBackPlanes + 4 + 4 + 4 + 4 * aNumBackPlanes;
+	}
+
+	/**
+	 * Utility helper method that reads the (fixed) header of the cache file and
+	 * verifies that it matches the specified {@link FitsCube} and scale factors.
+	 * The size of the cache file is verified against the header.
+	 * <p>
+	 * Returns null if the header does not match.
+	 */
+	private static CacheHead readHead(FileChannel aFC, FitsCube aCube, float[] aScaleArr) throws IOException
+	{
+		long fileSize = aFC.size();
+		int headSize = getHeadSize(aScaleArr.length);
+
+		// Bail if the cache file is too small to hold the header
+		if (fileSize < headSize)
+			return null;
+
+		ByteBuffer headBB = aFC.map(FileChannel.MapMode.READ_ONLY, 0, headSize);
+		headBB.order(ByteOrder.LITTLE_ENDIAN);
+
+		// Bail if the header does not match
+		byte[] magicArr = new byte[MAGIC_ARR.length];
+		headBB.get(magicArr);
+		if (Arrays.equals(magicArr, MAGIC_ARR) == false)
+			return null;
+		if (headBB.getInt() != VERSION)
+			return null;
+		if (headBB.getLong() != aCube.getFile().length())
+			return null;
+		if (headBB.getLong() != aCube.getFile().lastModified())
+			return null;
+		if (headBB.getInt() != computeHeaderChecksum(aCube))
+			return null;
+		if (headBB.getInt() != aCube.getNumRows() || headBB.getInt() != aCube.getNumCols())
+			return null;
+		if (headBB.getInt() != aScaleArr.length)
+			return null;
+		for (float aScale : aScaleArr)
+		{
+			if (Float.floatToIntBits(headBB.getFloat()) != Float.floatToIntBits(aScale))
+				return null;
+		}
+
+		boolean isValidShared = headBB.getInt() != 0;
+		int numPoints = headBB.getInt();
+		int payloadCrc = headBB.getInt();
+		int[] valueCrcArr = new int[aScaleArr.length];
+		for (int i = 0; i < aScaleArr.length; i++)
+			valueCrcArr[i] = headBB.getInt();
+
+		int numRows = aCube.getNumRows();
+		int numMaskWords = numRows * DemGrid.getWordsPerRow(aCube.getNumCols());
+
+		// Bail if the payload is not of the expected size
+		long payloadSize = 8L * numMaskWords * (isValidShared == true ? 1 : 2);
+		payloadSize += 4L * (numRows + 1);
+		payloadSize += 4L * numPoints * 3;
+		payloadSize += 4L * numPoints * aScaleArr.length;
+		if (headSize + payloadSize != fileSize)
+			return null;
+
+		long valueOff = fileSize - 4L * numPoints * aScaleArr.length;
+		return new CacheHead(isValidShared, numPoints, payloadCrc, valueCrcArr, valueOff);
+	}
+
+	/**
+	 * Utility helper method that reads the values of a single backplane from the
+	 * specified region of the cache file.
+	 * <p>
+	 * Returns null if the checksum of the values does not match.
+	 */
+	private static float[] readValues(FileChannel aFC, long aPos, int aNumPoints, int aValueCrc) throws IOException
+	{
+		PayloadReader tmpReader = new PayloadReader(aFC, aPos);
+		float[] retValueArr = tmpReader.readFloats(aNumPoints);
+		if (tmpReader.getChecksum() != aValueCrc)
+			return null;
+
+		return retValueArr;
+	}
+
+	/**
+	 * Helper class that holds the content of the (fixed) header of a cache file.
+	 */
+	private static class CacheHead
+	{
+		// Attributes
+		final boolean isValidShared;
+		final int numPoints;
+		final int payloadCrc;
+		final int[] valueCrcArr;
+		final long valueOff;
+
+		/** Standard Constructor */
+		CacheHead(boolean aIsValidShared, int aNumPoints, int aPayloadCrc, int[] aValueCrcArr, long aValueOff)
+		{
+			isValidShared = aIsValidShared;
+			numPoints = aNumPoints;
+			payloadCrc = aPayloadCrc;
+			valueCrcArr = aValueCrcArr;
+			valueOff = aValueOff;
+		}
+	}
+
+	/**
+	 * Helper class that lazily loads the values of a backplane from the cache
+	 * file.
+	 * <p>
+	 * The fallback {@link BackPlaneLoader} is utilized if the cache file has
+	 * been modified (since the grid was loaded) or if the cached values are
+	 * corrupt.
+	 */
+	private static class CacheLoader implements BackPlaneLoader
+	{
+		// Ref vars
+		private final File refFile;
+		private final BackPlaneLoader refFallbackLoader;
+
+		// Attributes
+		private final long fileSize;
+		private final long fileTime;
+		private final long valueOff;
+		private final int[] valueCrcArr;
+
+		/** Standard Constructor */
+		CacheLoader(File aFile, long aValueOff, int[] aValueCrcArr, BackPlaneLoader aFallbackLoader)
+		{
+			refFile = aFile;
+			refFallbackLoader = aFallbackLoader;
+
+			fileSize = aFile.length();
+			fileTime = aFile.lastModified();
+			valueOff = aValueOff;
+			valueCrcArr = aValueCrcArr;
+		}
+
+		@Override
+		public float[] load(DemGrid aGrid, int aSlot) throws IOException
+		{
+			// Utilize the fallback if the cache file has been modified
+			if (refFile.length() != fileSize || refFile.lastModified() != fileTime)
+				return refFallbackLoader.load(aGrid, aSlot);
+
+			int numPoints = aGrid.getNumPoints();
+			float[] retValueArr;
+			try (FileChannel tmpFC = FileChannel.open(refFile.toPath(), StandardOpenOption.READ))
+			{
+				long tmpPos = valueOff + 4L * numPoints * aSlot;
+				retValueArr = readValues(tmpFC, tmpPos, numPoints, valueCrcArr[aSlot]);
+			}
+			catch (IOException aExp)
+			{
+				retValueArr = null;
+			}
+
+			// Utilize the fallback if the cached values are corrupt
+			if (retValueArr == null)
+				return refFallbackLoader.load(aGrid, aSlot);
+
+			return retValueArr;
+		}
+	}
+
+	/**
+	 * Helper class that reads primitive arrays (in bulk) from consecutive
+	 * (memory-mapped) regions of a file. A checksum of the content is
+	 * accumulated as it is read.
+	 */
+	private static class PayloadReader
+	{
+		// Ref vars
+		private final FileChannel refFC;
+
+		// State vars
+		private final CRC32C workCRC;
+		private long pos;
+
+		/** Standard Constructor */
+		PayloadReader(FileChannel aFC, long aPos)
+		{
+			refFC = aFC;
+
+			workCRC = new CRC32C();
+			pos = aPos;
+		}
+
+		int getChecksum()
+		{
+			return (int) workCRC.getValue();
+		}
+
+		float[] readFloats(int aNumVals) throws IOException
+		{
+			float[] retArr = new float[aNumVals];
+			int valsPerChunk = CHUNK_SIZE / 4;
+			for (int aOff = 0; aOff < aNumVals; aOff += valsPerChunk)
+			{
+				int numVals = Math.min(valsPerChunk, aNumVals - aOff);
+				nextChunk(4L * numVals).asFloatBuffer().get(retArr, aOff, numVals);
+			}
+			return retArr;
+		}
+
+		int[] readInts(int aNumVals) throws IOException
+		{
+			int[] retArr = new int[aNumVals];
+			int valsPerChunk = CHUNK_SIZE / 4;
+			for (int aOff = 0; aOff < aNumVals; aOff += valsPerChunk)
+			{
+				int numVals = Math.min(valsPerChunk, aNumVals - aOff);
+				nextChunk(4L * numVals).asIntBuffer().get(retArr, aOff, numVals);
+			}
+			return retArr;
+		}
+
+		long[] readLongs(int aNumVals) throws IOException
+		{
+			long[] retArr = new long[aNumVals];
+			int valsPerChunk = CHUNK_SIZE / 8;
+			for (int aOff = 0; aOff < aNumVals; aOff += valsPerChunk)
+			{
+				int numVals = Math.min(valsPerChunk, aNumVals - aOff);
+				nextChunk(8L * numVals).asLongBuffer().get(retArr, aOff, numVals);
+			}
+			return retArr;
+		}
+
+		/**
+		 * Helper method that maps the next chunk and updates the checksum.
+		 */
+		private ByteBuffer nextChunk(long aSize) throws IOException
+		{
+			MappedByteBuffer retBB = refFC.map(FileChannel.MapMode.READ_ONLY, pos, aSize);
+			pos += aSize;
+
+			workCRC.update(retBB);
+			retBB.rewind();
+			retBB.order(ByteOrder.LITTLE_ENDIAN);
+			return retBB;
+		}
+	}
+
+	/**
+	 * Helper class that writes primitive arrays (in bulk) to consecutive regions
+	 * of a file. A checksum of the content is accumulated as it is written.
+	 */
+	private static class PayloadWriter
+	{
+		// Ref vars
+		private final FileChannel refFC;
+
+		// State vars
+		private final CRC32C workCRC;
+		private final ByteBuffer workBB;
+		private long pos;
+
+		/** Standard Constructor */
+		PayloadWriter(FileChannel aFC, long aPos)
+		{
+			refFC = aFC;
+
+			workCRC = new CRC32C();
+			workBB = ByteBuffer.allocateDirect(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			pos = aPos;
+		}
+
+		int getChecksum()
+		{
+			return (int) workCRC.getValue();
+		}
+
+		void resetChecksum()
+		{
+			workCRC.reset();
+		}
+
+		void writeFloats(float[] aValArr) throws IOException
+		{
+			int valsPerChunk = CHUNK_SIZE / 4;
+			for (int aOff = 0; aOff < aValArr.length; aOff += valsPerChunk)
+			{
+				int numVals = Math.min(valsPerChunk, aValArr.length - aOff);
+				ensureSpace(4 * numVals);
+				workBB.asFloatBuffer().put(aValArr, aOff, numVals);
+				workBB.position(workBB.position() + 4 * numVals);
+			}
+		}
+
+		void writeInts(int[] aValArr) throws IOException
+		{
+			int valsPerChunk = CHUNK_SIZE / 4;
+			for (int aOff = 0; aOff < aValArr.length; aOff += valsPerChunk)
+			{
+				int numVals = Math.min(valsPerChunk, aValArr.length - aOff);
+				ensureSpace(4 * numVals);
+				workBB.asIntBuffer().put(aValArr, aOff, numVals);
+				workBB.position(workBB.position() + 4 * numVals);
+			}
+		}
+
+		void writeLongs(long[] aValArr) throws IOException
+		{
+			int valsPerChunk = CHUNK_SIZE / 8;
+			for (int aOff = 0; aOff < aValArr.length; aOff += valsPerChunk)
+			{
+				int numVals = Math.min(valsPerChunk, aValArr.length - aOff);
+				ensureSpace(8 * numVals);
+				workBB.asLongBuffer().put(aValArr, aOff, numVals);
+				workBB.position(workBB.position() + 8 * numVals);
+			}
+		}
+
+		/**
+		 * Helper method that writes the buffered content to the file.
+		 */
+		void flush() throws IOException
+		{
+			workBB.flip();
+			workCRC.update(workBB);
+			workBB.rewind();
+			while (workBB.hasRemaining() == true)
+				pos += refFC.write(workBB, pos);
+			workBB.clear();
+		}
+
+		/**
+		 * Helper method that ensures the buffer has (at least) the specified
+		 * space remaining.
+		 */
+		private void ensureSpace(int aSize) throws IOException
+		{
+			if (workBB.remaining() < aSize)
+				flush();
+		}
+	}
+
+}
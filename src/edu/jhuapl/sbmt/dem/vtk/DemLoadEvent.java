@@ -0,0 +1,167 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event that captures the duration of a single stage of the
+ * DEM load pipeline.
+ * <p>
+ * An event is emitted for each {@link Stage} performed while loading a DEM (via
+ * {@link VtkDemLoadUtil#loadVtkDemPainter}) or deriving the surface of another
+ * {@link DataMode}. Each event carries the source path of the DEM, the size of
+ * the grid, the number of backplanes and the number of bytes processed by the
+ * stage.
+ * <p>
+ * Events are only recorded while a recording that enables
+ * {@value #EVENT_NAME} is active. Otherwise the cost of an event is negligible.
+ *
+ * @author lopeznr1
+ */
+@Name(DemLoadEvent.EVENT_NAME)
+@Label("DEM Load Stage")
+@Category({ "SBMT", "DEM" })
+@Description("Duration of a single stage of the DEM load pipeline")
+@StackTrace(false)
+class DemLoadEvent extends Event
+{
+	// Constants
+	static final String EVENT_NAME = "edu.jhuapl.sbmt.dem.LoadStage";
+
+	@Label("Source")
+	@Description("Path of the DEM source file")
+	String source;
+
+	@Label("Stage")
+	String stage;
+
+	@Label("Rows")
+	int numRows;
+
+	@Label("Columns")
+	int numCols;
+
+	@Label("Backplanes")
+	int numBackPlanes;
+
+	@Label("Bytes")
+	@Description("Number of bytes processed (read or formed) by the stage")
+	@DataAmount
+	long numBytes;
+
+	/** Standard Constructor */
+	DemLoadEvent(File aFile, Stage aStage)
+	{
+		source = aFile != null ? aFile.getPath() : null;
+		stage = aStage.toString();
+	}
+
+	/**
+	 * Utility method that creates and begins the event for the specified stage.
+	 */
+	static DemLoadEvent begin(File aFile, Stage aStage)
+	{
+		DemLoadEvent retEvent = new DemLoadEvent(aFile, aStage);
+		retEvent.begin();
+		return retEvent;
+	}
+
+	/**
+	 * Sets the grid size and number of backplanes from the specified
+	 * {@link DemGrid}. A null grid is ignored.
+	 */
+	void setGrid(DemGrid aGrid)
+	{
+		if (aGrid == null)
+			return;
+
+		numRows = aGrid.getNumRows();
+		numCols = aGrid.getNumCols();
+		numBackPlanes = aGrid.getNumBackPlanes();
+	}
+
+	/**
+	 * Sets the grid size and number of backplanes.
+	 */
+	void setSize(int aNumRows, int aNumCols, int aNumBackPlanes)
+	{
+		numRows = aNumRows;
+		numCols = aNumCols;
+		numBackPlanes = aNumBackPlanes;
+	}
+
+	/**
+	 * Ends and commits this event with the specified number of processed bytes.
+	 */
+	void finish(long aNumBytes)
+	{
+		numBytes = aNumBytes;
+		commit();
+	}
+
+	/**
+	 * Utility method that returns the number of bytes held by the (primitive)
+	 * arrays of the specified {@link MeshStruct}.
+	 */
+	static long getNumBytes(MeshStruct aMS)
+	{
+		if (aMS == null)
+			return 0L;
+
+		long retNumBytes = 4L * aMS.xyzArr.length + 8L * aMS.connArr.length;
+		for (float[] aValueArr : aMS.valueArr)
+		{
+			if (aValueArr != null)
+				retNumBytes += 4L * aValueArr.length;
+		}
+
+		return retNumBytes;
+	}
+
+	/**
+	 * Enum that defines the stages of the DEM load pipeline.
+	 */
+	enum Stage
+	{
+		/** Download of the (remote) source file. */
+		Download,
+
+		/** Parse of the (FITS) header. */
+		Header,
+
+		/** Read of the grid from the (sidecar) cache file. */
+		CacheRead,
+
+		/** Read of the data cube and formation of the grid (validity masks). */
+		CubeRead,
+
+		/** Parse of an OBJ file. */
+		ObjParse,
+
+		/** Compaction of the grid and triangulation of the mesh. */
+		Mesh,
+
+		/** Computation of the point normals. */
+		Normals,
+
+		/** Trace of the exterior boundary. */
+		Boundary,
+
+		/** Conversion to per cell values and transfer of the mesh to VTK. */
+		CellConversion,
+
+		/** Formation of the (reduced resolution) levels of detail. */
+		LevelOfDetail,
+
+		/** Hand off of the loaded state to the AWT thread. */
+		Handoff,
+	}
+
+}
@@ -0,0 +1,184 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import java.util.Arrays;
+
+/**
+ * Collection of utility methods for forming the boundary (exterior) of a DEM
+ * mesh directly from the validity bitmask of its {@link DemGrid}.
+ * <p>
+ * An edge of the mesh is on the boundary if exactly one of its adjacent
+ * triangles exists. Since the triangulation of each quad is fixed (see
+ * {@link GridMeshUtil}), the adjacent triangles of every edge are known:
+ * <ul>
+ * <li>Diagonal edge (m, n-1) - (m-1, n): the upper left and the bottom right
+ * triangle of the quad.
+ * <li>Horizontal edge (m, n-1) - (m, n): the bottom right triangle of the quad
+ * above and the upper left triangle of the quad below.
+ * <li>Vertical edge (m-1, n) - (m, n): the bottom right triangle of the quad to
+ * the left and the upper left triangle of the quad to the right.
+ * </ul>
+ * The boundary (including the boundary of any holes) is thus formed in a
+ * single pass over the rows of the bitmask - no generic (mesh) edge search is
+ * needed.
+ *
+ * @author lopeznr1
+ */
+public class GridBoundaryUtil
+{
+	/**
+	 * Utility method that returns the boundary of the mesh associated with the
+	 * specified {@link DataMode}.
+	 * <p>
+	 * Only the points on the boundary are retained. Each boundary edge is
+	 * returned as a 2 point line cell.
+	 *
+	 * @param aGrid The {@link DemGrid} of the DEM.
+	 * @param aDataMode The {@link DataMode} that the mesh is associated with.
+	 * @param aMS The mesh (as returned by
+	 * {@link GridMeshUtil#formMesh(DemGrid, DataMode)}).
+	 */
+	public static LineStruct formBoundary(DemGrid aGrid, DataMode aDataMode, MeshStruct aMS)
+	{
+		long[] maskArr = aGrid.getMask(aDataMode);
+		int liveSize = aGrid.getNumRows();
+		int liveSize2 = aGrid.getNumCols();
+		int wordsPerRow = aGrid.getWordsPerRow();
+
+		// Point indices of the previous and current row
+		int[] prevIdxArr = new int[liveSize2];
+		int[] currIdxArr = new int[liveSize2];
+
+		// Existence of the upper left (A) and bottom right (B) triangles of the
+		// quads between the previous and current row. The B triangles of the
+		// prior pass are retained to resolve the horizontal edges.
+		boolean[] aTriArr = new boolean[liveSize2];
+		boolean[] bTriArr = new boolean[liveSize2];
+		boolean[] prevBTriArr = new boolean[liveSize2];
+
+		long[] edgeArr = new long[1024];
+		int numEdgeIds = 0;
+
+		int begIdx = 0;
+		for (int m = 0; m < liveSize; m++)
+		{
+			begIdx = formRowIndices(maskArr, m * wordsPerRow, begIdx, currIdxArr);
+			if (m == 0)
+			{
+				int[] tmpIdxArr = prevIdxArr;
+				prevIdxArr = currIdxArr;
+				currIdxArr = tmpIdxArr;
+				continue;
+			}
+
+			// Determine the triangles between the previous and current row
+			for (int n = 1; n < liveSize2; n++)
+			{
+				int i0 = prevIdxArr[n - 1];
+				int i1 = currIdxArr[n - 1];
+				int i2 = prevIdxArr[n];
+				int i3 = currIdxArr[n];
+				aTriArr[n] = i0 >= 0 && i1 >= 0 && i2 >= 0;
+				bTriArr[n] = i2 >= 0 && i1 >= 0 && i3 >= 0;
+			}
+
+			// Ensure there is capacity for the worst case: 3 edges per column
+			int needSize = numEdgeIds + liveSize2 * 3 * 2;
+			if (needSize > edgeArr.length)
+				edgeArr = Arrays.copyOf(edgeArr, Math.max(needSize, edgeArr.length * 2));
+
+			for (int n = 0; n < liveSize2; n++)
+			{
+				// Horizontal edge of the previous row
+				if (n > 0 && prevBTriArr[n] != aTriArr[n])
+				{
+					edgeArr[numEdgeIds++] = prevIdxArr[n - 1];
+					edgeArr[numEdgeIds++] = prevIdxArr[n];
+				}
+
+				// Vertical edge
+				boolean isLeft = n > 0 && bTriArr[n];
+				boolean isRight = n + 1 < liveSize2 && aTriArr[n + 1];
+				if (isLeft != isRight)
+				{
+					edgeArr[numEdgeIds++] = prevIdxArr[n];
+					edgeArr[numEdgeIds++] = currIdxArr[n];
+				}
+
+				// Diagonal edge
+				if (n > 0 && aTriArr[n] != bTriArr[n])
+				{
+					edgeArr[numEdgeIds++] = currIdxArr[n - 1];
+					edgeArr[numEdgeIds++] = prevIdxArr[n];
+				}
+			}
+
+			// Swap the rows
+			int[] tmpIdxArr = prevIdxArr;
+			prevIdxArr = currIdxArr;
+			currIdxArr = tmpIdxArr;
+			boolean[] tmpTriArr = prevBTriArr;
+			prevBTriArr = bTriArr;
+			bTriArr = tmpTriArr;
+		}
+
+		// Horizontal edges of the last row
+		int needSize = numEdgeIds + liveSize2 * 2;
+		if (needSize > edgeArr.length)
+			edgeArr = Arrays.copyOf(edgeArr, needSize);
+		for (int n = 1; n < liveSize2 && liveSize > 1; n++)
+		{
+			if (prevBTriArr[n] == true)
+			{
+				edgeArr[numEdgeIds++] = prevIdxArr[n - 1];
+				edgeArr[numEdgeIds++] = prevIdxArr[n];
+			}
+		}
+
+		// Retain only the points on the boundary (in mesh order)
+		int[] remapArr = new int[aMS.numPoints];
+		Arrays.fill(remapArr, -1);
+		for (int c1 = 0; c1 < numEdgeIds; c1++)
+			remapArr[(int) edgeArr[c1]] = 1;
+
+		int numPoints = 0;
+		for (int c1 = 0; c1 < remapArr.length; c1++)
+		{
+			if (remapArr[c1] > 0)
+				remapArr[c1] = numPoints++;
+		}
+
+		float[] xyzArr = new float[numPoints * 3];
+		for (int c1 = 0; c1 < remapArr.length; c1++)
+		{
+			int tmpIdx = remapArr[c1];
+			if (tmpIdx >= 0)
+				System.arraycopy(aMS.xyzArr, c1 * 3, xyzArr, tmpIdx * 3, 3);
+		}
+
+		long[] connArr = new long[numEdgeIds];
+		for (int c1 = 0; c1 < numEdgeIds; c1++)
+			connArr[c1] = remapArr[(int) edgeArr[c1]];
+
+		return new LineStruct(xyzArr, connArr);
+	}
+
+	/**
+	 * Utility helper method that stores the point index of each column of a row
+	 * (or -1 if the pixel is not set).
+	 * <p>
+	 * Returns the point index following the last point of the row.
+	 */
+	private static int formRowIndices(long[] aMaskArr, int aMaskOff, int aBegIdx, int[] aIdxArr)
+	{
+		int c = aBegIdx;
+		for (int n = 0; n < aIdxArr.length; n++)
+		{
+			aIdxArr[n] = -1;
+			if ((aMaskArr[aMaskOff + (n >>> 6)] & (1L << n)) != 0)
+				aIdxArr[n] = c++;
+		}
+
+		return c;
+	}
+
+}
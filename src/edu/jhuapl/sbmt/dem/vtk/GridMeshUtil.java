@@ -0,0 +1,1060 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import edu.jhuapl.sbmt.dem.io.FitsBandReader;
+import edu.jhuapl.sbmt.dem.io.FitsBandReader.FitsBand;
+import edu.jhuapl.sbmt.dem.io.FitsCube;
+import edu.jhuapl.sbmt.dem.vtk.DemGrid.BackPlaneLoader;
+
+import glum.task.Task;
+import glum.unit.NumberUnit;
+
+/**
+ * Collection of utility methods for forming the (triangle) mesh of a DEM from
+ * the grid of a {@link FitsCube}.
+ * <p>
+ * Points are numbered in row major order (skipping invalid pixels). For each
+ * quad of adjacent pixels up to 2 triangles are formed - a triangle is formed
+ * only if all 3 of its pixels are valid.
+ * <p>
+ * The triangles are wound such that their (geometric) normals are
+ * (dRow x dCol). This matches the orientation that was historically produced
+ * via vtkPolyDataNormals with FlipNormalsOn (which reverses the order of each
+ * cell's points). Point normals with the same orientation are computed
+ * analytically via {@link #formNormals(DemGrid, DataMode, MeshStruct)}.
+ * <p>
+ * The cube is read once to form a {@link DemGrid} which holds the validity
+ * bitmasks (of every {@link DataMode}) and the points of
+ * {@link DataMode#Regular}. The mesh (including the triangles) of any
+ * {@link DataMode} is then derived (in memory) from the {@link DemGrid} via
+ * {@link #formMesh(DemGrid, DataMode)}.
+ * <p>
+ * Two equivalent implementations are provided for forming the {@link DemGrid}:
+ * <ul>
+ * <li>Serial: A single pass that streams the cube in bands of rows.
+ * <li>Parallel: The rows are split into bands which are processed in parallel
+ * (fork/join). Valid pixels are counted per row, a prefix sum yields the global
+ * point ids, and then the points and backplane values are filled in
+ * parallel.
+ * </ul>
+ * Both implementations produce identical output.
+ *
+ * @author lopeznr1
+ */
+public class GridMeshUtil
+{
+	// Constants
+	private static final float INVALID_VALUE = -1.0e38f;
+
+	/** Index of the plane that holds the quality flag (if present). */
+	private static final int QUALITY_PLANE_IDX = 7;
+
+	/** Minimum number of rows before the parallel implementation is utilized. */
+	private static final int MIN_PARALLEL_ROWS = 64;
+
+	/** Interval at which (parallel) progress is polled. */
+	private static final long POLL_INTERVAL_MS = 50;
+
+	/**
+	 * Utility method that forms the {@link DemGrid} of the specified cube.
+	 * <p>
+	 * The parallel implementation will be utilized if there is more than 1
+	 * processor, the cube is sufficiently large, and the cube supports random
+	 * access (see {@link FitsCube#isRandomAccess()}).
+	 * <p>
+	 * Returns the {@link DemGrid} or null if aborted.
+	 *
+	 * @param aTask The {@link Task} used for progress updates / aborting.
+	 * @param aCube The {@link FitsCube} to read from.
+	 * @param aHS The {@link HeaderStruct} that defines the planes of interest.
+	 * @param aScaleArr The scale factor to apply to each backplane.
+	 * @param aLoader The {@link BackPlaneLoader} used to (lazily) load the
+	 * backplane values. If null then the backplane values are retained up front.
+	 */
+	public static DemGrid formGrid(Task aTask, FitsCube aCube, HeaderStruct aHS, float[] aScaleArr,
+			BackPlaneLoader aLoader) throws IOException
+	{
+		int numProcs = Runtime.getRuntime().availableProcessors();
+		if (numProcs > 1 && aCube.getNumRows() >= MIN_PARALLEL_ROWS && aCube.isRandomAccess() == true)
+			return formGridParallel(aTask, aCube, aHS, aScaleArr, aLoader, ForkJoinPool.commonPool());
+
+		return formGridSerial(aTask, aCube, aHS, aScaleArr, aLoader);
+	}
+
+	/**
+	 * Utility method that returns the number of planes that are read when the
+	 * {@link DemGrid} of the specified cube is formed.
+	 * <p>
+	 * Every backplane is read - even when the values are loaded lazily - since
+	 * the backplanes define the valid pixels.
+	 */
+	public static int getNumPlanesRead(FitsCube aCube, HeaderStruct aHS)
+	{
+		return formPlaneArr(aCube, aHS).length;
+	}
+
+	/**
+	 * Utility method that forms the {@link DemGrid} of the specified cube on the
+	 * calling thread.
+	 * <p>
+	 * The cube is streamed (via {@link FitsBandReader}) in a single pass. The
+	 * valid pixels of each band are determined (and counted) first so that the
+	 * points of the band are stored in an exactly sized chunk. Thus no array is
+	 * sized for the worst case (a fully valid grid).
+	 * <p>
+	 * Returns the {@link DemGrid} or null if aborted.
+	 */
+	public static DemGrid formGridSerial(Task aTask, FitsCube aCube, HeaderStruct aHS, float[] aScaleArr,
+			BackPlaneLoader aLoader) throws IOException
+	{
+		int liveSize = aCube.getNumRows();
+		int liveSize2 = aCube.getNumCols();
+		int[] planeArr = formPlaneArr(aCube, aHS);
+		int numBackPlanes = aScaleArr.length;
+		int bpSlot = planeArr.length - numBackPlanes;
+		boolean hasQuality = bpSlot > 3;
+
+		// The Valid mask only differs from the Regular mask if there is a quality
+		// plane
+		int wordsPerRow = DemGrid.getWordsPerRow(liveSize2);
+		long[] regularMaskArr = new long[liveSize * wordsPerRow];
+		long[] validMaskArr = regularMaskArr;
+		if (hasQuality == true)
+			validMaskArr = new long[liveSize * wordsPerRow];
+		int[] rowStartArr = new int[liveSize + 1];
+
+		// The backplane values are only retained if they are not lazily loaded.
+		// The backplanes are still read since they define the valid pixels.
+		int numRetainSlots = aLoader == null ? numBackPlanes : 0;
+
+		// The points (and values) are accumulated in chunks - one per band
+		List<float[]> xyzChunkL = new ArrayList<>();
+		List<float[][]> valueChunkL = new ArrayList<>();
+		float[][] bpBandArr = new float[numBackPlanes][];
+
+		NumberUnit perNU = new NumberUnit("", "", 1.0, "0.00 %");
+		try (FitsBandReader tmpReader = new FitsBandReader(aCube, planeArr))
+		{
+			for (FitsBand aBand = tmpReader.next(); aBand != null; aBand = tmpReader.next())
+			{
+				float[] xBandArr = aBand.getValues(0);
+				float[] yBandArr = aBand.getValues(1);
+				float[] zBandArr = aBand.getValues(2);
+				float[] qBandArr = hasQuality == true ? aBand.getValues(3) : null;
+				for (int i = 0; i < numBackPlanes; i++)
+					bpBandArr[i] = aBand.getValues(bpSlot + i);
+
+				// Determine the valid pixels (and count them per row)
+				int begRow = aBand.getBegRow();
+				int endRow = begRow + aBand.getNumRows();
+				for (int m = begRow; m < endRow; ++m)
+				{
+					// Bail if the task has been aborted
+					if (aTask.isAborted() == true)
+						return null;
+
+					// Update progress
+					double tmpProgress = (m + 0.0) / liveSize;
+					aTask.logRegUpdate("\tProgress: " + perNU.getString(tmpProgress) + "\n");
+					aTask.setProgress(tmpProgress);
+
+					int cnt = 0;
+					int rowOff = (m - begRow) * liveSize2;
+					int maskOff = m * wordsPerRow;
+					for (int n = 0; n < liveSize2; ++n)
+					{
+						int idx = rowOff + n;
+						if (isValidPixel(xBandArr, yBandArr, zBandArr, qBandArr, bpBandArr, idx, DataMode.Regular) == false)
+							continue;
+
+						regularMaskArr[maskOff + (n >>> 6)] |= 1L << n;
+						if (hasQuality == true
+								&& isValidPixel(xBandArr, yBandArr, zBandArr, qBandArr, bpBandArr, idx, DataMode.Valid) == true)
+							validMaskArr[maskOff + (n >>> 6)] |= 1L << n;
+						cnt++;
+					}
+					rowStartArr[m + 1] = rowStartArr[m] + cnt;
+				}
+
+				// Store the points (and values) of the band
+				int numBandPoints = rowStartArr[endRow] - rowStartArr[begRow];
+				float[] xyzChunkArr = new float[numBandPoints * 3];
+				float[][] valueChunkArr = new float[numRetainSlots][numBandPoints];
+				int c = 0;
+				for (int m = begRow; m < endRow; ++m)
+				{
+					int rowOff = (m - begRow) * liveSize2;
+					int maskOff = m * wordsPerRow;
+					for (int n = 0; n < liveSize2; ++n)
+					{
+						if (isSet(regularMaskArr, maskOff, n) == false)
+							continue;
+
+						int idx = rowOff + n;
+						xyzChunkArr[c * 3 + 0] = xBandArr[idx];
+						xyzChunkArr[c * 3 + 1] = yBandArr[idx];
+						xyzChunkArr[c * 3 + 2] = zBandArr[idx];
+						for (int i = 0; i < numRetainSlots; i++)
+							valueChunkArr[i][c] = bpBandArr[i][idx] * aScaleArr[i];
+						c++;
+					}
+				}
+				xyzChunkL.add(xyzChunkArr);
+				valueChunkL.add(valueChunkArr);
+			}
+		}
+
+		// Join the chunks
+		int numPoints = rowStartArr[liveSize];
+		float[] xyzArr = joinChunks(xyzChunkL, numPoints * 3);
+		xyzChunkL.clear();
+		float[][] valueArr = new float[numBackPlanes][];
+		for (int i = 0; i < numRetainSlots; i++)
+		{
+			List<float[]> tmpChunkL = new ArrayList<>();
+			for (float[][] aValueChunkArr : valueChunkL)
+				tmpChunkL.add(aValueChunkArr[i]);
+			valueArr[i] = joinChunks(tmpChunkL, numPoints);
+		}
+		valueChunkL.clear();
+
+		return new DemGrid(liveSize, liveSize2, regularMaskArr, validMaskArr, rowStartArr, xyzArr, valueArr, aLoader);
+	}
+
+	/**
+	 * Utility method that forms the {@link DemGrid} of the specified cube via
+	 * the provided {@link ForkJoinPool}.
+	 * <p>
+	 * The work is performed in 2 (parallel) phases over bands of rows:
+	 * <ul>
+	 * <li>Determine the valid pixels (bitmasks) and count the valid pixels per
+	 * row.
+	 * <li>Fill the points and backplane values.
+	 * </ul>
+	 * A prefix sum of the (per row) counts defines where each row's content is
+	 * stored in the final arrays.
+	 * <p>
+	 * The {@link Task} is only accessed from the calling thread: it is polled for
+	 * aborts while progress (of the worker threads) is reported.
+	 * <p>
+	 * Returns the {@link DemGrid} or null if aborted.
+	 */
+	public static DemGrid formGridParallel(Task aTask, FitsCube aCube, HeaderStruct aHS, float[] aScaleArr,
+			BackPlaneLoader aLoader, ForkJoinPool aPool) throws IOException
+	{
+		int liveSize = aCube.getNumRows();
+		int liveSize2 = aCube.getNumCols();
+		int[] planeArr = formPlaneArr(aCube, aHS);
+		int numBackPlanes = aScaleArr.length;
+		int bpSlot = planeArr.length - numBackPlanes;
+		boolean hasQuality = bpSlot > 3;
+
+		// The backplane values are only retained if they are not lazily loaded.
+		// In that case only the x,y,z planes are needed to fill the points.
+		int numRetainSlots = aLoader == null ? numBackPlanes : 0;
+		int[] fillPlaneArr = planeArr;
+		if (aLoader != null)
+			fillPlaneArr = Arrays.copyOf(planeArr, 3);
+		int[] finFillPlaneArr = fillPlaneArr;
+
+		// Split the rows into bands
+		int bandSize = getBandSize(liveSize, aPool);
+		int numBands = (liveSize + bandSize - 1) / bandSize;
+
+		// Each row of a bitmask starts on a word boundary so that bands never
+		// share words. The Valid mask only differs from the Regular mask if there
+		// is a quality plane.
+		int wordsPerRow = DemGrid.getWordsPerRow(liveSize2);
+		long[] regularMaskArr = new long[liveSize * wordsPerRow];
+		long[] validMaskArr = regularMaskArr;
+		if (hasQuality == true)
+			validMaskArr = new long[liveSize * wordsPerRow];
+		long[] finValidMaskArr = validMaskArr;
+		int[] rowPointArr = new int[liveSize + 1];
+
+		AtomicBoolean isAborted = new AtomicBoolean(false);
+		AtomicLong progressCnt = new AtomicLong(0);
+		long progressTotal = 2L * liveSize;
+
+		// Phase 1: Determine the valid pixels and count them per row
+		runParallel(aTask, aPool, numBands, isAborted, progressCnt, progressTotal, aBand -> {
+			int begRow = aBand * bandSize;
+			int endRow = Math.min(begRow + bandSize, liveSize);
+			float[][] rowArr = new float[planeArr.length][liveSize2];
+			float[][] bpRowArr = new float[numBackPlanes][];
+			for (int m = begRow; m < endRow; m++)
+			{
+				if (isAborted.get() == true)
+					return;
+
+				readRows(aCube, planeArr, m, rowArr);
+				for (int i = 0; i < numBackPlanes; i++)
+					bpRowArr[i] = rowArr[bpSlot + i];
+				float[] qRowArr = hasQuality == true ? rowArr[3] : null;
+
+				int cnt = 0;
+				int maskOff = m * wordsPerRow;
+				for (int n = 0; n < liveSize2; n++)
+				{
+					if (isValidPixel(rowArr[0], rowArr[1], rowArr[2], qRowArr, bpRowArr, n, DataMode.Regular) == false)
+						continue;
+
+					regularMaskArr[maskOff + (n >>> 6)] |= 1L << n;
+					if (hasQuality == true
+							&& isValidPixel(rowArr[0], rowArr[1], rowArr[2], qRowArr, bpRowArr, n, DataMode.Valid) == true)
+						finValidMaskArr[maskOff + (n >>> 6)] |= 1L << n;
+					cnt++;
+				}
+				rowPointArr[m + 1] = cnt;
+
+				progressCnt.incrementAndGet();
+			}
+		});
+
+		// Bail if the task has been aborted
+		if (isAborted.get() == true)
+			return null;
+
+		// Prefix sum: the (global) index of the first point of each row
+		for (int m = 0; m < liveSize; m++)
+			rowPointArr[m + 1] += rowPointArr[m];
+		int numPoints = rowPointArr[liveSize];
+
+		float[] xyzArr = new float[numPoints * 3];
+		float[][] valueArr = new float[numBackPlanes][];
+		for (int i = 0; i < numRetainSlots; i++)
+			valueArr[i] = new float[numPoints];
+
+		// Phase 2: Fill the points and backplane values
+		runParallel(aTask, aPool, numBands, isAborted, progressCnt, progressTotal, aBand -> {
+			int begRow = aBand * bandSize;
+			int endRow = Math.min(begRow + bandSize, liveSize);
+			float[][] rowArr = new float[finFillPlaneArr.length][liveSize2];
+			int[] currIdxArr = new int[liveSize2];
+			for (int m = begRow; m < endRow; m++)
+			{
+				if (isAborted.get() == true)
+					return;
+
+				readRows(aCube, finFillPlaneArr, m, rowArr);
+				formRowIndices(regularMaskArr, m * wordsPerRow, rowPointArr[m], currIdxArr);
+
+				// Fill the points and values
+				for (int n = 0; n < liveSize2; n++)
+				{
+					int c = currIdxArr[n];
+					if (c < 0)
+						continue;
+
+					xyzArr[c * 3 + 0] = rowArr[0][n];
+					xyzArr[c * 3 + 1] = rowArr[1][n];
+					xyzArr[c * 3 + 2] = rowArr[2][n];
+					for (int i = 0; i < numRetainSlots; i++)
+						valueArr[i][c] = rowArr[bpSlot + i][n] * aScaleArr[i];
+				}
+
+				progressCnt.incrementAndGet();
+			}
+		});
+
+		// Bail if the task has been aborted
+		if (isAborted.get() == true)
+			return null;
+
+		return new DemGrid(liveSize, liveSize2, regularMaskArr, validMaskArr, rowPointArr, xyzArr, valueArr, aLoader);
+	}
+
+	/**
+	 * Utility method that returns the mesh associated with the specified
+	 * {@link DataMode}.
+	 * <p>
+	 * The mesh is derived (in memory) from the {@link DemGrid} by filtering the
+	 * regular points via the validity bitmask of the {@link DataMode}. The
+	 * triangles are (re)formed from the validity bitmask on each call. No file
+	 * access is needed. Note the regular points (and values) themselves are
+	 * utilized when the validity bitmask of the {@link DataMode} matches.
+	 * <p>
+	 * Only the values of backplanes that are resident are provided. The slot of
+	 * any other backplane will be null - its values can be retrieved via
+	 * {@link #formMeshValues(DemGrid, DataMode, float[])}.
+	 * <p>
+	 * The derivation is performed (in parallel) via the common
+	 * {@link ForkJoinPool}.
+	 */
+	public static MeshStruct formMesh(DemGrid aGrid, DataMode aDataMode)
+	{
+		float[] regularXyzArr = aGrid.getXyzArr();
+		float[][] regularValueArr = aGrid.getResidentValues();
+		long[] maskArr = aGrid.getMask(aDataMode);
+		long[] regularMaskArr = aGrid.getMask(DataMode.Regular);
+		boolean isRegular = maskArr == regularMaskArr;
+
+		int liveSize = aGrid.getNumRows();
+		int liveSize2 = aGrid.getNumCols();
+		int wordsPerRow = aGrid.getWordsPerRow();
+		int[] rowStartArr = aGrid.getRowStartArr();
+		int numBackPlanes = regularValueArr.length;
+
+		ForkJoinPool tmpPool = ForkJoinPool.commonPool();
+		int bandSize = getBandSize(liveSize, tmpPool);
+		int numBands = (liveSize + bandSize - 1) / bandSize;
+
+		// Count the points and triangles per row
+		int[] rowPointArr = new int[liveSize + 1];
+		int[] rowCellArr = new int[liveSize + 1];
+		runParallel(tmpPool, numBands, aBand -> {
+			int begRow = aBand * bandSize;
+			int endRow = Math.min(begRow + bandSize, liveSize);
+			for (int m = begRow; m < endRow; m++)
+			{
+				int cnt = 0;
+				for (int aWord = 0; aWord < wordsPerRow; aWord++)
+					cnt += Long.bitCount(maskArr[m * wordsPerRow + aWord]);
+				rowPointArr[m + 1] = cnt;
+
+				if (m > 0)
+					rowCellArr[m + 1] = countRowCells(maskArr, wordsPerRow, m, liveSize2);
+			}
+		});
+
+		// Prefix sums: the (global) index of the first point / cell of each row
+		for (int m = 0; m < liveSize; m++)
+		{
+			rowPointArr[m + 1] += rowPointArr[m];
+			rowCellArr[m + 1] += rowCellArr[m];
+		}
+		int numPoints = rowPointArr[liveSize];
+		int numCells = rowCellArr[liveSize];
+
+		// The regular points (and values) are utilized as is if the mask matches
+		long[] connArr = new long[numCells * 3];
+		float[] xyzArr = regularXyzArr;
+		float[][] valueArr = regularValueArr;
+		if (isRegular == false)
+		{
+			xyzArr = new float[numPoints * 3];
+			valueArr = new float[numBackPlanes][];
+			for (int i = 0; i < numBackPlanes; i++)
+			{
+				if (regularValueArr[i] != null)
+					valueArr[i] = new float[numPoints];
+			}
+		}
+		float[] finXyzArr = xyzArr;
+		float[][] finValueArr = valueArr;
+
+		// Fill the points, backplane values, and triangles
+		runParallel(tmpPool, numBands, aBand -> {
+			int begRow = aBand * bandSize;
+			int endRow = Math.min(begRow + bandSize, liveSize);
+			int[] prevIdxArr = new int[liveSize2];
+			int[] currIdxArr = new int[liveSize2];
+
+			// Determine the point indices of the row preceding the band
+			if (begRow > 0)
+				formRowIndices(maskArr, (begRow - 1) * wordsPerRow, rowPointArr[begRow - 1], prevIdxArr);
+
+			for (int m = begRow; m < endRow; m++)
+			{
+				formRowIndices(maskArr, m * wordsPerRow, rowPointArr[m], currIdxArr);
+
+				// Copy the points and values. The mask is a subset of the regular
+				// mask so every point has a corresponding regular point.
+				if (isRegular == false)
+				{
+					int s = rowStartArr[m];
+					for (int n = 0; n < liveSize2; n++)
+					{
+						if (isSet(regularMaskArr, m * wordsPerRow, n) == false)
+							continue;
+
+						int c = currIdxArr[n];
+						if (c >= 0)
+						{
+							System.arraycopy(regularXyzArr, s * 3, finXyzArr, c * 3, 3);
+							for (int i = 0; i < numBackPlanes; i++)
+							{
+								if (finValueArr[i] != null)
+									finValueArr[i][c] = regularValueArr[i][s];
+							}
+						}
+						s++;
+					}
+				}
+
+				// Fill the triangles
+				if (m > 0)
+					fillRowCells(prevIdxArr, currIdxArr, connArr, rowCellArr[m] * 3);
+
+				// Swap the rows
+				int[] tmpIdxArr = prevIdxArr;
+				prevIdxArr = currIdxArr;
+				currIdxArr = tmpIdxArr;
+			}
+		});
+
+		return new MeshStruct(xyzArr, connArr, valueArr);
+	}
+
+	/**
+	 * Utility method that returns the values (of a single backplane) for the
+	 * points of the mesh associated with the specified {@link DataMode}.
+	 * <p>
+	 * The values are filtered (in parallel) from the values of the regular points
+	 * via the validity bitmask of the {@link DataMode}.
+	 *
+	 * @param aGrid The {@link DemGrid} of the DEM.
+	 * @param aDataMode The {@link DataMode} that the mesh is associated with.
+	 * @param aRegularValueArr The values for the regular points.
+	 */
+	public static float[] formMeshValues(DemGrid aGrid, DataMode aDataMode, float[] aRegularValueArr)
+	{
+		long[] maskArr = aGrid.getMask(aDataMode);
+		long[] regularMaskArr = aGrid.getMask(DataMode.Regular);
+		if (maskArr == regularMaskArr)
+			return aRegularValueArr;
+
+		int liveSize = aGrid.getNumRows();
+		int liveSize2 = aGrid.getNumCols();
+		int wordsPerRow = aGrid.getWordsPerRow();
+		int[] rowStartArr = aGrid.getRowStartArr();
+
+		// Determine the index of the first (mesh) point of each row
+		int[] rowPointArr = new int[liveSize + 1];
+		for (int m = 0; m < liveSize; m++)
+		{
+			int cnt = 0;
+			for (int aWord = 0; aWord < wordsPerRow; aWord++)
+				cnt += Long.bitCount(maskArr[m * wordsPerRow + aWord]);
+			rowPointArr[m + 1] = rowPointArr[m] + cnt;
+		}
+
+		float[] retValueArr = new float[rowPointArr[liveSize]];
+
+		ForkJoinPool tmpPool = ForkJoinPool.commonPool();
+		int bandSize = getBandSize(liveSize, tmpPool);
+		int numBands = (liveSize + bandSize - 1) / bandSize;
+		runParallel(tmpPool, numBands, aBand -> {
+			int begRow = aBand * bandSize;
+			int endRow = Math.min(begRow + bandSize, liveSize);
+			for (int m = begRow; m < endRow; m++)
+			{
+				int maskOff = m * wordsPerRow;
+				int s = rowStartArr[m];
+				int c = rowPointArr[m];
+				for (int n = 0; n < liveSize2; n++)
+				{
+					if (isSet(regularMaskArr, maskOff, n) == false)
+						continue;
+
+					if (isSet(maskArr, maskOff, n) == true)
+						retValueArr[c++] = aRegularValueArr[s];
+					s++;
+				}
+			}
+		});
+
+		return retValueArr;
+	}
+
+	/**
+	 * Utility method that reads the values of a single backplane (plane) for the
+	 * regular points of the specified {@link DemGrid}.
+	 * <p>
+	 * Only the specified plane is read. The rows are read (in parallel) via the
+	 * common {@link ForkJoinPool} - or sequentially if the cube does not support
+	 * random access.
+	 *
+	 * @param aCube The {@link FitsCube} that the grid was formed from.
+	 * @param aGrid The {@link DemGrid} of the DEM.
+	 * @param aPlane The index of the plane to read.
+	 * @param aScale The scale factor to apply to the values.
+	 */
+	public static float[] formRegularValues(FitsCube aCube, DemGrid aGrid, int aPlane, float aScale)
+			throws IOException
+	{
+		long[] regularMaskArr = aGrid.getMask(DataMode.Regular);
+		int[] rowStartArr = aGrid.getRowStartArr();
+		int liveSize = aGrid.getNumRows();
+		int liveSize2 = aGrid.getNumCols();
+		int wordsPerRow = aGrid.getWordsPerRow();
+
+		float[] retValueArr = new float[rowStartArr[liveSize]];
+
+		ForkJoinPool tmpPool = ForkJoinPool.commonPool();
+		int tmpBandSize = getBandSize(liveSize, tmpPool);
+		if (aCube.isRandomAccess() == false)
+			tmpBandSize = Math.max(1, liveSize);
+		int bandSize = tmpBandSize;
+		int numBands = (liveSize + bandSize - 1) / bandSize;
+		int[] planeArr = { aPlane };
+		try
+		{
+			runParallel(tmpPool, numBands, aBand -> {
+				int begRow = aBand * bandSize;
+				int endRow = Math.min(begRow + bandSize, liveSize);
+				float[][] rowArr = new float[1][liveSize2];
+				for (int m = begRow; m < endRow; m++)
+				{
+					readRows(aCube, planeArr, m, rowArr);
+
+					int maskOff = m * wordsPerRow;
+					int c = rowStartArr[m];
+					for (int n = 0; n < liveSize2; n++)
+					{
+						if (isSet(regularMaskArr, maskOff, n) == true)
+							retValueArr[c++] = rowArr[0][n] * aScale;
+					}
+				}
+			});
+		}
+		catch (UncheckedIOException aExp)
+		{
+			throw aExp.getCause();
+		}
+
+		return retValueArr;
+	}
+
+	/**
+	 * Utility method that returns the (point) normals of the mesh associated with
+	 * the specified {@link DataMode}.
+	 * <p>
+	 * The normals are computed analytically from the grid: the normal of a pixel
+	 * is the normalized cross product (dRow x dCol) of the central differences of
+	 * the neighboring pixels. If a neighbor is not valid (under the
+	 * {@link DataMode}) then a one sided difference is utilized. A pixel with no
+	 * valid neighbors along either axis will have a zero normal.
+	 * <p>
+	 * The computation is performed (in parallel) via the common
+	 * {@link ForkJoinPool}.
+	 *
+	 * @param aGrid The {@link DemGrid} of the DEM.
+	 * @param aDataMode The {@link DataMode} that the mesh is associated with.
+	 * @param aMS The mesh (as returned by {@link #formMesh(DemGrid, DataMode)}).
+	 * @return The normals: 3 components per point.
+	 */
+	public static float[] formNormals(DemGrid aGrid, DataMode aDataMode, MeshStruct aMS)
+	{
+		long[] maskArr = aGrid.getMask(aDataMode);
+		long[] regularMaskArr = aGrid.getMask(DataMode.Regular);
+		float[] xyzArr = aGrid.getXyzArr();
+		int[] rowStartArr = aGrid.getRowStartArr();
+
+		int liveSize = aGrid.getNumRows();
+		int liveSize2 = aGrid.getNumCols();
+		int wordsPerRow = aGrid.getWordsPerRow();
+
+		// Determine the index of the first (mesh) point of each row
+		int[] rowPointArr = new int[liveSize + 1];
+		for (int m = 0; m < liveSize; m++)
+		{
+			int cnt = 0;
+			for (int aWord = 0; aWord < wordsPerRow; aWord++)
+				cnt += Long.bitCount(maskArr[m * wordsPerRow + aWord]);
+			rowPointArr[m + 1] = rowPointArr[m] + cnt;
+		}
+
+		float[] retNormalArr = new float[aMS.numPoints * 3];
+
+		ForkJoinPool tmpPool = ForkJoinPool.commonPool();
+		int bandSize = getBandSize(liveSize, tmpPool);
+		int numBands = (liveSize + bandSize - 1) / bandSize;
+		runParallel(tmpPool, numBands, aBand -> {
+			int begRow = aBand * bandSize;
+			int endRow = Math.min(begRow + bandSize, liveSize);
+
+			// Regular (grid) indices of the previous, current, and next row. A pixel
+			// that is not valid under the DataMode is marked as -1.
+			int[] prevIdxArr = new int[liveSize2];
+			int[] currIdxArr = new int[liveSize2];
+			int[] nextIdxArr = new int[liveSize2];
+			formGridIndices(regularMaskArr, maskArr, wordsPerRow, rowStartArr, begRow - 1, liveSize, prevIdxArr);
+			formGridIndices(regularMaskArr, maskArr, wordsPerRow, rowStartArr, begRow, liveSize, currIdxArr);
+
+			double[] dRowArr = new double[3];
+			double[] dColArr = new double[3];
+			for (int m = begRow; m < endRow; m++)
+			{
+				formGridIndices(regularMaskArr, maskArr, wordsPerRow, rowStartArr, m + 1, liveSize, nextIdxArr);
+
+				int c = rowPointArr[m];
+				for (int n = 0; n < liveSize2; n++)
+				{
+					int s = currIdxArr[n];
+					if (s < 0)
+						continue;
+
+					// Differences along the row (m) and column (n) axis
+					int sL = n > 0 ? currIdxArr[n - 1] : -1;
+					int sR = n + 1 < liveSize2 ? currIdxArr[n + 1] : -1;
+					formDifference(xyzArr, prevIdxArr[n], s, nextIdxArr[n], dRowArr);
+					formDifference(xyzArr, sL, s, sR, dColArr);
+
+					double nX = dRowArr[1] * dColArr[2] - dRowArr[2] * dColArr[1];
+					double nY = dRowArr[2] * dColArr[0] - dRowArr[0] * dColArr[2];
+					double nZ = dRowArr[0] * dColArr[1] - dRowArr[1] * dColArr[0];
+					double norm = Math.sqrt(nX * nX + nY * nY + nZ * nZ);
+					if (norm > 0)
+					{
+						retNormalArr[c * 3 + 0] = (float) (nX / norm);
+						retNormalArr[c * 3 + 1] = (float) (nY / norm);
+						retNormalArr[c * 3 + 2] = (float) (nZ / norm);
+					}
+					c++;
+				}
+
+				// Shift the rows
+				int[] tmpIdxArr = prevIdxArr;
+				prevIdxArr = currIdxArr;
+				currIdxArr = nextIdxArr;
+				nextIdxArr = tmpIdxArr;
+			}
+		});
+
+		return retNormalArr;
+	}
+
+	/**
+	 * Utility method that returns true if the specified pixel is valid.
+	 * <p>
+	 * A pixel is valid if the x, y, z values and all backplane values do not
+	 * equal {@literal INVALID_VALUE} and are not NaN. Note NaN is the FITS null
+	 * value of floating point images - quantized null (ZBLANK) pixels are
+	 * decoded as NaN. If a quality plane is present then the pixel must also
+	 * have a non-zero quality flag unless the {@link DataMode} is
+	 * {@link DataMode#Regular} - in which case the x, y, z values and quality
+	 * flag are not considered.
+	 *
+	 * @param aQArr The quality values. Should be null if there is no quality
+	 * plane.
+	 */
+	public static boolean isValidPixel(float[] aXArr, float[] aYArr, float[] aZArr, float[] aQArr,
+			float[][] aBpArr, int aIdx, DataMode aDataMode)
+	{
+		// A pixel value of -1.0e38 (or NaN) means that pixel is invalid and should
+		// be skipped
+		boolean valid = isValidValue(aXArr[aIdx]) && isValidValue(aYArr[aIdx]) && isValidValue(aZArr[aIdx]);
+		if (aQArr != null)
+			valid = aDataMode == DataMode.Regular || (valid && (aQArr[aIdx] != 0));
+
+		// Check to see if data for all backplanes are also valid
+		for (float[] aValueArr : aBpArr)
+			valid = (valid && isValidValue(aValueArr[aIdx]));
+
+		return valid;
+	}
+
+	/**
+	 * Utility helper method that returns true if the provided value is valid:
+	 * it does not equal {@literal INVALID_VALUE} and is not NaN.
+	 */
+	private static boolean isValidValue(float aVal)
+	{
+		return aVal != INVALID_VALUE && Float.isNaN(aVal) == false;
+	}
+
+	/**
+	 * Utility helper method that adds the triangles between 2 adjacent rows.
+	 * <p>
+	 * Each array holds the point index of the corresponding column (or -1 if the
+	 * point is not valid). A triangle is only added if all 3 of its points are
+	 * valid.
+	 */
+	static void addRowTriangles(int[] aPrevIdxArr, int[] aCurrIdxArr, MeshBuilder aMeshBuilder)
+	{
+		int i0, i1, i2, i3;
+		for (int n = 1; n < aCurrIdxArr.length; ++n)
+		{
+			// Get the indices of the 4 corners of the rectangle to the upper left
+			i0 = aPrevIdxArr[n - 1];
+			i1 = aCurrIdxArr[n - 1];
+			i2 = aPrevIdxArr[n];
+			i3 = aCurrIdxArr[n];
+
+			// Add upper left triangle
+			if (i0 >= 0 && i1 >= 0 && i2 >= 0)
+				aMeshBuilder.addTriangle(i1, i2, i0);
+			// Add bottom right triangle
+			if (i2 >= 0 && i1 >= 0 && i3 >= 0)
+				aMeshBuilder.addTriangle(i1, i3, i2);
+		}
+	}
+
+	/**
+	 * Utility helper method that returns the number of triangles between row m-1
+	 * and row m.
+	 */
+	private static int countRowCells(long[] aMaskArr, int aWordsPerRow, int aRow, int aNumCols)
+	{
+		int prevOff = (aRow - 1) * aWordsPerRow;
+		int currOff = aRow * aWordsPerRow;
+
+		int retCnt = 0;
+		for (int n = 1; n < aNumCols; n++)
+		{
+			boolean v0 = isSet(aMaskArr, prevOff, n - 1);
+			boolean v1 = isSet(aMaskArr, currOff, n - 1);
+			boolean v2 = isSet(aMaskArr, prevOff, n);
+			boolean v3 = isSet(aMaskArr, currOff, n);
+			if (v0 == true && v1 == true && v2 == true)
+				retCnt++;
+			if (v2 == true && v1 == true && v3 == true)
+				retCnt++;
+		}
+
+		return retCnt;
+	}
+
+	/**
+	 * Utility helper method that stores the triangles between 2 adjacent rows
+	 * into the connectivity array (starting at the specified offset).
+	 * <p>
+	 * The triangles are identical (and in the same order) as those added via
+	 * {@link #addRowTriangles(int[], int[], MeshBuilder)}.
+	 */
+	private static void fillRowCells(int[] aPrevIdxArr, int[] aCurrIdxArr, long[] aConnArr, int aOff)
+	{
+		int off = aOff;
+		int i0, i1, i2, i3;
+		for (int n = 1; n < aCurrIdxArr.length; ++n)
+		{
+			i0 = aPrevIdxArr[n - 1];
+			i1 = aCurrIdxArr[n - 1];
+			i2 = aPrevIdxArr[n];
+			i3 = aCurrIdxArr[n];
+
+			if (i0 >= 0 && i1 >= 0 && i2 >= 0)
+			{
+				aConnArr[off++] = i1;
+				aConnArr[off++] = i2;
+				aConnArr[off++] = i0;
+			}
+			if (i2 >= 0 && i1 >= 0 && i3 >= 0)
+			{
+				aConnArr[off++] = i1;
+				aConnArr[off++] = i3;
+				aConnArr[off++] = i2;
+			}
+		}
+	}
+
+	/**
+	 * Utility helper method that computes the (central or one sided) difference
+	 * about the center point. The indices refer to points in the provided array.
+	 * An index of -1 denotes an invalid neighbor. The difference will be zero if
+	 * both neighbors are invalid.
+	 */
+	private static void formDifference(float[] aXyzArr, int aPrevIdx, int aCurrIdx, int aNextIdx, double[] aDiffArr)
+	{
+		int begIdx = aPrevIdx >= 0 ? aPrevIdx : aCurrIdx;
+		int endIdx = aNextIdx >= 0 ? aNextIdx : aCurrIdx;
+		for (int i = 0; i < 3; i++)
+			aDiffArr[i] = aXyzArr[endIdx * 3 + i] - aXyzArr[begIdx * 3 + i];
+	}
+
+	/**
+	 * Utility helper method that stores the regular (grid) index of each pixel of
+	 * the specified row. Pixels that are not set in the provided mask (or rows
+	 * that are out of bounds) are stored as -1.
+	 */
+	static void formGridIndices(long[] aRegularMaskArr, long[] aMaskArr, int aWordsPerRow, int[] aRowStartArr,
+			int aRow, int aNumRows, int[] aIdxArr)
+	{
+		// Bail if the row is out of bounds
+		if (aRow < 0 || aRow >= aNumRows)
+		{
+			Arrays.fill(aIdxArr, -1);
+			return;
+		}
+
+		int maskOff = aRow * aWordsPerRow;
+		int s = aRowStartArr[aRow];
+		for (int n = 0; n < aIdxArr.length; n++)
+		{
+			aIdxArr[n] = -1;
+			if (isSet(aRegularMaskArr, maskOff, n) == false)
+				continue;
+
+			if (isSet(aMaskArr, maskOff, n) == true)
+				aIdxArr[n] = s;
+			s++;
+		}
+	}
+
+	/**
+	 * Utility helper method that returns the number of rows in a band. Multiple
+	 * bands per worker allow for load balancing since invalid regions are
+	 * cheaper to process.
+	 */
+	private static int getBandSize(int aNumRows, ForkJoinPool aPool)
+	{
+		int numBands = 4 * aPool.getParallelism();
+		return Math.max(1, (aNumRows + numBands - 1) / numBands);
+	}
+
+	/**
+	 * Utility helper method that returns the planes of interest: x, y, z,
+	 * (quality), backplanes...
+	 */
+	private static int[] formPlaneArr(FitsCube aCube, HeaderStruct aHS)
+	{
+		boolean hasQuality = aCube.getNumPlanes() > 6;
+		int bpSlot = hasQuality == true ? 4 : 3;
+		int numBackPlanes = aHS.backPlaneIndexL.size();
+
+		int[] retPlaneArr = new int[bpSlot + numBackPlanes];
+		retPlaneArr[0] = aHS.xIdx;
+		retPlaneArr[1] = aHS.yIdx;
+		retPlaneArr[2] = aHS.zIdx;
+		if (hasQuality == true)
+			retPlaneArr[3] = QUALITY_PLANE_IDX;
+		for (int i = 0; i < numBackPlanes; i++)
+			retPlaneArr[bpSlot + i] = aHS.backPlaneIndexL.get(i);
+
+		return retPlaneArr;
+	}
+
+	/**
+	 * Utility helper method that stores the point index of each pixel (or -1 if
+	 * not valid) of a row.
+	 */
+	private static void formRowIndices(long[] aMaskArr, int aMaskOff, int aBegIdx, int[] aIdxArr)
+	{
+		int c = aBegIdx;
+		for (int n = 0; n < aIdxArr.length; n++)
+		{
+			if (isSet(aMaskArr, aMaskOff, n) == true)
+				aIdxArr[n] = c++;
+			else
+				aIdxArr[n] = -1;
+		}
+	}
+
+	/**
+	 * Utility helper method that joins the specified chunks into a single array
+	 * of the specified length. A single (exactly sized) chunk is returned as is.
+	 */
+	private static float[] joinChunks(List<float[]> aChunkL, int aLen)
+	{
+		if (aChunkL.size() == 1 && aChunkL.get(0).length == aLen)
+			return aChunkL.get(0);
+
+		float[] retArr = new float[aLen];
+		int off = 0;
+		for (float[] aChunkArr : aChunkL)
+		{
+			System.arraycopy(aChunkArr, 0, retArr, off, aChunkArr.length);
+			off += aChunkArr.length;
+		}
+
+		return retArr;
+	}
+
+	/**
+	 * Utility helper method that returns true if the specified bit is set.
+	 */
+	private static boolean isSet(long[] aMaskArr, int aMaskOff, int aBit)
+	{
+		return (aMaskArr[aMaskOff + (aBit >>> 6)] & (1L << aBit)) != 0;
+	}
+
+	/**
+	 * Utility helper method that reads the specified row of each plane.
+	 */
+	private static void readRows(FitsCube aCube, int[] aPlaneArr, int aRow, float[][] aRowArr)
+	{
+		try
+		{
+			for (int aSlot = 0; aSlot < aPlaneArr.length; aSlot++)
+				aCube.readRow(aPlaneArr[aSlot], aRow, aRowArr[aSlot]);
+		}
+		catch (IOException aExp)
+		{
+			throw new UncheckedIOException(aExp);
+		}
+	}
+
+	/**
+	 * Utility helper method that executes the specified work (once per band) via
+	 * the provided {@link ForkJoinPool} and waits for completion.
+	 */
+	private static void runParallel(ForkJoinPool aPool, int aNumBands, BandWork aWork)
+	{
+		aPool.submit(() -> IntStream.range(0, aNumBands).parallel().forEach(aWork::process)).join();
+	}
+
+	/**
+	 * Utility helper method that executes the specified work (once per band) via
+	 * the provided {@link ForkJoinPool}.
+	 * <p>
+	 * The calling thread waits for completion while it reports progress and
+	 * polls the {@link Task} for aborts. On abort the flag aIsAborted is set
+	 * which the workers are expected to honor.
+	 */
+	static void runParallel(Task aTask, ForkJoinPool aPool, int aNumBands, AtomicBoolean aIsAborted,
+			AtomicLong aProgressCnt, long aProgressTotal, BandWork aWork) throws IOException
+	{
+		// Bail if the task has been aborted
+		if (aIsAborted.get() == true)
+			return;
+
+		NumberUnit perNU = new NumberUnit("", "", 1.0, "0.00 %");
+		ForkJoinTask<?> tmpFJT = aPool.submit(() -> IntStream.range(0, aNumBands).parallel().forEach(aWork::process));
+		while (true)
+		{
+			if (aTask.isAborted() == true)
+				aIsAborted.set(true);
+
+			double tmpProgress = aProgressCnt.get() / (double) aProgressTotal;
+			aTask.logRegUpdate("\tProgress: " + perNU.getString(tmpProgress) + "\n");
+			aTask.setProgress(tmpProgress);
+
+			try
+			{
+				tmpFJT.get(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+				return;
+			}
+			catch (TimeoutException aExp)
+			{
+				; // Nothing to do
+			}
+			catch (InterruptedException aExp)
+			{
+				aIsAborted.set(true);
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while forming mesh.", aExp);
+			}
+			catch (ExecutionException aExp)
+			{
+				Throwable tmpCause = aExp.getCause();
+				if (tmpCause instanceof UncheckedIOException)
+					throw ((UncheckedIOException) tmpCause).getCause();
+				throw new IOException("Failed to form mesh.", tmpCause);
+			}
+		}
+	}
+
+	/**
+	 * Interface that defines the work associated with a single band (of rows or
+	 * other unit of work).
+	 */
+	interface BandWork
+	{
+		void process(int aBand);
+	}
+
+}
@@ -0,0 +1,261 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import java.util.stream.IntStream;
+
+/**
+ * Collection of utility methods for forming reduced resolution (level of
+ * detail) meshes of a DEM directly from its {@link DemGrid}.
+ * <p>
+ * A level with a stride of s is formed by subsampling every s-th row and
+ * column of the grid. The last row and column are always sampled so that the
+ * extent of the DEM is retained. The coarse pixels are triangulated in the same
+ * manner as the full resolution grid (see {@link GridMeshUtil}).
+ * <p>
+ * The backplane value of a coarse pixel is min/max aware: of the (valid)
+ * pixels in the s x s block that the coarse pixel represents, the extreme
+ * (minimum or maximum) that is furthest from the block's mean is utilized. This
+ * keeps peaks and pits visible at reduced resolution rather than averaging
+ * them away.
+ *
+ * @author lopeznr1
+ */
+public class GridPyramidUtil
+{
+	// Constants
+	/** The strides of the levels of the pyramid. */
+	public static final int[] LEVEL_STRIDE_ARR = { 2, 4, 8 };
+
+	/**
+	 * Utility method that returns the mesh of the specified level.
+	 * <p>
+	 * Only the values of backplanes that are resident are provided. The slot of
+	 * any other backplane will be null - its values can be retrieved via
+	 * {@link #formLevelValues(DemGrid, DataMode, int, float[])}.
+	 * <p>
+	 * Returns null if the grid is too small to be reduced by the specified
+	 * stride.
+	 *
+	 * @param aGrid The {@link DemGrid} of the DEM.
+	 * @param aDataMode The {@link DataMode} that the mesh is associated with.
+	 * @param aStride The stride (reduction factor) of the level.
+	 */
+	public static MeshStruct formLevel(DemGrid aGrid, DataMode aDataMode, int aStride)
+	{
+		int liveSize = aGrid.getNumRows();
+		int liveSize2 = aGrid.getNumCols();
+
+		// Bail if the grid is too small
+		int numRows = getNumSamples(liveSize, aStride);
+		int numCols = getNumSamples(liveSize2, aStride);
+		if (numRows < 2 || numCols < 2 || numRows == liveSize || numCols == liveSize2)
+			return null;
+
+		float[] regularXyzArr = aGrid.getXyzArr();
+		float[][] regularValueArr = aGrid.getResidentValues();
+		int numBackPlanes = regularValueArr.length;
+
+		// Determine the (regular) point index of each coarse pixel
+		int[] sampleIdxArr = formSampleIndices(aGrid, aDataMode, aStride, numRows, numCols);
+
+		// Form the mesh of the coarse pixels
+		MeshBuilder tmpMeshBuilder = new MeshBuilder(0, numRows * numCols, (numRows - 1) * (numCols - 1) * 2);
+		int[] prevIdxArr = new int[numCols];
+		int[] currIdxArr = new int[numCols];
+		for (int aRow = 0; aRow < numRows; aRow++)
+		{
+			for (int aCol = 0; aCol < numCols; aCol++)
+			{
+				int s = sampleIdxArr[aRow * numCols + aCol];
+				currIdxArr[aCol] = -1;
+				if (s < 0)
+					continue;
+
+				currIdxArr[aCol] = tmpMeshBuilder.addPoint(regularXyzArr[s * 3 + 0], regularXyzArr[s * 3 + 1],
+						regularXyzArr[s * 3 + 2]);
+			}
+
+			if (aRow > 0)
+				GridMeshUtil.addRowTriangles(prevIdxArr, currIdxArr, tmpMeshBuilder);
+
+			// Swap the rows
+			int[] tmpIdxArr = prevIdxArr;
+			prevIdxArr = currIdxArr;
+			currIdxArr = tmpIdxArr;
+		}
+		MeshStruct tmpMS = tmpMeshBuilder.build();
+
+		// Determine the block values of the resident backplanes
+		float[][] valueArr = new float[numBackPlanes][];
+		for (int i = 0; i < numBackPlanes; i++)
+		{
+			if (regularValueArr[i] != null)
+				valueArr[i] = formBlockValues(aGrid, aDataMode, aStride, numRows, numCols, sampleIdxArr,
+						regularValueArr[i], tmpMS.numPoints);
+		}
+
+		return new MeshStruct(tmpMS.xyzArr, tmpMS.connArr, valueArr);
+	}
+
+	/**
+	 * Utility method that returns the values (of a single backplane) for the
+	 * points of the specified level.
+	 * <p>
+	 * The returned values correspond to the points of the mesh returned by
+	 * {@link #formLevel(DemGrid, DataMode, int)}.
+	 *
+	 * @param aGrid The {@link DemGrid} of the DEM.
+	 * @param aDataMode The {@link DataMode} that the mesh is associated with.
+	 * @param aStride The stride (reduction factor) of the level.
+	 * @param aRegularValueArr The values for the regular points.
+	 */
+	public static float[] formLevelValues(DemGrid aGrid, DataMode aDataMode, int aStride, float[] aRegularValueArr)
+	{
+		int numRows = getNumSamples(aGrid.getNumRows(), aStride);
+		int numCols = getNumSamples(aGrid.getNumCols(), aStride);
+
+		int[] sampleIdxArr = formSampleIndices(aGrid, aDataMode, aStride, numRows, numCols);
+		int numPoints = 0;
+		for (int aIdx : sampleIdxArr)
+		{
+			if (aIdx >= 0)
+				numPoints++;
+		}
+
+		return formBlockValues(aGrid, aDataMode, aStride, numRows, numCols, sampleIdxArr, aRegularValueArr,
+				numPoints);
+	}
+
+	/**
+	 * Utility helper method that returns the (regular) point index of each coarse
+	 * pixel. An index of -1 denotes a coarse pixel that is not valid.
+	 */
+	private static int[] formSampleIndices(DemGrid aGrid, DataMode aDataMode, int aStride, int aNumRows,
+			int aNumCols)
+	{
+		int liveSize = aGrid.getNumRows();
+		int liveSize2 = aGrid.getNumCols();
+		long[] maskArr = aGrid.getMask(aDataMode);
+		long[] regularMaskArr = aGrid.getMask(DataMode.Regular);
+		int[] rowStartArr = aGrid.getRowStartArr();
+		int wordsPerRow = aGrid.getWordsPerRow();
+
+		int[] retSampleIdxArr = new int[aNumRows * aNumCols];
+		IntStream.range(0, aNumRows).parallel().forEach(aRow -> {
+			int m = getSample(aRow, aStride, liveSize);
+			int[] idxArr = new int[liveSize2];
+			GridMeshUtil.formGridIndices(regularMaskArr, maskArr, wordsPerRow, rowStartArr, m, liveSize, idxArr);
+
+			for (int aCol = 0; aCol < aNumCols; aCol++)
+				retSampleIdxArr[aRow * aNumCols + aCol] = idxArr[getSample(aCol, aStride, liveSize2)];
+		});
+
+		return retSampleIdxArr;
+	}
+
+	/**
+	 * Utility helper method that returns (in parallel) the block value of each
+	 * valid coarse pixel. The values are ordered as the points of the level.
+	 */
+	private static float[] formBlockValues(DemGrid aGrid, DataMode aDataMode, int aStride, int aNumRows,
+			int aNumCols, int[] aSampleIdxArr, float[] aRegularValueArr, int aNumPoints)
+	{
+		int liveSize = aGrid.getNumRows();
+		int liveSize2 = aGrid.getNumCols();
+		long[] maskArr = aGrid.getMask(aDataMode);
+		long[] regularMaskArr = aGrid.getMask(DataMode.Regular);
+		int[] rowStartArr = aGrid.getRowStartArr();
+		int wordsPerRow = aGrid.getWordsPerRow();
+
+		// Determine the index of the first (level) point of each row
+		int[] rowPointArr = new int[aNumRows + 1];
+		for (int aRow = 0; aRow < aNumRows; aRow++)
+		{
+			int cnt = 0;
+			for (int aCol = 0; aCol < aNumCols; aCol++)
+			{
+				if (aSampleIdxArr[aRow * aNumCols + aCol] >= 0)
+					cnt++;
+			}
+			rowPointArr[aRow + 1] = rowPointArr[aRow] + cnt;
+		}
+
+		float[] retValueArr = new float[aNumPoints];
+		IntStream.range(0, aNumRows).parallel().forEach(aRow -> {
+			int begRow = getSample(aRow, aStride, liveSize);
+			int endRow = Math.min(begRow + aStride, liveSize);
+
+			// Regular indices of the rows of the block
+			int[][] blockIdxArr = new int[endRow - begRow][liveSize2];
+			for (int m = begRow; m < endRow; m++)
+				GridMeshUtil.formGridIndices(regularMaskArr, maskArr, wordsPerRow, rowStartArr, m, liveSize,
+						blockIdxArr[m - begRow]);
+
+			int c = rowPointArr[aRow];
+			for (int aCol = 0; aCol < aNumCols; aCol++)
+			{
+				// Skip over invalid coarse pixels
+				if (aSampleIdxArr[aRow * aNumCols + aCol] < 0)
+					continue;
+
+				int begCol = getSample(aCol, aStride, liveSize2);
+				int endCol = Math.min(begCol + aStride, liveSize2);
+				retValueArr[c++] = getBlockValue(blockIdxArr, begCol, endCol, aRegularValueArr);
+			}
+		});
+
+		return retValueArr;
+	}
+
+	/**
+	 * Utility helper method that returns the value of a block: the extreme
+	 * (minimum or maximum) that is furthest from the mean of the (valid) pixels.
+	 */
+	private static float getBlockValue(int[][] aBlockIdxArr, int aBegCol, int aEndCol, float[] aValueArr)
+	{
+		float minVal = Float.POSITIVE_INFINITY;
+		float maxVal = Float.NEGATIVE_INFINITY;
+		double sum = 0.0;
+		int cnt = 0;
+		for (int[] aIdxArr : aBlockIdxArr)
+		{
+			for (int n = aBegCol; n < aEndCol; n++)
+			{
+				int s = aIdxArr[n];
+				if (s < 0)
+					continue;
+
+				float tmpVal = aValueArr[s];
+				minVal = Math.min(minVal, tmpVal);
+				maxVal = Math.max(maxVal, tmpVal);
+				sum += tmpVal;
+				cnt++;
+			}
+		}
+
+		double meanVal = sum / cnt;
+		if (meanVal - minVal > maxVal - meanVal)
+			return minVal;
+		return maxVal;
+	}
+
+	/**
+	 * Utility helper method that returns the number of samples along an axis.
+	 */
+	private static int getNumSamples(int aNumPixels, int aStride)
+	{
+		if (aNumPixels <= 1)
+			return aNumPixels;
+
+		return (aNumPixels - 1 + aStride - 1) / aStride + 1;
+	}
+
+	/**
+	 * Utility helper method that returns the (full resolution) pixel of the
+	 * specified sample.
+	 */
+	private static int getSample(int aIdx, int aStride, int aNumPixels)
+	{
+		return Math.min(aIdx * aStride, aNumPixels - 1);
+	}
+
+}
@@ -4,8 +4,7 @@ import java.util.List;
 import java.util.Map;
 
 import edu.jhuapl.sbmt.core.util.KeyValueNode;
-
-import nom.tam.fits.BasicHDU;
+import edu.jhuapl.sbmt.dem.io.FitsHeader;
 
 /**
  * Intermediate object used to hold FITS header data.
@@ -21,7 +20,7 @@ import nom.tam.fits.BasicHDU;
  */
 public class HeaderStruct
 {
-	public final BasicHDU<?> hdu;
+	public final FitsHeader header;
 
 	public final Map<String, KeyValueNode> keyValueM;
 	public final List<Integer> backPlaneIndexL;
@@ -33,11 +32,11 @@ public class HeaderStruct
 	public final int zIdx;
 
 	/** Standard Constructor */
-	public HeaderStruct(BasicHDU<?> aHdu, Map<String, KeyValueNode> aKeyValueM, List<Integer> aBackPlaneIndexL,
+	public HeaderStruct(FitsHeader aHeader, Map<String, KeyValueNode> aKeyValueM, List<Integer> aBackPlaneIndexL,
 			List<String> aUnprocessedBackPlaneNameL, List<String> aUnprocessedBackPlaneUnitL, int aXIdx, int aYIdx,
 			int aZIdx)
 	{
-		hdu = aHdu;
+		header = aHeader;
 		keyValueM = aKeyValueM;
 		backPlaneIndexL = aBackPlaneIndexL;
 		unprocessedBackPlaneNameL = aUnprocessedBackPlaneNameL;
@@ -0,0 +1,35 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+/**
+ * Intermediate object used to hold a set of line segments in primitive Java
+ * arrays.
+ * <p>
+ * While this class is immutable - the field members (arrays) are not! This
+ * class is intended to be used as intermediate staging step while instantiating
+ * dem data. The arrays are sized exactly to the content.
+ * <p>
+ * The lines can be transferred to VTK (in bulk) via {@link VtkArrayUtil}.
+ *
+ * @author lopeznr1
+ */
+public class LineStruct
+{
+	/** Point coordinates: x0, y0, z0, x1, y1, z1, ... */
+	public final float[] xyzArr;
+	/** Line connectivity: 2 point ids per cell. */
+	public final long[] connArr;
+
+	public final int numPoints;
+	public final int numCells;
+
+	/** Standard Constructor */
+	public LineStruct(float[] aXyzArr, long[] aConnArr)
+	{
+		xyzArr = aXyzArr;
+		connArr = aConnArr;
+
+		numPoints = aXyzArr.length / 3;
+		numCells = aConnArr.length / 2;
+	}
+
+}
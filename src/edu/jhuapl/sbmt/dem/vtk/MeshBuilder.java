@@ -0,0 +1,158 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import java.util.Arrays;
+
+/**
+ * Class used to accumulate a triangle mesh (and the associated per point
+ * values) into primitive Java arrays.
+ * <p>
+ * This avoids the (per element) JNI overhead of inserting points, values, and
+ * cells directly into VTK data structures. Once complete the mesh should be
+ * retrieved via {@link #build()} and then transferred to VTK via
+ * {@link VtkArrayUtil}.
+ * <p>
+ * The arrays are grown as needed. An accurate initial capacity will avoid any
+ * reallocation.
+ *
+ * @author lopeznr1
+ */
+public class MeshBuilder
+{
+	// Attributes
+	private final int numSlots;
+
+	// State vars
+	private float[] xyzArr;
+	private float[][] valueArr;
+	private long[] connArr;
+	private int numPoints;
+	private int numCells;
+
+	/**
+	 * Standard Constructor
+	 *
+	 * @param aNumSlots The number of per point values (backplanes).
+	 * @param aPointCapacity The initial capacity (number of points).
+	 * @param aCellCapacity The initial capacity (number of triangles).
+	 */
+	public MeshBuilder(int aNumSlots, int aPointCapacity, int aCellCapacity)
+	{
+		numSlots = aNumSlots;
+
+		int pointCapacity = Math.max(1, aPointCapacity);
+		int cellCapacity = Math.max(1, aCellCapacity);
+
+		xyzArr = new float[pointCapacity * 3];
+		valueArr = new float[aNumSlots][pointCapacity];
+		connArr = new long[cellCapacity * 3];
+		numPoints = 0;
+		numCells = 0;
+	}
+
+	/**
+	 * Returns the number of points that have been added.
+	 */
+	public int getNumPoints()
+	{
+		return numPoints;
+	}
+
+	/**
+	 * Returns the number of triangles that have been added.
+	 */
+	public int getNumCells()
+	{
+		return numCells;
+	}
+
+	/**
+	 * Adds a point and returns the (zero-based) index of the point.
+	 * <p>
+	 * The values associated with the point should be set via
+	 * {@link #setValue(int, int, float)}.
+	 */
+	public int addPoint(float aX, float aY, float aZ)
+	{
+		int capacity = xyzArr.length / 3;
+		if (numPoints == capacity)
+		{
+			int newCapacity = growCapacity(capacity);
+			xyzArr = Arrays.copyOf(xyzArr, newCapacity * 3);
+			for (int aSlot = 0; aSlot < numSlots; aSlot++)
+				valueArr[aSlot] = Arrays.copyOf(valueArr[aSlot], newCapacity);
+		}
+
+		int off = numPoints * 3;
+		xyzArr[off + 0] = aX;
+		xyzArr[off + 1] = aY;
+		xyzArr[off + 2] = aZ;
+
+		int retIdx = numPoints;
+		numPoints++;
+		return retIdx;
+	}
+
+	/**
+	 * Sets the value (of the specified slot) for the specified point.
+	 */
+	public void setValue(int aSlot, int aPointIdx, float aValue)
+	{
+		valueArr[aSlot][aPointIdx] = aValue;
+	}
+
+	/**
+	 * Adds a triangle defined by the specified point indexes.
+	 */
+	public void addTriangle(long aId0, long aId1, long aId2)
+	{
+		int capacity = connArr.length / 3;
+		if (numCells == capacity)
+			connArr = Arrays.copyOf(connArr, growCapacity(capacity) * 3);
+
+		int off = numCells * 3;
+		connArr[off + 0] = aId0;
+		connArr[off + 1] = aId1;
+		connArr[off + 2] = aId2;
+		numCells++;
+	}
+
+	/**
+	 * Returns a {@link MeshStruct} with the accumulated content.
+	 * <p>
+	 * The internal arrays are handed off (trimmed if necessary) so this builder
+	 * should not be used after this call.
+	 */
+	public MeshStruct build()
+	{
+		float[] retXyzArr = trim(xyzArr, numPoints * 3);
+		long[] retConnArr = connArr;
+		if (retConnArr.length != numCells * 3)
+			retConnArr = Arrays.copyOf(retConnArr, numCells * 3);
+
+		float[][] retValueArr = new float[numSlots][];
+		for (int aSlot = 0; aSlot < numSlots; aSlot++)
+			retValueArr[aSlot] = trim(valueArr[aSlot], numPoints);
+
+		return new MeshStruct(retXyzArr, retConnArr, retValueArr);
+	}
+
+	/**
+	 * Helper method that returns the next capacity.
+	 */
+	private static int growCapacity(int aCapacity)
+	{
+		long retCapacity = Math.max(16L, aCapacity * 2L);
+		return (int) Math.min(Integer.MAX_VALUE / 3, retCapacity);
+	}
+
+	/**
+	 * Helper method that returns an array of the specified length.
+	 */
+	private static float[] trim(float[] aArr, int aLen)
+	{
+		if (aArr.length == aLen)
+			return aArr;
+		return Arrays.copyOf(aArr, aLen);
+	}
+
+}
@@ -0,0 +1,38 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+/**
+ * Intermediate object used to hold a triangle mesh (and the associated per
+ * point values) in primitive Java arrays.
+ * <p>
+ * While this class is immutable - the field members (arrays) are not! This
+ * class is intended to be used as intermediate staging step while instantiating
+ * dem data. The arrays are sized exactly to the content.
+ * <p>
+ * The mesh can be transferred to VTK (in bulk) via {@link VtkArrayUtil}.
+ *
+ * @author lopeznr1
+ */
+public class MeshStruct
+{
+	/** Point coordinates: x0, y0, z0, x1, y1, z1, ... */
+	public final float[] xyzArr;
+	/** Triangle connectivity: 3 point ids per cell. */
+	public final long[] connArr;
+	/** Per point values: valueArr[slot][pointIdx]. A slot may be null if not loaded. */
+	public final float[][] valueArr;
+
+	public final int numPoints;
+	public final int numCells;
+
+	/** Standard Constructor */
+	public MeshStruct(float[] aXyzArr, long[] aConnArr, float[][] aValueArr)
+	{
+		xyzArr = aXyzArr;
+		connArr = aConnArr;
+		valueArr = aValueArr;
+
+		numPoints = aXyzArr.length / 3;
+		numCells = aConnArr.length / 3;
+	}
+
+}
@@ -0,0 +1,509 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import glum.task.Task;
+
+/**
+ * Collection of utility methods for loading the (triangle) mesh of a Wavefront
+ * OBJ file into primitive arrays.
+ * <p>
+ * The file is read (via NIO) in chunks which are parsed in parallel. Chunk
+ * boundaries are aligned to line boundaries so each chunk consists of whole
+ * records. Only the following records are utilized:
+ * <ul>
+ * <li>v: The vertex (x, y, z). Any w component is ignored.
+ * <li>f: The face. Only the vertex index of each face vertex is utilized.
+ * Faces with more than 3 vertices are (fan) triangulated. Negative (relative)
+ * indices are supported.
+ * </ul>
+ * All other records (comments, normals, texture coordinates, groups, etc) are
+ * skipped.
+ * <p>
+ * Progress is reported (via the {@link Task}) by the number of bytes consumed
+ * and the load is abandoned (between chunks) if the {@link Task} is aborted.
+ *
+ * @author lopeznr1
+ */
+public class ObjMeshUtil
+{
+	// Constants
+	/** Nominal size of a chunk. */
+	private static final int CHUNK_SIZE = 1 << 23;
+
+	/** Bias applied to (chunk relative) face indices. */
+	private static final long RELATIVE_BIAS = 1L << 40;
+
+	/** Exact powers of 10 that are representable as doubles. */
+	private static final double[] POW10_ARR = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+			1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Utility method that loads the mesh of the specified OBJ file.
+	 * <p>
+	 * Returns the {@link MeshStruct} or null if aborted.
+	 *
+	 * @param aTask The {@link Task} used for progress updates / aborting.
+	 * @param aFile The OBJ file to load.
+	 */
+	public static MeshStruct loadMesh(Task aTask, File aFile) throws IOException
+	{
+		return loadMesh(aTask, aFile, CHUNK_SIZE, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Utility method that loads the mesh of the specified OBJ file via the
+	 * provided chunk size and {@link ForkJoinPool}.
+	 * <p>
+	 * Returns the {@link MeshStruct} or null if aborted.
+	 */
+	static MeshStruct loadMesh(Task aTask, File aFile, int aChunkSize, ForkJoinPool aPool) throws IOException
+	{
+		try (FileChannel tmpFC = FileChannel.open(aFile.toPath(), StandardOpenOption.READ))
+		{
+			long fileSize = tmpFC.size();
+			long[] boundArr = formChunkBounds(tmpFC, fileSize, aChunkSize);
+			int numChunks = boundArr.length - 1;
+
+			// Parse (in parallel) each chunk into its own mesh
+			MeshBuilder[] builderArr = new MeshBuilder[numChunks];
+			AtomicBoolean isAborted = new AtomicBoolean(false);
+			AtomicLong progressCnt = new AtomicLong(0);
+			GridMeshUtil.runParallel(aTask, aPool, numChunks, isAborted, progressCnt, Math.max(1L, fileSize),
+					aChunk -> {
+						// Skip over the remaining chunks if aborted
+						if (isAborted.get() == true)
+							return;
+
+						long begPos = boundArr[aChunk];
+						int tmpSize = (int) (boundArr[aChunk + 1] - begPos);
+						builderArr[aChunk] = parseChunk(readChunk(tmpFC, begPos, tmpSize), begPos);
+						progressCnt.addAndGet(tmpSize);
+					});
+
+			// Bail if the task has been aborted
+			if (isAborted.get() == true || aTask.isAborted() == true)
+				return null;
+
+			return mergeChunks(builderArr);
+		}
+	}
+
+	/**
+	 * Utility helper method that returns the (byte) boundaries of the chunks.
+	 * Each boundary (other than the last) is the start of a line.
+	 */
+	private static long[] formChunkBounds(FileChannel aFC, long aFileSize, int aChunkSize) throws IOException
+	{
+		int maxChunks = (int) Math.max(1, (aFileSize + aChunkSize - 1) / aChunkSize);
+		long[] retBoundArr = new long[maxChunks + 1];
+		int numChunks = 0;
+
+		ByteBuffer tmpBB = ByteBuffer.allocate(4096);
+		long tmpPos = 0;
+		while (tmpPos < aFileSize)
+		{
+			retBoundArr[numChunks++] = tmpPos;
+
+			// Advance to the start of the line that follows the nominal boundary
+			long nextPos = tmpPos + aChunkSize;
+			while (nextPos < aFileSize)
+			{
+				tmpBB.clear();
+				int numBytes = aFC.read(tmpBB, nextPos);
+				if (numBytes <= 0)
+				{
+					nextPos = aFileSize;
+					break;
+				}
+
+				int lineIdx = -1;
+				for (int c1 = 0; c1 < numBytes && lineIdx == -1; c1++)
+				{
+					if (tmpBB.get(c1) == '\n')
+						lineIdx = c1;
+				}
+				if (lineIdx != -1)
+				{
+					nextPos += lineIdx + 1;
+					break;
+				}
+				nextPos += numBytes;
+			}
+			tmpPos = Math.min(nextPos, aFileSize);
+
+			// Guard against long lines: more chunks than anticipated
+			if (numChunks == maxChunks && tmpPos < aFileSize)
+			{
+				maxChunks *= 2;
+				retBoundArr = Arrays.copyOf(retBoundArr, maxChunks + 1);
+			}
+		}
+		retBoundArr[numChunks] = aFileSize;
+
+		return Arrays.copyOf(retBoundArr, numChunks + 1);
+	}
+
+	/**
+	 * Utility helper method that merges the (per chunk) meshes into a single
+	 * mesh. The (chunk relative) face indices are resolved to global point ids.
+	 */
+	private static MeshStruct mergeChunks(MeshBuilder[] aBuilderArr) throws IOException
+	{
+		int numChunks = aBuilderArr.length;
+		MeshStruct[] chunkMSArr = new MeshStruct[numChunks];
+		int[] pointOffArr = new int[numChunks + 1];
+		int[] cellOffArr = new int[numChunks + 1];
+		for (int c1 = 0; c1 < numChunks; c1++)
+		{
+			chunkMSArr[c1] = aBuilderArr[c1].build();
+			aBuilderArr[c1] = null;
+			pointOffArr[c1 + 1] = Math.addExact(pointOffArr[c1], chunkMSArr[c1].numPoints);
+			cellOffArr[c1 + 1] = Math.addExact(cellOffArr[c1], chunkMSArr[c1].numCells);
+		}
+
+		int numPoints = pointOffArr[numChunks];
+		int numCells = cellOffArr[numChunks];
+		float[] xyzArr = new float[Math.multiplyExact(numPoints, 3)];
+		long[] connArr = new long[Math.multiplyExact(numCells, 3)];
+		AtomicLong badIdx = new AtomicLong(Long.MIN_VALUE);
+		IntStream.range(0, numChunks).parallel().forEach(aChunk -> {
+			MeshStruct tmpMS = chunkMSArr[aChunk];
+			System.arraycopy(tmpMS.xyzArr, 0, xyzArr, pointOffArr[aChunk] * 3, tmpMS.xyzArr.length);
+
+			int connOff = cellOffArr[aChunk] * 3;
+			long pointOff = pointOffArr[aChunk];
+			for (int c1 = 0; c1 < tmpMS.connArr.length; c1++)
+			{
+				// Resolve the index: absolute (>= 0) or relative to the chunk (< 0)
+				long tmpIdx = tmpMS.connArr[c1];
+				if (tmpIdx < 0)
+					tmpIdx = pointOff + tmpIdx + RELATIVE_BIAS;
+
+				if (tmpIdx < 0 || tmpIdx >= numPoints)
+					badIdx.set(tmpMS.connArr[c1]);
+				connArr[connOff + c1] = tmpIdx;
+			}
+		});
+
+		// Bail if any face references a missing vertex
+		if (badIdx.get() != Long.MIN_VALUE)
+			throw new IOException("OBJ face references an invalid vertex. Number of vertices: " + numPoints);
+
+		return new MeshStruct(xyzArr, connArr, new float[0][]);
+	}
+
+	/**
+	 * Utility helper method that parses a single chunk.
+	 * <p>
+	 * Face indices are stored as either an absolute (zero-based) point id or (if
+	 * negative) as the chunk relative point id minus {@link #RELATIVE_BIAS}. A
+	 * chunk relative point id may be negative since a relative index can refer
+	 * to a vertex of a prior chunk.
+	 */
+	private static MeshBuilder parseChunk(byte[] aBuf, long aBegPos)
+	{
+		MeshBuilder retMB = new MeshBuilder(0, aBuf.length / 40, aBuf.length / 40);
+		ChunkParser tmpParser = new ChunkParser(aBuf, aBegPos);
+		long[] faceArr = new long[16];
+		while (tmpParser.hasNext() == true)
+		{
+			byte tmpType = tmpParser.peekRecordType();
+			if (tmpType == 'v')
+			{
+				float tmpX = tmpParser.nextFloat();
+				float tmpY = tmpParser.nextFloat();
+				float tmpZ = tmpParser.nextFloat();
+				retMB.addPoint(tmpX, tmpY, tmpZ);
+			}
+			else if (tmpType == 'f')
+			{
+				int numVerts = 0;
+				while (tmpParser.hasNextToken() == true)
+				{
+					long tmpIdx = tmpParser.nextIndex();
+					if (tmpIdx > 0)
+						tmpIdx = tmpIdx - 1;
+					else if (tmpIdx < 0)
+						tmpIdx = retMB.getNumPoints() + tmpIdx - RELATIVE_BIAS;
+					else
+						throw tmpParser.formError("OBJ face index of 0");
+
+					if (numVerts == faceArr.length)
+						faceArr = Arrays.copyOf(faceArr, numVerts * 2);
+					faceArr[numVerts++] = tmpIdx;
+				}
+				if (numVerts < 3)
+					throw tmpParser.formError("OBJ face with fewer than 3 vertices");
+
+				for (int c1 = 1; c1 < numVerts - 1; c1++)
+					retMB.addTriangle(faceArr[0], faceArr[c1], faceArr[c1 + 1]);
+			}
+
+			tmpParser.nextLine();
+		}
+
+		return retMB;
+	}
+
+	/**
+	 * Utility helper method that reads the specified region of the file.
+	 */
+	private static byte[] readChunk(FileChannel aFC, long aPos, int aSize)
+	{
+		byte[] retArr = new byte[aSize];
+		ByteBuffer tmpBB = ByteBuffer.wrap(retArr);
+		try
+		{
+			while (tmpBB.hasRemaining() == true)
+			{
+				if (aFC.read(tmpBB, aPos + tmpBB.position()) < 0)
+					throw new IOException("Premature end of OBJ file.");
+			}
+		}
+		catch (IOException aExp)
+		{
+			throw new UncheckedIOException(aExp);
+		}
+
+		return retArr;
+	}
+
+	/**
+	 * Helper class used to parse the records of a single chunk.
+	 * <p>
+	 * Numbers are parsed directly from the bytes (without forming strings).
+	 * Uncommon (floating point) forms are delegated to
+	 * {@link Double#parseDouble(String)}.
+	 */
+	private static class ChunkParser
+	{
+		// Attributes
+		private final byte[] buf;
+		private final long begPos;
+
+		// State vars
+		private int pos;
+
+		/** Standard Constructor */
+		ChunkParser(byte[] aBuf, long aBegPos)
+		{
+			buf = aBuf;
+			begPos = aBegPos;
+
+			pos = 0;
+		}
+
+		/**
+		 * Returns true if there are more lines.
+		 */
+		boolean hasNext()
+		{
+			return pos < buf.length;
+		}
+
+		/**
+		 * Returns true if there is another token on the current line.
+		 */
+		boolean hasNextToken()
+		{
+			skipSpaces();
+			return pos < buf.length && isLineEnd(buf[pos]) == false && buf[pos] != '#';
+		}
+
+		/**
+		 * Returns the type of the record on the current line: 'v', 'f', or 0 for
+		 * any other record. The position is advanced past the record type.
+		 */
+		byte peekRecordType()
+		{
+			skipSpaces();
+			if (pos + 1 >= buf.length || isSpace(buf[pos + 1]) == false)
+				return 0;
+
+			byte retType = buf[pos];
+			if (retType != 'v' && retType != 'f')
+				return 0;
+
+			pos += 2;
+			return retType;
+		}
+
+		/**
+		 * Advances to the start of the next line.
+		 */
+		void nextLine()
+		{
+			while (pos < buf.length && buf[pos] != '\n')
+				pos++;
+			pos++;
+		}
+
+		/**
+		 * Returns the (vertex) index of the next face vertex. Any texture or
+		 * normal index is skipped.
+		 */
+		long nextIndex()
+		{
+			skipSpaces();
+			boolean isNeg = false;
+			if (pos < buf.length && (buf[pos] == '-' || buf[pos] == '+'))
+				isNeg = buf[pos++] == '-';
+
+			int begIdx = pos;
+			long retVal = 0;
+			while (pos < buf.length && isDigit(buf[pos]) == true)
+				retVal = retVal * 10 + (buf[pos++] - '0');
+			if (pos == begIdx || pos - begIdx > 18)
+				throw formError("Malformed OBJ face index");
+
+			// Skip over the remainder of the face vertex (texture / normal index)
+			while (pos < buf.length && isSpace(buf[pos]) == false && isLineEnd(buf[pos]) == false)
+				pos++;
+
+			return isNeg == true ? -retVal : retVal;
+		}
+
+		/**
+		 * Returns the next (floating point) value.
+		 */
+		float nextFloat()
+		{
+			skipSpaces();
+			int begIdx = pos;
+
+			boolean isNeg = false;
+			if (pos < buf.length && (buf[pos] == '-' || buf[pos] == '+'))
+				isNeg = buf[pos++] == '-';
+
+			long mantissa = 0;
+			int numDigits = 0;
+			int exp10 = 0;
+			boolean isAnyDigit = false;
+			while (pos < buf.length && isDigit(buf[pos]) == true)
+			{
+				if (numDigits < 18)
+				{
+					mantissa = mantissa * 10 + (buf[pos] - '0');
+					if (mantissa != 0)
+						numDigits++;
+				}
+				else
+				{
+					exp10++;
+				}
+				isAnyDigit = true;
+				pos++;
+			}
+			if (pos < buf.length && buf[pos] == '.')
+			{
+				pos++;
+				while (pos < buf.length && isDigit(buf[pos]) == true)
+				{
+					if (numDigits < 18)
+					{
+						mantissa = mantissa * 10 + (buf[pos] - '0');
+						if (mantissa != 0)
+							numDigits++;
+						exp10--;
+					}
+					isAnyDigit = true;
+					pos++;
+				}
+			}
+			if (isAnyDigit == true && pos < buf.length && (buf[pos] == 'e' || buf[pos] == 'E'))
+			{
+				pos++;
+				boolean isExpNeg = false;
+				if (pos < buf.length && (buf[pos] == '-' || buf[pos] == '+'))
+					isExpNeg = buf[pos++] == '-';
+
+				int tmpExp = 0;
+				int expBegIdx = pos;
+				while (pos < buf.length && isDigit(buf[pos]) == true && pos - expBegIdx < 6)
+					tmpExp = tmpExp * 10 + (buf[pos++] - '0');
+				if (pos == expBegIdx)
+					isAnyDigit = false;
+				exp10 += isExpNeg == true ? -tmpExp : tmpExp;
+			}
+
+			// Delegate uncommon forms (nan, inf, etc)
+			boolean isTokenEnd = pos >= buf.length || isSpace(buf[pos]) == true || isLineEnd(buf[pos]) == true;
+			if (isAnyDigit == false || isTokenEnd == false)
+				return parseFallback(begIdx);
+
+			double retVal = mantissa;
+			if (exp10 > 0)
+				retVal = exp10 < POW10_ARR.length ? retVal * POW10_ARR[exp10] : retVal * Math.pow(10, exp10);
+			else if (exp10 < 0)
+				retVal = -exp10 < POW10_ARR.length ? retVal / POW10_ARR[-exp10] : retVal / Math.pow(10, -exp10);
+
+			return (float) (isNeg == true ? -retVal : retVal);
+		}
+
+		/**
+		 * Returns an {@link UncheckedIOException} that describes the specified
+		 * error at the current position.
+		 */
+		UncheckedIOException formError(String aMsg)
+		{
+			return new UncheckedIOException(new IOException(aMsg + ". Byte offset: " + (begPos + pos)));
+		}
+
+		/**
+		 * Helper method that parses the token at the specified index via
+		 * {@link Double#parseDouble(String)}.
+		 */
+		private float parseFallback(int aBegIdx)
+		{
+			pos = aBegIdx;
+			while (pos < buf.length && isSpace(buf[pos]) == false && isLineEnd(buf[pos]) == false)
+				pos++;
+
+			String tmpStr = new String(buf, aBegIdx, pos - aBegIdx);
+			try
+			{
+				return (float) Double.parseDouble(tmpStr);
+			}
+			catch (NumberFormatException aExp)
+			{
+				throw formError("Malformed OBJ value: '" + tmpStr + "'");
+			}
+		}
+
+		/**
+		 * Helper method that skips over spaces and tabs.
+		 */
+		private void skipSpaces()
+		{
+			while (pos < buf.length && isSpace(buf[pos]) == true)
+				pos++;
+		}
+
+		private static boolean isDigit(byte aByte)
+		{
+			return aByte >= '0' && aByte <= '9';
+		}
+
+		private static boolean isLineEnd(byte aByte)
+		{
+			return aByte == '\n' || aByte == '\r';
+		}
+
+		private static boolean isSpace(byte aByte)
+		{
+			return aByte == ' ' || aByte == '\t';
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import vtk.vtkCellArray;
+import vtk.vtkFloatArray;
+import vtk.vtkIdTypeArray;
+import vtk.vtkPoints;
+
+/**
+ * Collection of utility methods for transferring primitive Java arrays to VTK.
+ * <p>
+ * Each transfer is a single (bulk) JNI call per array rather than a JNI call
+ * per element.
+ *
+ * @author lopeznr1
+ */
+public class VtkArrayUtil
+{
+	/**
+	 * Utility method that returns a {@link vtkFloatArray} with the specified
+	 * values.
+	 *
+	 * @param aValueArr The (tuple interleaved) values.
+	 * @param aNumComps The number of components per tuple.
+	 */
+	public static vtkFloatArray formFloatArray(float[] aValueArr, int aNumComps)
+	{
+		vtkFloatArray retFA = new vtkFloatArray();
+		retFA.SetNumberOfComponents(aNumComps);
+		retFA.SetJavaArray(aValueArr);
+		return retFA;
+	}
+
+	/**
+	 * Utility method that returns a {@link vtkIdTypeArray} with the specified
+	 * ids.
+	 */
+	public static vtkIdTypeArray formIdTypeArray(long[] aIdArr)
+	{
+		vtkIdTypeArray retITA = new vtkIdTypeArray();
+		retITA.SetNumberOfComponents(1);
+		retITA.SetJavaArray(aIdArr);
+		return retITA;
+	}
+
+	/**
+	 * Utility method that returns a {@link vtkPoints} with the specified
+	 * coordinates (x0, y0, z0, x1, y1, z1, ...).
+	 */
+	public static vtkPoints formPoints(float[] aXyzArr)
+	{
+		vtkFloatArray vTmpFA = formFloatArray(aXyzArr, 3);
+
+		vtkPoints retPoints = new vtkPoints();
+		retPoints.SetData(vTmpFA);
+		vTmpFA.Delete();
+		return retPoints;
+	}
+
+	/**
+	 * Utility method that returns a {@link vtkCellArray} consisting of the
+	 * lines defined by the specified connectivity (2 point ids per cell).
+	 */
+	public static vtkCellArray formLineCellArray(long[] aConnArr)
+	{
+		return formCellArray(aConnArr, 2);
+	}
+
+	/**
+	 * Utility method that returns a {@link vtkCellArray} consisting of the
+	 * triangles defined by the specified connectivity (3 point ids per cell).
+	 * <p>
+	 * The cell array is formed from an offsets array and a connectivity array.
+	 */
+	public static vtkCellArray formTriangleCellArray(long[] aConnArr)
+	{
+		return formCellArray(aConnArr, 3);
+	}
+
+	/**
+	 * Utility helper method that returns a {@link vtkCellArray} consisting of
+	 * cells of a fixed size.
+	 */
+	private static vtkCellArray formCellArray(long[] aConnArr, int aCellSize)
+	{
+		int numCells = aConnArr.length / aCellSize;
+		long[] offsetArr = new long[numCells + 1];
+		for (int c1 = 0; c1 <= numCells; c1++)
+			offsetArr[c1] = (long) c1 * aCellSize;
+
+		vtkIdTypeArray vOffsetITA = formIdTypeArray(offsetArr);
+		vtkIdTypeArray vConnITA = formIdTypeArray(aConnArr);
+
+		vtkCellArray retCA = new vtkCellArray();
+		retCA.SetData(vOffsetITA, vConnITA);
+		vOffsetITA.Delete();
+		vConnITA.Delete();
+		return retCA;
+	}
+
+}
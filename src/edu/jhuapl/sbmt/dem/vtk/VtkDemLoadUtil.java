@@ -12,39 +12,39 @@ import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import com.google.common.collect.ImmutableMap;
 
 import vtk.vtkCellArray;
-import vtk.vtkDataArray;
 import vtk.vtkFloatArray;
-import vtk.vtkIdList;
-import vtk.vtkObject;
-import vtk.vtkPointDataToCellData;
+import vtk.vtkIdTypeArray;
 import vtk.vtkPoints;
 import vtk.vtkPolyData;
-import vtk.vtkPolyDataNormals;
 
 import edu.jhuapl.saavtk.feature.FeatureType;
 import edu.jhuapl.saavtk.model.PolyhedralModel.ColoringValueType;
 import edu.jhuapl.saavtk.util.PolyDataUtil;
-import edu.jhuapl.saavtk.vtk.VtkUtil;
 import edu.jhuapl.sbmt.core.body.SmallBodyModel;
 import edu.jhuapl.sbmt.core.util.KeyValueNode;
 import edu.jhuapl.sbmt.dem.Dem;
 import edu.jhuapl.sbmt.dem.DemException;
 import edu.jhuapl.sbmt.dem.DemManager;
 import edu.jhuapl.sbmt.dem.io.DemCatalogUtil;
+import edu.jhuapl.sbmt.dem.io.DemDiskCache;
+import edu.jhuapl.sbmt.dem.io.DemFormat;
 import edu.jhuapl.sbmt.dem.io.DemLoadUtil;
+import edu.jhuapl.sbmt.dem.io.DemReaderRegistry;
+import edu.jhuapl.sbmt.dem.io.FitsBandReader;
+import edu.jhuapl.sbmt.dem.io.FitsBandReader.FitsBand;
+import edu.jhuapl.sbmt.dem.io.FitsCube;
+import edu.jhuapl.sbmt.dem.io.FitsHeader;
+import edu.jhuapl.sbmt.dem.vtk.DemGrid.BackPlaneLoader;
+import edu.jhuapl.sbmt.dem.vtk.DemLoadEvent.Stage;
 
 import glum.net.Credential;
 import glum.source.Source;
 import glum.source.SourceState;
 import glum.source.SourceUtil;
+import glum.task.SilentTask;
 import glum.task.Task;
 import glum.unit.NumberUnit;
 import glum.util.ThreadUtil;
-import nom.tam.fits.BasicHDU;
-import nom.tam.fits.Fits;
-import nom.tam.fits.FitsException;
-import nom.tam.fits.Header;
-import nom.tam.fits.HeaderCard;
 
 /**
  * Class that provides a collection of utility methods for loading the contents
@@ -58,7 +58,27 @@ import nom.tam.fits.HeaderCard;
 public class VtkDemLoadUtil
 {
 	// Constants
-	private static final float INVALID_VALUE = -1.0e38f;
+	/** Maximum number of cells of the level of detail utilized while interacting. */
+	private static final long MAX_LOD_CELLS = 250000;
+	private static final DemReaderRegistry<VtkDemReader> Registry = new DemReaderRegistry<>();
+	static
+	{
+		Registry.register(DemFormat.Fits, VtkDemLoadUtil::loadFitsFile);
+		Registry.register(DemFormat.FitsGzip, VtkDemLoadUtil::loadFitsFile);
+		Registry.register(DemFormat.Obj, (aTask, aFile, aDataMode) -> loadObjFile(aTask, aFile));
+	}
+
+	// State vars
+	private static volatile boolean isLazyBackPlanes = false;
+
+	/**
+	 * Returns the {@link DemReaderRegistry} used to select the
+	 * {@link VtkDemReader} for a file.
+	 */
+	public static DemReaderRegistry<VtkDemReader> getRegistry()
+	{
+		return Registry;
+	}
 
 	/**
 	 * Utility method that given a file will return the corresponding
@@ -66,47 +86,25 @@ public class VtkDemLoadUtil
 	 * <p>
 	 * Below are the supported formats and corresponding capability:
 	 * <ul>
-	 * <li>FITS: Supports: Progress update + handling of invalid data.
-	 * <li>OBJ: Support: No progress update or handling of invalid data.
-	 * <ul>
+	 * <li>FITS: Supports: Progress update + handling of invalid data. Gzip and
+	 * tile compressed files are decompressed as they are read.
+	 * <li>OBJ: Supports: Progress update. No handling of invalid data.
+	 * </ul>
+	 * Additional formats may be supported via {@link #getRegistry()}.
 	 *
 	 * @param aTask The {@link Task} used to monitor the load process.
-	 * @param aFile The file to be loaded. Supported formats are FITS and OBJ.
+	 * @param aFile The file to be loaded. The format is determined by probing
+	 * the leading bytes of the file.
 	 * @param aDataMode The {@link DataMode} for which the data should be loaded.
 	 */
 	private static VtkDemStruct loadFile(Task aTask, File aFile, DataMode aDataMode) throws Exception
 	{
-		Exception failExp = null;
-		String fileNameLC = aFile.getName().toLowerCase();
+		// Determine the format via the leading bytes (no trial parse)
+		DemFormat tmpFormat = Registry.probe(aFile);
+		if (tmpFormat == null)
+			throw new DemException("The provided file is not of a supported format: " + Registry.getFormatsDescr());
 
-		// Try loading via the fits load routine
-		try
-		{
-			return loadFitsFile(aTask, aFile, aDataMode);
-		}
-		catch (FitsException | IOException aExp)
-		{
-			// Capture the (fits) Exception if matching file extension
-			if (fileNameLC.endsWith(".fit") == true || fileNameLC.endsWith(".fits") == true)
-				failExp = aExp;
-		}
-
-		// Try loading via the obj load routine
-		try
-		{
-			return loadObjFile(aTask, aFile);
-		}
-		catch (IOException aExp)
-		{
-			; // Nothing to do
-		}
-
-		// Throw the original Exception (if it was captured)
-		if (failExp != null)
-			throw failExp;
-
-		// Throw an exception if failed to load as either a fits or obj file
-		throw new DemException("The provided file is neither a valid FITS or OBJ file.", failExp);
+		return Registry.getReader(tmpFormat).load(aTask, aFile, aDataMode);
 	}
 
 	/**
@@ -115,8 +113,35 @@ public class VtkDemLoadUtil
 	 * <p>
 	 * Live updates and the ability to abort the process is provided via the
 	 * {@link Task} mechanism.
+	 * <p>
+	 * The duration of each stage of the load is emitted as a {@link DemLoadEvent}
+	 * (JDK Flight Recorder).
+	 * <p>
+	 * This is equivalent to {@link #downloadVtkDemPainter} followed by
+	 * {@link #parseVtkDemPainter}.
 	 */
 	public static void loadVtkDemPainter(Task aTask, DemManager aManager, VtkDemPainter aPainter)
+	{
+		// Bail if the Source could not be retrieved
+		if (downloadVtkDemPainter(aTask, aManager, aPainter) == false)
+			return;
+
+		parseVtkDemPainter(aTask, aManager, aPainter);
+	}
+
+	/**
+	 * Utility method that performs the first (network bound) phase of a load:
+	 * the retrieval of the {@link Source} of the {@link VtkDemPainter}'s
+	 * {@link Dem}.
+	 * <p>
+	 * No download is performed if the {@link Source} is already local. The
+	 * outcome (cache hit or miss) is recorded with the manager's
+	 * {@link DemDiskCache}.
+	 * <p>
+	 * Returns true if the load should proceed. On failure the painter will have
+	 * been notified.
+	 */
+	public static boolean downloadVtkDemPainter(Task aTask, DemManager aManager, VtkDemPainter aPainter)
 	{
 		// Force the initial formal update
 		Dem tmpDem = aPainter.getItem();
@@ -127,26 +152,97 @@ public class VtkDemLoadUtil
 		String statusMsg = SourceUtil.getStatusMsg(tmpSource);
 		aTask.logRegln(statusMsg);
 
-		// Ensure the Source has been downloaded
-		SourceState tmpSS = SourceUtil.getState(tmpSource);
-		if (tmpSS == SourceState.Partial || tmpSS == SourceState.Remote)
+		// Ensure the Source has been downloaded. Downloads of the same painter
+		// (such as by a prefetch) are serialized.
+		synchronized (aPainter)
+		{
+			DemDiskCache tmpDiskCache = aManager.getDiskCache();
+			boolean isDownloadNeeded = isDownloadNeeded(tmpSource);
+			if (isDownloadNeeded == false && tmpDiskCache != null)
+				tmpDiskCache.recordHit(tmpSource.getLocalFile());
+			if (isDownloadNeeded == true)
+			{
+				try
+				{
+					Credential tmpCredential = DemCatalogUtil.getCredential();
+					DemLoadEvent tmpEvent = DemLoadEvent.begin(tmpSource.getLocalFile(), Stage.Download);
+					SourceUtil.download(aTask, tmpSource, tmpCredential);
+					File tmpLocalFile = tmpSource.getLocalFile();
+					tmpEvent.finish(tmpLocalFile != null ? tmpLocalFile.length() : 0L);
+					aPainter.markUpdate();
+					if (aTask.isAborted() == true)
+						ThreadUtil.invokeAndWaitOnAwt(() -> aPainter.markFailure(null));
+					else if (tmpDiskCache != null)
+					{
+						tmpDiskCache.recordMiss(tmpLocalFile);
+						aManager.notifyDownloadDone();
+					}
+					tmpCredential.dispose();
+				}
+				catch (Exception aExp)
+				{
+					aTask.abort();
+					ThreadUtil.invokeAndWaitOnAwt(() -> aPainter.markFailure(aExp));
+				}
+			}
+		}
+
+		return aTask.isAborted() == false;
+	}
+
+	/**
+	 * Utility method that prefetches (downloads) the {@link Source} of the
+	 * {@link VtkDemPainter}'s {@link Dem}. No VTK state is loaded.
+	 * <p>
+	 * Failures are ignored - the download will be retried by the eventual load.
+	 */
+	public static void prefetchVtkDemPainter(DemManager aManager, VtkDemPainter aPainter)
+	{
+		Dem tmpDem = aPainter.getItem();
+		Source tmpSource = tmpDem.getSource();
+		DemDiskCache tmpDiskCache = aManager.getDiskCache();
+
+		// Downloads of the same painter are serialized
+		synchronized (aPainter)
 		{
+			// Bail if the Source has already been downloaded
+			if (isDownloadNeeded(tmpSource) == false)
+				return;
+
 			try
 			{
 				Credential tmpCredential = DemCatalogUtil.getCredential();
-				SourceUtil.download(aTask, tmpSource, tmpCredential);
-				aPainter.markUpdate();
-				if (aTask.isAborted() == true)
-					ThreadUtil.invokeAndWaitOnAwt(() -> aPainter.markFailure(null));
+				DemLoadEvent tmpEvent = DemLoadEvent.begin(tmpSource.getLocalFile(), Stage.Download);
+				SourceUtil.download(new SilentTask(), tmpSource, tmpCredential);
+				File tmpLocalFile = tmpSource.getLocalFile();
+				tmpEvent.finish(tmpLocalFile != null ? tmpLocalFile.length() : 0L);
+				if (tmpDiskCache != null)
+				{
+					tmpDiskCache.recordMiss(tmpLocalFile);
+					aManager.notifyDownloadDone();
+				}
 				tmpCredential.dispose();
 			}
 			catch (Exception aExp)
 			{
-				aTask.abort();
-				ThreadUtil.invokeAndWaitOnAwt(() -> aPainter.markFailure(aExp));
+				; // Nothing to do
 			}
 		}
 
+		// Send out the status update
+		aPainter.markUpdate();
+		aManager.notifyLoadUpdate(tmpDem, false);
+	}
+
+	/**
+	 * Utility method that performs the second (CPU bound) phase of a load: the
+	 * parse of the (local) file and formation of the VTK state.
+	 * <p>
+	 * The {@link Source} must have been retrieved via
+	 * {@link #downloadVtkDemPainter}.
+	 */
+	public static void parseVtkDemPainter(Task aTask, DemManager aManager, VtkDemPainter aPainter)
+	{
 		// Bail if the task was aborted
 		if (aTask.isAborted() == true)
 			return;
@@ -156,6 +252,7 @@ public class VtkDemLoadUtil
 		aTask.setProgress(0.0);
 
 		// Load the VTK state
+		Dem tmpDem = aPainter.getItem();
 		File tmpFile = tmpDem.getSource().getLocalFile();
 		DataMode tmpDataMode = aManager.getViewDataMode(tmpDem);
 
@@ -176,7 +273,54 @@ public class VtkDemLoadUtil
 			if (aTask.isAborted() == true)
 				ThreadUtil.invokeAndWaitOnAwt(() -> aPainter.markFailure(null));
 			else
-				ThreadUtil.invokeAndWaitOnAwt(() -> aPainter.markComplete(tmpVDS));
+				markComplete(tmpFile, aPainter, tmpVDS);
+		}
+		catch (Exception aExp)
+		{
+			aTask.abort();
+			ThreadUtil.invokeAndWaitOnAwt(() -> aPainter.markFailure(aExp));
+		}
+	}
+
+	/**
+	 * Utility method that returns true if the specified {@link Source} must be
+	 * (fully) downloaded before it can be loaded.
+	 */
+	public static boolean isDownloadNeeded(Source aSource)
+	{
+		SourceState tmpSS = SourceUtil.getState(aSource);
+		return tmpSS == SourceState.Partial || tmpSS == SourceState.Remote;
+	}
+
+	/**
+	 * Utility method that will derive the VTK state needed for a
+	 * {@link VtkDemPainter} from a (previously loaded) {@link DemGrid}.
+	 * <p>
+	 * The surface associated with the current {@link DataMode} is formed (in
+	 * memory) by filtering the grid. No file access, download or parse is
+	 * performed.
+	 */
+	public static void deriveVtkDemPainter(Task aTask, DemManager aManager, VtkDemPainter aPainter, DemGrid aGrid,
+			Vector3D aCenterPos, List<FeatureType> aFeatureTypeL)
+	{
+		Dem tmpDem = aPainter.getItem();
+		File tmpFile = tmpDem.getSource().getLocalFile();
+		DataMode tmpDataMode = aManager.getViewDataMode(tmpDem);
+		aTask.logRegln("Deriving surface: " + tmpDataMode + "...");
+		aTask.setProgress(0.0);
+
+		try
+		{
+			MeshStruct tmpMS = formMesh(tmpFile, aGrid, tmpDataMode);
+			VtkDemStruct tmpVDS = formVtkDemStruct(tmpFile, aCenterPos, ImmutableMap.of(), aFeatureTypeL, tmpMS, aGrid,
+					tmpDataMode);
+			aTask.logRegln("\tThe surface has been derived.");
+
+			// Bail if the Task was aborted
+			if (aTask.isAborted() == true)
+				ThreadUtil.invokeAndWaitOnAwt(() -> aPainter.markFailure(null));
+			else
+				markComplete(tmpFile, aPainter, tmpVDS);
 		}
 		catch (Exception aExp)
 		{
@@ -185,17 +329,42 @@ public class VtkDemLoadUtil
 		}
 	}
 
+	/**
+	 * Helper method that hands off the {@link VtkDemStruct} to the
+	 * {@link VtkDemPainter}. The painter is updated on the AWT thread.
+	 */
+	private static void markComplete(File aFile, VtkDemPainter aPainter, VtkDemStruct aVDS)
+	{
+		DemGrid tmpGrid = aVDS != null ? aVDS.grid : null;
+		DemLoadEvent tmpEvent = DemLoadEvent.begin(aFile, Stage.Handoff);
+		tmpEvent.setGrid(tmpGrid);
+		ThreadUtil.invokeAndWaitOnAwt(() -> aPainter.markComplete(aVDS));
+		tmpEvent.finish(tmpGrid != null ? tmpGrid.getMemorySize() : 0L);
+	}
+
+	/**
+	 * Helper method that forms the mesh (of the specified {@link DataMode}) from
+	 * the {@link DemGrid}.
+	 */
+	private static MeshStruct formMesh(File aFile, DemGrid aGrid, DataMode aDataMode)
+	{
+		DemLoadEvent tmpEvent = DemLoadEvent.begin(aFile, Stage.Mesh);
+		tmpEvent.setGrid(aGrid);
+		MeshStruct retMS = GridMeshUtil.formMesh(aGrid, aDataMode);
+		tmpEvent.finish(DemLoadEvent.getNumBytes(retMS));
+		return retMS;
+	}
+
 	// TODO: Add javadoc
-	public static void colorDEM(String filename, SmallBodyModel smallBodyModel) throws IOException, FitsException
+	public static void colorDEM(String filename, SmallBodyModel smallBodyModel) throws IOException
 	{
-		Fits tmpFits = new Fits(filename);
-		HeaderStruct tmpHS = parseHeader(tmpFits);
+		HeaderStruct tmpHS = parseHeader(FitsCube.readHeader(new File(filename)));
 
 		// Define arrays now that we know the number of backplanes
 		int numBackPlanes = tmpHS.backPlaneIndexL.size();
 		List<FeatureType> featureTypeL = new ArrayList<>(numBackPlanes);
 		vtkFloatArray[] vValuesPerCellArr = new vtkFloatArray[numBackPlanes];
-		vtkFloatArray[] vValuesPerPointArr = new vtkFloatArray[numBackPlanes];
+		float[] scaleArr = new float[numBackPlanes];
 		int[] backPlaneIdxArr = new int[numBackPlanes];
 
 		// Go through each backplane
@@ -205,81 +374,78 @@ public class VtkDemLoadUtil
 			FeatureType tmpFeatureType = formNormalizedFeatureType(tmpHS.unprocessedBackPlaneNameL.get(i),
 					tmpHS.unprocessedBackPlaneUnitL.get(i));
 			featureTypeL.add(tmpFeatureType);
-
-			// Set number of components for each vtkFloatArray to 1
-			vValuesPerCellArr[i] = new vtkFloatArray();
-			vValuesPerCellArr[i].SetNumberOfComponents(1);
-			vValuesPerPointArr[i] = new vtkFloatArray();
-			vValuesPerPointArr[i].SetNumberOfComponents(1);
+			scaleArr[i] = (float) tmpFeatureType.getScale();
 
 			// Copy List element to array for faster lookup later
 			backPlaneIdxArr[i] = tmpHS.backPlaneIndexL.get(i);
 		}
 
-		// Check dimensions of actual data
-		final int NUM_PLANES = numBackPlanes + 3;
-		int[] axes = tmpHS.hdu.getAxes();
-//		if (axes.length != 3 || axes[0] != NUM_PLANES || axes[1] != axes[2])
-//		{
-//			throw new IOException("FITS file has incorrect dimensions");
-//		}
-
-		int liveSize = axes[1];
-		int liveSize2 = axes[2];
-
-		float[][][] data = (float[][][]) tmpHS.hdu.getData().getData();
-		tmpFits.getStream().close();
-
-		int[][] indices = new int[liveSize][liveSize2];
-		int c = 0;
-		float x, y, z;
-		float d;
+		// The (point) values must correspond to the small body model
+		vtkPolyData vSmallBodyPD = smallBodyModel.getSmallBodyPolyData();
+		int numPoints = (int) vSmallBodyPD.GetNumberOfPoints();
+
+		// Read the data cube in bands (via FitsBandReader). Values are accumulated
+		// in primitive arrays (sized to the small body model) and transferred (in
+		// bulk) to VTK once complete.
+		float[][] valueArr = new float[numBackPlanes][numPoints];
+		int numValues = 0;
+		int[] planeArr = new int[3 + numBackPlanes];
+		planeArr[0] = tmpHS.xIdx;
+		planeArr[1] = tmpHS.yIdx;
+		planeArr[2] = tmpHS.zIdx;
+		System.arraycopy(backPlaneIdxArr, 0, planeArr, 3, numBackPlanes);
+		try (FitsCube tmpCube = new FitsCube(new File(filename)))
+		{
+			int liveSize2 = tmpCube.getNumCols();
+			float[][] bpBandArr = new float[numBackPlanes][];
 
-		// First add points to the vtkPoints array
-		for (int m = 0; m < liveSize; ++m)
-			for (int n = 0; n < liveSize2; ++n)
+			try (FitsBandReader tmpReader = new FitsBandReader(tmpCube, planeArr))
 			{
-				indices[m][n] = -1;
-
-				// A pixel value of -1.0e38 means that pixel is invalid and should
-				// be skipped
-				x = data[tmpHS.xIdx][m][n];
-				y = data[tmpHS.yIdx][m][n];
-				z = data[tmpHS.zIdx][m][n];
-
-				// Check to see if x,y,z values are all valid
-				boolean valid = true;
-				valid &= VtkDemLoadUtil.isValidValue(x);
-				valid &= VtkDemLoadUtil.isValidValue(y);
-				valid &= VtkDemLoadUtil.isValidValue(z);
-
-				// Check to see if data for all backplanes are also valid
-				for (int i = 0; i < numBackPlanes; i++)
-				{
-					d = data[backPlaneIdxArr[i]][m][n];
-					valid &= VtkDemLoadUtil.isValidValue(d);
-				}
-
-				// Only add point if everything is valid
-				if (valid)
+				for (FitsBand aBand = tmpReader.next(); aBand != null; aBand = tmpReader.next())
 				{
+					float[] xBandArr = aBand.getValues(0);
+					float[] yBandArr = aBand.getValues(1);
+					float[] zBandArr = aBand.getValues(2);
 					for (int i = 0; i < numBackPlanes; i++)
+						bpBandArr[i] = aBand.getValues(3 + i);
+
+					int numBandValues = aBand.getNumRows() * liveSize2;
+					for (int c1 = 0; c1 < numBandValues; c1++)
 					{
-						d = data[backPlaneIdxArr[i]][m][n] * (float) featureTypeL.get(i).getScale();
-						vValuesPerCellArr[i].InsertNextTuple1(d);
+						// Only add point if everything is valid. The same predicate as
+						// the mesh (of the small body model) is utilized.
+						boolean valid = GridMeshUtil.isValidPixel(xBandArr, yBandArr, zBandArr, null, bpBandArr, c1,
+								DataMode.Regular);
+						if (valid == false)
+							continue;
+
+						// Bail if there are more valid pixels than points
+						if (numValues == numPoints)
+							throw new IOException("The DEM does not match the small body model. Valid pixels exceed "
+									+ "the number of points: " + numPoints);
+
+						for (int i = 0; i < numBackPlanes; i++)
+							valueArr[i][numValues] = bpBandArr[i][c1] * scaleArr[i];
+						numValues++;
 					}
-
-					indices[m][n] = c;
-					++c;
 				}
 			}
+		}
 
-		Map<FeatureType, vtkFloatArray> featureTypeValueM = new HashMap<>();
-		for (int c1 = 0; c1 < featureTypeL.size(); c1++)
-			featureTypeValueM.put(featureTypeL.get(c1), vValuesPerCellArr[c1]);
-		convertPointDataToCellData(smallBodyModel.getSmallBodyPolyData(), featureTypeValueM);
-		for (int c1 = 0; c1 < featureTypeL.size(); c1++)
-			vValuesPerCellArr[c1] = featureTypeValueM.get(featureTypeL.get(c1));
+		// Ensure the (point) values correspond to the small body model
+		if (numValues != numPoints)
+			throw new IOException("The DEM does not match the small body model. Valid pixels: " + numValues
+					+ " Points: " + numPoints);
+
+		// Convert the (point) values to cell values
+		vtkIdTypeArray vLegacyITA = new vtkIdTypeArray();
+		vSmallBodyPD.GetPolys().ExportLegacyFormat(vLegacyITA);
+		long[] legacyArr = vLegacyITA.GetJavaArray();
+		vLegacyITA.Delete();
+
+		float[][] cellValueArr = CellDataUtil.formLegacyCellValues(legacyArr, valueArr);
+		for (int i = 0; i < numBackPlanes; i++)
+			vValuesPerCellArr[i] = VtkArrayUtil.formFloatArray(cellValueArr[i], 1);
 
 		// Apply colors to the small body model
 		String[] nameArr = new String[featureTypeL.size()];
@@ -293,36 +459,6 @@ public class VtkDemLoadUtil
 		smallBodyModel.setSmallBodyPolyData(null, vValuesPerCellArr, nameArr, unitArr, ColoringValueType.CELLDATA);
 	}
 
-	/**
-	 * Utility helper method to convert the point data (which is how they are
-	 * stored in the Gaskell's cube file) to cell data.
-	 * <p>
-	 * Note the values will be replaced with completely different values in the
-	 * {@link FeatureType} to {@link vtkFloatArray} mapping.
-	 */
-	private static void convertPointDataToCellData(vtkPolyData aPolyData,
-			Map<FeatureType, vtkFloatArray> aFeatureTypeValueM)
-	{
-		vtkPointDataToCellData vConvertPDTCD = new vtkPointDataToCellData();
-		vConvertPDTCD.SetInputData(aPolyData);
-
-		for (FeatureType aKey : aFeatureTypeValueM.keySet())
-		{
-			vtkFloatArray vOldFA = aFeatureTypeValueM.get(aKey);
-			aPolyData.GetPointData().SetScalars(vOldFA);
-			vConvertPDTCD.Update();
-			vtkFloatArray vNewFA = new vtkFloatArray();
-			vtkDataArray vOScalarDA = ((vtkPolyData) vConvertPDTCD.GetOutput()).GetCellData().GetScalars();
-			vNewFA.DeepCopy(vOScalarDA);
-
-			aFeatureTypeValueM.put(aKey, vNewFA);
-		}
-
-		aPolyData.GetPointData().SetScalars(null);
-
-		vConvertPDTCD.Delete();
-	}
-
 	/**
 	 * Forms a normalized {@link FeatureType}.
 	 * <p>
@@ -382,21 +518,21 @@ public class VtkDemLoadUtil
 		return new FeatureType(processedName, processedUnits, processedScale);
 	}
 
-	/**
-	 * Utility helper method that returns true if the provided value is valid.
-	 * <p>
-	 * The value is valid as long as they do not equal {@literal INVALID_VALUE}
-	 */
-	private static boolean isValidValue(double aVal)
-	{
-		boolean valid = aVal != INVALID_VALUE;
-		return valid;
-	}
-
 	/**
 	 * Utility helper method that given a (FITS) file will return the
 	 * corresponding {@link VtkDemStruct}.
 	 * <p>
+	 * The data cube is accessed via a {@link FitsCube} (memory-mapped or
+	 * decompressed as rows are read). The {@link DemGrid} is formed (in
+	 * primitive arrays) via {@link GridMeshUtil} - in parallel when multiple
+	 * processors are available. The mesh of the
+	 * requested {@link DataMode} is then derived from the grid and transferred to
+	 * VTK in bulk.
+	 * <p>
+	 * The {@link DemGrid} is retained in the returned {@link VtkDemStruct} so
+	 * that the surface of any other {@link DataMode} can be derived without
+	 * reloading the file.
+	 * <p>
 	 * The load process can be canceled via the {@link Task#abort()}.
 	 * <p>
 	 * Returns the {@link VtkDemStruct} or null if aborted.
@@ -406,13 +542,15 @@ public class VtkDemLoadUtil
 	 * @param aDataMode The {@link DataMode} for which the data should be loaded.
 	 */
 	private static VtkDemStruct loadFitsFile(Task aTask, File aFile, DataMode aDataMode)
-			throws IOException, FitsException
+			throws IOException
 	{
-		List<vtkObject> abortL = new ArrayList<>();
-		vtkPoints points = new vtkPoints();
-
-		Fits tmpFits = new Fits(aFile);
-		HeaderStruct tmpHS = parseHeader(tmpFits);
+		// Only the header is read - the data unit is accessed via FitsCube
+		DemLoadEvent headerEvent = DemLoadEvent.begin(aFile, Stage.Header);
+		FitsHeader tmpHeader = FitsCube.readHeader(aFile);
+		HeaderStruct tmpHS = parseHeader(tmpHeader);
+		headerEvent.setSize(tmpHeader.getIntValue("NAXIS2", 0), tmpHeader.getIntValue("NAXIS1", 0),
+				tmpHS.backPlaneIndexL.size());
+		headerEvent.finish(tmpHeader.getDataOffset());
 
 		// Check to see if x,y,z planes were all defined
 		if (tmpHS.xIdx < 0)
@@ -424,12 +562,10 @@ public class VtkDemLoadUtil
 
 		// Define arrays now that we know the number of backplanes
 		int numBackPlanes = tmpHS.backPlaneIndexL.size();
-		int[] backPlaneIdx = new int[numBackPlanes];
 
 		// Containers to define our coloring options
 		List<FeatureType> featureTypeL = new ArrayList<>();
-		Map<FeatureType, vtkFloatArray> vValuesPerCellM = new HashMap<>();
-		Map<FeatureType, vtkFloatArray> vValuesPerPointM = new HashMap<>();
+		float[] scaleArr = new float[numBackPlanes];
 
 		// Go through each backplane
 		for (int i = 0; i < numBackPlanes; i++)
@@ -438,246 +574,345 @@ public class VtkDemLoadUtil
 			FeatureType tmpFeatureType = formNormalizedFeatureType(tmpHS.unprocessedBackPlaneNameL.get(i),
 					tmpHS.unprocessedBackPlaneUnitL.get(i));
 			featureTypeL.add(tmpFeatureType);
+			scaleArr[i] = (float) tmpFeatureType.getScale();
+		}
 
-			// Set number of components for each vtkFloatArray to 1
-			vtkFloatArray tmpColoringValuesPerCell = new vtkFloatArray();
-			tmpColoringValuesPerCell.SetNumberOfComponents(1);
-			vValuesPerCellM.put(tmpFeatureType, tmpColoringValuesPerCell);
-			abortL.add(tmpColoringValuesPerCell);
+		// The backplane values are loaded (on demand) from the FITS file
+		BackPlaneLoader tmpLoader = null;
+		if (isLazyBackPlanes == true)
+			tmpLoader = new FitsLoader(aFile, tmpHS, scaleArr);
 
-			vtkFloatArray tmpColoringValuesPerPoint = new vtkFloatArray();
-			tmpColoringValuesPerPoint.SetNumberOfComponents(1);
-			vValuesPerPointM.put(tmpFeatureType, tmpColoringValuesPerPoint);
-			abortL.add(tmpColoringValuesPerPoint);
+		// Open the (memory-mapped) data cube and form the grid. The grid is
+		// retrieved from the (sidecar) cache file when valid.
+		DemGrid tmpGrid;
+		Vector3D centerPos;
+		try (FitsCube tmpCube = new FitsCube(aFile))
+		{
+			DemLoadEvent cacheEvent = DemLoadEvent.begin(aFile, Stage.CacheRead);
+			tmpGrid = loadCachedGrid(aTask, tmpCube, scaleArr, tmpLoader);
+			cacheEvent.setGrid(tmpGrid);
+			cacheEvent.finish(tmpGrid != null ? DemGridCacheUtil.getCacheFile(aFile).length() : 0L);
+			if (tmpGrid == null)
+			{
+				// Every plane is read (the backplanes define the valid pixels). The
+				// backplane values are retained until the cache file is written so
+				// that the source is not read a second time.
+				DemLoadEvent cubeEvent = DemLoadEvent.begin(aFile, Stage.CubeRead);
+				tmpGrid = GridMeshUtil.formGrid(aTask, tmpCube, tmpHS, scaleArr, null);
+				int numPlanesRead = GridMeshUtil.getNumPlanesRead(tmpCube, tmpHS);
+				cubeEvent.setSize(tmpCube.getNumRows(), tmpCube.getNumCols(), numBackPlanes);
+				cubeEvent.finish(tmpCube.getDataSize() / tmpCube.getNumPlanes() * numPlanesRead);
+				if (tmpGrid != null && aTask.isAborted() == false)
+					tmpGrid = saveCachedGrid(aTask, tmpCube, scaleArr, tmpGrid, tmpLoader);
+			}
 
-			// Copy List element to array for faster lookup later
-			backPlaneIdx[i] = tmpHS.backPlaneIndexL.get(i);
+			// Retrieve the center position
+			int centerIndex = tmpCube.getNumRows() / 2;
+			float cX = tmpCube.readValue(tmpHS.xIdx, centerIndex, centerIndex);
+			float cY = tmpCube.readValue(tmpHS.yIdx, centerIndex, centerIndex);
+			float cZ = tmpCube.readValue(tmpHS.zIdx, centerIndex, centerIndex);
+			centerPos = new Vector3D(cX, cY, cZ);
 		}
 
-		// Check dimensions of actual data
-		final int NUM_PLANES = numBackPlanes + 3;
-		int[] axes = tmpHS.hdu.getAxes();
-//       if (axes.length != 3 || axes[0] != NUM_PLANES || axes[1] != axes[2])
-//       {
-//           throw new IOException("FITS file has incorrect dimensions");
-//       }
-
-		int liveSize = axes[1];
-		int liveSize2 = axes[2];
-
-		float[][][] data = (float[][][]) tmpHS.hdu.getData().getData();
-		tmpFits.getStream().close();
+		// Bail if the task has been aborted
+		if (tmpGrid == null || aTask.isAborted() == true)
+			return null;
 
-		int[][] indices = new int[liveSize][liveSize2];
-		int c = 0;
-		float x, y, z;
-		float d;
+		// Form the VTK state for the requested DataMode
+		MeshStruct tmpMS = formMesh(aFile, tmpGrid, aDataMode);
+		VtkDemStruct retVDS = formVtkDemStruct(aFile, centerPos, tmpHS.keyValueM, featureTypeL, tmpMS, tmpGrid,
+				aDataMode);
 
-		// First add points to the vtkPoints array
 		NumberUnit perNU = new NumberUnit("", "", 1.0, "0.00 %");
-		for (int m = 0; m < liveSize; ++m)
-		{
-			// Bail if the task has been aborted
-			if (aTask.isAborted() == true)
-				break;
+		double tmpProgress = 1.0;
+		aTask.logRegUpdate("\tProgress: " + perNU.getString(tmpProgress) + "\n");
+		aTask.setProgress(tmpProgress);
 
-			// Update progress
-			double tmpProgress = (m + 0.0) / liveSize;
-			tmpProgress = tmpProgress * 0.50;
-			aTask.logRegUpdate("\tProgress: " + perNU.getString(tmpProgress) + "\n");
-			aTask.setProgress(tmpProgress);
+		return retVDS;
+	}
 
-			for (int n = 0; n < liveSize2; ++n)
-			{
-				indices[m][n] = -1;
-
-				// A pixel value of -1.0e38 means that pixel is invalid and should
-				// be skipped
-				x = data[tmpHS.xIdx][m][n];
-				y = data[tmpHS.yIdx][m][n];
-				z = data[tmpHS.zIdx][m][n];
-				// Check to see if x,y,z values are all valid
-				boolean valid = x != INVALID_VALUE && y != INVALID_VALUE && z != INVALID_VALUE;
-				if (data.length > 6)
-					valid = aDataMode == DataMode.Regular || (valid && (data[7][m][n] != 0));
-
-				// Check to see if data for all backplanes are also valid
-				for (int i = 0; i < numBackPlanes; i++)
-				{
-					d = data[backPlaneIdx[i]][m][n];
-					valid = (valid && d != INVALID_VALUE);
-				}
+	/**
+	 * Returns true if the backplane values of (FITS) DEMs are loaded lazily (on
+	 * demand) rather than up front.
+	 */
+	public static boolean isLazyBackPlanes()
+	{
+		return isLazyBackPlanes;
+	}
 
-				// Only add point if everything is valid
-				if (valid)
-				{
-					points.InsertNextPoint(x, y, z);
-					for (int i = 0; i < numBackPlanes; i++)
-					{
-						FeatureType tmpFeatureType = featureTypeL.get(i);
+	/**
+	 * Sets whether the backplane values of (FITS) DEMs are loaded lazily (on
+	 * demand) rather than up front. The default is false.
+	 * <p>
+	 * When enabled only the geometry (and validity) of the DEM is retained at
+	 * load time. The values of a backplane are loaded the first time the
+	 * corresponding {@link FeatureType} is requested.
+	 * <p>
+	 * Note the on demand load is synchronous: it is performed by the thread that
+	 * requests the values - typically the AWT event dispatch thread (such as when
+	 * a coloring is selected). Thus this should only be enabled where memory is
+	 * more of a concern than responsiveness.
+	 * <p>
+	 * Note that when there is no (valid) cache file, the values of every
+	 * backplane are held (transiently) until the cache file has been written.
+	 * Later loads of the values are from the cache file.
+	 */
+	public static void setLazyBackPlanes(boolean aBool)
+	{
+		isLazyBackPlanes = aBool;
+	}
 
-						d = data[backPlaneIdx[i]][m][n] * (float) featureTypeL.get(i).getScale();
-						vValuesPerCellM.get(tmpFeatureType).InsertNextTuple1(d);
-					}
+	/**
+	 * Helper method that returns the {@link DemGrid} stored in the cache file of
+	 * the specified {@link FitsCube}.
+	 * <p>
+	 * Returns null if there is no valid cache file. A cache file that can not be
+	 * read is treated as if it were absent.
+	 */
+	private static DemGrid loadCachedGrid(Task aTask, FitsCube aCube, float[] aScaleArr, BackPlaneLoader aLoader)
+	{
+		try
+		{
+			DemGrid retGrid = DemGridCacheUtil.loadGrid(aCube, aScaleArr, aLoader);
+			if (retGrid != null)
+				aTask.logRegln("\tUtilizing cache file: " + DemGridCacheUtil.getCacheFile(aCube.getFile()).getName());
+			return retGrid;
+		}
+		catch (IOException aExp)
+		{
+			aTask.logRegln("\tFailed to read cache file. Reason: " + aExp.getMessage());
+			return null;
+		}
+	}
 
-					indices[m][n] = c;
-					++c;
-				}
-			}
+	/**
+	 * Helper method that saves the {@link DemGrid} to the cache file of the
+	 * specified {@link FitsCube}.
+	 * <p>
+	 * If a {@link BackPlaneLoader} is specified then the returned grid will not
+	 * retain the backplane values. The values will be loaded (on demand) from the
+	 * cache file - or via the provided loader should the cache file not be
+	 * available. Otherwise the provided grid is returned.
+	 * <p>
+	 * Failure to save the cache file is not fatal - it will just be logged.
+	 */
+	private static DemGrid saveCachedGrid(Task aTask, FitsCube aCube, float[] aScaleArr, DemGrid aGrid,
+			BackPlaneLoader aLoader)
+	{
+		BackPlaneLoader cacheLoader = null;
+		try
+		{
+			DemGridCacheUtil.saveGrid(aCube, aScaleArr, aGrid);
+			if (aLoader != null)
+				cacheLoader = DemGridCacheUtil.formCacheLoader(aCube, aScaleArr, aLoader);
+		}
+		catch (IOException aExp)
+		{
+			aTask.logRegln("\tFailed to write cache file. Reason: " + aExp.getMessage());
 		}
 
-		vtkPolyData tmpExteriorPD = new vtkPolyData();
-		vtkPolyData tmpInteriorPD = new vtkPolyData();
-		vtkCellArray polys = new vtkCellArray();
-		vtkIdList idList = new vtkIdList();
-		idList.SetNumberOfIds(3);
+		// Bail if the backplane values are to be retained
+		if (aLoader == null)
+			return aGrid;
 
-		abortL.add(tmpExteriorPD);
-		abortL.add(tmpInteriorPD);
-		abortL.add(points);
-		abortL.add(polys);
-		abortL.add(idList);
+		if (cacheLoader == null)
+			cacheLoader = aLoader;
+		return aGrid.cloneWithLoader(cacheLoader);
+	}
 
+	/**
+	 * Utility method that forms the {@link VtkDemStruct} associated with the
+	 * specified {@link MeshStruct}.
+	 * <p>
+	 * The mesh is transferred to VTK in bulk (via {@link VtkArrayUtil}) rather
+	 * than via per element JNI calls. The per point values of the mesh are
+	 * converted to per cell values via {@link CellDataUtil}. The point normals
+	 * are computed from the grid via
+	 * {@link GridMeshUtil#formNormals(DemGrid, DataMode, MeshStruct)} and the
+	 * exterior is traced via {@link GridBoundaryUtil}.
+	 *
+	 * @param aCenterPos The center of the DEM.
+	 * @param aKeyValueM The key-value mapping of the DEM.
+	 * @param aFeatureTypeL The {@link FeatureType}s associated with the values
+	 * (in slot order) of the mesh.
+	 * @param aMS The mesh to be transferred.
+	 * @param aGrid The {@link DemGrid} from which the mesh was derived.
+	 * @param aDataMode The {@link DataMode} associated with the mesh.
+	 */
+	public static VtkDemStruct formVtkDemStruct(Vector3D aCenterPos, Map<String, KeyValueNode> aKeyValueM,
+			List<FeatureType> aFeatureTypeL, MeshStruct aMS, DemGrid aGrid, DataMode aDataMode)
+	{
+		return formVtkDemStruct(null, aCenterPos, aKeyValueM, aFeatureTypeL, aMS, aGrid, aDataMode);
+	}
+
+	/**
+	 * Helper method that forms the {@link VtkDemStruct} associated with the
+	 * specified {@link MeshStruct}.
+	 * <p>
+	 * See {@link #formVtkDemStruct(Vector3D, Map, List, MeshStruct, DemGrid, DataMode)}.
+	 *
+	 * @param aFile The source file of the DEM. Used only to label the
+	 * {@link DemLoadEvent}s. May be null.
+	 */
+	private static VtkDemStruct formVtkDemStruct(File aFile, Vector3D aCenterPos, Map<String, KeyValueNode> aKeyValueM,
+			List<FeatureType> aFeatureTypeL, MeshStruct aMS, DemGrid aGrid, DataMode aDataMode)
+	{
+		// Transfer the mesh to VTK
+		DemLoadEvent cellEvent = DemLoadEvent.begin(aFile, Stage.CellConversion);
+		cellEvent.setGrid(aGrid);
+		vtkPolyData tmpExteriorPD = new vtkPolyData();
+		vtkPolyData tmpInteriorPD = new vtkPolyData();
+		vtkPoints points = VtkArrayUtil.formPoints(aMS.xyzArr);
+		vtkCellArray polys = VtkArrayUtil.formTriangleCellArray(aMS.connArr);
 		tmpInteriorPD.SetPoints(points);
 		tmpInteriorPD.SetPolys(polys);
 
-		// Now add connectivity information
-		int i0, i1, i2, i3;
-		for (int m = 1; m < liveSize; ++m)
+		// The per point values are retained since we need that later for drawing
+		// profile plots. The per cell values are the mean of the cell's points.
+		// Backplanes that have not been loaded are skipped.
+		float[][] cellValueArr = CellDataUtil.formTriangleCellValues(aMS.connArr, aMS.valueArr);
+		Map<FeatureType, vtkFloatArray> vValuesPerCellM = new HashMap<>();
+		Map<FeatureType, vtkFloatArray> vValuesPerPointM = new HashMap<>();
+		for (int i = 0; i < aFeatureTypeL.size(); i++)
 		{
-			// Bail if the task has been aborted
-			if (aTask.isAborted() == true)
-				break;
+			if (aMS.valueArr[i] == null)
+				continue;
 
-			// Update progress
-			double tmpProgress = (m + 0.0) / liveSize;
-			tmpProgress = (tmpProgress * 0.50) + 0.50;
-			aTask.logRegUpdate("\tProgress: " + perNU.getString(tmpProgress) + "\n");
-			aTask.setProgress(tmpProgress);
-
-			for (int n = 1; n < liveSize2; ++n)
-			{
-				// Get the indices of the 4 corners of the rectangle to the upper
-				// left
-				i0 = indices[m - 1][n - 1];
-				i1 = indices[m][n - 1];
-				i2 = indices[m - 1][n];
-				i3 = indices[m][n];
-
-				// Add upper left triangle
-				if (i0 >= 0 && i1 >= 0 && i2 >= 0)
-				{
-					idList.SetId(0, i0);
-					idList.SetId(1, i2);
-					idList.SetId(2, i1);
-					polys.InsertNextCell(idList);
-				}
-				// Add bottom right triangle
-				if (i2 >= 0 && i1 >= 0 && i3 >= 0)
-				{
-					idList.SetId(0, i2);
-					idList.SetId(1, i3);
-					idList.SetId(2, i1);
-					polys.InsertNextCell(idList);
-				}
-			}
+			FeatureType tmpFeatureType = aFeatureTypeL.get(i);
+			vValuesPerCellM.put(tmpFeatureType, VtkArrayUtil.formFloatArray(cellValueArr[i], 1));
+			vValuesPerPointM.put(tmpFeatureType, VtkArrayUtil.formFloatArray(aMS.valueArr[i], 1));
 		}
-
-		// Bail if the task has been aborted
-		if (aTask.isAborted() == true)
+		cellEvent.finish(DemLoadEvent.getNumBytes(aMS) + 4L * aMS.numCells * vValuesPerCellM.size());
+
+		// The (point) normals are computed analytically from the grid
+		DemLoadEvent normalEvent = DemLoadEvent.begin(aFile, Stage.Normals);
+		normalEvent.setGrid(aGrid);
+		float[] normalArr = GridMeshUtil.formNormals(aGrid, aDataMode, aMS);
+		vtkFloatArray vNormalsFA = VtkArrayUtil.formFloatArray(normalArr, 3);
+		vNormalsFA.SetName("Normals");
+		tmpInteriorPD.GetPointData().SetNormals(vNormalsFA);
+		normalEvent.finish(4L * normalArr.length);
+
+		// Form the exterior (directly from the grid's validity bitmask)
+		DemLoadEvent boundaryEvent = DemLoadEvent.begin(aFile, Stage.Boundary);
+		boundaryEvent.setGrid(aGrid);
+		LineStruct tmpBoundaryLS = GridBoundaryUtil.formBoundary(aGrid, aDataMode, aMS);
+		tmpExteriorPD.SetPoints(VtkArrayUtil.formPoints(tmpBoundaryLS.xyzArr));
+		tmpExteriorPD.SetLines(VtkArrayUtil.formLineCellArray(tmpBoundaryLS.connArr));
+		boundaryEvent.finish(4L * tmpBoundaryLS.xyzArr.length + 8L * tmpBoundaryLS.connArr.length);
+
+		// Form the (reduced resolution) level of detail. Only the VTK state of the
+		// selected level is formed: the finest level with no more than
+		// MAX_LOD_CELLS cells (or the coarsest level). Finer levels that are
+		// estimated (from the stride) to exceed the limit are not even formed.
+		DemLoadEvent lodEvent = DemLoadEvent.begin(aFile, Stage.LevelOfDetail);
+		lodEvent.setGrid(aGrid);
+		MeshStruct lodMS = null;
+		int lodStride = 0;
+		int prevNumCells = aMS.numCells;
+		int[] strideArr = GridPyramidUtil.LEVEL_STRIDE_ARR;
+		for (int c1 = 0; c1 < strideArr.length; c1++)
 		{
-			VtkUtil.deleteAll(abortL);
-			return null;
+			// Skip to next if the level would (most likely) exceed the limit
+			int tmpStride = strideArr[c1];
+			long estNumCells = aMS.numCells / ((long) tmpStride * tmpStride);
+			if (estNumCells > MAX_LOD_CELLS && c1 < strideArr.length - 1)
+				continue;
+
+			// Bail once a level no longer provides a reduction
+			MeshStruct tmpLevelMS = GridPyramidUtil.formLevel(aGrid, aDataMode, tmpStride);
+			if (tmpLevelMS == null || tmpLevelMS.numCells == 0 || tmpLevelMS.numCells >= prevNumCells)
+				break;
+			prevNumCells = tmpLevelMS.numCells;
+			lodMS = tmpLevelMS;
+			lodStride = tmpStride;
+
+			// Bail once the level is within the limit
+			if (tmpLevelMS.numCells <= MAX_LOD_CELLS)
+				break;
 		}
 
-		vtkPolyDataNormals normalsFilter = new vtkPolyDataNormals();
-		normalsFilter.SetInputData(tmpInteriorPD);
-		normalsFilter.SetComputeCellNormals(0);
-		normalsFilter.SetComputePointNormals(1);
-		normalsFilter.SplittingOff();
-		normalsFilter.FlipNormalsOn();
-		normalsFilter.Update();
+		VtkDemLodLevel tmpLodLevel = null;
+		if (lodMS != null)
+			tmpLodLevel = formLodLevel(aFeatureTypeL, lodMS, lodStride);
+		lodEvent.finish(lodMS != null ? DemLoadEvent.getNumBytes(lodMS) : 0L);
 
-		vtkPolyData normalsFilterOutput = normalsFilter.GetOutput();
-		tmpInteriorPD.DeepCopy(normalsFilterOutput);
+		return new VtkDemStruct(aCenterPos, aKeyValueM, aFeatureTypeL, vValuesPerCellM, vValuesPerPointM,
+				tmpInteriorPD, tmpExteriorPD, aDataMode, aGrid, tmpLodLevel);
+	}
 
-		// Form the exterior
-		PolyDataUtil.getBoundary(tmpInteriorPD, tmpExteriorPD);
-		// Remove scalar data since it interferes with setting the boundary color
-		tmpExteriorPD.GetCellData().SetScalars(null);
+	/**
+	 * Helper method that forms the {@link VtkDemLodLevel} associated with the
+	 * specified (reduced resolution) {@link MeshStruct}.
+	 */
+	private static VtkDemLodLevel formLodLevel(List<FeatureType> aFeatureTypeL, MeshStruct aMS, int aStride)
+	{
+		vtkPolyData tmpInteriorPD = new vtkPolyData();
+		tmpInteriorPD.SetPoints(VtkArrayUtil.formPoints(aMS.xyzArr));
+		tmpInteriorPD.SetPolys(VtkArrayUtil.formTriangleCellArray(aMS.connArr));
 
-		// Make a copy of per point data structures since we need that later for
-		// drawing profile plots.
-		for (int aIdx = 0; aIdx < numBackPlanes; aIdx++)
+		float[][] cellValueArr = CellDataUtil.formTriangleCellValues(aMS.connArr, aMS.valueArr);
+		Map<FeatureType, vtkFloatArray> vValuesPerCellM = new HashMap<>();
+		for (int i = 0; i < aFeatureTypeL.size(); i++)
 		{
-			FeatureType tmpKey = featureTypeL.get(aIdx);
-			vValuesPerPointM.get(tmpKey).DeepCopy(vValuesPerCellM.get(tmpKey));
+			if (cellValueArr[i] != null)
+				vValuesPerCellM.put(aFeatureTypeL.get(i), VtkArrayUtil.formFloatArray(cellValueArr[i], 1));
 		}
-		convertPointDataToCellData(tmpInteriorPD, vValuesPerCellM);
 
-		int centerIndex = liveSize / 2;
-		float cX = data[tmpHS.xIdx][centerIndex][centerIndex];
-		float cY = data[tmpHS.yIdx][centerIndex][centerIndex];
-		float cZ = data[tmpHS.zIdx][centerIndex][centerIndex];
-		Vector3D centerPos = new Vector3D(cX, cY, cZ);
-
-		// Delete data structures
-		idList.Delete();
-		double tmpProgress = 1.0;
-		aTask.logRegUpdate("\tProgress: " + perNU.getString(tmpProgress) + "\n");
-		aTask.setProgress(tmpProgress);
-
-		return new VtkDemStruct(centerPos, tmpHS.keyValueM, featureTypeL, vValuesPerCellM, vValuesPerPointM,
-				tmpInteriorPD, tmpExteriorPD, aDataMode);
+		return new VtkDemLodLevel(aStride, vValuesPerCellM, tmpInteriorPD);
 	}
 
 	/**
 	 * Utility method that given a (OBJ) file will return the corresponding
 	 * {@link VtkDemStruct}.
 	 * <p>
-	 * TODO: Due to the lack of streaming support there is no capability to
-	 * provide the user with live updates or allow the load process to be
-	 * aborted. This needs to be corrected!
+	 * The file is parsed (in parallel chunks) via {@link ObjMeshUtil} and the
+	 * resulting mesh is transferred to VTK in bulk. Progress is reported by the
+	 * number of bytes consumed and the load process can be canceled via the
+	 * {@link Task#abort()}.
+	 * <p>
+	 * Returns the {@link VtkDemStruct} or null if aborted.
 	 */
 	private static VtkDemStruct loadObjFile(Task aTask, File aFile) throws IOException
 	{
-		// Progress is indeterminate
-		aTask.logRegln("\tProgress is not available.");
-		aTask.logRegln("\tAbort support is limited.");
-		aTask.logRegln("\tPlease wait...");
-
 		// Load the file
-		vtkPolyData vInteriorPD;
+		MeshStruct tmpMS;
 		try
 		{
-			vInteriorPD = PolyDataUtil.loadOBJShapeModel(aFile.getPath());
+			DemLoadEvent parseEvent = DemLoadEvent.begin(aFile, Stage.ObjParse);
+			tmpMS = ObjMeshUtil.loadMesh(aTask, aFile);
+			parseEvent.finish(aFile.length());
 		}
-		catch (Exception aExp)
+		catch (IOException aExp)
 		{
-			throw new IOException("Failed to load obj file: " + aFile, aExp);
+			throw new IOException("Failed to load obj file: " + aFile + "\n\t" + aExp.getMessage(), aExp);
 		}
-		if (vInteriorPD == null)
-			throw new IOException("Failed to load obj file: " + aFile);
-
-		// Ensure we have a populated vInteriorPD
-		if (vInteriorPD.GetPoints().GetNumberOfPoints() == 0)
-			throw new IOException("Failed to load obj file: " + aFile + "\n\tData is empty!");
 
 		// Bail if the task was aborted
-		if (aTask.isAborted() == true)
-		{
-			vInteriorPD.Delete();
+		if (tmpMS == null || aTask.isAborted() == true)
 			return null;
-		}
+
+		// Ensure we have a populated mesh
+		if (tmpMS.numPoints == 0)
+			throw new IOException("Failed to load obj file: " + aFile + "\n\tData is empty!");
+
+		// Transfer the mesh to VTK
+		DemLoadEvent cellEvent = DemLoadEvent.begin(aFile, Stage.CellConversion);
+		vtkPolyData vInteriorPD = new vtkPolyData();
+		vInteriorPD.SetPoints(VtkArrayUtil.formPoints(tmpMS.xyzArr));
+		vInteriorPD.SetPolys(VtkArrayUtil.formTriangleCellArray(tmpMS.connArr));
+		cellEvent.finish(DemLoadEvent.getNumBytes(tmpMS));
 
 		Map<String, KeyValueNode> tmpKeyValueM = ImmutableMap.of();
 		Vector3D tmpCenterPos = new Vector3D(vInteriorPD.GetCenter());
 
 		// Form the exterior
+		DemLoadEvent boundaryEvent = DemLoadEvent.begin(aFile, Stage.Boundary);
 		vtkPolyData vExteriorPD = new vtkPolyData();
 		PolyDataUtil.getBoundary(vInteriorPD, vExteriorPD);
 		// Remove scalar data since it interferes with setting the boundary color
 		vExteriorPD.GetCellData().SetScalars(null);
+		boundaryEvent.finish(0L);
 
 		// Create the available FeatureTypes.
 		// Currently there is no support for FeatureTypes from OBJ files.
@@ -685,18 +920,26 @@ public class VtkDemLoadUtil
 		Map<FeatureType, vtkFloatArray> vValuesPerPointM = ImmutableMap.of();
 		List<FeatureType> featureTypeL = new ArrayList<>();
 
+		NumberUnit perNU = new NumberUnit("", "", 1.0, "0.00 %");
+		double tmpProgress = 1.0;
+		aTask.logRegUpdate("\tProgress: " + perNU.getString(tmpProgress) + "\n");
+		aTask.setProgress(tmpProgress);
+
 		return new VtkDemStruct(tmpCenterPos, tmpKeyValueM, featureTypeL, vValuesPerCellM, vValuesPerPointM, vInteriorPD,
-				vExteriorPD, DataMode.Plain);
+				vExteriorPD, DataMode.Plain, null, null);
 	}
 
-	// TODO: Add javadocs
-	private static HeaderStruct parseHeader(Fits aFits) throws IOException, FitsException
+	/**
+	 * Utility helper method that returns the {@link HeaderStruct} associated
+	 * with the specified {@link FitsHeader}.
+	 * <p>
+	 * The planes are identified via the PLANE* keywords: the x,y,z coordinate
+	 * planes and (in order of appearance) the backplanes.
+	 */
+	private static HeaderStruct parseHeader(FitsHeader aHeader)
 	{
-		BasicHDU<?> hdu = aFits.getHDU(0);
-		Header header = hdu.getHeader();
-
 		// Retrieve the key-value map
-		Map<String, KeyValueNode> keyValueM = DemLoadUtil.loadKeyValueMap(header);
+		Map<String, KeyValueNode> keyValueM = DemLoadUtil.loadKeyValueMap(aHeader);
 
 		// First pass, figure out number of planes and grab size and scale
 		// information
@@ -708,14 +951,13 @@ public class VtkDemLoadUtil
 		int yIdx = -1;
 		int zIdx = -1;
 		int planeCount = 0;
-		HeaderCard headerCard;
-		while ((headerCard = header.nextCard()) != null)
+		for (FitsHeader.Card aCard : aHeader.getCardList())
 		{
-			String headerKey = headerCard.getKey();
-			String headerValue = headerCard.getValue();
-			String headerComment = headerCard.getComment();
+			String headerKey = aCard.key;
+			String headerValue = aCard.value;
+			String headerComment = aCard.comment;
 
-			if (headerKey.startsWith("PLANE"))
+			if (headerKey.startsWith("PLANE") && headerValue != null)
 			{
 				// Determine if we are looking at a coordinate or a backplane
 				if (headerValue.startsWith("X"))
@@ -766,8 +1008,83 @@ public class VtkDemLoadUtil
 			}
 		}
 
-		return new HeaderStruct(hdu, keyValueM, backPlaneIndexL, unprocessedBackPlaneNameL, unprocessedBackPlaneUnitL,
+		return new HeaderStruct(aHeader, keyValueM, backPlaneIndexL, unprocessedBackPlaneNameL, unprocessedBackPlaneUnitL,
 				xIdx, yIdx, zIdx);
 	}
 
+	/**
+	 * Interface that defines a reader that loads the {@link VtkDemStruct} of a
+	 * file.
+	 */
+	public interface VtkDemReader
+	{
+		/**
+		 * Returns the {@link VtkDemStruct} loaded from the specified file or null
+		 * if the {@link Task} was aborted.
+		 *
+		 * @param aTask The {@link Task} used to monitor the load process.
+		 * @param aFile The file to be loaded.
+		 * @param aDataMode The {@link DataMode} for which the data should be
+		 * loaded.
+		 */
+		VtkDemStruct load(Task aTask, File aFile, DataMode aDataMode) throws IOException;
+	}
+
+	/**
+	 * Helper class that loads the values of a backplane from a (FITS) file.
+	 * <p>
+	 * A single {@link FitsCube} is shared across the loads of the backplanes so
+	 * that a compressed cube is not decompressed from the start for each
+	 * backplane. The cube is opened on the first load and closed once the values
+	 * of every backplane have been loaded.
+	 */
+	private static class FitsLoader implements BackPlaneLoader
+	{
+		// Ref vars
+		private final File refFile;
+		private final HeaderStruct refHS;
+
+		// Attributes
+		private final float[] scaleArr;
+
+		// State vars
+		private final boolean[] isLoadedArr;
+		private FitsCube workCube;
+
+		/** Standard Constructor */
+		FitsLoader(File aFile, HeaderStruct aHS, float[] aScaleArr)
+		{
+			refFile = aFile;
+			refHS = aHS;
+
+			scaleArr = aScaleArr;
+
+			isLoadedArr = new boolean[aScaleArr.length];
+			workCube = null;
+		}
+
+		@Override
+		public synchronized float[] load(DemGrid aGrid, int aSlot) throws IOException
+		{
+			if (workCube == null)
+				workCube = new FitsCube(refFile);
+
+			int tmpPlane = refHS.backPlaneIndexL.get(aSlot);
+			float[] retValueArr = GridMeshUtil.formRegularValues(workCube, aGrid, tmpPlane, scaleArr[aSlot]);
+
+			// Release the cube once every backplane has been loaded
+			isLoadedArr[aSlot] = true;
+			boolean isDone = true;
+			for (boolean aBool : isLoadedArr)
+				isDone &= aBool;
+			if (isDone == true)
+			{
+				workCube.close();
+				workCube = null;
+			}
+
+			return retValueArr;
+		}
+	}
+
 }
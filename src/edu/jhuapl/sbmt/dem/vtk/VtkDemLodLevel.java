@@ -0,0 +1,50 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import vtk.vtkFloatArray;
+import vtk.vtkPolyData;
+
+import edu.jhuapl.saavtk.feature.FeatureType;
+
+/**
+ * Intermediate object used to hold the VTK state associated with a single
+ * (reduced resolution) level of detail of a dem surface.
+ * <p>
+ * The (cell) values of a {@link FeatureType} whose backplane has not been
+ * loaded will be absent. Such values may be added (to the mutable map) once
+ * the backplane has been loaded.
+ * <p>
+ * While this class is immutable - the field members are not! The object that
+ * creates this intermediate struct is responsible for management of the life
+ * cycle of the underlying objects.
+ *
+ * @author lopeznr1
+ */
+public class VtkDemLodLevel
+{
+	/** The stride (reduction factor) relative to the full resolution grid. */
+	public final int stride;
+
+	public final Map<FeatureType, vtkFloatArray> vValuesPerCellM;
+	public final vtkPolyData vInteriorPD;
+
+	/** Standard Constructor */
+	public VtkDemLodLevel(int aStride, Map<FeatureType, vtkFloatArray> aValuesPerCellM, vtkPolyData aInteriorPD)
+	{
+		stride = aStride;
+
+		vValuesPerCellM = new HashMap<>(aValuesPerCellM);
+		vInteriorPD = aInteriorPD;
+	}
+
+	/**
+	 * Returns the number of cells (triangles) of this level.
+	 */
+	public long getNumCells()
+	{
+		return vInteriorPD.GetNumberOfCells();
+	}
+
+}
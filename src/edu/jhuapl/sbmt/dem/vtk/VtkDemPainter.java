@@ -5,16 +5,20 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executor;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 
 import com.google.common.collect.ImmutableList;
 
 import vtk.vtkProp;
 
+import edu.jhuapl.saavtk.feature.FeatureType;
 import edu.jhuapl.saavtk.vtk.VtkResource;
 import edu.jhuapl.sbmt.core.util.KeyValueNode;
 import edu.jhuapl.sbmt.dem.Dem;
 import edu.jhuapl.sbmt.dem.DemException;
+import edu.jhuapl.sbmt.dem.DemLoadScheduler;
+import edu.jhuapl.sbmt.dem.DemLoadScheduler.Slot;
 import edu.jhuapl.sbmt.dem.DemManager;
 
 import glum.source.Source;
@@ -52,6 +56,8 @@ public class VtkDemPainter implements TaskListener, VtkResource
 	private NotifyTask workTask;
 	private Exception workExp;
 	private SourceState workSS;
+	private DemGrid workGrid;
+	private volatile boolean isPrefetchActive;
 
 	// VTK vars
 	private Map<DataMode, VtkDemSurface> vDemSurfaceM;
@@ -73,6 +79,8 @@ public class VtkDemPainter implements TaskListener, VtkResource
 		workTask = new NotifyTask(Task.Invalid, this);
 		workExp = null;
 		workSS = null;
+		workGrid = null;
+		isPrefetchActive = false;
 
 		vDemSurfaceM = new HashMap<>();
 	}
@@ -101,6 +109,24 @@ public class VtkDemPainter implements TaskListener, VtkResource
 		return refManager;
 	}
 
+	/**
+	 * Returns the (approximate) amount of memory (in bytes) utilized by the
+	 * loaded state of this painter: the VTK state of all loaded
+	 * {@link VtkDemSurface}s plus the (Java side) {@link DemGrid}.
+	 * <p>
+	 * Returns 0 if nothing has been loaded.
+	 */
+	public long getMemorySize()
+	{
+		long retSize = 0L;
+		for (VtkDemSurface aSurface : vDemSurfaceM.values())
+			retSize += aSurface.getMemorySize();
+		if (workGrid != null)
+			retSize += workGrid.getMemorySize();
+
+		return retSize;
+	}
+
 	/**
 	 * Returns the list of VtkProps used to render this painter.
 	 */
@@ -208,8 +234,15 @@ public class VtkDemPainter implements TaskListener, VtkResource
 	 * <p>
 	 * On completion of a successful load the method {@link #isReady()} will
 	 * return true.
+	 * <p>
+	 * If a {@link DemGrid} has been retained (from a prior load) then the
+	 * surface will be derived from the grid rather than reloaded from the file.
+	 * <p>
+	 * The load is run via the provided {@link DemLoadScheduler}. A remote source
+	 * is first retrieved via a {@link Slot#Download} slot and then parsed via a
+	 * {@link Slot#Parse} slot.
 	 */
-	public void vtkStateInit(Executor aExecutor)
+	public void vtkStateInit(DemLoadScheduler<Dem> aScheduler)
 	{
 		// Bail if there is a load in progress
 		if (workTask.isDone() == false)
@@ -220,9 +253,67 @@ public class VtkDemPainter implements TaskListener, VtkResource
 		if (tmpSurface != null)
 			return;
 
+		// Derive the surface from the retained grid (no file access is needed)
+		if (workGrid != null && vDemSurfaceM.isEmpty() == false)
+		{
+			VtkDemSurface tmpLoadedSurface = vDemSurfaceM.values().iterator().next();
+			Vector3D tmpCenterPos = tmpLoadedSurface.getGeometricCenterPoint();
+			List<FeatureType> tmpFeatureTypeL = tmpLoadedSurface.getFeatureTypeList();
+			DemGrid tmpGrid = workGrid;
+
+			NotifyTask tmpTask = new NotifyTask(new BufferTask(), this);
+			workTask = tmpTask;
+			aScheduler.submit(refItem, Slot.Parse, () -> VtkDemLoadUtil.deriveVtkDemPainter(tmpTask, refManager, this,
+					tmpGrid, tmpCenterPos, tmpFeatureTypeL));
+			return;
+		}
+
 		// Start a new load
-		workTask = new NotifyTask(new BufferTask(), this);
-		aExecutor.execute(() -> VtkDemLoadUtil.loadVtkDemPainter(workTask, refManager, this));
+		NotifyTask tmpTask = new NotifyTask(new BufferTask(), this);
+		workTask = tmpTask;
+		if (VtkDemLoadUtil.isDownloadNeeded(refItem.getSource()) == false)
+		{
+			aScheduler.submit(refItem, Slot.Parse, () -> VtkDemLoadUtil.loadVtkDemPainter(tmpTask, refManager, this));
+			return;
+		}
+
+		// The parse is queued only once the download has completed
+		aScheduler.submit(refItem, Slot.Download, () -> {
+			if (VtkDemLoadUtil.downloadVtkDemPainter(tmpTask, refManager, this) == true)
+				aScheduler.submit(refItem, Slot.Parse,
+						() -> VtkDemLoadUtil.parseVtkDemPainter(tmpTask, refManager, this));
+		});
+	}
+
+	/**
+	 * Notifies this painter to perform an asynchronous prefetch (download) of
+	 * the {@link Dem}'s {@link Source}. No VTK state is loaded.
+	 * <p>
+	 * The download is run via the provided {@link DemLoadScheduler} in a
+	 * {@link Slot#Download} slot. No action is performed if the {@link Source}
+	 * is already local or there is a load (or prefetch) in progress.
+	 */
+	public void vtkStatePrefetch(DemLoadScheduler<Dem> aScheduler)
+	{
+		// Bail if there is a load (or prefetch) in progress
+		if (workTask.isDone() == false || isPrefetchActive == true)
+			return;
+
+		// Bail if nothing needs to be downloaded
+		if (VtkDemLoadUtil.isDownloadNeeded(refItem.getSource()) == false)
+			return;
+
+		isPrefetchActive = true;
+		aScheduler.submit(refItem, Slot.Download, () -> {
+			try
+			{
+				VtkDemLoadUtil.prefetchVtkDemPainter(refManager, this);
+			}
+			finally
+			{
+				isPrefetchActive = false;
+			}
+		});
 	}
 
 	@Override
@@ -240,6 +331,7 @@ public class VtkDemPainter implements TaskListener, VtkResource
 
 		cDemDA = ItemDrawAttr.Default;
 		vDemSurfaceM.clear();
+		workGrid = null;
 	}
 
 	@Override
@@ -295,6 +387,10 @@ public class VtkDemPainter implements TaskListener, VtkResource
 		vDemSurfaceM.put(aVDS.viewDataMode, tmpSurface);
 		workTask.setProgress(1.0);
 
+		// Retain the grid so that other DataModes can be derived
+		if (aVDS.grid != null)
+			workGrid = aVDS.grid;
+
 		// Switch to DataMode.Plain if that is what we are populated with
 		if (aVDS.viewDataMode == DataMode.Plain)
 			refManager.setViewDataMode(ImmutableList.of(refItem), DataMode.Plain);
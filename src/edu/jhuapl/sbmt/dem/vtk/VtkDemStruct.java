@@ -21,6 +21,10 @@ import edu.jhuapl.sbmt.core.util.KeyValueNode;
  * intended to be used as intermediate staging step while instantiating dem
  * data.
  * <p>
+ * The value maps only hold the {@link FeatureType}s whose backplane values are
+ * resident. The values of any other {@link FeatureType} can be (lazily) loaded
+ * via the {@link DemGrid}.
+ * <p>
  * The object that creates this intermediate struct is responsible for
  * management of the life cycle of the underlying objects.
  *
@@ -40,10 +44,23 @@ public class VtkDemStruct
 
 	public final DataMode viewDataMode;
 
+	/**
+	 * The full resolution grid from which the surface of any other
+	 * {@link DataMode} can be derived. May be null if not supported (OBJ).
+	 */
+	public final DemGrid grid;
+
+	/**
+	 * The (reduced resolution) level of detail utilized while interacting. May
+	 * be null if not supported (OBJ) or the grid is too small to be reduced.
+	 */
+	public final VtkDemLodLevel lodLevel;
+
 	/** Standard Constructor */
 	public VtkDemStruct(Vector3D aCenterOfDEM, Map<String, KeyValueNode> aKeyValueM, List<FeatureType> aFeatureTypeL,
 			Map<FeatureType, vtkFloatArray> aValuesPerCellM, Map<FeatureType, vtkFloatArray> aValuesPerPointM,
-			vtkPolyData aInteriorPD, vtkPolyData aExteriorPD, DataMode aViewDataMode)
+			vtkPolyData aInteriorPD, vtkPolyData aExteriorPD, DataMode aViewDataMode, DemGrid aGrid,
+			VtkDemLodLevel aLodLevel)
 	{
 		centerOfDEM = aCenterOfDEM;
 		keyValueM = aKeyValueM;
@@ -56,6 +73,8 @@ public class VtkDemStruct
 		vExteriorPD = aExteriorPD;
 
 		viewDataMode = aViewDataMode;
+		grid = aGrid;
+		lodLevel = aLodLevel;
 	}
 
 }
@@ -1,6 +1,7 @@
 package edu.jhuapl.sbmt.dem.vtk;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -14,6 +15,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Range;
 
 import vtk.vtkFloatArray;
+import vtk.vtkIdTypeArray;
 import vtk.vtkLookupTable;
 import vtk.vtkMapper;
 import vtk.vtkPolyData;
@@ -46,7 +48,15 @@ import edu.jhuapl.sbmt.dem.DemException;
  * <li>Configuration of interior via {@link ItemDrawAttr}
  * <li>Configuration of opacity and radial offset via {@link ItemDrawAttr}
  * <li>Support of interior {@link FeatureType} configuration
+ * <li>Level of detail rendering via a precomputed (grid) pyramid level
+ * <li>Lazy (on demand) loading of the values of a {@link FeatureType}
  * </ul>
+ * If the {@link VtkDemStruct} provides levels of detail then the reduced
+ * resolution mapper utilizes a precomputed level rather than decimating the
+ * surface. Color changes then only recolor the existing level.
+ * <p>
+ * The values of a {@link FeatureType} whose backplane has not been loaded are
+ * loaded (via the {@link DemGrid}) the first time they are requested.
  *
  * @author lopeznr1
  */
@@ -54,10 +64,12 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 {
 	// Ref vars
 	private final Dem refDem;
+	private final DemGrid refGrid;
 
 	// Attributes
 	private final ImmutableList<FeatureType> featureTypeL;
 	private final DataMode viewDataMode;
+	private final VtkDemLodLevel lodLevel;
 
 	// State vars
 	private ItemDrawAttr currDA;
@@ -68,16 +80,18 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 	private Vector3D cGeometricCenterPoint;
 	private ColorMapAttr cColorMapAttr;
 	private vtkFloatArray cValueFA;
+	private long cMemorySize;
 
 	// VTK vars
-	private final ImmutableMap<FeatureType, vtkFloatArray> vValuesPerCellM;
-	private final ImmutableMap<FeatureType, vtkFloatArray> vValuesPerPointM;
+	private final Map<FeatureType, vtkFloatArray> vValuesPerCellM;
+	private final Map<FeatureType, vtkFloatArray> vValuesPerPointM;
 
 	private final VtkLodActor vExteriorA;
 	private final vtkPolyData vExteriorPD;
 	private final VtkLodActor vInteriorA;
 	private final vtkPolyData vInteriorPD;
 	private final vtkLookupTable vColorLT;
+	private final vtkPolyDataMapper vLodPDM;
 
 	/** Standard Constructor */
 	public VtkDemSurface(Dem aDem, VtkDemStruct aStruct)
@@ -85,9 +99,11 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 		super(aDem.getSource().getPath());
 
 		refDem = aDem;
+		refGrid = aStruct.grid;
 
 		featureTypeL = ImmutableList.copyOf(aStruct.featureTypeL);
 		viewDataMode = aStruct.viewDataMode;
+		lodLevel = aStruct.lodLevel;
 
 		currDA = ItemDrawAttr.Default;
 		prevDA = ItemDrawAttr.Default;
@@ -96,9 +112,10 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 		cGeometricCenterPoint = aStruct.centerOfDEM;
 		cColorMapAttr = null;
 		cValueFA = null;
+		cMemorySize = -1L;
 
-		vValuesPerCellM = aStruct.vValuesPerCellM;
-		vValuesPerPointM = aStruct.vValuesPerPointM;
+		vValuesPerCellM = new HashMap<>(aStruct.vValuesPerCellM);
+		vValuesPerPointM = new HashMap<>(aStruct.vValuesPerPointM);
 
 		vExteriorA = new VtkLodActor(this);
 		vExteriorPD = aStruct.vExteriorPD;
@@ -115,6 +132,16 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 		vInteriorA = (VtkLodActor) getSmallBodyActor();
 		vInteriorPD = getSmallBodyPolyDataAtPosition();
 		vColorLT = new vtkLookupTable();
+
+		// Utilize the precomputed level (if available) for reduced resolution
+		vtkPolyDataMapper tmpLodPDM = null;
+		if (lodLevel != null)
+		{
+			tmpLodPDM = new vtkPolyDataMapper();
+			tmpLodPDM.SetInputData(lodLevel.vInteriorPD);
+			vInteriorA.setLodMapper(LodMode.MaxSpeed, tmpLodPDM);
+		}
+		vLodPDM = tmpLodPDM;
 	}
 
 	/**
@@ -133,6 +160,38 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 		return currDA;
 	}
 
+	/**
+	 * Returns the (approximate) amount of memory (in bytes) utilized by the VTK
+	 * state of this surface.
+	 * <p>
+	 * The size is computed (via VTK's GetActualMemorySize) and then cached until
+	 * the VTK state changes (values are loaded or the surface is recolored). The
+	 * associated {@link DemGrid} is not included.
+	 */
+	public long getMemorySize()
+	{
+		// Utilize the cached value
+		if (cMemorySize >= 0)
+			return cMemorySize;
+
+		long tmpSizeKiB = 0L;
+		tmpSizeKiB += vExteriorPD.GetActualMemorySize();
+		tmpSizeKiB += vInteriorPD.GetActualMemorySize();
+		for (vtkFloatArray aValueFA : vValuesPerCellM.values())
+			tmpSizeKiB += aValueFA.GetActualMemorySize();
+		for (vtkFloatArray aValueFA : vValuesPerPointM.values())
+			tmpSizeKiB += aValueFA.GetActualMemorySize();
+		if (lodLevel != null)
+		{
+			tmpSizeKiB += lodLevel.vInteriorPD.GetActualMemorySize();
+			for (vtkFloatArray aValueFA : lodLevel.vValuesPerCellM.values())
+				tmpSizeKiB += aValueFA.GetActualMemorySize();
+		}
+
+		cMemorySize = 1024L * tmpSizeKiB;
+		return cMemorySize;
+	}
+
 	/**
 	 * Returns the list of available {@link FeatureType}s.
 	 */
@@ -150,7 +209,7 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 	 */
 	public Range<Double> getValueRangeFor(FeatureType aFeatureType)
 	{
-		vtkFloatArray vTmpFA = vValuesPerCellM.get(aFeatureType);
+		vtkFloatArray vTmpFA = getValuesForCellData(aFeatureType);
 		if (vTmpFA == null)
 			return null;
 
@@ -170,6 +229,7 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 	 */
 	public vtkFloatArray getValuesForCellData(FeatureType aFeatureType)
 	{
+		loadValuesFor(aFeatureType);
 		return vValuesPerCellM.get(aFeatureType);
 	}
 
@@ -182,6 +242,7 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 	 */
 	public vtkFloatArray getValuesForPointData(FeatureType aFeatureType)
 	{
+		loadValuesFor(aFeatureType);
 		return vValuesPerPointM.get(aFeatureType);
 	}
 
@@ -262,6 +323,14 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 		vInteriorA.Delete();
 		vInteriorPD.Delete();
 		vColorLT.Delete();
+
+		if (lodLevel != null)
+		{
+			VtkUtil.deleteAll(lodLevel.vValuesPerCellM.values());
+			lodLevel.vInteriorPD.Delete();
+		}
+		if (vLodPDM != null)
+			vLodPDM.Delete();
 	}
 
 	@Override
@@ -272,7 +341,7 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 		// Update color state
 		ColorProvider tmpIntCP = currDA.getIntCP();
 		FeatureType tmpFeatureType = tmpIntCP.getFeatureType();
-		vtkFloatArray vTmpValueFA = vValuesPerCellM.get(tmpFeatureType);
+		vtkFloatArray vTmpValueFA = getValuesForCellData(tmpFeatureType);
 
 		ColorMapAttr tmpColorMapAttr = null;
 		if (tmpIntCP instanceof ColorBarColorProvider)
@@ -328,14 +397,22 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 		// Update the cache
 		cValueFA = aValueFA;
 		cColorMapAttr = aColorMapAttr;
+		cMemorySize = -1L;
 
 		// Clear out the colorization and bail
 		vtkMapper vInteriorM = vInteriorA.GetMapper();
 		if (aFeatureType == FeatureType.Invalid || aValueFA == null || aColorMapAttr == null)
 		{
-			vtkPolyDataMapper tmpDecimatedPDM = LodUtil.createQuadricDecimatedMapper(vInteriorPD);
-			vInteriorA.setLodMapper(LodMode.MaxSpeed, tmpDecimatedPDM);
-			tmpDecimatedPDM.ScalarVisibilityOff();
+			if (vLodPDM != null)
+			{
+				vLodPDM.ScalarVisibilityOff();
+			}
+			else
+			{
+				vtkPolyDataMapper tmpDecimatedPDM = LodUtil.createQuadricDecimatedMapper(vInteriorPD);
+				vInteriorA.setLodMapper(LodMode.MaxSpeed, tmpDecimatedPDM);
+				tmpDecimatedPDM.ScalarVisibilityOff();
+			}
 			vInteriorM.ScalarVisibilityOff();
 
 			vInteriorPD.Modified();
@@ -349,29 +426,101 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 
 		// Update the surface color
 		Color nanColor = aColorMapAttr.getColorTable().getNanColor();
-		vtkUnsignedCharArray vTmpColorUCA = new vtkUnsignedCharArray();
-		vTmpColorUCA.SetNumberOfComponents(3);
+		vtkUnsignedCharArray vTmpColorUCA = formColorArray(aValueFA, nanColor);
+
+		// Recolor the precomputed level
+		vtkFloatArray vLodValueFA = null;
+		if (lodLevel != null)
+			vLodValueFA = lodLevel.vValuesPerCellM.get(aFeatureType);
+		if (vLodValueFA != null)
+		{
+			vLodPDM.SetLookupTable(vColorLT);
+			vLodPDM.UseLookupTableScalarRangeOn();
+			vLodPDM.ScalarVisibilityOn();
+
+			lodLevel.vInteriorPD.GetCellData().SetScalars(formColorArray(vLodValueFA, nanColor));
+			lodLevel.vInteriorPD.Modified();
+		}
+		else
+		{
+			vtkPolyDataMapper tmpDecimatedPDM = LodUtil.createQuadricDecimatedMapper(vInteriorPD);
+			vInteriorA.setLodMapper(LodMode.MaxSpeed, tmpDecimatedPDM);
+			tmpDecimatedPDM.SetLookupTable(vColorLT);
+			tmpDecimatedPDM.UseLookupTableScalarRangeOn();
+		}
+
+		vInteriorPD.GetCellData().SetScalars(vTmpColorUCA);
+		vInteriorPD.Modified();
+	}
+
+	/**
+	 * Helper method that returns the (per cell) colors associated with the
+	 * specified values. The colors are determined via the lookup table.
+	 */
+	private vtkUnsignedCharArray formColorArray(vtkFloatArray aValueFA, Color aNanColor)
+	{
+		vtkUnsignedCharArray retColorUCA = new vtkUnsignedCharArray();
+		retColorUCA.SetNumberOfComponents(3);
 		for (int aIdx = 0; aIdx < aValueFA.GetNumberOfTuples(); ++aIdx)
 		{
 			double value = aValueFA.GetValue(aIdx);
 
-			Color tmpColor = nanColor;
+			Color tmpColor = aNanColor;
 			if (Double.isNaN(value) == false && Double.isFinite(value) == true)
 			{
 				double[] colorArr = vColorLT.GetColor(value);
 				tmpColor = new Color((float) colorArr[0], (float) colorArr[1], (float) colorArr[2]);
 			}
 
-			vTmpColorUCA.InsertNextTuple3(tmpColor.getRed(), tmpColor.getGreen(), tmpColor.getBlue());
+			retColorUCA.InsertNextTuple3(tmpColor.getRed(), tmpColor.getGreen(), tmpColor.getBlue());
 		}
 
-		vtkPolyDataMapper tmpDecimatedPDM = LodUtil.createQuadricDecimatedMapper(vInteriorPD);
-		vInteriorA.setLodMapper(LodMode.MaxSpeed, tmpDecimatedPDM);
-		tmpDecimatedPDM.SetLookupTable(vColorLT);
-		tmpDecimatedPDM.UseLookupTableScalarRangeOn();
+		return retColorUCA;
+	}
 
-		vInteriorPD.GetCellData().SetScalars(vTmpColorUCA);
-		vInteriorPD.Modified();
+	/**
+	 * Helper method that ensures the (point and cell) values associated with the
+	 * specified {@link FeatureType} are resident.
+	 * <p>
+	 * The values of the backplane are retrieved from the {@link DemGrid} (which
+	 * will load them if necessary) and then the values for this surface and its
+	 * level of detail are derived.
+	 */
+	private void loadValuesFor(FeatureType aFeatureType)
+	{
+		// Bail if the values are resident or can not be loaded
+		if (vValuesPerPointM.containsKey(aFeatureType) == true || refGrid == null)
+			return;
+
+		// Bail if the FeatureType is not supported
+		int tmpSlot = featureTypeL.indexOf(aFeatureType);
+		if (tmpSlot == -1)
+			return;
+
+		float[] regularValueArr;
+		try
+		{
+			regularValueArr = refGrid.getRegularValues(tmpSlot);
+		}
+		catch (IOException aExp)
+		{
+			throw new DemException("Failed to load values for feature: " + aFeatureType.getName(), aExp);
+		}
+
+		float[] pointValueArr = GridMeshUtil.formMeshValues(refGrid, viewDataMode, regularValueArr);
+		vValuesPerPointM.put(aFeatureType, VtkArrayUtil.formFloatArray(pointValueArr, 1));
+		vValuesPerCellM.put(aFeatureType, formCellValues(vInteriorPD, pointValueArr));
+
+		// Invalidate the (cached) memory size
+		cMemorySize = -1L;
+
+		// Bail if there is no level of detail (or it is resident)
+		if (lodLevel == null || lodLevel.vValuesPerCellM.containsKey(aFeatureType) == true)
+			return;
+
+		float[] lodValueArr = GridPyramidUtil.formLevelValues(refGrid, viewDataMode, lodLevel.stride,
+				regularValueArr);
+		lodLevel.vValuesPerCellM.put(aFeatureType, formCellValues(lodLevel.vInteriorPD, lodValueArr));
 	}
 
 	/**
@@ -410,6 +559,21 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 		vExteriorA.SetPosition(tmpPos.toArray());
 	}
 
+	/**
+	 * Utility helper method that returns the (per cell) values of the specified
+	 * {@link vtkPolyData} given the (per point) values.
+	 */
+	private static vtkFloatArray formCellValues(vtkPolyData aPolyData, float[] aPointValueArr)
+	{
+		vtkIdTypeArray vLegacyITA = new vtkIdTypeArray();
+		aPolyData.GetPolys().ExportLegacyFormat(vLegacyITA);
+		long[] legacyArr = vLegacyITA.GetJavaArray();
+		vLegacyITA.Delete();
+
+		float[][] cellValueArr = CellDataUtil.formLegacyCellValues(legacyArr, new float[][] { aPointValueArr });
+		return VtkArrayUtil.formFloatArray(cellValueArr[0], 1);
+	}
+
 	/**
 	 * Utility method to form a clone of this {@link VtkDemSurface}.
 	 * <p>
@@ -451,8 +615,26 @@ public class VtkDemSurface extends GenericPolyhedralModel implements VtkResource
 			tmpColoringValuesPerPointM.put(aKey, tmpFA);
 		}
 
+		VtkDemLodLevel tmpLodLevel = null;
+		if (aVDS.lodLevel != null)
+		{
+			vtkPolyData tmpLodPD = new vtkPolyData();
+			tmpLodPD.DeepCopy(aVDS.lodLevel.vInteriorPD);
+
+			Map<FeatureType, vtkFloatArray> tmpLodValuesPerCellM = new HashMap<>();
+			for (FeatureType aKey : aVDS.lodLevel.vValuesPerCellM.keySet())
+			{
+				vtkFloatArray tmpFA = new vtkFloatArray();
+				tmpFA.DeepCopy(aVDS.lodLevel.vValuesPerCellM.get(aKey));
+				tmpLodValuesPerCellM.put(aKey, tmpFA);
+			}
+
+			tmpLodLevel = new VtkDemLodLevel(aVDS.lodLevel.stride, tmpLodValuesPerCellM, tmpLodPD);
+		}
+
 		VtkDemStruct tmpStruct = new VtkDemStruct(aVDS.cGeometricCenterPoint, ImmutableMap.of(), aVDS.featureTypeL,
-				tmpColoringValuesPerCellM, tmpColoringValuesPerPointM, tmpInteriorPD, tmpExteriorPD, aVDS.viewDataMode);
+				tmpColoringValuesPerCellM, tmpColoringValuesPerPointM, tmpInteriorPD, tmpExteriorPD, aVDS.viewDataMode,
+				aVDS.refGrid, tmpLodLevel);
 
 		VtkDemSurface retVDS = new VtkDemSurface(aVDS.refDem, tmpStruct);
 		return retVDS;
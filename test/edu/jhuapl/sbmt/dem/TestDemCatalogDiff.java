@@ -0,0 +1,59 @@
+package edu.jhuapl.sbmt.dem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import glum.source.PlainSource;
+
+/**
+ * Tests that {@link DemCatalogDiff} retains the (old) instances of unchanged
+ * items and reports the added and removed items.
+ *
+ * @author lopeznr1
+ */
+class TestDemCatalogDiff
+{
+	@Test
+	void testDiff()
+	{
+		DemStruct itemA = formStruct("a.fits", 10.0);
+		DemStruct itemB = formStruct("b.fits", 20.0);
+		DemStruct itemC = formStruct("c.fits", 30.0);
+		List<DemStruct> oldL = List.of(itemA, itemB, itemC);
+
+		// New version: a is unchanged, b has moved, c is removed and d is added
+		DemStruct newA = formStruct("a.fits", 10.0);
+		DemStruct newB = formStruct("b.fits", 25.0);
+		DemStruct newD = formStruct("d.fits", 40.0);
+		DemCatalogDiff tmpDiff = DemCatalogDiff.of(oldL, List.of(newD, newA, newB));
+
+		assertFalse(tmpDiff.isEmpty());
+		assertEquals(List.of(newD, newB), tmpDiff.getAddedItems());
+		assertEquals(List.of(itemB, itemC), tmpDiff.getRemovedItems());
+		assertEquals(3, tmpDiff.getMergedItems().size());
+		assertSame(newD, tmpDiff.getMergedItems().get(0));
+		assertSame(itemA, tmpDiff.getMergedItems().get(1));
+		assertSame(newB, tmpDiff.getMergedItems().get(2));
+
+		// Same content (with undefined geometry)
+		DemStruct itemE = formStruct("e.fits", Double.NaN);
+		tmpDiff = DemCatalogDiff.of(List.of(itemA, itemE), List.of(newA, formStruct("e.fits", Double.NaN)));
+		assertTrue(tmpDiff.isEmpty());
+		assertSame(itemE, tmpDiff.getMergedItems().get(1));
+	}
+
+	/**
+	 * Utility helper method that forms a {@link DemStruct} with the specified
+	 * file name and latitude.
+	 */
+	private static DemStruct formStruct(String aName, double aLat)
+	{
+		Dem tmpDem = new Dem(new PlainSource(new File("/browse", aName), null), aLat, 45.0, 1.0, 100.0);
+		return new DemStruct(tmpDem);
+	}
+
+}
@@ -0,0 +1,128 @@
+package edu.jhuapl.sbmt.dem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.jhuapl.sbmt.dem.DemLoadScheduler.Priority;
+import edu.jhuapl.sbmt.dem.DemLoadScheduler.Slot;
+
+/**
+ * Tests that {@link DemLoadScheduler} dispatches work by priority and honors
+ * the separate (per slot) concurrency limits.
+ *
+ * @author lopeznr1
+ */
+class TestDemLoadScheduler
+{
+	@Test
+	void testPriority() throws Exception
+	{
+		DemLoadScheduler<String> tmpScheduler = new DemLoadScheduler<>(1, 1);
+		List<String> runL = new CopyOnWriteArrayList<>();
+
+		// Occupy the (only) parse slot
+		CountDownLatch blockLatch = new CountDownLatch(1);
+		CountDownLatch startLatch = new CountDownLatch(1);
+		tmpScheduler.submit("blocker", Slot.Parse, () -> {
+			startLatch.countDown();
+			await(blockLatch);
+		});
+		assertTrue(startLatch.await(10, TimeUnit.SECONDS));
+
+		// Queue work in the opposite order of priority
+		CountDownLatch doneLatch = new CountDownLatch(4);
+		tmpScheduler.setPriority("b", Priority.Visible);
+		tmpScheduler.setPriority("c", Priority.Selected);
+		for (String aItem : ImmutableList.of("a", "b", "c", "d"))
+		{
+			tmpScheduler.submit(aItem, Slot.Parse, () -> {
+				runL.add(aItem);
+				doneLatch.countDown();
+			});
+		}
+		assertEquals(4, tmpScheduler.getQueueDepth());
+		assertEquals(4, tmpScheduler.getQueueDepth(Slot.Parse));
+		assertEquals(1, tmpScheduler.getNumActive(Slot.Parse));
+		assertEquals(Priority.Prefetch, tmpScheduler.getPriority("a"));
+
+		// Reprioritize a queued item
+		tmpScheduler.setPriority("d", Priority.Analyze);
+
+		// The download slot is not blocked by the parse slot (and is served by
+		// a dedicated pool of threads)
+		CountDownLatch downloadLatch = new CountDownLatch(1);
+		List<String> threadNameL = new CopyOnWriteArrayList<>();
+		tmpScheduler.submit("e", Slot.Download, () -> {
+			threadNameL.add(Thread.currentThread().getName());
+			downloadLatch.countDown();
+		});
+		assertTrue(downloadLatch.await(10, TimeUnit.SECONDS));
+		assertTrue(threadNameL.get(0).contains(Slot.Download.toString()));
+
+		blockLatch.countDown();
+		assertTrue(doneLatch.await(10, TimeUnit.SECONDS));
+		assertEquals(ImmutableList.of("d", "c", "b", "a"), runL);
+		assertEquals(0, tmpScheduler.getQueueDepth());
+
+		tmpScheduler.shutdown();
+	}
+
+	@Test
+	void testLimit() throws Exception
+	{
+		DemLoadScheduler<String> tmpScheduler = new DemLoadScheduler<>(2, 1);
+		assertEquals(2, tmpScheduler.getLimit(Slot.Download));
+		assertThrows(IllegalArgumentException.class, () -> tmpScheduler.setLimit(Slot.Parse, 0));
+
+		CountDownLatch blockLatch = new CountDownLatch(1);
+		CountDownLatch startLatch = new CountDownLatch(3);
+		for (String aItem : ImmutableList.of("a", "b", "c"))
+		{
+			tmpScheduler.submit(aItem, Slot.Parse, () -> {
+				startLatch.countDown();
+				await(blockLatch);
+			});
+		}
+
+		// Only one parse job runs until the limit is raised
+		Thread.sleep(100);
+		assertEquals(1, tmpScheduler.getNumActive(Slot.Parse));
+		assertEquals(ImmutableList.of("b", "c"), tmpScheduler.getQueuedItems());
+
+		// Removed items are never run
+		tmpScheduler.remove("c");
+		tmpScheduler.setLimit(Slot.Parse, 3);
+		assertEquals(2, tmpScheduler.getNumActive(Slot.Parse));
+		assertEquals(0, tmpScheduler.getQueueDepth());
+
+		blockLatch.countDown();
+		assertFalse(startLatch.await(100, TimeUnit.MILLISECONDS));
+		assertEquals(1, startLatch.getCount());
+
+		tmpScheduler.shutdown();
+	}
+
+	/**
+	 * Helper method that waits (uninterruptibly) on the specified latch.
+	 */
+	private static void await(CountDownLatch aLatch)
+	{
+		try
+		{
+			aLatch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException aExp)
+		{
+			; // Nothing to do
+		}
+	}
+
+}
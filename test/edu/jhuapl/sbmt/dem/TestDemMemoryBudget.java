@@ -0,0 +1,56 @@
+package edu.jhuapl.sbmt.dem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests that {@link DemMemoryBudget} selects evictions least recently used
+ * first and only from the evictable items.
+ *
+ * @author lopeznr1
+ */
+class TestDemMemoryBudget
+{
+	@Test
+	void testSelectEvictions()
+	{
+		DemMemoryBudget<String> tmpBudget = new DemMemoryBudget<>(160L);
+
+		Map<String, Long> sizeM = new LinkedHashMap<>();
+		sizeM.put("a", 40L);
+		sizeM.put("b", 40L);
+		sizeM.put("c", 40L);
+		sizeM.put("d", 0L);
+		sizeM.put("pinned", 40L);
+
+		// Within budget: nothing is evicted
+		assertEquals(ImmutableList.of(), tmpBudget.selectEvictions(sizeM, aItem -> true));
+		tmpBudget.setBudget(100L);
+		assertEquals(100L, tmpBudget.getBudget());
+
+		// Usage order: c, a, pinned, b
+		tmpBudget.markUsed("c");
+		tmpBudget.markUsed("a");
+		tmpBudget.markUsed("pinned");
+		tmpBudget.markUsed("b");
+
+		// Over budget by 60: the 2 least recently used (evictable) items
+		assertEquals(ImmutableList.of("c", "a"),
+				tmpBudget.selectEvictions(sizeM, aItem -> aItem.equals("pinned") == false));
+
+		// Items that were never used are evicted first
+		tmpBudget.remove("b");
+		assertEquals(ImmutableList.of("b", "c"),
+				tmpBudget.selectEvictions(sizeM, aItem -> aItem.equals("pinned") == false));
+
+		// Not enough evictable items: evict what is available
+		assertEquals(ImmutableList.of("c"), tmpBudget.selectEvictions(sizeM, aItem -> aItem.equals("c")));
+	}
+
+}
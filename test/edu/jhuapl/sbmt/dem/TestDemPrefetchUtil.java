@@ -0,0 +1,108 @@
+package edu.jhuapl.sbmt.dem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests that {@link DemPrefetchUtil} selects the {@link Dem}s that are inside
+ * or near the view - and that the {@link DemSpatialIndex} based selection
+ * matches the (linear) selection.
+ *
+ * @author lopeznr1
+ */
+class TestDemPrefetchUtil
+{
+	@Test
+	void testSelectItems()
+	{
+		// Body of radius 10 km viewed from 30 km along the x-axis
+		double bodyRadius = 10.0;
+		Vector3D posVect = new Vector3D(30, 0, 0);
+		Vector3D focalVect = Vector3D.ZERO;
+
+		// Dems with an extent of 1 km: at the view center, near the view edge,
+		// just outside the view and on the far side of the body
+		Dem centerDem = new Dem(null, 0, 0, 10, 100);
+		Dem edgeDem = new Dem(null, 0, 25, 10, 100);
+		Dem nearDem = new Dem(null, 0, 60, 10, 100);
+		Dem farDem = new Dem(null, 0, 180, 10, 100);
+
+		// Dems that are too small to resolve or have no geometry
+		Dem tinyDem = new Dem(null, 0, 5, 0.1, 10);
+		Dem nanDem = new Dem(null, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+
+		List<Dem> itemL = ImmutableList.of(farDem, nearDem, tinyDem, edgeDem, nanDem, centerDem);
+
+		// Dems inside and near the view, closest to the view center first
+		List<Dem> tmpL = DemPrefetchUtil.selectItems(itemL, posVect, focalVect, 30.0, bodyRadius, 10);
+		assertEquals(ImmutableList.of(centerDem, edgeDem, nearDem), tmpL);
+
+		// Max number of items
+		tmpL = DemPrefetchUtil.selectItems(itemL, posVect, focalVect, 30.0, bodyRadius, 2);
+		assertEquals(ImmutableList.of(centerDem, edgeDem), tmpL);
+
+		// A narrower view excludes the dem that is further out
+		tmpL = DemPrefetchUtil.selectItems(itemL, posVect, focalVect, 10.0, bodyRadius, 10);
+		assertEquals(ImmutableList.of(centerDem, edgeDem), tmpL);
+
+		// No view direction
+		tmpL = DemPrefetchUtil.selectItems(itemL, posVect, posVect, 30.0, bodyRadius, 10);
+		assertEquals(ImmutableList.of(), tmpL);
+
+		// The index based selection must match the linear selection
+		DemSpatialIndex<Dem> tmpIndex = new DemSpatialIndex<>(itemL, Function.identity(), bodyRadius);
+		for (double aViewAngle : new double[] { 10.0, 30.0 })
+		{
+			for (int aMaxItems : new int[] { 2, 10 })
+			{
+				List<Dem> expL = DemPrefetchUtil.selectItems(itemL, posVect, focalVect, aViewAngle, bodyRadius, aMaxItems);
+				tmpL = DemPrefetchUtil.selectItems(tmpIndex, posVect, focalVect, aViewAngle, bodyRadius, aMaxItems);
+				assertEquals(expL, tmpL);
+			}
+		}
+	}
+
+	@Test
+	void testIndexAgainstLinear()
+	{
+		Random tmpRandom = new Random(42);
+		double bodyRadius = 10.0;
+
+		// Dems with an extent of up to 4 km
+		List<Dem> itemL = new ArrayList<>();
+		for (int c1 = 0; c1 < 2000; c1++)
+		{
+			double lat = Math.toDegrees(Math.asin(2 * tmpRandom.nextDouble() - 1));
+			double lon = 360 * tmpRandom.nextDouble();
+			double gsd = 1 + 19 * tmpRandom.nextDouble();
+			itemL.add(new Dem(null, lat, lon, gsd, 200));
+		}
+		DemSpatialIndex<Dem> tmpIndex = new DemSpatialIndex<>(itemL, Function.identity(), bodyRadius);
+
+		// Cameras that range from just above the surface to far away
+		for (int c1 = 0; c1 < 200; c1++)
+		{
+			Vector3D dirVect = new Vector3D(tmpRandom.nextGaussian(), tmpRandom.nextGaussian(),
+					tmpRandom.nextGaussian()).normalize();
+			double dist = bodyRadius * (1.01 + 4 * tmpRandom.nextDouble() * tmpRandom.nextDouble());
+			Vector3D posVect = dirVect.scalarMultiply(dist);
+			Vector3D focalVect = new Vector3D(tmpRandom.nextGaussian(), tmpRandom.nextGaussian(),
+					tmpRandom.nextGaussian());
+			double viewAngle = 5 + 55 * tmpRandom.nextDouble();
+
+			List<Dem> expL = DemPrefetchUtil.selectItems(itemL, posVect, focalVect, viewAngle, bodyRadius, 5000);
+			List<Dem> tmpL = DemPrefetchUtil.selectItems(tmpIndex, posVect, focalVect, viewAngle, bodyRadius, 5000);
+			assertEquals(expL, tmpL);
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+package edu.jhuapl.sbmt.dem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests that {@link DemSpatialIndex} answers point, box and radius queries -
+ * including footprints that cross the 360/0 meridian or reach a pole.
+ *
+ * @author lopeznr1
+ */
+class TestDemSpatialIndex
+{
+	// Body of radius 10 km: a dem with a GSD of 1 m and 100 pixels has a
+	// footprint with a (bounding) angular radius of ~0.405 degrees
+	private static final double BODY_RADIUS = 10.0;
+
+	@Test
+	void testWrapAndPoles()
+	{
+		Dem wrapDem = new Dem(null, 10.0, 359.8, 1.0, 100);
+		Dem poleDem = new Dem(null, 89.7, 45.0, 1.0, 100);
+		Dem plainDem = new Dem(null, -30.0, 180.0, 1.0, 100);
+		Dem nanDem = new Dem(null, Double.NaN, Double.NaN, 1.0, 100);
+		List<Dem> itemL = ImmutableList.of(wrapDem, poleDem, plainDem, nanDem);
+		DemSpatialIndex<Dem> tmpIndex = new DemSpatialIndex<>(itemL, Function.identity(), BODY_RADIUS);
+		assertEquals(4, tmpIndex.size());
+
+		// Point queries across the 360/0 meridian (and negative longitudes)
+		assertEquals(ImmutableList.of(wrapDem), tmpIndex.getItemsAt(10.0, 0.1));
+		assertEquals(ImmutableList.of(wrapDem), tmpIndex.getItemsAt(10.0, -0.1));
+		assertEquals(ImmutableList.of(wrapDem), tmpIndex.getItemsAt(10.0, 359.5));
+
+		// Footprints that reach a pole cover all longitudes
+		assertEquals(ImmutableList.of(poleDem), tmpIndex.getItemsAt(89.9, 225.0));
+		assertEquals(ImmutableList.of(), tmpIndex.getItemsAt(88.0, 225.0));
+
+		// Box queries (including a box that wraps)
+		assertEquals(ImmutableList.of(wrapDem), tmpIndex.getItemsIn(0.0, 20.0, 350.0, 10.0));
+		assertEquals(ImmutableList.of(wrapDem, plainDem), tmpIndex.getItemsIn(-40.0, 20.0, 0.0, 360.0));
+		assertEquals(ImmutableList.of(plainDem), tmpIndex.getItemsIn(-40.0, -20.0, 170.0, 190.0));
+
+		// Radius queries (km)
+		assertEquals(ImmutableList.of(), tmpIndex.getItemsNear(10.0, 2.0, 0.1));
+		assertEquals(ImmutableList.of(wrapDem), tmpIndex.getItemsNear(10.0, 2.0, 0.35));
+		assertEquals(ImmutableList.of(poleDem), tmpIndex.getItemsNear(90.0, 0.0, 0.1));
+	}
+
+	@Test
+	void testFootprintRadius()
+	{
+		// A GSD of 2 m and 500 pixels: a footprint with a side of 1 km and a
+		// (bounding) radius of sqrt(0.5) km (~0.707 km)
+		Dem tmpDem = new Dem(null, 0.0, 0.0, 2.0, 500);
+		DemSpatialIndex<Dem> tmpIndex = new DemSpatialIndex<>(ImmutableList.of(tmpDem), Function.identity(),
+				BODY_RADIUS);
+
+		// Points along the equator (distance in km from the center)
+		for (double aDist : new double[] { 0.0, 0.5, 0.70 })
+		{
+			double tmpLon = Math.toDegrees(aDist / BODY_RADIUS);
+			assertEquals(ImmutableList.of(tmpDem), tmpIndex.getItemsNear(0.0, tmpLon, 0.0));
+			assertEquals(ImmutableList.of(tmpDem), tmpIndex.getItemsAt(0.0, tmpLon));
+		}
+		for (double aDist : new double[] { 0.72, 1.0, 1.4 })
+		{
+			double tmpLon = Math.toDegrees(aDist / BODY_RADIUS);
+			assertEquals(ImmutableList.of(), tmpIndex.getItemsNear(0.0, tmpLon, 0.0));
+			assertEquals(ImmutableList.of(), tmpIndex.getItemsAt(0.0, tmpLon));
+		}
+
+		// The same footprint via the (catalog) geometry arrays: extent of 1 km
+		tmpIndex = new DemSpatialIndex<>(ImmutableList.of(tmpDem), new double[] { 0.0 }, new double[] { 0.0 },
+				new double[] { 1.0 }, BODY_RADIUS);
+		assertEquals(ImmutableList.of(tmpDem), tmpIndex.getItemsNear(0.0, Math.toDegrees(0.70 / BODY_RADIUS), 0.0));
+		assertEquals(ImmutableList.of(), tmpIndex.getItemsNear(0.0, Math.toDegrees(0.72 / BODY_RADIUS), 0.0));
+	}
+
+	@Test
+	void testAgainstLinearScan()
+	{
+		Random tmpRandom = new Random(42);
+		List<Dem> itemL = new ArrayList<>();
+		for (int aIdx = 0; aIdx < 5000; aIdx++)
+		{
+			double lat = Math.toDegrees(Math.asin(2.0 * tmpRandom.nextDouble() - 1.0));
+			double lon = 360.0 * tmpRandom.nextDouble();
+			itemL.add(new Dem(null, lat, lon, 0.1 + tmpRandom.nextDouble(), 100));
+		}
+		DemSpatialIndex<Dem> tmpIndex = new DemSpatialIndex<>(itemL, Function.identity(), BODY_RADIUS);
+
+		for (int aIter = 0; aIter < 200; aIter++)
+		{
+			double lat = Math.toDegrees(Math.asin(2.0 * tmpRandom.nextDouble() - 1.0));
+			double lon = 360.0 * tmpRandom.nextDouble() - 180.0;
+			double radius = 2.0 * tmpRandom.nextDouble();
+
+			// The radius query is exact
+			List<Dem> expL = new ArrayList<>();
+			for (Dem aItem : itemL)
+			{
+				double tmpDist = calcDist(lat, lon, aItem.getLat(), aItem.getLon());
+				double tmpRadius = aItem.getGsd() * aItem.getNumPixels() / 1000.0 / 2.0 * Math.sqrt(2.0);
+				if (tmpDist <= radius + tmpRadius)
+					expL.add(aItem);
+			}
+			assertEquals(expL, tmpIndex.getItemsNear(lat, lon, radius));
+
+			// The point query (via bounding boxes) never misses a covering footprint
+			List<Dem> pointL = tmpIndex.getItemsAt(lat, lon);
+			for (Dem aItem : tmpIndex.getItemsNear(lat, lon, 0.0))
+				assertTrue(pointL.contains(aItem));
+		}
+	}
+
+	/**
+	 * Helper method that returns the (great circle) distance (km) between 2
+	 * points (degrees).
+	 */
+	private static double calcDist(double aLat1, double aLon1, double aLat2, double aLon2)
+	{
+		double lat1 = Math.toRadians(aLat1), lon1 = Math.toRadians(aLon1);
+		double lat2 = Math.toRadians(aLat2), lon2 = Math.toRadians(aLon2);
+		double tmpVal = Math.sin(lat1) * Math.sin(lat2) + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon2 - lon1);
+		return BODY_RADIUS * Math.acos(Math.max(-1.0, Math.min(1.0, tmpVal)));
+	}
+
+}
@@ -0,0 +1,80 @@
+package edu.jhuapl.sbmt.dem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.EventQueue;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link LoadUpdateAggregator} batches updates (from multiple
+ * threads) without losing the final update of any item.
+ *
+ * @author lopeznr1
+ */
+class TestLoadUpdateAggregator
+{
+	@Test
+	void testBatch() throws Exception
+	{
+		List<Set<Integer>> batchL = new CopyOnWriteArrayList<>();
+		List<Boolean> isAwtL = new CopyOnWriteArrayList<>();
+		LoadUpdateAggregator<Integer> tmpAggregator = new LoadUpdateAggregator<>(50, aItemS -> {
+			batchL.add(aItemS);
+			isAwtL.add(EventQueue.isDispatchThread());
+		});
+
+		// Mark (repeatedly) 40 items from 4 threads
+		int numThreads = 4;
+		int numMarks = 1000;
+		CountDownLatch doneLatch = new CountDownLatch(numThreads);
+		for (int c1 = 0; c1 < numThreads; c1++)
+		{
+			int tmpIdx = c1;
+			new Thread(() -> {
+				for (int c2 = 0; c2 < numMarks; c2++)
+					tmpAggregator.mark(tmpIdx * 10 + c2 % 10, false);
+				doneLatch.countDown();
+			}).start();
+		}
+		assertTrue(doneLatch.await(10, TimeUnit.SECONDS));
+
+		// Wait for the final batch
+		waitForIdle(batchL);
+		assertTrue(batchL.size() < numThreads * numMarks / 10);
+		assertFalse(isAwtL.contains(false));
+
+		Set<Integer> fullS = new HashSet<>();
+		for (Set<Integer> aItemS : batchL)
+			fullS.addAll(aItemS);
+		assertEquals(40, fullS.size());
+
+		// An update after a batch is delivered in the next batch
+		int prevCnt = batchL.size();
+		tmpAggregator.mark(99, true);
+		waitForIdle(batchL);
+		assertEquals(prevCnt + 1, batchL.size());
+		assertEquals(Set.of(99), batchL.get(prevCnt));
+	}
+
+	/**
+	 * Helper method that waits until no further batches are delivered.
+	 */
+	private static void waitForIdle(List<?> aBatchL) throws Exception
+	{
+		int prevCnt = -1;
+		while (prevCnt != aBatchL.size())
+		{
+			prevCnt = aBatchL.size();
+			Thread.sleep(250);
+			EventQueue.invokeAndWait(() -> {});
+		}
+	}
+
+}
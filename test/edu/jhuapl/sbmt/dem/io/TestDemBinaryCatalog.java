@@ -0,0 +1,135 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.jhuapl.sbmt.dem.DemStruct;
+
+/**
+ * Tests that a {@link DemBinaryCatalog} round trips the catalog entries, is
+ * detected as stale once the (text) catalog changes and forms the
+ * {@link DemStruct}s lazily.
+ *
+ * @author lopeznr1
+ */
+class TestDemBinaryCatalog
+{
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testRoundTrip() throws IOException
+	{
+		File srcFile = new File(tempDir, "browse.cat.csv");
+		Files.writeString(srcFile.toPath(), "ver,2020.11\n");
+
+		String defBasePath = "http://host/browse/";
+		DemBinaryCatalog tmpCatalog = formCatalog(srcFile, defBasePath, 1000);
+		assertTrue(DemBinaryCatalog.getBinaryFile(srcFile).isFile());
+
+		// The saved catalog should match the in memory one
+		DemBinaryCatalog openCatalog = DemBinaryCatalog.open(srcFile, defBasePath);
+		assertNotNull(openCatalog);
+		for (DemBinaryCatalog aCatalog : List.of(tmpCatalog, openCatalog))
+		{
+			assertEquals(1000, aCatalog.size());
+			assertEquals("Test Catalog", aCatalog.getDisplayName());
+
+			// Random access
+			for (int aIdx : new int[] { 999, 0, 500, 1, 998 })
+			{
+				assertEquals(aIdx * 0.1, aCatalog.getLat(aIdx));
+				assertEquals(aIdx * 0.3, aCatalog.getLon(aIdx));
+				assertEquals(aIdx + 10.0, aCatalog.getNumPixels(aIdx));
+				assertEquals(aIdx / 4.0, aCatalog.getGsd(aIdx));
+				assertEquals(aIdx * 1000L, aCatalog.getDiskSize(aIdx));
+				assertEquals("dem/\u03A9_" + aIdx + ".fits", aCatalog.getTargPath(aIdx));
+
+				String expBasePath = defBasePath;
+				if (aIdx % 2 == 1)
+					expBasePath = null;
+				else if (aIdx % 3 == 0)
+					expBasePath = "http://other/";
+				assertEquals(expBasePath, aCatalog.getBasePath(aIdx));
+			}
+			assertThrows(IndexOutOfBoundsException.class, () -> aCatalog.getLat(1000));
+		}
+
+		// A different default base path is not compatible
+		assertNull(DemBinaryCatalog.open(srcFile, "http://host/other/"));
+	}
+
+	@Test
+	void testStale() throws IOException
+	{
+		File srcFile = new File(tempDir, "browse.cat.csv");
+		Files.writeString(srcFile.toPath(), "ver,2020.11\n");
+
+		// No binary catalog
+		assertNull(DemBinaryCatalog.open(srcFile, null));
+
+		formCatalog(srcFile, null, 10);
+		assertNotNull(DemBinaryCatalog.open(srcFile, null));
+
+		// The (text) catalog has changed
+		Files.writeString(srcFile.toPath(), "ver,2020.11\n\nname,Other\n");
+		assertNull(DemBinaryCatalog.open(srcFile, null));
+
+		// A corrupt binary catalog is never opened
+		formCatalog(srcFile, null, 10);
+		Files.write(DemBinaryCatalog.getBinaryFile(srcFile).toPath(), new byte[] { 1, 2, 3 });
+		assertNull(DemBinaryCatalog.open(srcFile, null));
+	}
+
+	@Test
+	void testStructList() throws IOException
+	{
+		File srcFile = new File(tempDir, "browse.cat.csv");
+		Files.writeString(srcFile.toPath(), "ver,2020.11\n");
+
+		DemBinaryCatalog tmpCatalog = formCatalog(srcFile, "http://host/browse/", 100);
+		List<DemStruct> structL = tmpCatalog.formStructList(new File(tempDir, "browse"));
+		assertEquals(100, structL.size());
+
+		DemStruct tmpStruct = structL.get(42);
+		assertEquals(42 * 0.1, tmpStruct.dem.getLat());
+		assertEquals(42 * 0.3, tmpStruct.dem.getLon());
+		assertEquals(42 + 10.0, tmpStruct.dem.getNumPixels());
+		assertEquals(42 / 4.0, tmpStruct.dem.getGsd());
+
+		// The same struct must be returned on every access
+		assertSame(tmpStruct, structL.get(42));
+		assertThrows(UnsupportedOperationException.class, () -> structL.remove(0));
+	}
+
+	/**
+	 * Utility helper method that forms (and saves) a binary catalog with the
+	 * specified number of (synthetic) entries.
+	 */
+	private static DemBinaryCatalog formCatalog(File aSrcFile, String aDefBasePath, int aNumItems)
+	{
+		DemBinaryCatalog.Builder tmpBuilder = new DemBinaryCatalog.Builder(aDefBasePath);
+		tmpBuilder.setDisplayName("Test Catalog");
+		for (int aIdx = 0; aIdx < aNumItems; aIdx++)
+		{
+			String tmpBasePath = aDefBasePath;
+			if (aIdx % 2 == 1)
+				tmpBasePath = null;
+			else if (aIdx % 3 == 0)
+				tmpBasePath = "http://other/";
+
+			String tmpTargPath = "dem/\u03A9_" + aIdx + ".fits";
+			tmpBuilder.addItem(tmpBasePath, tmpTargPath, aIdx * 1000L, aIdx * 0.1, aIdx * 0.3, aIdx + 10.0, aIdx / 4.0);
+		}
+
+		return tmpBuilder.build(aSrcFile);
+	}
+
+}
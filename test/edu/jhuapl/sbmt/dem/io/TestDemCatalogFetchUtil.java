@@ -0,0 +1,141 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.jhuapl.sbmt.dem.io.DemCatalogFetchUtil.FetchResult;
+
+/**
+ * Tests that {@link DemCatalogFetchUtil} only transfers a catalog when it has
+ * changed. A local HTTP server stands in for the catalog server.
+ *
+ * @author lopeznr1
+ */
+class TestDemCatalogFetchUtil
+{
+	@TempDir
+	File tempDir;
+
+	// State vars
+	private volatile String workContent = "ver,2020.11\n";
+	private volatile String workETag = "\"v1\"";
+	private volatile long workLastModified = 1_600_000_000_000L;
+	private volatile int numRequests = 0;
+	private volatile int numTransfers = 0;
+
+	@Test
+	void testConditionalFetch() throws IOException
+	{
+		HttpServer tmpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		tmpServer.createContext("/browse.cat.csv", this::handleRequest);
+		tmpServer.start();
+		try
+		{
+			int port = tmpServer.getAddress().getPort();
+			URL tmpUrl = new URL("http://127.0.0.1:" + port + "/browse.cat.csv");
+			File tmpFile = new File(tempDir, "toc/browse.cat.csv");
+
+			// Initial fetch
+			assertEquals(FetchResult.Modified, DemCatalogFetchUtil.fetch(tmpFile, tmpUrl, null, null));
+			assertEquals(workContent, Files.readString(tmpFile.toPath()));
+			assertEquals(1, numTransfers);
+			assertTrue(DemCatalogFetchUtil.getLastCheckTime(tmpFile) > 0);
+
+			// Not modified (via the ETag): a request is made but no body is
+			// transferred. The check time is updated.
+			DemCatalogFetchUtil.getCheckFile(tmpFile).setLastModified(1000L);
+			assertEquals(FetchResult.NotModified, DemCatalogFetchUtil.fetch(tmpFile, tmpUrl, null, null));
+			assertEquals(2, numRequests);
+			assertEquals(1, numTransfers);
+			assertTrue(DemCatalogFetchUtil.getLastCheckTime(tmpFile) > 1000L);
+
+			// Not modified (via Last-Modified): the server no longer reports an ETag
+			workETag = null;
+			assertEquals(FetchResult.NotModified, DemCatalogFetchUtil.fetch(tmpFile, tmpUrl, null, null));
+			assertEquals(3, numRequests);
+			assertEquals(1, numTransfers);
+
+			// Modified: the new version is transferred
+			workContent = "ver,2020.11\n\ndem,a.fits\n";
+			workETag = "\"v2\"";
+			workLastModified += 60_000L;
+			assertEquals(FetchResult.Modified, DemCatalogFetchUtil.fetch(tmpFile, tmpUrl, null, null));
+			assertEquals(workContent, Files.readString(tmpFile.toPath()));
+			assertEquals(2, numTransfers);
+
+			// A missing catalog is a failure and the local version is kept
+			URL badUrl = new URL("http://127.0.0.1:" + port + "/missing.cat.csv");
+			assertThrows(IOException.class, () -> DemCatalogFetchUtil.fetch(tmpFile, badUrl, null, null));
+			assertEquals(workContent, Files.readString(tmpFile.toPath()));
+
+			// No temporary files are left behind
+			assertEquals(Set.of("browse.cat.csv", "browse.cat.csv" + DemCatalogFetchUtil.CHECK_EXT,
+					"browse.cat.csv" + DemCatalogFetchUtil.VALIDATOR_EXT), Set.of(tmpFile.getParentFile().list()));
+		}
+		finally
+		{
+			tmpServer.stop(0);
+		}
+	}
+
+	/**
+	 * Helper method that serves the (current) catalog. Conditional requests are
+	 * honored via the ETag (If-None-Match) and otherwise via the modification
+	 * time (If-Modified-Since).
+	 */
+	private void handleRequest(HttpExchange aExchange) throws IOException
+	{
+		numRequests++;
+
+		String lastModStr = DateTimeFormatter.RFC_1123_DATE_TIME
+				.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(workLastModified), ZoneOffset.UTC));
+		if (workETag != null)
+			aExchange.getResponseHeaders().set("ETag", workETag);
+		aExchange.getResponseHeaders().set("Last-Modified", lastModStr);
+
+		boolean isNotModified;
+		String noneMatchStr = aExchange.getRequestHeaders().getFirst("If-None-Match");
+		String modSinceStr = aExchange.getRequestHeaders().getFirst("If-Modified-Since");
+		if (noneMatchStr != null && workETag != null)
+			isNotModified = noneMatchStr.equals(workETag);
+		else if (modSinceStr != null)
+			isNotModified = ZonedDateTime.parse(modSinceStr, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+					.toEpochMilli() >= workLastModified;
+		else
+			isNotModified = false;
+
+		if (isNotModified == true)
+		{
+			aExchange.sendResponseHeaders(304, -1);
+			aExchange.close();
+			return;
+		}
+
+		numTransfers++;
+		byte[] byteArr = workContent.getBytes(StandardCharsets.UTF_8);
+		aExchange.sendResponseHeaders(200, byteArr.length);
+		try (OutputStream tmpOS = aExchange.getResponseBody())
+		{
+			tmpOS.write(byteArr);
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.jhuapl.sbmt.dem.vtk.DemGridCacheUtil;
+
+/**
+ * Tests that {@link DemDiskCache} evicts the least recently used files (that
+ * are not in use) to satisfy the quota.
+ *
+ * @author lopeznr1
+ */
+class TestDemDiskCache
+{
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testEviction() throws IOException
+	{
+		File cacheDir = new File(tempDir, "browse");
+		File fileA = formFile(new File(cacheDir, "a.fits"), 100);
+		File fileB = formFile(new File(cacheDir, "sub/b.fits"), 100);
+		File fileC = formFile(new File(cacheDir, "c.fits"), 100);
+		File gridB = formFile(DemGridCacheUtil.getCacheFile(fileB), 50);
+		File customFile = formFile(new File(tempDir, "custom/d.fits"), 100);
+
+		DemDiskCache tmpDiskCache = new DemDiskCache(cacheDir, 1000);
+		assertEquals(350, tmpDiskCache.getUsage());
+
+		// Files outside of the cache folder are not managed
+		tmpDiskCache.recordHit(customFile);
+		tmpDiskCache.recordMiss(fileA);
+		tmpDiskCache.recordHit(fileB);
+		tmpDiskCache.recordHit(fileC);
+		assertEquals(2, tmpDiskCache.getNumHits());
+		assertEquals(1, tmpDiskCache.getNumMisses());
+
+		// Nothing is evicted while within the quota
+		assertEquals(ImmutableList.of(), tmpDiskCache.enforceQuota(aFile -> false));
+
+		// The least recently used file (a) is in use - so b (and the associated
+		// grid cache file) is evicted instead
+		tmpDiskCache.setQuota(200);
+		List<File> evictL = tmpDiskCache.enforceQuota(aFile -> aFile.equals(fileA.getAbsoluteFile()));
+		assertEquals(ImmutableList.of(fileB.getAbsoluteFile()), evictL);
+		assertFalse(fileB.exists());
+		assertFalse(gridB.exists());
+		assertTrue(customFile.exists());
+		assertEquals(1, tmpDiskCache.getNumEvictions());
+		assertEquals(150, tmpDiskCache.getNumEvictBytes());
+		assertEquals(200, tmpDiskCache.getUsage());
+
+		// The access order is restored (from the index) by a new instance
+		tmpDiskCache.markAccess(fileA);
+		tmpDiskCache.saveIndex();
+		tmpDiskCache = new DemDiskCache(cacheDir, 100);
+		evictL = tmpDiskCache.enforceQuota(aFile -> false);
+		assertEquals(ImmutableList.of(fileC.getAbsoluteFile()), evictL);
+		assertTrue(fileA.exists());
+	}
+
+	@Test
+	void testUsageTracking() throws IOException
+	{
+		File cacheDir = new File(tempDir, "browse");
+		File fileA = formFile(new File(cacheDir, "a.fits"), 100);
+		File fileB = formFile(new File(cacheDir, "b.fits"), 100);
+
+		DemDiskCache tmpDiskCache = new DemDiskCache(cacheDir, 1000);
+		assertEquals(200, tmpDiskCache.getUsage());
+
+		// A downloaded file is accounted for once recorded
+		File fileC = formFile(new File(cacheDir, "c.fits"), 100);
+		assertEquals(200, tmpDiskCache.getUsage());
+		tmpDiskCache.recordMiss(fileC);
+		assertEquals(300, tmpDiskCache.getUsage());
+
+		// A grid cache file (written after the load) is accounted for on access
+		formFile(DemGridCacheUtil.getCacheFile(fileC), 50);
+		tmpDiskCache.markAccess(fileC);
+		assertEquals(350, tmpDiskCache.getUsage());
+
+		// A file removed externally is dropped (not counted as an eviction) when
+		// it is next evicted
+		fileA.delete();
+		assertEquals(350, tmpDiskCache.getUsage());
+		tmpDiskCache.setQuota(200);
+		List<File> evictL = tmpDiskCache.enforceQuota(aFile -> aFile.equals(fileC.getAbsoluteFile()));
+		assertEquals(ImmutableList.of(fileB.getAbsoluteFile()), evictL);
+		assertEquals(1, tmpDiskCache.getNumEvictions());
+		assertEquals(100, tmpDiskCache.getNumEvictBytes());
+		assertEquals(150, tmpDiskCache.getUsage());
+	}
+
+	@Test
+	void testStalePartials() throws IOException
+	{
+		File cacheDir = new File(tempDir, "browse");
+		File staleFile = formFile(new File(cacheDir, "a.fits.part"), 10);
+		File freshFile = formFile(new File(cacheDir, "b.fits.part"), 10);
+		File busyFile = formFile(new File(cacheDir, "c.fits.part"), 10);
+		File gridTmpFile = formFile(new File(cacheDir, "d.fits" + DemGridCacheUtil.CACHE_EXT + ".tmp"), 10);
+
+		long staleTime = System.currentTimeMillis() - DemDiskCache.STALE_AGE_MS - 1000;
+		staleFile.setLastModified(staleTime);
+		busyFile.setLastModified(staleTime);
+		gridTmpFile.setLastModified(staleTime);
+
+		DemDiskCache tmpDiskCache = new DemDiskCache(cacheDir, 1000);
+		List<File> partialL = ImmutableList.of(staleFile, freshFile, busyFile);
+		int numRemoved = tmpDiskCache.cleanStalePartials(partialL, aFile -> aFile.equals(busyFile));
+		assertEquals(2, numRemoved);
+		assertFalse(staleFile.exists());
+		assertFalse(gridTmpFile.exists());
+		assertTrue(freshFile.exists());
+		assertTrue(busyFile.exists());
+	}
+
+	/**
+	 * Helper method that creates a file (and parent folders) of the specified
+	 * size.
+	 */
+	private static File formFile(File aFile, int aSize) throws IOException
+	{
+		aFile.getParentFile().mkdirs();
+		Files.write(aFile.toPath(), new byte[aSize]);
+		return aFile;
+	}
+
+}
@@ -0,0 +1,91 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that {@link DemReaderRegistry} selects the {@link DemFormat} of a file
+ * from its leading bytes.
+ *
+ * @author lopeznr1
+ */
+class TestDemFormat
+{
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testProbe() throws IOException
+	{
+		DemReaderRegistry<String> tmpRegistry = new DemReaderRegistry<>();
+		tmpRegistry.register(DemFormat.Fits, "fits");
+		tmpRegistry.register(DemFormat.Obj, "obj");
+
+		// FITS: the file extension is irrelevant
+		File fitsFile = writeFile("dem.obj", String.format("%-80s", "SIMPLE  =                    T"));
+		assertEquals(DemFormat.Fits, tmpRegistry.probe(fitsFile));
+		assertEquals("fits", tmpRegistry.getReader(DemFormat.Fits));
+
+		// OBJ: leading comments, blank lines and CRLF line endings
+		File objFile = writeFile("dem.dat", "# Exported DEM\r\n\r\n  \r\nmtllib a.mtl\r\nv 1 2 3\r\n");
+		assertEquals(DemFormat.Obj, tmpRegistry.probe(objFile));
+		objFile = writeFile("dem.dat", "v\t1 2 3\nf 1 1 1\n");
+		assertEquals(DemFormat.Obj, tmpRegistry.probe(objFile));
+
+		// OBJ: only comments were probed - rely on the file extension
+		String commentStr = "# " + "x".repeat(DemFormat.PROBE_SIZE) + "\nv 1 2 3\n";
+		assertEquals(DemFormat.Obj, tmpRegistry.probe(writeFile("dem.OBJ", commentStr)));
+		assertNull(tmpRegistry.probe(writeFile("dem.dat", commentStr)));
+
+		// Unsupported content
+		assertNull(tmpRegistry.probe(writeFile("dem.fits", "SIMPLE = T")));
+		assertNull(tmpRegistry.probe(writeFile("dem.obj", "vertex 1 2 3\n")));
+		assertNull(tmpRegistry.probe(writeFile("dem.obj", "v 1 2 3\n\0\0\0")));
+		assertNull(tmpRegistry.probe(writeFile("dem.txt", "")));
+	}
+
+	@Test
+	void testRegister() throws IOException
+	{
+		DemFormat gzipFormat = new DemFormat("GZIP",
+				(aHeadArr, aHeadLen, aFileName) -> aHeadLen >= 2 && aHeadArr[0] == 0x1f && aHeadArr[1] == (byte) 0x8b);
+
+		DemReaderRegistry<String> tmpRegistry = new DemReaderRegistry<>();
+		tmpRegistry.register(DemFormat.Fits, "fits");
+		tmpRegistry.register(gzipFormat, "gzip");
+		tmpRegistry.register(DemFormat.Fits, "fits2");
+		assertEquals("FITS, GZIP", tmpRegistry.getFormatsDescr());
+		assertEquals("fits2", tmpRegistry.getReader(DemFormat.Fits));
+		assertNull(tmpRegistry.getReader(DemFormat.Obj));
+
+		File tmpFile = new File(tempDir, "dem.fits.gz");
+		try (OutputStream tmpOS = new FileOutputStream(tmpFile))
+		{
+			tmpOS.write(new byte[] { 0x1f, (byte) 0x8b, 8, 0 });
+		}
+		assertEquals(gzipFormat, tmpRegistry.probe(tmpFile));
+	}
+
+	/**
+	 * Helper method that writes the (ASCII) content to the specified file.
+	 */
+	private File writeFile(String aName, String aContent) throws IOException
+	{
+		File retFile = new File(tempDir, aName);
+		try (OutputStream tmpOS = new FileOutputStream(retFile))
+		{
+			tmpOS.write(aContent.getBytes(StandardCharsets.US_ASCII));
+		}
+
+		return retFile;
+	}
+
+}
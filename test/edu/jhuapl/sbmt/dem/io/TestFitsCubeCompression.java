@@ -0,0 +1,663 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that {@link FitsCube} decodes gzip compressed and tile compressed cubes
+ * identically to the corresponding uncompressed cube - and that a
+ * {@link FitsBandReader} that is closed while a read is pending leaves the cube
+ * usable.
+ *
+ * @author lopeznr1
+ */
+class TestFitsCubeCompression
+{
+	// Constants
+	private static final float INVALID_VALUE = -1.0e38f;
+	private static final int NUM_PLANES = 3;
+	private static final int NUM_ROWS = 37;
+	private static final int NUM_COLS = 70;
+
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testGzip() throws IOException
+	{
+		float[][][] expArr = formValues(-32, 5);
+
+		File plainFile = new File(tempDir, "cube.fits");
+		writeFile(plainFile, formPlainFits(expArr, -32));
+		File gzipFile = new File(tempDir, "cube.fits.gz");
+		try (OutputStream tmpOS = new GZIPOutputStream(new FileOutputStream(gzipFile)))
+		{
+			tmpOS.write(formPlainFits(expArr, -32));
+		}
+
+		assertEquals(FitsCube.readHeader(plainFile).getCardList().size(),
+				FitsCube.readHeader(gzipFile).getCardList().size());
+		assertEquals(12.5, FitsCube.readHeader(gzipFile).getDoubleValue("CLAT", Double.NaN));
+
+		try (FitsCube tmpCube = new FitsCube(gzipFile))
+		{
+			assertFalse(tmpCube.isRandomAccess());
+
+			// Interleaved (per row) reads of all planes
+			float[] rowArr = new float[NUM_COLS];
+			for (int aRow = 0; aRow < NUM_ROWS; aRow++)
+			{
+				for (int aPlane = 0; aPlane < NUM_PLANES; aPlane++)
+				{
+					tmpCube.readRow(aPlane, aRow, rowArr);
+					assertArrayEquals(expArr[aPlane][aRow], rowArr);
+				}
+			}
+
+			// Random access (backwards)
+			assertEquals(expArr[1][30][7], tmpCube.readValue(1, 30, 7));
+			assertEquals(expArr[0][2][69], tmpCube.readValue(0, 2, 69));
+
+			// Banded reads
+			try (FitsBandReader tmpReader = new FitsBandReader(tmpCube, new int[] { 2, 0 }))
+			{
+				for (FitsBandReader.FitsBand aBand = tmpReader.next(); aBand != null; aBand = tmpReader.next())
+				{
+					int begRow = aBand.getBegRow();
+					assertEquals(expArr[2][begRow][3], aBand.getValues(0)[3]);
+					assertEquals(expArr[0][begRow][4], aBand.getValues(1)[4]);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testGzipBanded() throws IOException
+	{
+		// The cube is wide enough that it is read in several bands
+		int numPlanes = 10;
+		int numRows = 100;
+		int numCols = 4000;
+		float[][][] expArr = new float[numPlanes][numRows][numCols];
+		for (int aPlane = 0; aPlane < numPlanes; aPlane++)
+			for (int aRow = 0; aRow < numRows; aRow++)
+				for (int c1 = 0; c1 < numCols; c1++)
+					expArr[aPlane][aRow][c1] = aPlane * 1000 + aRow + c1 * 0.25f;
+
+		File gzipFile = new File(tempDir, "wide.fits.gz");
+		try (OutputStream tmpOS = new GZIPOutputStream(new FileOutputStream(gzipFile)))
+		{
+			tmpOS.write(formPlainFits(expArr, -32));
+		}
+
+		try (FitsCube tmpCube = new FitsCube(gzipFile))
+		{
+			// Read all of the planes (out of file order). Plane 4 is repeated.
+			int[] planeArr = { 9, 3, 0, 5, 1, 4, 2, 4, 6, 8, 7 };
+			int numBands = 0;
+			try (FitsBandReader tmpReader = new FitsBandReader(tmpCube, planeArr))
+			{
+				assertTrue(tmpReader.getBandSize() < numRows);
+				for (FitsBandReader.FitsBand aBand = tmpReader.next(); aBand != null; aBand = tmpReader.next())
+				{
+					numBands++;
+					assertTrue(aBand.getNumRows() <= tmpReader.getBandSize());
+					for (int aSlot = 0; aSlot < planeArr.length; aSlot++)
+					{
+						float[] valueArr = aBand.getValues(aSlot);
+						for (int aRow = 0; aRow < aBand.getNumRows(); aRow++)
+							for (int c1 = 0; c1 < numCols; c1++)
+								assertEquals(expArr[planeArr[aSlot]][aBand.getBegRow() + aRow][c1], valueArr[aRow * numCols + c1]);
+					}
+				}
+			}
+			assertTrue(numBands > 1);
+
+			// Each (distinct) plane is served by its own cursor: the stream that
+			// read the header serves the last plane and no stream is restarted
+			// across bands
+			assertEquals(numPlanes, tmpCube.getNumGzipStreams());
+
+			// A read that precedes the prior reads restarts the decompression
+			assertEquals(expArr[0][0][0], tmpCube.readValue(0, 0, 0));
+			assertEquals(numPlanes + 1, tmpCube.getNumGzipStreams());
+		}
+	}
+
+	@Test
+	void testCloseWhilePending() throws IOException
+	{
+		// A single (large) band: the read is still pending at close
+		int numPlanes = 10;
+		int numRows = 40;
+		int numCols = 4000;
+		float[][][] expArr = new float[numPlanes][numRows][numCols];
+		for (int aPlane = 0; aPlane < numPlanes; aPlane++)
+			for (int aRow = 0; aRow < numRows; aRow++)
+				for (int c1 = 0; c1 < numCols; c1++)
+					expArr[aPlane][aRow][c1] = aPlane * 1000 + aRow + c1 * 0.25f;
+
+		File plainFile = new File(tempDir, "pending.fits");
+		writeFile(plainFile, formPlainFits(expArr, -32));
+		File gzipFile = new File(tempDir, "pending.fits.gz");
+		try (OutputStream tmpOS = new GZIPOutputStream(new FileOutputStream(gzipFile)))
+		{
+			tmpOS.write(formPlainFits(expArr, -32));
+		}
+
+		int[] planeArr = { 9, 3, 0, 5, 1, 2, 4, 6, 8, 7 };
+		for (File aFile : new File[] { plainFile, gzipFile })
+		{
+			try (FitsCube tmpCube = new FitsCube(aFile))
+			{
+				for (int c1 = 0; c1 < 10; c1++)
+				{
+					FitsBandReader tmpReader = new FitsBandReader(tmpCube, planeArr);
+					tmpReader.close();
+
+					// No read may be in progress
+					for (StackTraceElement[] aTraceArr : Thread.getAllStackTraces().values())
+						for (StackTraceElement aTrace : aTraceArr)
+							assertFalse(aTrace.getMethodName().equals("fill")
+									&& aTrace.getClassName().equals(FitsBandReader.FitsBand.class.getName()));
+
+					// The cube must still be usable
+					assertEquals(expArr[7][39][3999], tmpCube.readValue(7, 39, 3999));
+					assertEquals(expArr[0][0][0], tmpCube.readValue(0, 0, 0));
+				}
+			}
+		}
+	}
+
+	@Test
+	void testTileLossless() throws IOException
+	{
+		// Floating point values (with invalid markers) via GZIP_2 and 4 row tiles
+		float[][][] expArr = formValues(-32, 7);
+		int tileRows = 4;
+		int tilesPerPlane = (NUM_ROWS + tileRows - 1) / tileRows;
+
+		List<byte[]> tileL = new ArrayList<>();
+		for (int aPlane = 0; aPlane < NUM_PLANES; aPlane++)
+		{
+			for (int aTile = 0; aTile < tilesPerPlane; aTile++)
+			{
+				int begRow = aTile * tileRows;
+				int endRow = Math.min(begRow + tileRows, NUM_ROWS);
+				ByteBuffer tmpBB = ByteBuffer.allocate((endRow - begRow) * NUM_COLS * 4);
+				for (int aRow = begRow; aRow < endRow; aRow++)
+					for (float aVal : expArr[aPlane][aRow])
+						tmpBB.putFloat(aVal);
+				tileL.add(gzip(shuffle(tmpBB.array(), 4)));
+			}
+		}
+
+		File tmpFile = new File(tempDir, "lossless.fits.fz");
+		List<String> cardL = formImageCards(-32, tileRows, "GZIP_2");
+		writeFile(tmpFile, formTiledFits(cardL, tileL, null));
+
+		FitsHeader tmpHeader = FitsCube.readHeader(tmpFile);
+		assertEquals(-32, tmpHeader.getIntValue("BITPIX", 0));
+		assertEquals(NUM_PLANES, tmpHeader.getIntValue("NAXIS3", 0));
+		assertEquals("Y coordinate", tmpHeader.getStringValue("PLANE2"));
+		assertFalse(tmpHeader.hasKey("ZCMPTYPE"));
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			assertTrue(tmpCube.isRandomAccess());
+			float[] rowArr = new float[NUM_COLS];
+			for (int aPlane = NUM_PLANES - 1; aPlane >= 0; aPlane--)
+			{
+				for (int aRow = 0; aRow < NUM_ROWS; aRow++)
+				{
+					tmpCube.readRow(aPlane, aRow, rowArr);
+					assertArrayEquals(expArr[aPlane][aRow], rowArr);
+				}
+			}
+			assertEquals(NUM_PLANES * tilesPerPlane, tmpCube.getNumTilesDecoded());
+		}
+
+		// Interleaved (per row) reads of all planes: each tile is decoded once
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			float[] rowArr = new float[NUM_COLS];
+			for (int aRow = 0; aRow < NUM_ROWS; aRow++)
+			{
+				for (int aPlane = 0; aPlane < NUM_PLANES; aPlane++)
+				{
+					tmpCube.readRow(aPlane, aRow, rowArr);
+					assertArrayEquals(expArr[aPlane][aRow], rowArr);
+				}
+			}
+			assertEquals(NUM_PLANES * tilesPerPlane, tmpCube.getNumTilesDecoded());
+		}
+	}
+
+	@Test
+	void testTileQuantized() throws IOException
+	{
+		// Floating point values quantized (with dither) and Rice compressed
+		float[][][] expArr = formValues(-32, 11);
+		int ditherSeed = 9;
+		int nullValue = -2147483647;
+		float[] randomArr = FitsTileReader.formRandomArr();
+
+		List<byte[]> tileL = new ArrayList<>();
+		List<double[]> scaleZeroL = new ArrayList<>();
+		for (int aPlane = 0; aPlane < NUM_PLANES; aPlane++)
+		{
+			for (int aRow = 0; aRow < NUM_ROWS; aRow++)
+			{
+				int tileIdx = aPlane * NUM_ROWS + aRow;
+				double zScale = 0.001 * (aPlane + 1);
+				double zZero = aRow * 10.0;
+				scaleZeroL.add(new double[] { zScale, zZero });
+
+				int seedIdx = (tileIdx + ditherSeed - 1) % 10000;
+				int nextIdx = (int) (randomArr[seedIdx] * 500);
+				int[] quantArr = new int[NUM_COLS];
+				for (int c1 = 0; c1 < NUM_COLS; c1++)
+				{
+					float tmpVal = expArr[aPlane][aRow][c1];
+					if (tmpVal == INVALID_VALUE)
+						quantArr[c1] = nullValue;
+					else
+						quantArr[c1] = (int) Math.round((tmpVal - zZero) / zScale + randomArr[nextIdx] - 0.5);
+
+					nextIdx++;
+					if (nextIdx == 10000)
+					{
+						seedIdx = (seedIdx + 1) % 10000;
+						nextIdx = (int) (randomArr[seedIdx] * 500);
+					}
+				}
+				tileL.add(encodeRice(quantArr, 32, 4));
+			}
+		}
+
+		File tmpFile = new File(tempDir, "quantized.fits.fz");
+		List<String> cardL = formImageCards(-32, 1, "RICE_1");
+		cardL.add("ZQUANTIZ= 'SUBTRACTIVE_DITHER_1'");
+		cardL.add(String.format("ZDITHER0= %20d", ditherSeed));
+		cardL.add(String.format("ZBLANK  = %20d", nullValue));
+		writeFile(tmpFile, formTiledFits(cardL, tileL, scaleZeroL));
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			float[] rowArr = new float[NUM_COLS];
+			for (int aPlane = 0; aPlane < NUM_PLANES; aPlane++)
+			{
+				double zScale = 0.001 * (aPlane + 1);
+				for (int aRow = 0; aRow < NUM_ROWS; aRow++)
+				{
+					tmpCube.readRow(aPlane, aRow, rowArr);
+					for (int c1 = 0; c1 < NUM_COLS; c1++)
+					{
+						float expVal = expArr[aPlane][aRow][c1];
+						if (expVal == INVALID_VALUE)
+							assertTrue(Float.isNaN(rowArr[c1]));
+						else
+							assertEquals(expVal, rowArr[c1], zScale * 0.5 + Math.ulp(expVal) * 4);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void testTileInteger() throws IOException
+	{
+		// 16 bit values (with BZERO) via Rice compression
+		float[][][] expArr = formValues(16, 13);
+
+		List<byte[]> tileL = new ArrayList<>();
+		for (int aPlane = 0; aPlane < NUM_PLANES; aPlane++)
+		{
+			for (int aRow = 0; aRow < NUM_ROWS; aRow++)
+			{
+				int[] tmpArr = new int[NUM_COLS];
+				for (int c1 = 0; c1 < NUM_COLS; c1++)
+					tmpArr[c1] = (int) (expArr[aPlane][aRow][c1] - 32768);
+				tileL.add(encodeRice(tmpArr, 32, 2));
+			}
+		}
+
+		File tmpFile = new File(tempDir, "integer.fits.fz");
+		List<String> cardL = formImageCards(16, 1, "RICE_1");
+		cardL.add("BZERO   =              32768.0");
+		writeFile(tmpFile, formTiledFits(cardL, tileL, null));
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			float[] rowArr = new float[NUM_COLS];
+			for (int aPlane = 0; aPlane < NUM_PLANES; aPlane++)
+			{
+				for (int aRow = 0; aRow < NUM_ROWS; aRow++)
+				{
+					tmpCube.readRow(aPlane, aRow, rowArr);
+					assertArrayEquals(expArr[aPlane][aRow], rowArr);
+				}
+			}
+			assertEquals(expArr[2][36][0], tmpCube.readValue(2, 36, 0));
+		}
+	}
+
+	/**
+	 * Helper method that forms the values of a cube. Each row holds a constant
+	 * run, a noisy run, and a smooth run of values.
+	 */
+	private static float[][][] formValues(int aBitPix, long aSeed)
+	{
+		Random tmpRandom = new Random(aSeed);
+		float[][][] retArr = new float[NUM_PLANES][NUM_ROWS][NUM_COLS];
+		for (int aPlane = 0; aPlane < NUM_PLANES; aPlane++)
+		{
+			for (int aRow = 0; aRow < NUM_ROWS; aRow++)
+			{
+				for (int c1 = 0; c1 < NUM_COLS; c1++)
+				{
+					float tmpVal;
+					if (c1 < 32)
+						tmpVal = aRow * 10 + aPlane;
+					else if (c1 < 64)
+						tmpVal = tmpRandom.nextInt(60000) - 20000;
+					else
+						tmpVal = aRow * 10 + c1 + tmpRandom.nextInt(3);
+
+					if (aBitPix == 16)
+						tmpVal = Math.max(0, tmpVal + 20000);
+					else
+						tmpVal = tmpVal + tmpRandom.nextFloat() * 0.01f;
+					retArr[aPlane][aRow][c1] = tmpVal;
+				}
+
+				if (aBitPix < 0 && aRow % 5 == 0)
+					retArr[aPlane][aRow][aRow % NUM_COLS] = INVALID_VALUE;
+			}
+		}
+
+		return retArr;
+	}
+
+	/**
+	 * Helper method that returns the image specific cards of a tile compressed
+	 * cube.
+	 */
+	private static List<String> formImageCards(int aBitPix, int aTileRows, String aCompressType)
+	{
+		List<String> retL = new ArrayList<>();
+		retL.add("ZIMAGE  =                    T");
+		retL.add(String.format("ZBITPIX = %20d", aBitPix));
+		retL.add("ZNAXIS  =                    3");
+		retL.add(String.format("ZNAXIS1 = %20d", NUM_COLS));
+		retL.add(String.format("ZNAXIS2 = %20d", NUM_ROWS));
+		retL.add(String.format("ZNAXIS3 = %20d", NUM_PLANES));
+		retL.add(String.format("ZTILE1  = %20d", NUM_COLS));
+		retL.add(String.format("ZTILE2  = %20d", aTileRows));
+		retL.add("ZTILE3  =                    1");
+		retL.add(String.format("ZCMPTYPE= '%s'", aCompressType));
+		retL.add("ZNAME1  = 'BLOCKSIZE'");
+		retL.add("ZVAL1   =                   32");
+		retL.add("CLAT    =                 12.5");
+		retL.add("PLANE1  = 'X coordinate'");
+		retL.add("PLANE2  = 'Y coordinate'");
+		retL.add("PLANE3  = 'Z coordinate'");
+		return retL;
+	}
+
+	/**
+	 * Helper method that returns the content of an (uncompressed) FITS cube.
+	 */
+	private static byte[] formPlainFits(float[][][] aValueArr, int aBitPix)
+	{
+		List<String> cardL = new ArrayList<>();
+		cardL.add("SIMPLE  =                    T");
+		cardL.add(String.format("BITPIX  = %20d", aBitPix));
+		cardL.add("NAXIS   =                    3");
+		int numPlanes = aValueArr.length;
+		int numRows = aValueArr[0].length;
+		int numCols = aValueArr[0][0].length;
+		cardL.add(String.format("NAXIS1  = %20d", numCols));
+		cardL.add(String.format("NAXIS2  = %20d", numRows));
+		cardL.add(String.format("NAXIS3  = %20d", numPlanes));
+		cardL.add("CLAT    =                 12.5");
+
+		ByteBuffer dataBB = ByteBuffer.allocate(numPlanes * numRows * numCols * 4);
+		for (float[][] aPlaneArr : aValueArr)
+			for (float[] aRowArr : aPlaneArr)
+				for (float aVal : aRowArr)
+					dataBB.putFloat(aVal);
+
+		ByteArrayOutputStream tmpBAOS = new ByteArrayOutputStream();
+		writeHdu(tmpBAOS, cardL, dataBB.array());
+		return tmpBAOS.toByteArray();
+	}
+
+	/**
+	 * Helper method that returns the content of a tile compressed FITS cube.
+	 *
+	 * @param aCardL The image specific cards.
+	 * @param aTileL The compressed bytes of each tile.
+	 * @param aScaleZeroL The (ZSCALE, ZZERO) of each tile. May be null.
+	 */
+	private static byte[] formTiledFits(List<String> aCardL, List<byte[]> aTileL, List<double[]> aScaleZeroL)
+	{
+		int rowWidth = aScaleZeroL != null ? 24 : 8;
+		ByteBuffer tableBB = ByteBuffer.allocate(rowWidth * aTileL.size());
+		ByteArrayOutputStream heapBAOS = new ByteArrayOutputStream();
+		int maxLen = 0;
+		for (int c1 = 0; c1 < aTileL.size(); c1++)
+		{
+			byte[] tileArr = aTileL.get(c1);
+			tableBB.putInt(tileArr.length);
+			tableBB.putInt(heapBAOS.size());
+			if (aScaleZeroL != null)
+			{
+				tableBB.putDouble(aScaleZeroL.get(c1)[0]);
+				tableBB.putDouble(aScaleZeroL.get(c1)[1]);
+			}
+			heapBAOS.write(tileArr, 0, tileArr.length);
+			maxLen = Math.max(maxLen, tileArr.length);
+		}
+
+		List<String> cardL = new ArrayList<>();
+		cardL.add("XTENSION= 'BINTABLE'");
+		cardL.add("BITPIX  =                    8");
+		cardL.add("NAXIS   =                    2");
+		cardL.add(String.format("NAXIS1  = %20d", rowWidth));
+		cardL.add(String.format("NAXIS2  = %20d", aTileL.size()));
+		cardL.add(String.format("PCOUNT  = %20d", heapBAOS.size()));
+		cardL.add("GCOUNT  =                    1");
+		cardL.add(String.format("TFIELDS = %20d", aScaleZeroL != null ? 3 : 1));
+		cardL.add("TTYPE1  = 'COMPRESSED_DATA'");
+		cardL.add(String.format("TFORM1  = '1PB(%d)'", maxLen));
+		if (aScaleZeroL != null)
+		{
+			cardL.add("TTYPE2  = 'ZSCALE  '");
+			cardL.add("TFORM2  = '1D      '");
+			cardL.add("TTYPE3  = 'ZZERO   '");
+			cardL.add("TFORM3  = '1D      '");
+		}
+		cardL.addAll(aCardL);
+
+		ByteArrayOutputStream retBAOS = new ByteArrayOutputStream();
+		List<String> primaryL = List.of("SIMPLE  =                    T", "BITPIX  =                    8",
+				"NAXIS   =                    0", "EXTEND  =                    T");
+		writeHdu(retBAOS, primaryL, new byte[0]);
+
+		byte[] heapArr = heapBAOS.toByteArray();
+		byte[] dataArr = new byte[tableBB.capacity() + heapArr.length];
+		System.arraycopy(tableBB.array(), 0, dataArr, 0, tableBB.capacity());
+		System.arraycopy(heapArr, 0, dataArr, tableBB.capacity(), heapArr.length);
+		writeHdu(retBAOS, cardL, dataArr);
+		return retBAOS.toByteArray();
+	}
+
+	/**
+	 * Helper method that writes a single HDU (header and padded data unit).
+	 */
+	private static void writeHdu(ByteArrayOutputStream aBAOS, List<String> aCardL, byte[] aDataArr)
+	{
+		StringBuilder tmpSB = new StringBuilder();
+		for (String aCard : aCardL)
+			tmpSB.append(String.format("%-80s", aCard));
+		tmpSB.append(String.format("%-80s", "END"));
+		while (tmpSB.length() % FitsCube.BLOCK_SIZE != 0)
+			tmpSB.append(' ');
+
+		byte[] headArr = tmpSB.toString().getBytes(StandardCharsets.US_ASCII);
+		aBAOS.write(headArr, 0, headArr.length);
+		aBAOS.write(aDataArr, 0, aDataArr.length);
+		int padLen = (FitsCube.BLOCK_SIZE - aDataArr.length % FitsCube.BLOCK_SIZE) % FitsCube.BLOCK_SIZE;
+		aBAOS.write(new byte[padLen], 0, padLen);
+	}
+
+	/**
+	 * Helper method that Rice compresses the provided values. All of the coding
+	 * options (low entropy, high entropy, and Rice coded) are utilized based on
+	 * the content of each block.
+	 */
+	private static byte[] encodeRice(int[] aValArr, int aBlockSize, int aBytePix)
+	{
+		int fsBits = aBytePix == 2 ? 4 : 5;
+		int fsMax = aBytePix == 2 ? 14 : 25;
+		int bBits = aBytePix * 8;
+		long valMask = (1L << bBits) - 1;
+
+		BitWriter tmpBW = new BitWriter();
+		tmpBW.write(aValArr[0] & valMask, bBits);
+		long lastPix = aValArr[0];
+		for (int i = 0; i < aValArr.length; i += aBlockSize)
+		{
+			int numVals = Math.min(aBlockSize, aValArr.length - i);
+
+			// Map the (wrapped) differences to non-negative values
+			long[] diffArr = new long[numVals];
+			double pixelSum = 0;
+			for (int j = 0; j < numVals; j++)
+			{
+				long pDiff = aValArr[i + j] - lastPix;
+				pDiff = aBytePix == 2 ? (short) pDiff : (int) pDiff;
+				diffArr[j] = (pDiff < 0 ? ~(pDiff << 1) : (pDiff << 1)) & valMask;
+				pixelSum += diffArr[j];
+				lastPix = aValArr[i + j];
+			}
+
+			double dpSum = Math.max(0.0, (pixelSum - (numVals / 2) - 1) / numVals);
+			long pSum = ((long) dpSum) >> 1;
+			int fs = 0;
+			for (; pSum > 0; fs++)
+				pSum >>= 1;
+
+			if (pixelSum == 0)
+			{
+				tmpBW.write(0, fsBits);
+			}
+			else if (fs >= fsMax)
+			{
+				tmpBW.write(fsMax + 1, fsBits);
+				for (long aDiff : diffArr)
+					tmpBW.write(aDiff, bBits);
+			}
+			else
+			{
+				tmpBW.write(fs + 1, fsBits);
+				for (long aDiff : diffArr)
+				{
+					long topVal = aDiff >>> fs;
+					for (long c1 = 0; c1 < topVal; c1++)
+						tmpBW.write(0, 1);
+					tmpBW.write(1, 1);
+					tmpBW.write(aDiff & ((1L << fs) - 1), fs);
+				}
+			}
+		}
+
+		return tmpBW.toByteArray();
+	}
+
+	/**
+	 * Helper method that shuffles the bytes of the (fixed width) values as done
+	 * by GZIP_2.
+	 */
+	private static byte[] shuffle(byte[] aSrcArr, int aWidth)
+	{
+		int numVals = aSrcArr.length / aWidth;
+		byte[] retArr = new byte[aSrcArr.length];
+		for (int c1 = 0; c1 < numVals; c1++)
+			for (int c2 = 0; c2 < aWidth; c2++)
+				retArr[c2 * numVals + c1] = aSrcArr[c1 * aWidth + c2];
+		return retArr;
+	}
+
+	/**
+	 * Helper method that gzip compresses the provided bytes.
+	 */
+	private static byte[] gzip(byte[] aSrcArr) throws IOException
+	{
+		ByteArrayOutputStream tmpBAOS = new ByteArrayOutputStream();
+		try (OutputStream tmpOS = new GZIPOutputStream(tmpBAOS))
+		{
+			tmpOS.write(aSrcArr);
+		}
+		return tmpBAOS.toByteArray();
+	}
+
+	/**
+	 * Helper method that writes the content to the specified file.
+	 */
+	private static void writeFile(File aFile, byte[] aContentArr) throws IOException
+	{
+		try (OutputStream tmpOS = new FileOutputStream(aFile))
+		{
+			tmpOS.write(aContentArr);
+		}
+	}
+
+	/**
+	 * Helper class used to write (most significant first) bits.
+	 */
+	private static class BitWriter
+	{
+		private final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		private int curr;
+		private int numBits;
+
+		void write(long aVal, int aNumBits)
+		{
+			for (int c1 = aNumBits - 1; c1 >= 0; c1--)
+			{
+				curr = (curr << 1) | (int) ((aVal >>> c1) & 1);
+				numBits++;
+				if (numBits == 8)
+				{
+					baos.write(curr);
+					curr = 0;
+					numBits = 0;
+				}
+			}
+		}
+
+		byte[] toByteArray()
+		{
+			if (numBits > 0)
+				write(0, 8 - numBits);
+			return baos.toByteArray();
+		}
+	}
+
+}
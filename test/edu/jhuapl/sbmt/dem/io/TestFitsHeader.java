@@ -0,0 +1,113 @@
+package edu.jhuapl.sbmt.dem.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that {@link FitsHeader} parses the cards of a FITS header without
+ * accessing the data unit.
+ *
+ * @author lopeznr1
+ */
+class TestFitsHeader
+{
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testRead() throws IOException
+	{
+		// Enough cards to span multiple header blocks
+		List<String> cardL = new ArrayList<>();
+		cardL.add("SIMPLE  =                    T / conforms to FITS standard");
+		cardL.add("BITPIX  =                  -32");
+		cardL.add("NAXIS   =                    3");
+		cardL.add("NAXIS1  =                 5001");
+		cardL.add("NAXIS2  =                 5001");
+		cardL.add("NAXIS3  =                   16");
+		cardL.add("CLAT    =   -12.5D0 / [deg] center latitude");
+		cardL.add("GSD     =                 0.25");
+		cardL.add("OBJECT  = 'BENNU''S SURFACE   ' / the target");
+		cardL.add("PLANE1  = 'X coordinate (km)'");
+		cardL.add("EMPTY   =                      / undefined value");
+		cardL.add("COMMENT   This card has no value");
+		for (int c1 = 0; c1 < 40; c1++)
+			cardL.add(String.format("HISTORY   Entry %d", c1));
+		cardL.add("CLAT    =                 99.0 / duplicate");
+
+		// The data unit (~1.6 GB) is not present at all
+		File tmpFile = new File(tempDir, "header.fits");
+		writeHeader(tmpFile, cardL);
+
+		FitsHeader tmpHeader = FitsHeader.read(tmpFile);
+		assertTrue(tmpHeader.isPrimary());
+		assertEquals(2 * FitsCube.BLOCK_SIZE, tmpHeader.getDataOffset());
+		assertEquals(cardL.size(), tmpHeader.getCardList().size());
+
+		assertEquals(-32, tmpHeader.getIntValue("BITPIX", 0));
+		assertEquals(5001, tmpHeader.getIntValue("NAXIS1", 0));
+		assertEquals(-12.5, tmpHeader.getDoubleValue("CLAT", Double.NaN));
+		assertEquals(0.25, tmpHeader.getDoubleValue("GSD", Double.NaN));
+		assertTrue(Double.isNaN(tmpHeader.getDoubleValue("CLON", Double.NaN)));
+		assertTrue(Double.isNaN(tmpHeader.getDoubleValue("OBJECT", Double.NaN)));
+
+		assertEquals("BENNU'S SURFACE", tmpHeader.getStringValue("OBJECT"));
+		assertEquals("X coordinate (km)", tmpHeader.getStringValue("PLANE1"));
+		assertNull(tmpHeader.getStringValue("EMPTY"));
+		assertTrue(tmpHeader.hasKey("EMPTY"));
+		assertNull(tmpHeader.getStringValue("COMMENT"));
+
+		FitsHeader.Card tmpCard = tmpHeader.getCardList().get(6);
+		assertEquals("CLAT", tmpCard.key);
+		assertEquals("-12.5D0", tmpCard.value);
+		assertEquals("[deg] center latitude", tmpCard.comment);
+		assertEquals("the target", tmpHeader.getCardList().get(8).comment);
+	}
+
+	@Test
+	void testInvalid() throws IOException
+	{
+		// Missing END card
+		File tmpFile = new File(tempDir, "truncated.fits");
+		try (OutputStream tmpOS = new FileOutputStream(tmpFile))
+		{
+			tmpOS.write(String.format("%-80s", "SIMPLE  =                    T").getBytes(StandardCharsets.US_ASCII));
+		}
+		assertThrows(IOException.class, () -> FitsHeader.read(tmpFile));
+
+		// Not a primary header
+		File otherFile = new File(tempDir, "other.fits");
+		writeHeader(otherFile, List.of("XTENSION= 'IMAGE   '"));
+		assertThrows(IOException.class, () -> FitsHeader.read(otherFile));
+	}
+
+	/**
+	 * Helper method that writes a header (terminated by END) with the specified
+	 * cards.
+	 */
+	private static void writeHeader(File aFile, List<String> aCardL) throws IOException
+	{
+		StringBuilder tmpSB = new StringBuilder();
+		for (String aCard : aCardL)
+			tmpSB.append(String.format("%-80s", aCard));
+		tmpSB.append(String.format("%-80s", "END"));
+		while (tmpSB.length() % FitsCube.BLOCK_SIZE != 0)
+			tmpSB.append(' ');
+
+		try (OutputStream tmpOS = new FileOutputStream(aFile))
+		{
+			tmpOS.write(tmpSB.toString().getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+
+}
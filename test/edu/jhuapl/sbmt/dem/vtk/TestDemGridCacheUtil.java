@@ -0,0 +1,208 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.jhuapl.sbmt.dem.io.FitsCube;
+import edu.jhuapl.sbmt.dem.vtk.DemGrid.BackPlaneLoader;
+
+import glum.task.SilentTask;
+
+/**
+ * Tests that a {@link DemGrid} survives a round trip through
+ * {@link DemGridCacheUtil} and that stale or corrupt cache files are rejected.
+ *
+ * @author lopeznr1
+ */
+class TestDemGridCacheUtil
+{
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testRoundTrip() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		TestGridMeshUtil.writeSyntheticCube(tmpFile, 9, 131, 97);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			assertNull(DemGridCacheUtil.loadGrid(tmpCube, scaleArr, null));
+
+			DemGrid expGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+			DemGridCacheUtil.saveGrid(tmpCube, scaleArr, expGrid);
+
+			DemGrid actGrid = DemGridCacheUtil.loadGrid(tmpCube, scaleArr, null);
+			assertNotNull(actGrid);
+			assertEquals(expGrid.getNumRows(), actGrid.getNumRows());
+			assertEquals(expGrid.getNumCols(), actGrid.getNumCols());
+			assertArrayEquals(expGrid.getRowStartArr(), actGrid.getRowStartArr());
+			for (DataMode aDataMode : DataMode.values())
+				assertArrayEquals(expGrid.getMask(aDataMode), actGrid.getMask(aDataMode));
+
+			MeshStruct expMS = GridMeshUtil.formMesh(expGrid, DataMode.Regular);
+			MeshStruct actMS = GridMeshUtil.formMesh(actGrid, DataMode.Regular);
+			assertArrayEquals(expMS.xyzArr, actMS.xyzArr);
+			assertArrayEquals(expMS.connArr, actMS.connArr);
+			for (int c1 = 0; c1 < expMS.valueArr.length; c1++)
+				assertArrayEquals(expMS.valueArr[c1], actMS.valueArr[c1]);
+
+			// Different scale factors must not utilize the cache
+			assertNull(DemGridCacheUtil.loadGrid(tmpCube, new float[] { 1.0f, 1.0f }, null));
+		}
+	}
+
+	@Test
+	void testLazyLoad() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		TestGridMeshUtil.writeSyntheticCube(tmpFile, 9, 89, 71);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			BackPlaneLoader tmpLoader = (aGrid, aSlot) -> GridMeshUtil.formRegularValues(tmpCube, aGrid,
+					tmpHS.backPlaneIndexL.get(aSlot), scaleArr[aSlot]);
+			DemGrid eagerGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+
+			// Values that were never resident must still be saved
+			DemGrid lazyGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, tmpLoader);
+			DemGridCacheUtil.saveGrid(tmpCube, scaleArr, lazyGrid);
+			assertFalse(lazyGrid.isResident(0));
+
+			DemGrid actGrid = DemGridCacheUtil.loadGrid(tmpCube, scaleArr, tmpLoader);
+			assertNotNull(actGrid);
+			assertFalse(actGrid.isResident(0));
+			assertArrayEquals(eagerGrid.getRegularValues(0), actGrid.getRegularValues(0));
+
+			// Corrupt (cached) values must be loaded via the fallback
+			File cacheFile = DemGridCacheUtil.getCacheFile(tmpFile);
+			long tmpTime = cacheFile.lastModified();
+			try (RandomAccessFile tmpRAF = new RandomAccessFile(cacheFile, "rw"))
+			{
+				long tmpPos = tmpRAF.length() - 5;
+				tmpRAF.seek(tmpPos);
+				int tmpVal = tmpRAF.read();
+				tmpRAF.seek(tmpPos);
+				tmpRAF.write(~tmpVal);
+			}
+			cacheFile.setLastModified(tmpTime);
+			assertArrayEquals(eagerGrid.getRegularValues(1), actGrid.getRegularValues(1));
+		}
+	}
+
+	@Test
+	void testCacheLoader() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		TestGridMeshUtil.writeSyntheticCube(tmpFile, 9, 73, 61);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			BackPlaneLoader failLoader = (aGrid, aSlot) -> {
+				throw new IOException("The source should not be read. Slot: " + aSlot);
+			};
+			assertNull(DemGridCacheUtil.formCacheLoader(tmpCube, scaleArr, failLoader));
+
+			// The values of a saved grid must be loaded from the cache file
+			DemGrid eagerGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+			DemGridCacheUtil.saveGrid(tmpCube, scaleArr, eagerGrid);
+			BackPlaneLoader cacheLoader = DemGridCacheUtil.formCacheLoader(tmpCube, scaleArr, failLoader);
+			assertNotNull(cacheLoader);
+
+			DemGrid lazyGrid = eagerGrid.cloneWithLoader(cacheLoader);
+			assertSame(eagerGrid.getXyzArr(), lazyGrid.getXyzArr());
+			for (int c1 = 0; c1 < scaleArr.length; c1++)
+			{
+				assertFalse(lazyGrid.isResident(c1));
+				assertArrayEquals(eagerGrid.getRegularValues(c1), lazyGrid.getRegularValues(c1));
+			}
+
+			// Different scale factors must not utilize the cache
+			assertNull(DemGridCacheUtil.formCacheLoader(tmpCube, new float[] { 1.0f, 1.0f }, failLoader));
+		}
+	}
+
+	@Test
+	void testTempFile() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		TestGridMeshUtil.writeSyntheticCube(tmpFile, 9, 37, 29);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		// The temporary file of another (in progress) save must not be touched
+		File cacheFile = DemGridCacheUtil.getCacheFile(tmpFile);
+		File otherFile = new File(cacheFile.getPath() + ".tmp");
+		Files.write(otherFile.toPath(), new byte[] { 1, 2, 3 });
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			DemGrid tmpGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+			DemGridCacheUtil.saveGrid(tmpCube, scaleArr, tmpGrid);
+			assertNotNull(DemGridCacheUtil.loadGrid(tmpCube, scaleArr, null));
+		}
+
+		assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(otherFile.toPath()));
+		String[] tempNameArr = tempDir.list((aDir, aName) -> aName.endsWith(".tmp"));
+		assertArrayEquals(new String[] { otherFile.getName() }, tempNameArr);
+	}
+
+	@Test
+	void testInvalidCache() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		TestGridMeshUtil.writeSyntheticCube(tmpFile, 9, 67, 53);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			DemGrid tmpGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+
+			// A corrupt payload must be rejected
+			DemGridCacheUtil.saveGrid(tmpCube, scaleArr, tmpGrid);
+			File cacheFile = DemGridCacheUtil.getCacheFile(tmpFile);
+			try (RandomAccessFile tmpRAF = new RandomAccessFile(cacheFile, "rw"))
+			{
+				long tmpPos = tmpRAF.length() - 5;
+				tmpRAF.seek(tmpPos);
+				int tmpVal = tmpRAF.read();
+				tmpRAF.seek(tmpPos);
+				tmpRAF.write(~tmpVal);
+			}
+			assertNull(DemGridCacheUtil.loadGrid(tmpCube, scaleArr, null));
+
+			// A modified source must be rejected
+			DemGridCacheUtil.saveGrid(tmpCube, scaleArr, tmpGrid);
+			assertNotNull(DemGridCacheUtil.loadGrid(tmpCube, scaleArr, null));
+			tmpFile.setLastModified(tmpFile.lastModified() - 60000);
+			assertNull(DemGridCacheUtil.loadGrid(tmpCube, scaleArr, null));
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.jhuapl.sbmt.dem.vtk.DemLoadEvent.Stage;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Tests that {@link DemLoadEvent}s are recorded (with the associated
+ * attributes) by the JDK Flight Recorder.
+ *
+ * @author lopeznr1
+ */
+class TestDemLoadEvent
+{
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testRecording() throws IOException
+	{
+		File srcFile = new File(tempDir, "dem.fits");
+		MeshStruct tmpMS = new MeshStruct(new float[9], new long[3], new float[][] { new float[3], null });
+
+		Path dumpPath = new File(tempDir, "dem.jfr").toPath();
+		try (Recording tmpRecording = new Recording())
+		{
+			tmpRecording.enable(DemLoadEvent.EVENT_NAME);
+			tmpRecording.start();
+
+			DemLoadEvent tmpEvent = DemLoadEvent.begin(srcFile, Stage.CubeRead);
+			tmpEvent.setSize(40, 30, 2);
+			tmpEvent.finish(12345L);
+
+			tmpEvent = DemLoadEvent.begin(null, Stage.Mesh);
+			tmpEvent.finish(DemLoadEvent.getNumBytes(tmpMS));
+
+			tmpRecording.stop();
+			tmpRecording.dump(dumpPath);
+		}
+
+		List<RecordedEvent> eventL = RecordingFile.readAllEvents(dumpPath);
+		eventL.removeIf(aEvent -> aEvent.getEventType().getName().equals(DemLoadEvent.EVENT_NAME) == false);
+		assertEquals(2, eventL.size());
+
+		RecordedEvent cubeEvent = eventL.get(0);
+		if (cubeEvent.getString("stage").equals(Stage.CubeRead.toString()) == false)
+			cubeEvent = eventL.get(1);
+		assertEquals(srcFile.getPath(), cubeEvent.getString("source"));
+		assertEquals(40, cubeEvent.getInt("numRows"));
+		assertEquals(30, cubeEvent.getInt("numCols"));
+		assertEquals(2, cubeEvent.getInt("numBackPlanes"));
+		assertEquals(12345L, cubeEvent.getLong("numBytes"));
+		assertFalse(cubeEvent.getDuration().isNegative());
+
+		RecordedEvent meshEvent = eventL.get(0) == cubeEvent ? eventL.get(1) : eventL.get(0);
+		assertEquals(Stage.Mesh.toString(), meshEvent.getString("stage"));
+		assertNull(meshEvent.getString("source"));
+		assertEquals(4L * 9 + 8L * 3 + 4L * 3, meshEvent.getLong("numBytes"));
+	}
+
+}
@@ -0,0 +1,536 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.jhuapl.sbmt.dem.io.FitsCube;
+import edu.jhuapl.sbmt.dem.vtk.DemGrid.BackPlaneLoader;
+
+import glum.task.SilentTask;
+
+/**
+ * Tests that the serial and parallel implementations of {@link GridMeshUtil}
+ * produce identical grids and that the meshes derived from them are identical.
+ * Also checks that the analytic (point) normals are oriented consistently
+ * with the winding of the triangles, sanity checks the (grid) boundary and
+ * checks that null (blank) pixels of tile compressed cubes are excluded.
+ *
+ * @author lopeznr1
+ */
+class TestGridMeshUtil
+{
+	// Constants
+	private static final float INVALID_VALUE = -1.0e38f;
+
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testSerialMatchesParallel() throws IOException
+	{
+		checkSerialMatchesParallel(317, 251);
+	}
+
+	@Test
+	void testSerialMatchesParallelBanded() throws IOException
+	{
+		// The cube is wide enough (each row spans 6 planes * 4000 cols * 4 bytes)
+		// that the serial implementation streams (and stores the points of)
+		// several bands
+		checkSerialMatchesParallel(80, 4000);
+	}
+
+	@Test
+	void testNormals() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		writeSyntheticCube(tmpFile, 9, 97, 83);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			DemGrid tmpGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+			for (DataMode aDataMode : DataMode.values())
+			{
+				MeshStruct tmpMS = GridMeshUtil.formMesh(tmpGrid, aDataMode);
+				float[] normalArr = GridMeshUtil.formNormals(tmpGrid, aDataMode, tmpMS);
+				assertEquals(tmpMS.numPoints * 3, normalArr.length);
+
+				// Each normal is either unit length or (degenerate) zero
+				for (int c1 = 0; c1 < tmpMS.numPoints; c1++)
+				{
+					double nX = normalArr[c1 * 3 + 0];
+					double nY = normalArr[c1 * 3 + 1];
+					double nZ = normalArr[c1 * 3 + 2];
+					double norm = Math.sqrt(nX * nX + nY * nY + nZ * nZ);
+					if (norm != 0)
+						assertEquals(1.0, norm, 1.0e-5);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testNormalOrientation() throws IOException
+	{
+		// Smooth surface (x, y, z, other, -, -, -, quality). Pixels are invalidated
+		// via the backplane (all modes) and the quality flag (Valid, Plain).
+		int numRows = 53;
+		int numCols = 67;
+		float[][][] valueArr = new float[8][numRows][numCols];
+		for (int m = 0; m < numRows; m++)
+		{
+			for (int n = 0; n < numCols; n++)
+			{
+				valueArr[0][m][n] = n;
+				valueArr[1][m][n] = m;
+				valueArr[2][m][n] = (float) (2.0 * Math.sin(0.3 * n) * Math.cos(0.2 * m));
+				valueArr[3][m][n] = m + n;
+				valueArr[7][m][n] = (m * 7 + n * 3) % 29 == 0 ? 0 : 1;
+				if ((m * 5 + n * 11) % 37 == 0)
+					valueArr[3][m][n] = INVALID_VALUE;
+			}
+		}
+
+		File tmpFile = new File(tempDir, "smooth.fits");
+		writePlainCube(tmpFile, valueArr);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3), List.of("Other"), List.of("m"), 0, 1,
+				2);
+		float[] scaleArr = { 1.0f };
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			DemGrid tmpGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+			for (DataMode aDataMode : DataMode.values())
+			{
+				MeshStruct tmpMS = GridMeshUtil.formMesh(tmpGrid, aDataMode);
+				float[] normalArr = GridMeshUtil.formNormals(tmpGrid, aDataMode, tmpMS);
+				assertTrue(tmpMS.numCells > 0);
+
+				// The normal of each vertex must point the same way as the normal of
+				// the cell: (p1 - p0) x (p2 - p0) for the emitted winding. Degenerate
+				// (zero) normals are skipped.
+				float[] xyzArr = tmpMS.xyzArr;
+				for (int c1 = 0; c1 < tmpMS.numCells; c1++)
+				{
+					int i0 = (int) tmpMS.connArr[c1 * 3 + 0];
+					int i1 = (int) tmpMS.connArr[c1 * 3 + 1];
+					int i2 = (int) tmpMS.connArr[c1 * 3 + 2];
+
+					double[] d1Arr = new double[3];
+					double[] d2Arr = new double[3];
+					for (int c2 = 0; c2 < 3; c2++)
+					{
+						d1Arr[c2] = xyzArr[i1 * 3 + c2] - xyzArr[i0 * 3 + c2];
+						d2Arr[c2] = xyzArr[i2 * 3 + c2] - xyzArr[i0 * 3 + c2];
+					}
+					double fX = d1Arr[1] * d2Arr[2] - d1Arr[2] * d2Arr[1];
+					double fY = d1Arr[2] * d2Arr[0] - d1Arr[0] * d2Arr[2];
+					double fZ = d1Arr[0] * d2Arr[1] - d1Arr[1] * d2Arr[0];
+
+					for (int aIdx : new int[] { i0, i1, i2 })
+					{
+						double nX = normalArr[aIdx * 3 + 0];
+						double nY = normalArr[aIdx * 3 + 1];
+						double nZ = normalArr[aIdx * 3 + 2];
+						if (nX == 0 && nY == 0 && nZ == 0)
+							continue;
+
+						double tmpDot = nX * fX + nY * fY + nZ * fZ;
+						assertTrue(tmpDot > 0, "Normal is opposite of cell. Mode: " + aDataMode + " Cell: " + c1);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void testBoundary() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		writeSyntheticCube(tmpFile, 9, 97, 83);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			DemGrid tmpGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+			for (DataMode aDataMode : DataMode.values())
+			{
+				MeshStruct tmpMS = GridMeshUtil.formMesh(tmpGrid, aDataMode);
+				LineStruct tmpLS = GridBoundaryUtil.formBoundary(tmpGrid, aDataMode, tmpMS);
+
+				// The boundary edges are the mesh edges with exactly 1 triangle
+				Map<String, Integer> edgeCntM = new HashMap<>();
+				for (int c1 = 0; c1 < tmpMS.numCells; c1++)
+				{
+					for (int c2 = 0; c2 < 3; c2++)
+					{
+						int begIdx = (int) tmpMS.connArr[c1 * 3 + c2];
+						int endIdx = (int) tmpMS.connArr[c1 * 3 + (c2 + 1) % 3];
+						edgeCntM.merge(formEdgeKey(tmpMS.xyzArr, begIdx, endIdx), 1, Integer::sum);
+					}
+				}
+				Set<String> expEdgeS = new HashSet<>();
+				edgeCntM.forEach((aKey, aCnt) -> {
+					if (aCnt == 1)
+						expEdgeS.add(aKey);
+				});
+
+				Set<String> actEdgeS = new HashSet<>();
+				for (int c1 = 0; c1 < tmpLS.numCells; c1++)
+					actEdgeS.add(formEdgeKey(tmpLS.xyzArr, (int) tmpLS.connArr[c1 * 2], (int) tmpLS.connArr[c1 * 2 + 1]));
+
+				assertTrue(expEdgeS.size() > 0);
+				assertEquals(expEdgeS.size(), tmpLS.numCells);
+				assertEquals(expEdgeS, actEdgeS);
+			}
+		}
+	}
+
+	@Test
+	void testLazyBackPlanes() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		writeSyntheticCube(tmpFile, 9, 211, 173);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		ForkJoinPool tmpPool = new ForkJoinPool(4);
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			BackPlaneLoader tmpLoader = (aGrid, aSlot) -> GridMeshUtil.formRegularValues(tmpCube, aGrid,
+					tmpHS.backPlaneIndexL.get(aSlot), scaleArr[aSlot]);
+
+			DemGrid eagerGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+			DemGrid serialGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, tmpLoader);
+			DemGrid parallelGrid = GridMeshUtil.formGridParallel(new SilentTask(), tmpCube, tmpHS, scaleArr,
+					tmpLoader, tmpPool);
+			for (DemGrid aLazyGrid : List.of(serialGrid, parallelGrid))
+			{
+				// The geometry must match while the values are not resident
+				assertArrayEquals(eagerGrid.getRowStartArr(), aLazyGrid.getRowStartArr());
+				assertArrayEquals(eagerGrid.getXyzArr(), aLazyGrid.getXyzArr());
+				assertArrayEquals(GridMeshUtil.formMesh(eagerGrid, DataMode.Regular).connArr,
+						GridMeshUtil.formMesh(aLazyGrid, DataMode.Regular).connArr);
+				assertFalse(aLazyGrid.isResident(0));
+				assertFalse(aLazyGrid.isResident(1));
+				assertTrue(aLazyGrid.getMemorySize() < eagerGrid.getMemorySize());
+
+				// The (lazily) loaded values must match
+				for (int aSlot = 0; aSlot < scaleArr.length; aSlot++)
+				{
+					float[] regularValueArr = aLazyGrid.getRegularValues(aSlot);
+					assertTrue(aLazyGrid.isResident(aSlot));
+					assertArrayEquals(eagerGrid.getRegularValues(aSlot), regularValueArr);
+
+					for (DataMode aDataMode : DataMode.values())
+					{
+						MeshStruct eagerMS = GridMeshUtil.formMesh(eagerGrid, aDataMode);
+						assertArrayEquals(eagerMS.valueArr[aSlot],
+								GridMeshUtil.formMeshValues(aLazyGrid, aDataMode, regularValueArr));
+
+						MeshStruct eagerLevelMS = GridPyramidUtil.formLevel(eagerGrid, aDataMode, 2);
+						assertArrayEquals(eagerLevelMS.valueArr[aSlot],
+								GridPyramidUtil.formLevelValues(aLazyGrid, aDataMode, 2, regularValueArr));
+					}
+				}
+				assertEquals(eagerGrid.getMemorySize(), aLazyGrid.getMemorySize());
+			}
+		}
+		finally
+		{
+			tmpPool.shutdown();
+		}
+	}
+
+	@Test
+	void testBlankTilePixel() throws IOException
+	{
+		// Quantized values (stored as integers) of a 4 plane (x, y, z, other) cube
+		int numRows = 9;
+		int numCols = 11;
+		int blankVal = -2147483647;
+		int[][][] quantArr = new int[4][numRows][numCols];
+		for (int m = 0; m < numRows; m++)
+		{
+			for (int n = 0; n < numCols; n++)
+			{
+				quantArr[0][m][n] = n * 2;
+				quantArr[1][m][n] = m * 2;
+				quantArr[2][m][n] = 10 + m + n;
+				quantArr[3][m][n] = m * n;
+			}
+		}
+
+		// Null (blank) pixels: one in the z plane and one in the backplane
+		quantArr[2][4][5] = blankVal;
+		quantArr[3][6][2] = blankVal;
+
+		// The equivalent uncompressed cube marks the same pixels as invalid
+		float[][][] plainArr = new float[4][numRows][numCols];
+		for (int p = 0; p < 4; p++)
+			for (int m = 0; m < numRows; m++)
+				for (int n = 0; n < numCols; n++)
+					plainArr[p][m][n] = quantArr[p][m][n] == blankVal ? INVALID_VALUE : quantArr[p][m][n] * 0.5f;
+
+		File tileFile = new File(tempDir, "blank.fits.fz");
+		writeQuantizedCube(tileFile, quantArr, 0.5, blankVal);
+		File plainFile = new File(tempDir, "blank.fits");
+		writePlainCube(plainFile, plainArr);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3), List.of("Other"), List.of("m"), 0, 1,
+				2);
+		float[] scaleArr = { 1.0f };
+		try (FitsCube tileCube = new FitsCube(tileFile); FitsCube plainCube = new FitsCube(plainFile))
+		{
+			// The null pixels are decoded as NaN
+			assertTrue(Float.isNaN(tileCube.readValue(2, 4, 5)));
+
+			DemGrid tileGrid = GridMeshUtil.formGridSerial(new SilentTask(), tileCube, tmpHS, scaleArr, null);
+			DemGrid plainGrid = GridMeshUtil.formGridSerial(new SilentTask(), plainCube, tmpHS, scaleArr, null);
+			for (DataMode aDataMode : DataMode.values())
+			{
+				MeshStruct tileMS = GridMeshUtil.formMesh(tileGrid, aDataMode);
+				assertEquals(numRows * numCols - 2, tileMS.numPoints);
+				for (float aVal : tileMS.xyzArr)
+					assertFalse(Float.isNaN(aVal));
+				for (float aVal : tileMS.valueArr[0])
+					assertFalse(Float.isNaN(aVal));
+
+				assertMeshEquals(GridMeshUtil.formMesh(plainGrid, aDataMode), tileMS);
+			}
+		}
+	}
+
+	/**
+	 * Helper method that returns a (direction independent) key of the edge
+	 * between the specified points.
+	 */
+	private static String formEdgeKey(float[] aXyzArr, int aBegIdx, int aEndIdx)
+	{
+		String begStr = aXyzArr[aBegIdx * 3] + "," + aXyzArr[aBegIdx * 3 + 1] + "," + aXyzArr[aBegIdx * 3 + 2];
+		String endStr = aXyzArr[aEndIdx * 3] + "," + aXyzArr[aEndIdx * 3 + 1] + "," + aXyzArr[aEndIdx * 3 + 2];
+		if (begStr.compareTo(endStr) < 0)
+			return begStr + "|" + endStr;
+		return endStr + "|" + begStr;
+	}
+
+	/**
+	 * Helper method that checks that the serial and parallel implementations
+	 * produce identical grids (and meshes) for a synthetic cube of the
+	 * specified dimensions.
+	 */
+	private void checkSerialMatchesParallel(int aNumRows, int aNumCols) throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		writeSyntheticCube(tmpFile, 9, aNumRows, aNumCols);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		ForkJoinPool tmpPool = new ForkJoinPool(4);
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			DemGrid serialGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+			DemGrid parallelGrid = GridMeshUtil.formGridParallel(new SilentTask(), tmpCube, tmpHS, scaleArr, null,
+					tmpPool);
+			assertArrayEquals(serialGrid.getRowStartArr(), parallelGrid.getRowStartArr());
+
+			for (DataMode aDataMode : DataMode.values())
+			{
+				assertArrayEquals(serialGrid.getMask(aDataMode), parallelGrid.getMask(aDataMode));
+
+				MeshStruct serialMS = GridMeshUtil.formMesh(serialGrid, aDataMode);
+				MeshStruct parallelMS = GridMeshUtil.formMesh(parallelGrid, aDataMode);
+				assertTrue(serialMS.numCells > 0);
+				assertMeshEquals(serialMS, parallelMS);
+			}
+
+			// The Valid mesh must be a strict subset of the Regular mesh
+			MeshStruct regularMS = GridMeshUtil.formMesh(serialGrid, DataMode.Regular);
+			MeshStruct validMS = GridMeshUtil.formMesh(serialGrid, DataMode.Valid);
+			assertTrue(validMS.numPoints < regularMS.numPoints);
+			assertTrue(validMS.numCells < regularMS.numCells);
+		}
+		finally
+		{
+			tmpPool.shutdown();
+		}
+	}
+
+	/**
+	 * Helper method that asserts that the 2 meshes are identical.
+	 */
+	private static void assertMeshEquals(MeshStruct aExpMS, MeshStruct aActMS)
+	{
+		assertEquals(aExpMS.numPoints, aActMS.numPoints);
+		assertEquals(aExpMS.numCells, aActMS.numCells);
+		assertArrayEquals(aExpMS.xyzArr, aActMS.xyzArr);
+		assertArrayEquals(aExpMS.connArr, aActMS.connArr);
+		assertEquals(aExpMS.valueArr.length, aActMS.valueArr.length);
+		for (int c1 = 0; c1 < aExpMS.valueArr.length; c1++)
+			assertArrayEquals(aExpMS.valueArr[c1], aActMS.valueArr[c1]);
+	}
+
+	/**
+	 * Helper method that writes a synthetic (float) FITS cube with a sprinkling
+	 * of invalid values. Plane 7 holds the quality flag.
+	 */
+	static void writeSyntheticCube(File aFile, int aNumPlanes, int aNumRows, int aNumCols) throws IOException
+	{
+		StringBuilder tmpSB = new StringBuilder();
+		String[] cardArr = { "SIMPLE  =                    T", "BITPIX  =                  -32",
+				"NAXIS   =                    3", String.format("NAXIS1  = %20d", aNumCols),
+				String.format("NAXIS2  = %20d", aNumRows), String.format("NAXIS3  = %20d", aNumPlanes), "END" };
+		for (String aCard : cardArr)
+			tmpSB.append(String.format("%-80s", aCard));
+		while (tmpSB.length() % FitsCube.BLOCK_SIZE != 0)
+			tmpSB.append(' ');
+
+		Random tmpRandom = new Random(3);
+		ByteBuffer tmpBB = ByteBuffer.allocate(aNumPlanes * aNumRows * aNumCols * 4);
+		for (int p = 0; p < aNumPlanes; p++)
+		{
+			for (int m = 0; m < aNumRows; m++)
+			{
+				for (int n = 0; n < aNumCols; n++)
+				{
+					float tmpVal = p * 10000 + m * 100 + n + tmpRandom.nextFloat();
+					if (p < 3 && tmpRandom.nextInt(50) == 0)
+						tmpVal = INVALID_VALUE;
+					else if (p == 7)
+						tmpVal = tmpRandom.nextInt(20) == 0 ? 0 : 1;
+					else if (p == 8 && tmpRandom.nextInt(200) == 0)
+						tmpVal = INVALID_VALUE;
+					tmpBB.putFloat(tmpVal);
+				}
+			}
+		}
+
+		int padSize = (FitsCube.BLOCK_SIZE - tmpBB.capacity() % FitsCube.BLOCK_SIZE) % FitsCube.BLOCK_SIZE;
+		try (OutputStream tmpOS = new FileOutputStream(aFile))
+		{
+			tmpOS.write(tmpSB.toString().getBytes(StandardCharsets.US_ASCII));
+			tmpOS.write(tmpBB.array());
+			tmpOS.write(new byte[padSize]);
+		}
+	}
+
+	/**
+	 * Helper method that writes an (uncompressed) float FITS cube with the
+	 * specified values.
+	 */
+	private static void writePlainCube(File aFile, float[][][] aValueArr) throws IOException
+	{
+		int numPlanes = aValueArr.length;
+		int numRows = aValueArr[0].length;
+		int numCols = aValueArr[0][0].length;
+		String[] cardArr = { "SIMPLE  =                    T", "BITPIX  =                  -32",
+				"NAXIS   =                    3", String.format("NAXIS1  = %20d", numCols),
+				String.format("NAXIS2  = %20d", numRows), String.format("NAXIS3  = %20d", numPlanes) };
+
+		ByteBuffer tmpBB = ByteBuffer.allocate(numPlanes * numRows * numCols * 4);
+		for (float[][] aPlaneArr : aValueArr)
+			for (float[] aRowArr : aPlaneArr)
+				for (float aVal : aRowArr)
+					tmpBB.putFloat(aVal);
+
+		try (OutputStream tmpOS = new FileOutputStream(aFile))
+		{
+			writeHdu(tmpOS, cardArr, tmpBB.array());
+		}
+	}
+
+	/**
+	 * Helper method that writes a tile compressed (NOCOMPRESS) FITS cube of
+	 * quantized (NO_DITHER) float values. Each row is a tile.
+	 *
+	 * @param aQuantArr The quantized values.
+	 * @param aZScale The quantization scale.
+	 * @param aZBlank The quantized value of a null pixel.
+	 */
+	private static void writeQuantizedCube(File aFile, int[][][] aQuantArr, double aZScale, int aZBlank)
+			throws IOException
+	{
+		int numPlanes = aQuantArr.length;
+		int numRows = aQuantArr[0].length;
+		int numCols = aQuantArr[0][0].length;
+		int numTiles = numPlanes * numRows;
+		int tileSize = numCols * 4;
+
+		// Table of (count, offset) descriptors followed by the heap of tiles
+		ByteBuffer tmpBB = ByteBuffer.allocate(numTiles * 8 + numTiles * tileSize);
+		for (int c1 = 0; c1 < numTiles; c1++)
+		{
+			tmpBB.putInt(tileSize);
+			tmpBB.putInt(c1 * tileSize);
+		}
+		for (int[][] aPlaneArr : aQuantArr)
+			for (int[] aRowArr : aPlaneArr)
+				for (int aVal : aRowArr)
+					tmpBB.putInt(aVal);
+
+		String[] primaryArr = { "SIMPLE  =                    T", "BITPIX  =                    8",
+				"NAXIS   =                    0", "EXTEND  =                    T" };
+		String[] tableArr = { "XTENSION= 'BINTABLE'", "BITPIX  =                    8", "NAXIS   =                    2",
+				"NAXIS1  =                    8", String.format("NAXIS2  = %20d", numTiles),
+				String.format("PCOUNT  = %20d", numTiles * tileSize), "GCOUNT  =                    1",
+				"TFIELDS =                    1", "TTYPE1  = 'COMPRESSED_DATA'", String.format("TFORM1  = '1PB(%d)'", tileSize),
+				"ZIMAGE  =                    T", "ZBITPIX =                  -32", "ZNAXIS  =                    3",
+				String.format("ZNAXIS1 = %20d", numCols), String.format("ZNAXIS2 = %20d", numRows),
+				String.format("ZNAXIS3 = %20d", numPlanes), String.format("ZTILE1  = %20d", numCols),
+				"ZTILE2  =                    1", "ZTILE3  =                    1", "ZCMPTYPE= 'NOCOMPRESS'",
+				"ZQUANTIZ= 'NO_DITHER'", String.format("ZSCALE  = %20.1f", aZScale), "ZZERO   =                  0.0",
+				String.format("ZBLANK  = %20d", aZBlank) };
+
+		try (OutputStream tmpOS = new FileOutputStream(aFile))
+		{
+			writeHdu(tmpOS, primaryArr, new byte[0]);
+			writeHdu(tmpOS, tableArr, tmpBB.array());
+		}
+	}
+
+	/**
+	 * Helper method that writes a single HDU (header and padded data unit).
+	 */
+	private static void writeHdu(OutputStream aOS, String[] aCardArr, byte[] aDataArr) throws IOException
+	{
+		StringBuilder tmpSB = new StringBuilder();
+		for (String aCard : aCardArr)
+			tmpSB.append(String.format("%-80s", aCard));
+		tmpSB.append(String.format("%-80s", "END"));
+		while (tmpSB.length() % FitsCube.BLOCK_SIZE != 0)
+			tmpSB.append(' ');
+
+		int padSize = (FitsCube.BLOCK_SIZE - aDataArr.length % FitsCube.BLOCK_SIZE) % FitsCube.BLOCK_SIZE;
+		aOS.write(tmpSB.toString().getBytes(StandardCharsets.US_ASCII));
+		aOS.write(aDataArr);
+		aOS.write(new byte[padSize]);
+	}
+
+}
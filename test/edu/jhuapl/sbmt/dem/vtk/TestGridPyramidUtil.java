@@ -0,0 +1,91 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.jhuapl.sbmt.dem.io.FitsCube;
+
+import glum.task.SilentTask;
+
+/**
+ * Tests that the levels formed via {@link GridPyramidUtil} are well formed
+ * reductions of the full resolution mesh.
+ *
+ * @author lopeznr1
+ */
+class TestGridPyramidUtil
+{
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testLevels() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		TestGridMeshUtil.writeSyntheticCube(tmpFile, 9, 211, 157);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			DemGrid tmpGrid = GridMeshUtil.formGridSerial(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+			for (DataMode aDataMode : DataMode.values())
+			{
+				MeshStruct fullMS = GridMeshUtil.formMesh(tmpGrid, aDataMode);
+				float[] fullRangeArr = getRange(fullMS.valueArr[0]);
+
+				int prevNumCells = fullMS.numCells;
+				for (int aStride : GridPyramidUtil.LEVEL_STRIDE_ARR)
+				{
+					MeshStruct levelMS = GridPyramidUtil.formLevel(tmpGrid, aDataMode, aStride);
+					assertNotNull(levelMS);
+					assertTrue(levelMS.numCells > 0);
+					assertTrue(levelMS.numCells < prevNumCells);
+					prevNumCells = levelMS.numCells;
+
+					for (long aId : levelMS.connArr)
+						assertTrue(aId >= 0 && aId < levelMS.numPoints);
+
+					// Level values are drawn from the full resolution values
+					float[] levelRangeArr = getRange(levelMS.valueArr[0]);
+					assertTrue(levelRangeArr[0] >= fullRangeArr[0]);
+					assertTrue(levelRangeArr[1] <= fullRangeArr[1]);
+				}
+			}
+
+			// A grid that is too small can not be reduced
+			File smallFile = new File(tempDir, "small.fits");
+			TestGridMeshUtil.writeSyntheticCube(smallFile, 9, 2, 2);
+			try (FitsCube smallCube = new FitsCube(smallFile))
+			{
+				DemGrid smallGrid = GridMeshUtil.formGridSerial(new SilentTask(), smallCube, tmpHS, scaleArr, null);
+				assertNull(GridPyramidUtil.formLevel(smallGrid, DataMode.Regular, 2));
+			}
+		}
+	}
+
+	/**
+	 * Helper method that returns the min and max of the specified values.
+	 */
+	private static float[] getRange(float[] aValueArr)
+	{
+		float[] retRangeArr = { Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY };
+		for (float aVal : aValueArr)
+		{
+			retRangeArr[0] = Math.min(retRangeArr[0], aVal);
+			retRangeArr[1] = Math.max(retRangeArr[1], aVal);
+		}
+
+		return retRangeArr;
+	}
+
+}
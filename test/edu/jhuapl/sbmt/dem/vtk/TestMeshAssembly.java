@@ -0,0 +1,211 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import vtk.vtkCellArray;
+import vtk.vtkFloatArray;
+import vtk.vtkIdList;
+import vtk.vtkNativeLibrary;
+import vtk.vtkPoints;
+import vtk.vtkPolyData;
+
+import edu.jhuapl.sbmt.dem.io.FitsCube;
+
+import glum.task.SilentTask;
+
+/**
+ * Tests that the bulk assembly of a DEM mesh - via {@link GridMeshUtil} and
+ * {@link VtkArrayUtil} - results in the same VTK state as a per element (JNI)
+ * assembly of the same cube.
+ * <p>
+ * The per element assembly reads the cube row by row and emits the triangles
+ * of each quad with the winding of {@link GridMeshUtil}: (i1, i2, i0) and (i1,
+ * i3, i2). The performance of both assemblies is compared via
+ * {@link TestMeshAssemblyBenchmark}.
+ * <p>
+ * This test requires the VTK native libraries and is only run when the system
+ * property sbmt.vtk.native is set to true:
+ *
+ * <pre>
+ * mvn test -Dtest=TestMeshAssembly -Dsbmt.vtk.native=true
+ * </pre>
+ *
+ * @author lopeznr1
+ */
+@EnabledIfSystemProperty(named = "sbmt.vtk.native", matches = "true")
+class TestMeshAssembly
+{
+	@TempDir
+	File tempDir;
+
+	@BeforeAll
+	static void setUpBeforeClass()
+	{
+		vtkNativeLibrary.LoadAllNativeLibraries();
+	}
+
+	@Test
+	void testBulkMatchesPerElement() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		TestGridMeshUtil.writeSyntheticCube(tmpFile, 9, 131, 97);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			// Bulk assembly
+			DemGrid tmpGrid = GridMeshUtil.formGrid(new SilentTask(), tmpCube, tmpHS, scaleArr, null);
+			MeshStruct tmpMS = GridMeshUtil.formMesh(tmpGrid, DataMode.Regular);
+			vtkPolyData bulkPD = new vtkPolyData();
+			bulkPD.SetPoints(VtkArrayUtil.formPoints(tmpMS.xyzArr));
+			bulkPD.SetPolys(VtkArrayUtil.formTriangleCellArray(tmpMS.connArr));
+			vtkFloatArray[] bulkValueArr = new vtkFloatArray[scaleArr.length];
+			for (int i = 0; i < scaleArr.length; i++)
+				bulkValueArr[i] = VtkArrayUtil.formFloatArray(tmpMS.valueArr[i], 1);
+
+			// Per element assembly
+			vtkFloatArray[] elemValueArr = new vtkFloatArray[scaleArr.length];
+			vtkPolyData elemPD = assemblePerElement(tmpCube, tmpHS, scaleArr, elemValueArr);
+
+			// Both must define the same points, triangles (winding) and values
+			assertEquals(elemPD.GetNumberOfPoints(), bulkPD.GetNumberOfPoints());
+			assertEquals(elemPD.GetNumberOfCells(), bulkPD.GetNumberOfCells());
+			assertTrue(bulkPD.GetNumberOfCells() > 0);
+
+			vtkPoints elemPoints = elemPD.GetPoints();
+			vtkPoints bulkPoints = bulkPD.GetPoints();
+			double[] elemPt = new double[3];
+			double[] bulkPt = new double[3];
+			for (int aIdx = 0; aIdx < bulkPD.GetNumberOfPoints(); aIdx++)
+			{
+				elemPoints.GetPoint(aIdx, elemPt);
+				bulkPoints.GetPoint(aIdx, bulkPt);
+				assertArrayEquals(elemPt, bulkPt);
+				for (int i = 0; i < scaleArr.length; i++)
+					assertEquals(elemValueArr[i].GetValue(aIdx), bulkValueArr[i].GetValue(aIdx));
+			}
+
+			vtkIdList elemIL = new vtkIdList();
+			vtkIdList bulkIL = new vtkIdList();
+			for (int aCellIdx = 0; aCellIdx < bulkPD.GetNumberOfCells(); aCellIdx++)
+			{
+				elemPD.GetCellPoints(aCellIdx, elemIL);
+				bulkPD.GetCellPoints(aCellIdx, bulkIL);
+				assertEquals(3, bulkIL.GetNumberOfIds());
+				for (int c1 = 0; c1 < 3; c1++)
+					assertEquals(elemIL.GetId(c1), bulkIL.GetId(c1));
+			}
+
+			elemIL.Delete();
+			bulkIL.Delete();
+			elemPD.Delete();
+			bulkPD.Delete();
+			for (int i = 0; i < scaleArr.length; i++)
+			{
+				elemValueArr[i].Delete();
+				bulkValueArr[i].Delete();
+			}
+		}
+	}
+
+	/**
+	 * Helper method that assembles the (regular) mesh of the specified cube via
+	 * per element JNI calls.
+	 * <p>
+	 * The (scaled) backplane values are stored in aValueArr.
+	 */
+	static vtkPolyData assemblePerElement(FitsCube aCube, HeaderStruct aHS, float[] aScaleArr,
+			vtkFloatArray[] aValueArr) throws IOException
+	{
+		int numRows = aCube.getNumRows();
+		int numCols = aCube.getNumCols();
+		int numBackPlanes = aScaleArr.length;
+
+		vtkPoints vPoints = new vtkPoints();
+		vtkCellArray vPolys = new vtkCellArray();
+		vtkIdList vIdList = new vtkIdList();
+		vIdList.SetNumberOfIds(3);
+		for (int i = 0; i < numBackPlanes; i++)
+		{
+			aValueArr[i] = new vtkFloatArray();
+			aValueArr[i].SetNumberOfComponents(1);
+		}
+
+		float[] xArr = new float[numCols];
+		float[] yArr = new float[numCols];
+		float[] zArr = new float[numCols];
+		float[][] bpArr = new float[numBackPlanes][numCols];
+
+		int[] prevIdxArr = new int[numCols];
+		int[] currIdxArr = new int[numCols];
+		int c = 0;
+		for (int m = 0; m < numRows; m++)
+		{
+			aCube.readRow(aHS.xIdx, m, xArr);
+			aCube.readRow(aHS.yIdx, m, yArr);
+			aCube.readRow(aHS.zIdx, m, zArr);
+			for (int i = 0; i < numBackPlanes; i++)
+				aCube.readRow(aHS.backPlaneIndexL.get(i), m, bpArr[i]);
+
+			for (int n = 0; n < numCols; n++)
+			{
+				currIdxArr[n] = -1;
+				if (GridMeshUtil.isValidPixel(xArr, yArr, zArr, null, bpArr, n, DataMode.Regular) == false)
+					continue;
+
+				vPoints.InsertNextPoint(xArr[n], yArr[n], zArr[n]);
+				for (int i = 0; i < numBackPlanes; i++)
+					aValueArr[i].InsertNextTuple1(bpArr[i][n] * aScaleArr[i]);
+				currIdxArr[n] = c++;
+			}
+
+			for (int n = 1; m > 0 && n < numCols; n++)
+			{
+				int i0 = prevIdxArr[n - 1];
+				int i1 = currIdxArr[n - 1];
+				int i2 = prevIdxArr[n];
+				int i3 = currIdxArr[n];
+				if (i0 >= 0 && i1 >= 0 && i2 >= 0)
+					insertTriangle(vPolys, vIdList, i1, i2, i0);
+				if (i2 >= 0 && i1 >= 0 && i3 >= 0)
+					insertTriangle(vPolys, vIdList, i1, i3, i2);
+			}
+
+			int[] tmpIdxArr = prevIdxArr;
+			prevIdxArr = currIdxArr;
+			currIdxArr = tmpIdxArr;
+		}
+
+		vtkPolyData retPD = new vtkPolyData();
+		retPD.SetPoints(vPoints);
+		retPD.SetPolys(vPolys);
+		vIdList.Delete();
+		return retPD;
+	}
+
+	/**
+	 * Helper method that inserts the specified triangle via per element JNI
+	 * calls.
+	 */
+	private static void insertTriangle(vtkCellArray aPolys, vtkIdList aIdList, int aId0, int aId1, int aId2)
+	{
+		aIdList.SetId(0, aId0);
+		aIdList.SetId(1, aId1);
+		aIdList.SetId(2, aId2);
+		aPolys.InsertNextCell(aIdList);
+	}
+
+}
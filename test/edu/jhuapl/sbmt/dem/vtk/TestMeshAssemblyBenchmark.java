@@ -0,0 +1,137 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import vtk.vtkCellArray;
+import vtk.vtkFloatArray;
+import vtk.vtkNativeLibrary;
+import vtk.vtkPoints;
+import vtk.vtkPolyData;
+
+import edu.jhuapl.sbmt.dem.io.FitsCube;
+
+import glum.task.SilentTask;
+
+/**
+ * Benchmark that compares the per element (JNI) assembly of a DEM mesh against
+ * the bulk assembly via {@link GridMeshUtil} and {@link VtkArrayUtil}.
+ * <p>
+ * A synthetic 2k x 2k cube (with 2 backplanes and a sprinkling of invalid
+ * pixels) is used. The correctness of the bulk assembly is covered by
+ * {@link TestMeshAssembly} - this benchmark only verifies that both assemblies
+ * result in the same number of points and cells.
+ * <p>
+ * The benchmark requires the VTK native libraries and is disabled by default.
+ * It is only run when the system property sbmt.dem.benchmark is set to true:
+ *
+ * <pre>
+ * mvn test -Dtest=TestMeshAssemblyBenchmark -Dsbmt.dem.benchmark=true
+ * </pre>
+ *
+ * @author lopeznr1
+ */
+@EnabledIfSystemProperty(named = "sbmt.dem.benchmark", matches = "true")
+class TestMeshAssemblyBenchmark
+{
+	// Constants
+	private static final int NumRows = 2048;
+	private static final int NumCols = 2048;
+	private static final int NumTrials = 3;
+
+	@TempDir
+	File tempDir;
+
+	@BeforeAll
+	static void setUpBeforeClass()
+	{
+		vtkNativeLibrary.LoadAllNativeLibraries();
+	}
+
+	@Test
+	void testBenchmark() throws IOException
+	{
+		File tmpFile = new File(tempDir, "synthetic.fits");
+		TestGridMeshUtil.writeSyntheticCube(tmpFile, 9, NumRows, NumCols);
+
+		HeaderStruct tmpHS = new HeaderStruct(null, new HashMap<>(), List.of(3, 8), List.of("Slope", "Other"),
+				List.of("radians", "m"), 0, 1, 2);
+		float[] scaleArr = { 57.3f, 1.0f };
+
+		long perElementNS = Long.MAX_VALUE;
+		long bulkNS = Long.MAX_VALUE;
+		try (FitsCube tmpCube = new FitsCube(tmpFile))
+		{
+			for (int c1 = 0; c1 < NumTrials; c1++)
+			{
+				long begNS = System.nanoTime();
+				long[] perElementCntArr = assemblePerElement(tmpCube, tmpHS, scaleArr);
+				perElementNS = Math.min(perElementNS, System.nanoTime() - begNS);
+
+				begNS = System.nanoTime();
+				long[] bulkCntArr = assembleBulk(tmpCube, tmpHS, scaleArr);
+				bulkNS = Math.min(bulkNS, System.nanoTime() - begNS);
+
+				assertArrayEquals(perElementCntArr, bulkCntArr);
+			}
+		}
+
+		System.out.printf("Mesh assembly (%d x %d, %d backplanes) best of %d trials:\n", NumRows, NumCols,
+				scaleArr.length, NumTrials);
+		System.out.printf("\tPer element: %8.1f ms\n", perElementNS / 1.0e6);
+		System.out.printf("\tBulk:        %8.1f ms\n", bulkNS / 1.0e6);
+		System.out.printf("\tSpeedup:     %8.2f x\n", (double) perElementNS / bulkNS);
+	}
+
+	/**
+	 * Helper method that assembles the mesh via per element JNI calls.
+	 * <p>
+	 * Returns the number of points and cells.
+	 */
+	private static long[] assemblePerElement(FitsCube aCube, HeaderStruct aHS, float[] aScaleArr)
+			throws IOException
+	{
+		vtkFloatArray[] vValueArr = new vtkFloatArray[aScaleArr.length];
+		vtkPolyData vTmpPD = TestMeshAssembly.assemblePerElement(aCube, aHS, aScaleArr, vValueArr);
+
+		long[] retCntArr = { vTmpPD.GetNumberOfPoints(), vTmpPD.GetNumberOfCells() };
+		vTmpPD.Delete();
+		for (vtkFloatArray aItem : vValueArr)
+			aItem.Delete();
+		return retCntArr;
+	}
+
+	/**
+	 * Helper method that assembles the mesh via primitive arrays and a single
+	 * bulk transfer per array.
+	 * <p>
+	 * Returns the number of points and cells.
+	 */
+	private static long[] assembleBulk(FitsCube aCube, HeaderStruct aHS, float[] aScaleArr) throws IOException
+	{
+		DemGrid tmpGrid = GridMeshUtil.formGrid(new SilentTask(), aCube, aHS, aScaleArr, null);
+		MeshStruct tmpMS = GridMeshUtil.formMesh(tmpGrid, DataMode.Regular);
+		vtkPoints vPoints = VtkArrayUtil.formPoints(tmpMS.xyzArr);
+		vtkCellArray vPolys = VtkArrayUtil.formTriangleCellArray(tmpMS.connArr);
+		vtkFloatArray[] vValueArr = new vtkFloatArray[aScaleArr.length];
+		for (int i = 0; i < aScaleArr.length; i++)
+			vValueArr[i] = VtkArrayUtil.formFloatArray(tmpMS.valueArr[i], 1);
+
+		long[] retCntArr = { vPoints.GetNumberOfPoints(), vPolys.GetNumberOfCells() };
+		vPoints.Delete();
+		vPolys.Delete();
+		for (vtkFloatArray aItem : vValueArr)
+			aItem.Delete();
+		return retCntArr;
+	}
+
+}
@@ -0,0 +1,123 @@
+package edu.jhuapl.sbmt.dem.vtk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import glum.task.SilentTask;
+
+/**
+ * Tests that {@link ObjMeshUtil} parses an OBJ file identically regardless of
+ * how the file is split into chunks.
+ *
+ * @author lopeznr1
+ */
+class TestObjMeshUtil
+{
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testLoadMesh() throws IOException
+	{
+		// Form a synthetic grid mesh
+		int numRows = 61;
+		int numCols = 47;
+		Random tmpRandom = new Random(7);
+		float[] expXyzArr = new float[numRows * numCols * 3];
+		for (int c1 = 0; c1 < expXyzArr.length; c1++)
+			expXyzArr[c1] = (tmpRandom.nextFloat() - 0.5f) * (float) Math.pow(10, tmpRandom.nextInt(9) - 4);
+
+		List<Long> expConnL = new ArrayList<>();
+		StringBuilder tmpSB = new StringBuilder();
+		tmpSB.append("# Synthetic DEM\r\n");
+		tmpSB.append("mtllib none.mtl\n");
+		for (int m = 0; m < numRows; m++)
+		{
+			for (int n = 0; n < numCols; n++)
+			{
+				int tmpIdx = (m * numCols + n) * 3;
+				String fmtStr = (n % 2 == 0) ? "v %s %s %s\n" : "v\t%s  %s %s 1.0\r\n";
+				tmpSB.append(String.format(fmtStr, expXyzArr[tmpIdx], expXyzArr[tmpIdx + 1], expXyzArr[tmpIdx + 2]));
+				tmpSB.append("vn 0 0 1\n");
+				tmpSB.append("vt 0.5 0.5\n");
+
+				if (m == 0 || n == 0)
+					continue;
+
+				// Faces utilize a variety of supported forms
+				long i0 = (m - 1) * numCols + (n - 1);
+				long i1 = m * numCols + (n - 1);
+				long i2 = (m - 1) * numCols + n;
+				long i3 = m * numCols + n;
+				long numPoints = m * numCols + n + 1;
+				if (n % 3 == 0)
+				{
+					// Quad (fan triangulated) with relative indices
+					tmpSB.append(String.format("f %d %d %d %d # quad\n", i0 - numPoints, i1 - numPoints, i3 - numPoints,
+							i2 - numPoints));
+					expConnL.addAll(List.of(i0, i1, i3, i0, i3, i2));
+				}
+				else
+				{
+					tmpSB.append(String.format("f %d/1/1 %d/1/1 %d/1/1\n", i0 + 1, i1 + 1, i2 + 1));
+					tmpSB.append(String.format("f %d//1 %d//1 %d//1\n", i1 + 1, i3 + 1, i2 + 1));
+					expConnL.addAll(List.of(i0, i1, i2, i1, i3, i2));
+				}
+			}
+		}
+
+		File tmpFile = new File(tempDir, "synthetic.obj");
+		try (OutputStream tmpOS = new FileOutputStream(tmpFile))
+		{
+			tmpOS.write(tmpSB.toString().getBytes(StandardCharsets.US_ASCII));
+		}
+
+		long[] expConnArr = expConnL.stream().mapToLong(Long::longValue).toArray();
+		ForkJoinPool tmpPool = new ForkJoinPool(4);
+		try
+		{
+			// Chunks smaller than a line, a handful of lines, and the entire file
+			for (int aChunkSize : new int[] { 7, 997, 1 << 23 })
+			{
+				MeshStruct tmpMS = ObjMeshUtil.loadMesh(new SilentTask(), tmpFile, aChunkSize, tmpPool);
+				assertEquals(numRows * numCols, tmpMS.numPoints);
+				assertArrayEquals(expXyzArr, tmpMS.xyzArr);
+				assertArrayEquals(expConnArr, tmpMS.connArr);
+			}
+		}
+		finally
+		{
+			tmpPool.shutdown();
+		}
+	}
+
+	@Test
+	void testInvalid() throws IOException
+	{
+		File tmpFile = new File(tempDir, "invalid.obj");
+		try (OutputStream tmpOS = new FileOutputStream(tmpFile))
+		{
+			tmpOS.write("v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n".getBytes(StandardCharsets.US_ASCII));
+		}
+		assertThrows(IOException.class, () -> ObjMeshUtil.loadMesh(new SilentTask(), tmpFile));
+
+		try (OutputStream tmpOS = new FileOutputStream(tmpFile))
+		{
+			tmpOS.write("v 0 zero 0\n".getBytes(StandardCharsets.US_ASCII));
+		}
+		assertThrows(IOException.class, () -> ObjMeshUtil.loadMesh(new SilentTask(), tmpFile));
+	}
+
+}